@@ -45,14 +45,42 @@ public class Cavity {
   private final EdgeGraph<Element, Element.Edge> graph;
   private final HashSet<Edge<Element.Edge>> connections;
   // the edge-relations that connect the boundary to the cavity
+  private final boolean speculative;
+  private final HashSet<Node<Element>> owned;
+  // the nodes this cavity has marked as its own, when speculative
+
+  /**
+   * Thrown when a speculative cavity touches a node that another cavity owns
+   */
+  public static final class Conflict extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  private static final Conflict CONFLICT = new Conflict();
 
   public Cavity(EdgeGraph<Element, Element.Edge> mesh) {
+    this(mesh, false);
+  }
+
+  /**
+   * A speculative cavity marks every node it touches as its own before reading the node's
+   * neighbors, and throws Conflict if another cavity already owns the node. Nothing in the mesh is
+   * changed until the caller commits the cavity, so aborting only means releasing the marks.
+   */
+  public Cavity(EdgeGraph<Element, Element.Edge> mesh, boolean speculative) {
     center = null;
     frontier = new LinkedList<Node<Element>>();
     pre = new Subgraph();
     post = new Subgraph();
     graph = mesh;
     connections = new HashSet<Edge<Element.Edge>>();
+    this.speculative = speculative;
+    owned = new HashSet<Node<Element>>();
   }
 
   public Subgraph getPre() {
@@ -64,6 +92,25 @@ public class Cavity {
   }
 
   public void triggerAbort() {
+    throw CONFLICT;
+  }
+
+  // mark node as owned by this cavity, or abort if another cavity owns it
+  public void acquire(Node<Element> node) {
+    if (speculative) {
+      if (!graph.acquire(node, this)) {
+        triggerAbort();
+      }
+      owned.add(node);
+    }
+  }
+
+  // release every node this cavity owns, after committing or aborting
+  public void release() {
+    for (Node<Element> node : owned) {
+      graph.release(node, this);
+    }
+    owned.clear();
   }
 
   public void triggerBorderConflict() {
@@ -75,6 +122,7 @@ public class Cavity {
     connections.clear();
     frontier.clear();
     centerNode = node;
+    acquire(centerNode);
     centerElement = graph.getNodeData(centerNode);
     while (graph.containsNode(centerNode) && centerElement.isObtuse()) {
       Edge<Element.Edge> oppositeEdge = getOpposite(centerNode);
@@ -83,6 +131,7 @@ public class Cavity {
       } else {
         centerNode = graph.getSource(oppositeEdge);
       }
+      acquire(centerNode);
       centerElement = graph.getNodeData(centerNode);
       if (centerNode == null) {
         System.exit(-1);
@@ -124,6 +173,7 @@ public class Cavity {
       Node<Element> curr = frontier.poll();
       Collection<? extends Node<Element>> neighbors = graph.getOutNeighbors(curr);
       for (Node<Element> next : neighbors) {
+        acquire(next);
         Element nextElement = graph.getNodeData(next);
         Edge<Element.Edge> edge = graph.getEdge(curr, next);
         if (isMember(next)) {  // isMember says next is part of the cavity
@@ -29,17 +29,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DirectedEdgeGraph<NodeData, EdgeData> implements EdgeGraph<NodeData, EdgeData> {
 
   Set<EdgeGraphNode> nodes;
 
   public DirectedEdgeGraph() {
-    nodes = Collections.synchronizedSet(new HashSet<EdgeGraphNode>());
+    nodes = Collections.newSetFromMap(new ConcurrentHashMap<EdgeGraphNode, Boolean>());
   }
 
   @Override
@@ -201,6 +202,17 @@ public class DirectedEdgeGraph<NodeData, EdgeData> implements EdgeGraph<NodeData
     }
   }
 
+  @Override
+  public boolean acquire(Node<NodeData> n, Object owner) {
+    AtomicReference<Object> mark = ((DirectedEdgeGraph<?, ?>.EdgeGraphNode) n).owner;
+    return mark.compareAndSet(null, owner) || mark.get() == owner;
+  }
+
+  @Override
+  public void release(Node<NodeData> n, Object owner) {
+    ((DirectedEdgeGraph<?, ?>.EdgeGraphNode) n).owner.compareAndSet(owner, null);
+  }
+
   @Override
   public NodeData setNodeData(Node<NodeData> n, NodeData d) {
     EdgeGraphNode egn = (EdgeGraphNode) n;
@@ -215,6 +227,9 @@ public class DirectedEdgeGraph<NodeData, EdgeData> implements EdgeGraph<NodeData
 
     protected NodeData data;
 
+    // the activity that currently owns this node, or null
+    final AtomicReference<Object> owner = new AtomicReference<Object>();
+
     EdgeGraphNode() {
     }
 
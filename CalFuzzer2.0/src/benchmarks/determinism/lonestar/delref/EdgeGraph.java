@@ -128,4 +128,23 @@ public interface EdgeGraph<NodeData, EdgeData> extends Graph<NodeData> {
    * @return The data previously associated with e
    */
   EdgeData setEdgeData(Edge<EdgeData> e, EdgeData d);
+
+  /**
+   * Try to mark a node as owned by an activity. Speculative parallel operators call this for every
+   * node they touch, so that activities working on overlapping neighborhoods detect the conflict
+   * instead of corrupting the graph.
+   *
+   * @param n     The node to acquire
+   * @param owner The activity acquiring the node
+   * @return true if n is now owned by owner (or already was), false if another activity owns it
+   */
+  boolean acquire(Node<NodeData> n, Object owner);
+
+  /**
+   * Clear the ownership mark of a node, if it is owned by the given activity
+   *
+   * @param n     The node to release
+   * @param owner The activity releasing the node
+   */
+  void release(Node<NodeData> n, Object owner);
 }
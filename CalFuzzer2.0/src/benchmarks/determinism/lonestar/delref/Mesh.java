@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Scanner;
 import java.util.Stack;
 
@@ -69,6 +70,66 @@ public class Mesh {
     return ret;
   }
 
+  // input is either a file name prefix (name.node, name.ele, name.poly) or grid:<rows>x<cols>
+  public static void load(EdgeGraph<Element, Element.Edge> mesh, String input) {
+    if (input.startsWith("grid:")) {
+      String[] size = input.substring(5).split("x");
+      generate(mesh, Integer.parseInt(size[0]), Integer.parseInt(size[1]), 42);
+    } else {
+      read(mesh, input);
+    }
+  }
+
+  // generates the Delaunay triangulation of a rows x cols grid of flat cells, 1 wide and 0.25 high,
+  // with the interior points jittered slightly. Every triangle has an angle of about 14 degrees,
+  // so the whole mesh starts out bad.
+  public static void generate(EdgeGraph<Element, Element.Edge> mesh, int rows, int cols,
+      long seed) {
+    final double width = 1.0;
+    final double height = 0.25;
+    final double jitter = 0.02;
+    Random random = new Random(seed);
+    Tuple[][] points = new Tuple[rows + 1][cols + 1];
+    for (int r = 0; r <= rows; r++) {
+      for (int c = 0; c <= cols; c++) {
+        double x = c * width;
+        double y = r * height;
+        if (r > 0 && r < rows && c > 0 && c < cols) {
+          x += (2 * random.nextDouble() - 1) * jitter;
+          y += (2 * random.nextDouble() - 1) * jitter;
+        }
+        points[r][c] = new Tuple(x, y, 0);
+      }
+    }
+
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < cols; c++) {
+        Tuple p00 = points[r][c];
+        Tuple p01 = points[r][c + 1];
+        Tuple p10 = points[r + 1][c];
+        Tuple p11 = points[r + 1][c + 1];
+        // use the diagonal whose triangles have empty circumcircles
+        Element lower = new Element(p00, p01, p11);
+        if (!lower.inCircle(p10)) {
+          addElement(mesh, lower);
+          addElement(mesh, new Element(p00, p11, p10));
+        } else {
+          addElement(mesh, new Element(p00, p01, p10));
+          addElement(mesh, new Element(p01, p11, p10));
+        }
+      }
+    }
+
+    for (int c = 0; c < cols; c++) {
+      addElement(mesh, new Element(points[0][c], points[0][c + 1]));
+      addElement(mesh, new Element(points[rows][c], points[rows][c + 1]));
+    }
+    for (int r = 0; r < rows; r++) {
+      addElement(mesh, new Element(points[r][0], points[r + 1][0]));
+      addElement(mesh, new Element(points[r][cols], points[r + 1][cols]));
+    }
+  }
+
   // .poly contains the perimeter of the mesh; edges basically, which is why it contains pairs of nodes
   public static void read(EdgeGraph<Element, Element.Edge> mesh, String filename) {
     Scanner instrm = null;
@@ -0,0 +1,282 @@
+/*
+    Lonestar DelaunayRefinement: Refinement of an initial, unrefined Delaunay
+    mesh to eliminate triangles with angles < 30 degrees, using a variation
+    of Chew's algorithm.
+
+    Center for Grid and Distributed Computing
+    The University of Texas at Austin
+
+    Licensed under the Eclipse Public License, Version 1.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+      http://www.eclipse.org/legal/epl-v10.html
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+
+    File: ParallelDelaunayrefinement.java
+*/
+
+package benchmarks.determinism.lonestar.delref;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refines the mesh with several threads, each building and committing one speculative Cavity at a
+ * time. A cavity marks every node it touches as its own; if it touches a node another thread's
+ * cavity owns, it aborts, releases its nodes and the bad triangle is retried later. Cavities that
+ * do not overlap proceed in parallel.
+ *
+ * The worklist is split per thread. The initial bad triangles are sorted by height and each thread
+ * gets one horizontal band of the mesh. A thread works LIFO on its own list, so it refines the
+ * triangles its last cavity created, next to where it just was. An idle thread steals the oldest
+ * work from another thread, which is far from where that thread is working.
+ *
+ * SerialDelaunayrefinement stays the reference: with v, the refined mesh must pass the same checks.
+ */
+public class ParallelDelaunayrefinement {
+
+  // per-thread worklists with stealing, and a count of unfinished work for termination
+  static final class Worklist {
+    private final List<LinkedBlockingDeque<Node<Element>>> lists;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    Worklist(int threads) {
+      lists = new ArrayList<LinkedBlockingDeque<Node<Element>>>(threads);
+      for (int i = 0; i < threads; i++) {
+        lists.add(new LinkedBlockingDeque<Node<Element>>());
+      }
+    }
+
+    // deal the initial bad triangles out to the threads in bands of similar height
+    void distribute(EdgeGraph<Element, Element.Edge> mesh, Collection<Node<Element>> bad) {
+      final EdgeGraph<Element, Element.Edge> graph = mesh;
+      ArrayList<Node<Element>> sorted = new ArrayList<Node<Element>>(bad);
+      Collections.sort(sorted, new Comparator<Node<Element>>() {
+        public int compare(Node<Element> a, Node<Element> b) {
+          double ya = graph.getNodeData(a).center().getCoords()[1];
+          double yb = graph.getNodeData(b).center().getCoords()[1];
+          return Double.compare(ya, yb);
+        }
+      });
+      int n = sorted.size();
+      for (int i = 0; i < lists.size(); i++) {
+        // push each band in reverse so the thread starts at the bottom of its band
+        for (int j = (int) ((long) (i + 1) * n / lists.size()) - 1;
+            j >= (int) ((long) i * n / lists.size()); j--) {
+          push(i, sorted.get(j));
+        }
+      }
+    }
+
+    void push(int thread, Node<Element> node) {
+      pending.incrementAndGet();
+      lists.get(thread).addFirst(node);
+    }
+
+    // put back work that conflicted, behind everything else this thread has to do
+    void retry(int thread, Node<Element> node) {
+      lists.get(thread).addLast(node);
+    }
+
+    // the next node for thread, or null once every thread has run out of work
+    Node<Element> next(int thread) {
+      for (;;) {
+        Node<Element> node = lists.get(thread).pollFirst();
+        if (node != null) {
+          return node;
+        }
+        for (int i = 1; i < lists.size(); i++) {
+          node = lists.get((thread + i) % lists.size()).pollLast();
+          if (node != null) {
+            return node;
+          }
+        }
+        if (pending.get() == 0) {
+          return null;
+        }
+        Thread.yield();
+      }
+    }
+
+    // called once the work taken by next() and everything it pushed is accounted for
+    void done() {
+      pending.decrementAndGet();
+    }
+  }
+
+  static final class Worker extends Thread {
+    private final int id;
+    private final EdgeGraph<Element, Element.Edge> mesh;
+    private final Worklist worklist;
+    private final Cavity cavity;
+    long committed;
+    long aborted;
+
+    Worker(int id, EdgeGraph<Element, Element.Edge> mesh, Worklist worklist) {
+      this.id = id;
+      this.mesh = mesh;
+      this.worklist = worklist;
+      cavity = new Cavity(mesh, true);
+    }
+
+    @Override
+    public void run() {
+      Node<Element> bad_element;
+      while ((bad_element = worklist.next(id)) != null) {
+        boolean conflict = false;
+        try {
+          cavity.acquire(bad_element);
+          if (mesh.containsNode(bad_element)) {
+            cavity.initialize(bad_element);
+            cavity.build();
+            cavity.update();
+
+            //remove the old data
+            for (Node<Element> node : cavity.getPre().getNodes()) {
+              mesh.removeNode(node);
+            }
+
+            //add new data
+            for (Node<Element> node : cavity.getPost().getNodes()) {
+              mesh.addNode(node);
+            }
+            for (Edge<Element.Edge> edge : cavity.getPost().getEdges()) {
+              mesh.addEdge(edge);
+            }
+
+            for (Node<Element> node : cavity.getPost().newBad(mesh)) {
+              worklist.push(id, node);
+            }
+            if (mesh.containsNode(bad_element)) {
+              worklist.push(id, bad_element);
+            }
+            committed++;
+          }
+          worklist.done();
+        } catch (Cavity.Conflict e) {
+          aborted++;
+          worklist.retry(id, bad_element);
+          conflict = true;
+        } finally {
+          cavity.release();
+        }
+        if (conflict) {
+          // let the owner of the conflicting nodes finish before trying again
+          Thread.yield();
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    long starttime, endtime, runtime, lasttime, mintime, run;
+
+    System.err.println("");
+    System.err.println("Lonestar benchmark suite");
+    System.err.println("Copyright (C) 2007, 2008, 2009 The University of Texas at Austin");
+    System.err.println("http://iss.ices.utexas.edu/lonestar/");
+    System.err.println("");
+    System.err.println("application: DelaunayRefinement v2.0 (parallel)");
+
+    if (args.length < 1) {
+      System.err.println("");
+      System.err.println("arguments: input_file_name|grid:<rows>x<cols> [threads] [v]");
+      System.exit(-1);
+    }
+
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean verify = false;
+
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("v")) {
+        verify = true;
+      } else {
+        threads = Integer.parseInt(args[i]);
+      }
+    }
+
+    runtime = 0;
+    lasttime = Long.MAX_VALUE;
+    mintime = Long.MAX_VALUE;
+    run = 0;
+
+    EdgeGraph<Element, Element.Edge> mesh = null;
+    while (((run < 3) || (Math.abs(lasttime-runtime)*64 > Math.min(lasttime, runtime))) && (run < 7)) {
+      mesh = new UndirectedEdgeGraph<Element, Element.Edge>();
+
+      Mesh.load(mesh, args[0]);
+
+      Worklist worklist = new Worklist(threads);
+      Collection<Node<Element>> bad = Mesh.getBad(mesh);
+      worklist.distribute(mesh, bad);
+
+      Worker[] workers = new Worker[threads];
+      for (int i = 0; i < threads; i++) {
+        workers[i] = new Worker(i, mesh, worklist);
+      }
+
+      if (run == 0) {
+        System.err.println("");
+        System.err.println("Configuration");
+        System.err.println("-------------");
+        System.err.println("Input: " + args[0]);
+        System.err.println("Threads: " + threads);
+        System.err.println("Mesh size: " + mesh.getNumNodes() + " triangles");
+        System.err.println("Initial bad triangles: " + bad.size());
+        System.err.println("");
+      }
+
+      System.gc();  System.gc();  System.gc();  System.gc();  System.gc();
+      lasttime = runtime;
+      endtime = 0;
+      starttime = System.nanoTime();
+
+      for (Worker worker : workers) {
+        worker.start();
+      }
+      for (Worker worker : workers) {
+        worker.join();
+      }
+
+      endtime = System.nanoTime();
+      runtime = endtime - starttime;
+
+      long committed = 0;
+      long aborted = 0;
+      for (Worker worker : workers) {
+        committed += worker.committed;
+        aborted += worker.aborted;
+      }
+
+      if ((run == 0) || (runtime < mintime)) mintime = runtime;
+      if (run == 0) {
+        System.err.println("Cavities committed: " + committed + ", aborted: " + aborted);
+      }
+      run++;
+    }
+
+    System.err.println("runtime: " + (mintime/1000000) + " ms");
+    System.err.println("");
+
+    if (verify) {
+      if (Mesh.verify(mesh)) {
+        int size = Mesh.getBad(mesh).size();
+        if (size == 0) {
+          System.out.println("OK");
+        }
+      }
+    }
+  }
+}
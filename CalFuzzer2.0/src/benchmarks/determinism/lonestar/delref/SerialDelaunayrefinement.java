@@ -44,7 +44,7 @@ public class SerialDelaunayrefinement {
 
     if (args.length < 1) {
       System.err.println("");
-      System.err.println("arguments: input_file_name [v]");
+      System.err.println("arguments: input_file_name|grid:<rows>x<cols> [v]");
       System.exit(-1);
     }
 
@@ -66,7 +66,7 @@ public class SerialDelaunayrefinement {
       mesh = new UndirectedEdgeGraph<Element, Element.Edge>();
       Stack<Node<Element>> worklist;
 
-      Mesh.read(mesh, args[0]);
+      Mesh.load(mesh, args[0]);
 
       worklist = new Stack<Node<Element>>();
       worklist.addAll(Mesh.getBad(mesh));
@@ -0,0 +1,98 @@
+//******************************************************************************
+//
+// File:    ByteBufferPool.java
+// Package: benchmarks.determinism.pj.edu.rit.mp
+// Unit:    Class benchmarks.determinism.pj.edu.rit.mp.ByteBufferPool
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.mp;
+
+import java.nio.ByteBuffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class ByteBufferPool provides a pool of direct byte buffers of {@link
+ * Constants#BUFFER_SIZE} bytes, shared by all the network channels in the
+ * process. Allocating a direct byte buffer is expensive and its memory is
+ * reclaimed only when the buffer is garbage collected, so the threads that send
+ * and receive messages take their buffers from the pool and give them back
+ * when done. At most <TT>MAX_FREE</TT> free buffers are kept.
+ *
+ * @version 19-Oct-2026
+ */
+class ByteBufferPool
+	{
+
+// Prevent construction.
+
+	private ByteBufferPool()
+		{
+		}
+
+// Hidden data members.
+
+	// Maximum number of free buffers kept in the pool.
+	private static final int MAX_FREE = 64;
+
+	// Free buffers, and their number.
+	private static final ConcurrentLinkedQueue<ByteBuffer> theFreeBuffers =
+		new ConcurrentLinkedQueue<ByteBuffer>();
+	private static final AtomicInteger theFreeCount = new AtomicInteger();
+
+// Hidden operations.
+
+	/**
+	 * Obtain a cleared direct byte buffer from the pool, or allocate a new one
+	 * if the pool is empty.
+	 *
+	 * @return  Byte buffer.
+	 */
+	static ByteBuffer allocate()
+		{
+		ByteBuffer buffer = theFreeBuffers.poll();
+		if (buffer == null)
+			{
+			return ByteBuffer.allocateDirect (Constants.BUFFER_SIZE);
+			}
+		theFreeCount.decrementAndGet();
+		buffer.clear();
+		return buffer;
+		}
+
+	/**
+	 * Give the given byte buffer back to the pool. The caller must not use the
+	 * byte buffer afterwards.
+	 *
+	 * @param  buffer  Byte buffer obtained from <TT>allocate()</TT>, or null.
+	 */
+	static void release
+		(ByteBuffer buffer)
+		{
+		if (buffer == null) return;
+		if (theFreeCount.incrementAndGet() <= MAX_FREE)
+			{
+			theFreeBuffers.add (buffer);
+			}
+		else
+			{
+			theFreeCount.decrementAndGet();
+			}
+		}
+
+	}
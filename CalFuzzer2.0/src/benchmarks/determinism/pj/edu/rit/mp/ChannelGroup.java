@@ -45,6 +45,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -205,6 +206,19 @@ import java.util.List;
  * must call the IORequest object's <TT>waitForFinish()</TT> method, which
  * returns a {@linkplain Status} object giving the results of the receive
  * operation.
+ * <P>
+ * <B>Transport</B>
+ * <P>
+ * By default, each network channel has its own thread for sending messages and
+ * its own thread for receiving messages. If the <TT>"pj.mp.selectors"</TT> Java
+ * system property is set to a number <I>N</I> &gt; 0, the channel group
+ * instead uses at most <I>N</I> selector threads, each of which sends and
+ * receives messages for many channels over non-blocking socket channels.
+ * Several queued outgoing messages on a channel are written with one gathering
+ * write. This reduces the number of threads and system calls when a process
+ * has many channels, as in a cluster parallel program with many processes.
+ * Messages are the same on the wire in either case, so the two processes at
+ * the ends of a channel need not use the same setting.
  *
  * @author  Alan Kaminsky
  * @version 12-Oct-2008
@@ -245,6 +259,16 @@ public class ChannelGroup
 	// For timeouts during channel setup.
 	TimerThread myTimerThread;
 
+	// Maximum number of selector threads, or 0 to use a send thread and a
+	// receive thread per network channel.
+	int mySelectorThreadCount;
+
+	// Selector threads created so far, and the one to use for the next network
+	// channel.
+	List<NetworkChannelSelectorThread> mySelectorThreads =
+		new ArrayList<NetworkChannelSelectorThread>();
+	int myNextSelectorThread;
+
 // Hidden helper classes.
 
 	/**
@@ -397,6 +421,8 @@ public class ChannelGroup
 		myTimerThread = new TimerThread();
 		myTimerThread.setDaemon (true);
 		myTimerThread.start();
+		mySelectorThreadCount =
+			Math.max (0, Integer.getInteger ("pj.mp.selectors", 0));
 		}
 
 	/**
@@ -1112,6 +1138,16 @@ public class ChannelGroup
 
 		theIORequest.initialize (theChannel, theTagLb, theTagUb, theDst);
 		myIORequestList.add (theIORequest);
+
+		// Selector threads stop reading a channel whose next message has no
+		// matching receive request; let them try again.
+		synchronized (mySelectorThreads)
+			{
+			for (NetworkChannelSelectorThread t : mySelectorThreads)
+				{
+				t.receiveRequestAdded();
+				}
+			}
 		}
 
 	/**
@@ -1164,6 +1200,16 @@ public class ChannelGroup
 				(new ChannelGroupClosedException ("Channel group closed"));
 			}
 
+		// Terminate selector threads.
+		synchronized (mySelectorThreads)
+			{
+			for (NetworkChannelSelectorThread t : mySelectorThreads)
+				{
+				t.shutdown();
+				}
+			mySelectorThreads.clear();
+			}
+
 		// Enable garbage collection of fields.
 		myServerSocketChannel = null;
 		myIORequestList = null;
@@ -1209,6 +1255,8 @@ public class ChannelGroup
 		out.println (prefix+"myConnectListener = "+myConnectListener);
 		out.println (prefix+"myLogger = "+myLogger);
 		out.println (prefix+"myTimerThread = "+myTimerThread);
+		out.println (prefix+"mySelectorThreadCount = "+mySelectorThreadCount);
+		out.println (prefix+"mySelectorThreads = "+mySelectorThreads);
 		}
 
 // Hidden operations.
@@ -1371,14 +1419,52 @@ public class ChannelGroup
 		Channel channel = null;
 		if (myIORequestList != null)
 			{
+			NetworkChannelSelectorThread selectorThread = null;
+			if (mySelectorThreadCount > 0)
+				{
+				theSocketChannel.configureBlocking (false);
+				selectorThread = nextSelectorThread();
+				}
 			channel =
 				new NetworkChannel
-					(this, theSocketChannel, theFarChannelGroupId);
+					(this, theSocketChannel, theFarChannelGroupId,
+					 selectorThread);
 			myChannelList.add (channel);
 			}
 		return channel;
 		}
 
+	/**
+	 * Obtain the selector thread for a new network channel. Selector threads
+	 * are created as needed, up to the configured count, and then assigned to
+	 * channels in round robin order.
+	 *
+	 * @return  Selector thread.
+	 *
+	 * @exception  IOException
+	 *     Thrown if an I/O error occurred.
+	 */
+	private NetworkChannelSelectorThread nextSelectorThread()
+		throws IOException
+		{
+		synchronized (mySelectorThreads)
+			{
+			NetworkChannelSelectorThread t;
+			if (mySelectorThreads.size() < mySelectorThreadCount)
+				{
+				t = new NetworkChannelSelectorThread (this);
+				mySelectorThreads.add (t);
+				}
+			else
+				{
+				t = mySelectorThreads.get (myNextSelectorThread);
+				myNextSelectorThread =
+					(myNextSelectorThread + 1) % mySelectorThreads.size();
+				}
+			return t;
+			}
+		}
+
 	/**
 	 * Remove the given channel from this channel group.
 	 *
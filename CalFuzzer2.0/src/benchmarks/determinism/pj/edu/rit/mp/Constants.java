@@ -68,4 +68,8 @@ class Constants
 
 	static final int BUFFER_SIZE = 29200;
 
+// Maximum number of byte buffers written with one gathering write.
+
+	static final int MAX_GATHER = 8;
+
 	}
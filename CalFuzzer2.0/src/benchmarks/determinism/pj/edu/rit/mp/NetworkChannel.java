@@ -60,6 +60,11 @@ class NetworkChannel
 	private NetworkChannelSendThread myNetworkChannelSendThread;
 	private NetworkChannelReceiveThread myNetworkChannelReceiveThread;
 
+	// Selector thread that sends and receives instead, or null if none, and
+	// this channel's connection in the selector thread.
+	private NetworkChannelSelectorThread myNetworkChannelSelectorThread;
+	private NetworkChannelSelectorThread.Connection myConnection;
+
 // Hidden constructors.
 
 	/**
@@ -68,16 +73,31 @@ class NetworkChannel
 	 * @param  theChannelGroup       Enclosing channel group.
 	 * @param  theSocketChannel      Underlying socket channel.
 	 * @param  theFarChannelGroupId  Far end channel group ID.
+	 * @param  theSelectorThread     Selector thread to send and receive
+	 *                               messages, or null to use a send thread and
+	 *                               a receive thread. If not null, the socket
+	 *                               channel must be in non-blocking mode.
 	 */
 	NetworkChannel
 		(ChannelGroup theChannelGroup,
 		 SocketChannel theSocketChannel,
-		 int theFarChannelGroupId)
+		 int theFarChannelGroupId,
+		 NetworkChannelSelectorThread theSelectorThread)
 		{
 		super (theChannelGroup);
 		mySocketChannel = theSocketChannel;
 		myFarChannelGroupId = theFarChannelGroupId;
-		myOutgoingQueue = new LinkedBlockingQueue<IORequest>();
+		myNetworkChannelSelectorThread = theSelectorThread;
+		if (theSelectorThread == null)
+			{
+			myOutgoingQueue = new LinkedBlockingQueue<IORequest>();
+			}
+		else
+			{
+			myConnection =
+				new NetworkChannelSelectorThread.Connection
+					(this, theSocketChannel);
+			}
 		}
 
 // Exported operations.
@@ -131,8 +151,16 @@ class NetworkChannel
 	/**
 	 * Start sending and receiving messages via this channel.
 	 */
-	void start()
+	synchronized void start()
 		{
+		if (myNetworkChannelSelectorThread != null)
+			{
+			if (myConnection != null)
+				{
+				myNetworkChannelSelectorThread.register (myConnection);
+				}
+			return;
+			}
 		myNetworkChannelSendThread =
 			new NetworkChannelSendThread
 				(this,
@@ -167,9 +195,16 @@ class NetworkChannel
 				("NetworkChannel.send(): Channel closed");
 			}
 
-		// Put I/O request in outgoing queue. Send thread will actually send the
-		// message.
-		myOutgoingQueue.add (theIORequest);
+		// Put I/O request in outgoing queue. Send thread or selector thread
+		// will actually send the message.
+		if (myNetworkChannelSelectorThread != null)
+			{
+			myNetworkChannelSelectorThread.send (myConnection, theIORequest);
+			}
+		else
+			{
+			myOutgoingQueue.add (theIORequest);
+			}
 		}
 
 	/**
@@ -194,11 +229,19 @@ class NetworkChannel
 			myNetworkChannelReceiveThread.interrupt();
 			}
 
+		// Have the selector thread fail this channel's pending messages.
+		if (myConnection != null)
+			{
+			myNetworkChannelSelectorThread.close (myConnection);
+			}
+
 		// Enable garbage collection of data members.
 		mySocketChannel = null;
 		myOutgoingQueue = null;
 		myNetworkChannelSendThread = null;
 		myNetworkChannelReceiveThread = null;
+		myNetworkChannelSelectorThread = null;
+		myConnection = null;
 		}
 
 	/**
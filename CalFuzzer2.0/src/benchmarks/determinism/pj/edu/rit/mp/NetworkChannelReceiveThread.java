@@ -76,7 +76,7 @@ class NetworkChannelReceiveThread
 		myChannelGroup = theNetworkChannel.myChannelGroup;
 		mySocketChannel = theSocketChannel;
 		myIORequestList = theNetworkChannel.myIORequestList;
-		myByteBuffer = ByteBuffer.allocateDirect (Constants.BUFFER_SIZE);
+		myByteBuffer = ByteBufferPool.allocate();
 		setDaemon (true);
 		start();
 		}
@@ -240,6 +240,7 @@ class NetworkChannelReceiveThread
 		myChannelGroup = null;
 		mySocketChannel = null;
 		myIORequestList = null;
+		ByteBufferPool.release (myByteBuffer);
 		myByteBuffer = null;
 		}
 
@@ -0,0 +1,828 @@
+//******************************************************************************
+//
+// File:    NetworkChannelSelectorThread.java
+// Package: benchmarks.determinism.pj.edu.rit.mp
+// Unit:    Class benchmarks.determinism.pj.edu.rit.mp.NetworkChannelSelectorThread
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.mp;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class NetworkChannelSelectorThread provides a thread that sends and receives
+ * messages for any number of {@linkplain NetworkChannel}s, multiplexed over
+ * non-blocking socket channels with one NIO selector. It takes the place of a
+ * {@linkplain NetworkChannelSendThread} and a {@linkplain
+ * NetworkChannelReceiveThread} per channel when the channel group is configured
+ * with selector threads.
+ * <P>
+ * Outgoing messages queued on a channel are packed into byte buffers, and up to
+ * eight buffers are written with one gathering write. An incoming message whose
+ * matching receive request has not been posted yet stops reading on its channel
+ * only; the other channels keep going, and the channel resumes when a receive
+ * request is added to the channel group's I/O request list.
+ *
+ * @version 19-Oct-2026
+ */
+class NetworkChannelSelectorThread
+	extends Thread
+	{
+
+// Hidden constants.
+
+	// Message header: magic number, tag, type, length.
+	private static final int HEADER_SIZE = 13;
+
+	// Maximum number of gathering writes to one channel before the other
+	// channels get a turn.
+	private static final int MAX_WRITES = 4;
+
+	// Receive states.
+	private static final int READ_HEADER = 0;
+	private static final int READ_MATCH  = 1;
+	private static final int READ_ITEMS  = 2;
+	private static final int READ_SKIP   = 3;
+
+// Hidden helper classes.
+
+	/**
+	 * Class Connection holds the state of one network channel in a selector
+	 * thread. Except where noted, it is only accessed by the selector thread.
+	 */
+	static class Connection
+		{
+		NetworkChannel myNetworkChannel;
+		SocketChannel mySocketChannel;
+		SelectionKey myKey;
+
+		// Queue of outgoing I/O requests; filled by any thread.
+		ConcurrentLinkedQueue<IORequest> myOutgoingQueue =
+			new ConcurrentLinkedQueue<IORequest>();
+
+		// True if this connection is in the selector thread's write queue.
+		AtomicBoolean myWriteQueued = new AtomicBoolean (false);
+
+		// True once this connection's pending I/O requests have been failed;
+		// set by the selector thread, read by any thread.
+		volatile boolean myClosed;
+
+		// Byte buffers being written, and the first one with bytes left.
+		ByteBuffer[] myOut = new ByteBuffer [Constants.MAX_GATHER];
+		int myOutCount;
+		int myOutIndex;
+
+		// Messages completely in the byte buffers being written.
+		List<IORequest> mySentList = new ArrayList<IORequest>();
+
+		// Message partly in the byte buffers, and its next item.
+		IORequest mySendRequest;
+		int mySendIndex;
+		boolean myHeaderSent;
+
+		// Incoming bytes, ready to be read.
+		ByteBuffer myIn;
+
+		// Message being received.
+		int myReadState = READ_HEADER;
+		int myTag;
+		byte myType;
+		int myLength;
+		IORequest myReceiveRequest;
+		int myReceiveIndex;
+		int myReceiveNum;
+		int mySkipNum;
+
+		// True if waiting for a matching receive request.
+		boolean myWaiting;
+
+		/**
+		 * Construct a new connection. It is registered with a selector thread
+		 * later.
+		 *
+		 * @param  theNetworkChannel  Network channel.
+		 * @param  theSocketChannel   Underlying socket channel.
+		 */
+		Connection
+			(NetworkChannel theNetworkChannel,
+			 SocketChannel theSocketChannel)
+			{
+			myNetworkChannel = theNetworkChannel;
+			mySocketChannel = theSocketChannel;
+			myIn = ByteBufferPool.allocate();
+			myIn.limit (0);
+			}
+		}
+
+// Hidden data members.
+
+	// Enclosing channel group.
+	private ChannelGroup myChannelGroup;
+
+	// Selector for all channels of this thread.
+	private Selector mySelector;
+
+	// Connections to register, to write to, or to close; filled by any thread.
+	private ConcurrentLinkedQueue<Connection> myRegisterQueue =
+		new ConcurrentLinkedQueue<Connection>();
+	private ConcurrentLinkedQueue<Connection> myWriteQueue =
+		new ConcurrentLinkedQueue<Connection>();
+	private ConcurrentLinkedQueue<Connection> myCloseQueue =
+		new ConcurrentLinkedQueue<Connection>();
+
+	// Set when a receive request has been added to the I/O request list.
+	private volatile boolean myReceiveRequestAdded;
+
+	// Set when this thread is to terminate.
+	private volatile boolean myShutdown;
+
+	// Set when this thread has terminated.
+	private volatile boolean myTerminated;
+
+	// Connections waiting for a matching receive request.
+	private List<Connection> myWaitingList = new LinkedList<Connection>();
+
+// Hidden constructors.
+
+	/**
+	 * Construct a new network channel selector thread.
+	 *
+	 * @param  theChannelGroup  Enclosing channel group.
+	 *
+	 * @exception  IOException
+	 *     Thrown if the selector could not be opened.
+	 */
+	NetworkChannelSelectorThread
+		(ChannelGroup theChannelGroup)
+		throws IOException
+		{
+		myChannelGroup = theChannelGroup;
+		mySelector = Selector.open();
+		setDaemon (true);
+		start();
+		}
+
+// Hidden operations, called by other threads.
+
+	/**
+	 * Start sending and receiving messages for the given connection. Its
+	 * socket channel must be in non-blocking mode. Messages queued on the
+	 * connection before this are sent once it is registered.
+	 *
+	 * @param  c  Connection.
+	 */
+	void register
+		(Connection c)
+		{
+		myRegisterQueue.add (c);
+		mySelector.wakeup();
+		if (myTerminated)
+			{
+			// Nobody will register the connection; fail its messages here.
+			closeRegisterQueue();
+			}
+		}
+
+	/**
+	 * Queue a message for sending on the given connection. If the connection
+	 * has been closed, the I/O request fails with a {@linkplain
+	 * ChannelClosedException}.
+	 *
+	 * @param  c             Connection.
+	 * @param  theIORequest  I/O request.
+	 */
+	void send
+		(Connection c,
+		 IORequest theIORequest)
+		{
+		c.myOutgoingQueue.add (theIORequest);
+		if (c.myClosed)
+			{
+			// The selector thread may have drained the queue before the
+			// request was added.
+			failOutgoing (c, new ChannelClosedException ("Channel closed"));
+			}
+		else if (c.myWriteQueued.compareAndSet (false, true))
+			{
+			myWriteQueue.add (c);
+			mySelector.wakeup();
+			}
+		}
+
+	/**
+	 * Stop sending and receiving messages for the given connection. Its socket
+	 * channel must already be closed.
+	 *
+	 * @param  c  Connection.
+	 */
+	void close
+		(Connection c)
+		{
+		myCloseQueue.add (c);
+		mySelector.wakeup();
+		}
+
+	/**
+	 * Report that a receive request has been added to the I/O request list.
+	 */
+	void receiveRequestAdded()
+		{
+		myReceiveRequestAdded = true;
+		mySelector.wakeup();
+		}
+
+	/**
+	 * Terminate this thread.
+	 */
+	void shutdown()
+		{
+		myShutdown = true;
+		mySelector.wakeup();
+		}
+
+// Exported operations.
+
+	/**
+	 * Run this network channel selector thread.
+	 */
+	public void run()
+		{
+		try
+			{
+			while (! myShutdown)
+				{
+				mySelector.select();
+
+				Connection c;
+				while ((c = myRegisterQueue.poll()) != null)
+					{
+					doRegister (c);
+					}
+				while ((c = myCloseQueue.poll()) != null)
+					{
+					doClose (c);
+					}
+				if (myReceiveRequestAdded)
+					{
+					myReceiveRequestAdded = false;
+					retryWaiting();
+					}
+				while ((c = myWriteQueue.poll()) != null)
+					{
+					c.myWriteQueued.set (false);
+					write (c);
+					}
+
+				Iterator<SelectionKey> iter =
+					mySelector.selectedKeys().iterator();
+				while (iter.hasNext())
+					{
+					SelectionKey key = iter.next();
+					iter.remove();
+					c = (Connection) key.attachment();
+					if (key.isValid() && key.isWritable())
+						{
+						write (c);
+						}
+					if (key.isValid() && key.isReadable())
+						{
+						read (c);
+						}
+					}
+				}
+			}
+		catch (IOException exc)
+			{
+			myChannelGroup.myLogger.log
+				("NetworkChannelSelectorThread: I/O error in selector", exc);
+			}
+
+		// This thread is terminating. Fail whatever is still pending.
+		for (SelectionKey key : mySelector.keys())
+			{
+			doClose ((Connection) key.attachment());
+			}
+		Connection c;
+		while ((c = myCloseQueue.poll()) != null)
+			{
+			doClose (c);
+			}
+		myTerminated = true;
+		closeRegisterQueue();
+		try { mySelector.close(); } catch (IOException exc) {}
+		myChannelGroup = null;
+		}
+
+	/**
+	 * Fail the pending I/O requests of the connections that were registered
+	 * after this thread terminated. Called by any thread.
+	 */
+	private void closeRegisterQueue()
+		{
+		Connection c;
+		while ((c = myRegisterQueue.poll()) != null)
+			{
+			doClose (c);
+			}
+		}
+
+// Hidden operations, called by this thread.
+
+	/**
+	 * Register the given connection with the selector.
+	 */
+	private void doRegister
+		(Connection c)
+		{
+		try
+			{
+			c.myKey = c.mySocketChannel.register
+				(mySelector, SelectionKey.OP_READ, c);
+			}
+		catch (IOException exc)
+			{
+			// The channel was closed before it was registered.
+			doClose (c);
+			return;
+			}
+		if (! c.myOutgoingQueue.isEmpty())
+			{
+			write (c);
+			}
+		}
+
+	/**
+	 * Fail the pending I/O requests of the given connection, whose socket
+	 * channel has been closed.
+	 */
+	private void doClose
+		(Connection c)
+		{
+		ChannelClosedException exc =
+			new ChannelClosedException ("Channel closed");
+		if (c.myClosed)
+			{
+			failOutgoing (c, exc);
+			return;
+			}
+		c.myClosed = true;
+		if (c.myKey != null)
+			{
+			c.myKey.cancel();
+			}
+		failSend (c, exc);
+		failOutgoing (c, exc);
+		failReceive (c, exc);
+		ByteBufferPool.release (c.myIn);
+		c.myIn = null;
+		}
+
+	/**
+	 * Fail the I/O requests queued on the given connection. Called by any
+	 * thread.
+	 */
+	private static void failOutgoing
+		(Connection c,
+		 IOException exc)
+		{
+		IORequest iorequest;
+		while ((iorequest = c.myOutgoingQueue.poll()) != null)
+			{
+			iorequest.reportFailure (exc);
+			}
+		}
+
+	/**
+	 * Turn the given interest on or off for the given connection.
+	 */
+	private static void setInterest
+		(Connection c,
+		 int op,
+		 boolean on)
+		{
+		if (c.myKey != null && c.myKey.isValid())
+			{
+			int ops = c.myKey.interestOps();
+			c.myKey.interestOps (on ? ops | op : ops & ~op);
+			}
+		}
+
+	/**
+	 * Write as much of the given connection's outgoing messages as the socket
+	 * channel will take.
+	 */
+	private void write
+		(Connection c)
+		{
+		if (c.myKey == null || ! c.myKey.isValid()) return;
+		try
+			{
+			for (int w = 0; w < MAX_WRITES; ++ w)
+				{
+				if (c.myOutCount == 0)
+					{
+					fill (c);
+					if (c.myOutCount == 0)
+						{
+						setInterest (c, SelectionKey.OP_WRITE, false);
+						return;
+						}
+					}
+				c.mySocketChannel.write
+					(c.myOut, c.myOutIndex, c.myOutCount - c.myOutIndex);
+				while (c.myOutIndex < c.myOutCount &&
+						! c.myOut[c.myOutIndex].hasRemaining())
+					{
+					++ c.myOutIndex;
+					}
+				if (c.myOutIndex < c.myOutCount)
+					{
+					// Socket send buffer is full.
+					setInterest (c, SelectionKey.OP_WRITE, true);
+					return;
+					}
+				finishSend (c);
+				}
+			// Let the other channels have a turn.
+			setInterest (c, SelectionKey.OP_WRITE, true);
+			}
+		catch (IOException exc)
+			{
+			failSend (c, exc);
+			setInterest
+				(c, SelectionKey.OP_WRITE, ! c.myOutgoingQueue.isEmpty());
+			}
+		}
+
+	/**
+	 * Pack queued messages of the given connection into byte buffers, until
+	 * there are no more messages or Constants.MAX_GATHER buffers are full.
+	 */
+	private void fill
+		(Connection c)
+		{
+		ByteBuffer buffer = null;
+		fillloop: for (;;)
+			{
+			// Start the next message.
+			if (c.mySendRequest == null)
+				{
+				IORequest iorequest = c.myOutgoingQueue.poll();
+				if (iorequest == null) break fillloop;
+				try
+					{
+					iorequest.myBuf.preSend();
+					}
+				catch (IOException exc)
+					{
+					iorequest.reportFailure (exc);
+					continue fillloop;
+					}
+				catch (RuntimeException exc)
+					{
+					iorequest.reportFailure (exc);
+					continue fillloop;
+					}
+				c.mySendRequest = iorequest;
+				c.mySendIndex = 0;
+				c.myHeaderSent = false;
+				}
+
+			IORequest iorequest = c.mySendRequest;
+			Buf buf = iorequest.myBuf;
+			int msglength = buf.myMessageLength;
+
+			// Message header.
+			if (! c.myHeaderSent)
+				{
+				if (buffer == null || buffer.remaining() < HEADER_SIZE)
+					{
+					buffer = nextBuffer (c);
+					if (buffer == null) break fillloop;
+					}
+				buffer.putInt (Constants.MAGIC_NUMBER);
+				buffer.putInt (iorequest.myTagLb);
+				buffer.put (buf.myMessageType);
+				buffer.putInt (msglength);
+				c.myHeaderSent = true;
+				}
+
+			// Message items.
+			while (c.mySendIndex < msglength)
+				{
+				if (buffer == null || ! buffer.hasRemaining())
+					{
+					buffer = nextBuffer (c);
+					if (buffer == null) break fillloop;
+					}
+				int n = buf.sendItems (c.mySendIndex, buffer);
+				c.mySendIndex += n;
+				if (c.mySendIndex < msglength)
+					{
+					// No room for the next item in this buffer.
+					buffer = nextBuffer (c);
+					if (buffer == null) break fillloop;
+					}
+				}
+
+			// Message postprocessing.
+			c.mySendRequest = null;
+			try
+				{
+				buf.postSend();
+				c.mySentList.add (iorequest);
+				}
+			catch (IOException exc)
+				{
+				iorequest.reportFailure (exc);
+				}
+			}
+
+		for (int i = 0; i < c.myOutCount; ++ i)
+			{
+			c.myOut[i].flip();
+			}
+		c.myOutIndex = 0;
+		}
+
+	/**
+	 * Obtain an empty byte buffer for the given connection's next gathering
+	 * write, or null if the write already has Constants.MAX_GATHER buffers.
+	 */
+	private ByteBuffer nextBuffer
+		(Connection c)
+		{
+		if (c.myOutCount == Constants.MAX_GATHER) return null;
+		ByteBuffer buffer = ByteBufferPool.allocate();
+		c.myOut[c.myOutCount ++] = buffer;
+		return buffer;
+		}
+
+	/**
+	 * Release the given connection's written byte buffers.
+	 */
+	private void releaseBuffers
+		(Connection c)
+		{
+		for (int i = 0; i < c.myOutCount; ++ i)
+			{
+			ByteBufferPool.release (c.myOut[i]);
+			c.myOut[i] = null;
+			}
+		c.myOutCount = 0;
+		c.myOutIndex = 0;
+		}
+
+	/**
+	 * Report success of the messages in the given connection's written byte
+	 * buffers.
+	 */
+	private void finishSend
+		(Connection c)
+		{
+		releaseBuffers (c);
+		for (IORequest iorequest : c.mySentList)
+			{
+			iorequest.reportSuccess();
+			}
+		c.mySentList.clear();
+		}
+
+	/**
+	 * Report failure of the messages in the given connection's byte buffers.
+	 */
+	private void failSend
+		(Connection c,
+		 IOException exc)
+		{
+		releaseBuffers (c);
+		for (IORequest iorequest : c.mySentList)
+			{
+			iorequest.reportFailure (exc);
+			}
+		c.mySentList.clear();
+		if (c.mySendRequest != null)
+			{
+			c.mySendRequest.reportFailure (exc);
+			c.mySendRequest = null;
+			}
+		}
+
+	/**
+	 * Read what is available from the given connection's socket channel and
+	 * receive as much as possible.
+	 */
+	private void read
+		(Connection c)
+		{
+		try
+			{
+			c.myIn.compact();
+			int n = c.mySocketChannel.read (c.myIn);
+			c.myIn.flip();
+			if (n == -1)
+				{
+				if (c.myReadState != READ_HEADER)
+					{
+					throw new EOFException
+						("Unexpected end-of-stream while receiving message");
+					}
+				failReceive (c, null);
+				return;
+				}
+			receive (c);
+			}
+		catch (IOException exc)
+			{
+			failReceive (c, exc);
+			}
+		catch (RuntimeException exc)
+			{
+			if (c.myReceiveRequest != null)
+				{
+				c.myReceiveRequest.reportFailure (exc);
+				c.myReceiveRequest = null;
+				}
+			failReceive (c, null);
+			}
+		}
+
+	/**
+	 * Receive messages from the given connection's buffered bytes, until more
+	 * bytes are needed or no receive request matches the next message.
+	 */
+	@SuppressWarnings ("fallthrough")
+	private void receive
+		(Connection c)
+		throws IOException
+		{
+		for (;;)
+			{
+			switch (c.myReadState)
+				{
+				case READ_HEADER:
+					if (c.myIn.remaining() < HEADER_SIZE) return;
+					int magic = c.myIn.getInt();
+					c.myTag = c.myIn.getInt();
+					c.myType = c.myIn.get();
+					c.myLength = c.myIn.getInt();
+
+					// If the magic number is incorrect, bad error. Close the
+					// channel.
+					if (magic != Constants.MAGIC_NUMBER)
+						{
+						myChannelGroup.myLogger.log
+							("benchmarks.determinism.pj.edu.rit.mp.NetworkChannelSelectorThread: Invalid magic number received");
+						c.myNetworkChannel.close();
+						return;
+						}
+					c.myReadState = READ_MATCH;
+					// Fall through.
+
+				case READ_MATCH:
+					IORequest iorequest =
+						c.myNetworkChannel.myIORequestList.removeMatch
+							(c.myNetworkChannel, c.myTag, c.myType);
+					if (iorequest == null)
+						{
+						// Stop reading until a receive request is added.
+						if (! c.myWaiting)
+							{
+							c.myWaiting = true;
+							myWaitingList.add (c);
+							setInterest (c, SelectionKey.OP_READ, false);
+							}
+						return;
+						}
+					c.myReceiveRequest = iorequest;
+					Buf buf = iorequest.myBuf;
+					buf.preReceive (c.myLength);
+					c.myReceiveIndex = 0;
+					c.myReceiveNum = Math.min (c.myLength, buf.myMessageLength);
+					c.mySkipNum = c.myLength - buf.myMessageLength;
+					c.myReadState = READ_ITEMS;
+					// Fall through.
+
+				case READ_ITEMS:
+					if (c.myReceiveNum > 0)
+						{
+						int n = c.myReceiveRequest.myBuf.receiveItems
+							(c.myReceiveIndex, c.myReceiveNum, c.myIn);
+						c.myReceiveIndex += n;
+						c.myReceiveNum -= n;
+						if (c.myReceiveNum > 0) return;
+						}
+					c.myReadState = READ_SKIP;
+					// Fall through.
+
+				case READ_SKIP:
+					if (c.mySkipNum > 0)
+						{
+						c.mySkipNum -=
+							c.myReceiveRequest.myBuf.skipItems
+								(c.mySkipNum, c.myIn);
+						if (c.mySkipNum > 0) return;
+						}
+
+					// Message postprocessing.
+					Status status =
+						new Status (c.myNetworkChannel, c.myTag, c.myLength);
+					c.myReceiveRequest.myBuf.postReceive
+						(status, myChannelGroup.myClassLoader);
+					c.myReceiveRequest.myStatus = status;
+					c.myReceiveRequest.reportSuccess();
+					c.myReceiveRequest = null;
+					c.myReadState = READ_HEADER;
+					break;
+				}
+			}
+		}
+
+	/**
+	 * Try again to match the messages waiting for a receive request.
+	 */
+	private void retryWaiting()
+		{
+		List<Connection> waiting = new ArrayList<Connection> (myWaitingList);
+		myWaitingList.clear();
+		for (Connection c : waiting)
+			{
+			c.myWaiting = false;
+			if (c.myKey == null || ! c.myKey.isValid()) continue;
+			try
+				{
+				receive (c);
+				if (! c.myWaiting)
+					{
+					setInterest (c, SelectionKey.OP_READ, true);
+					}
+				}
+			catch (IOException exc)
+				{
+				failReceive (c, exc);
+				}
+			catch (RuntimeException exc)
+				{
+				if (c.myReceiveRequest != null)
+					{
+					c.myReceiveRequest.reportFailure (exc);
+					c.myReceiveRequest = null;
+					}
+				failReceive (c, null);
+				}
+			}
+		}
+
+	/**
+	 * Stop receiving from the given connection, reporting the given failure
+	 * (if any) to the message being received.
+	 */
+	private void failReceive
+		(Connection c,
+		 IOException exc)
+		{
+		if (c.myReceiveRequest != null && exc != null)
+			{
+			c.myReceiveRequest.reportFailure (exc);
+			}
+		c.myReceiveRequest = null;
+		c.myReadState = READ_HEADER;
+		if (c.myWaiting)
+			{
+			c.myWaiting = false;
+			myWaitingList.remove (c);
+			}
+		setInterest (c, SelectionKey.OP_READ, false);
+		c.myNetworkChannel.shutdownInput();
+		}
+
+	}
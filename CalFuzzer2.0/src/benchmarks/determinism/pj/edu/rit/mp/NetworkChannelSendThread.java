@@ -55,8 +55,10 @@ class NetworkChannelSendThread
 	// Queue of outgoing I/O requests.
 	private LinkedBlockingQueue<IORequest> myOutgoingQueue;
 
-	// Byte buffer.
-	private ByteBuffer myByteBuffer;
+	// Byte buffers for one gathering write. The first one is always
+	// allocated; the others are obtained from the byte buffer pool while a
+	// large message is being sent.
+	private ByteBuffer[] myByteBuffers = new ByteBuffer [Constants.MAX_GATHER];
 
 // Hidden constructors.
 
@@ -75,7 +77,7 @@ class NetworkChannelSendThread
 		myNetworkChannel = theNetworkChannel;
 		mySocketChannel = theSocketChannel;
 		myOutgoingQueue = theOutgoingQueue;
-		myByteBuffer = ByteBuffer.allocateDirect (Constants.BUFFER_SIZE);
+		myByteBuffers[0] = ByteBufferPool.allocate();
 		setDaemon (true);
 		start();
 		}
@@ -101,32 +103,40 @@ class NetworkChannelSendThread
 
 				// Message preprocessing.
 				buf.preSend();
-				myByteBuffer.clear();
+				ByteBuffer buffer = myByteBuffers[0];
+				buffer.clear();
+				int count = 1;
 				int i = 0;
 				int msglength = buf.myMessageLength;
 
 				// Write message header.
-				myByteBuffer.putInt (Constants.MAGIC_NUMBER);
-				myByteBuffer.putInt (iorequest.myTagLb);
-				myByteBuffer.put (buf.myMessageType);
-				myByteBuffer.putInt (msglength);
-
-				// Repeatedly transfer items from source buffer to byte buffer,
-				// then from byte buffer to socket channel.
+				buffer.putInt (Constants.MAGIC_NUMBER);
+				buffer.putInt (iorequest.myTagLb);
+				buffer.put (buf.myMessageType);
+				buffer.putInt (msglength);
+
+				// Repeatedly transfer items from source buffer to byte
+				// buffers, then from byte buffers to socket channel with one
+				// gathering write.
 				while (i < msglength)
 					{
-					i += buf.sendItems (i, myByteBuffer);
-					myByteBuffer.flip();
-					mySocketChannel.write (myByteBuffer);
-					myByteBuffer.compact();
-					}
-				myByteBuffer.flip();
-				while (myByteBuffer.hasRemaining())
-					{
-					mySocketChannel.write (myByteBuffer);
-					myByteBuffer.compact();
-					myByteBuffer.flip();
+					i += buf.sendItems (i, buffer);
+					if (i < msglength)
+						{
+						if (count == Constants.MAX_GATHER)
+							{
+							write (count);
+							count = 0;
+							}
+						if (myByteBuffers[count] == null)
+							{
+							myByteBuffers[count] = ByteBufferPool.allocate();
+							}
+						buffer = myByteBuffers[count ++];
+						buffer.clear();
+						}
 					}
+				write (count);
 
 				// Message postprocessing.
 				buf.postSend();
@@ -192,7 +202,49 @@ class NetworkChannelSendThread
 		myNetworkChannel = null;
 		mySocketChannel = null;
 		myOutgoingQueue = null;
-		myByteBuffer = null;
+		releaseByteBuffers (0);
+		myByteBuffers = null;
+		}
+
+// Hidden operations.
+
+	/**
+	 * Write the first <TT>count</TT> byte buffers to the socket channel, then
+	 * give the byte buffers other than the first back to the pool.
+	 *
+	 * @param  count  Number of byte buffers.
+	 *
+	 * @exception  IOException
+	 *     Thrown if an I/O error occurred.
+	 */
+	private void write
+		(int count)
+		throws IOException
+		{
+		for (int j = 0; j < count; ++ j)
+			{
+			myByteBuffers[j].flip();
+			}
+		while (myByteBuffers[count-1].hasRemaining())
+			{
+			mySocketChannel.write (myByteBuffers, 0, count);
+			}
+		releaseByteBuffers (1);
+		}
+
+	/**
+	 * Give the byte buffers from the given index on back to the pool.
+	 *
+	 * @param  first  Index of first byte buffer to release.
+	 */
+	private void releaseByteBuffers
+		(int first)
+		{
+		for (int j = first; j < Constants.MAX_GATHER; ++ j)
+			{
+			ByteBufferPool.release (myByteBuffers[j]);
+			myByteBuffers[j] = null;
+			}
 		}
 
 	}
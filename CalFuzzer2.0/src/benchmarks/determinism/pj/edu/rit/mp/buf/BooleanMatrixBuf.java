@@ -205,10 +205,9 @@ public class BooleanMatrixBuf
 		while (r < myRowCount && ncols > 0)
 			{
 			boolean[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				buffer.put (myMatrix_row[col] ? (byte) 1 : (byte) 0);
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -245,14 +244,14 @@ public class BooleanMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			boolean[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = buffer.get() != 0;
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -260,7 +259,8 @@ public class BooleanMatrixBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
@@ -155,10 +155,9 @@ public class BooleanMatrixBuf_1
 		while (r < myRowCount && ncols > 0)
 			{
 			boolean[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				buffer.put (myMatrix_row[col] ? (byte) 1 : (byte) 0);
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -195,14 +194,14 @@ public class BooleanMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			boolean[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = buffer.get() != 0;
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -210,7 +209,8 @@ public class BooleanMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
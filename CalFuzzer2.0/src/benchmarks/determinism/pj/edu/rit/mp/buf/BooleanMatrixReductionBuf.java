@@ -175,15 +175,15 @@ class BooleanMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			boolean[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], buffer.get() != 0);
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -191,7 +191,8 @@ class BooleanMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
@@ -204,12 +204,18 @@ public class ByteMatrixBuf
 		int ncols = Math.min (myColCount - c, buffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			byte[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				buffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				buffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				byte[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					buffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -245,22 +251,30 @@ public class ByteMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			byte[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = buffer.get();
-				++ c;
-				col += myColStride;
+				buffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				byte[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = buffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
@@ -188,7 +188,8 @@ public class ByteMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			buffer.get (myMatrix[row], col, ncols);
@@ -197,7 +198,8 @@ public class ByteMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
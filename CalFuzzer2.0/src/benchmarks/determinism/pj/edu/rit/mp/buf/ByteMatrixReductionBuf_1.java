@@ -177,15 +177,15 @@ class ByteMatrixReductionBuf_1
 		int row = r + myLowerRow;
 		int c = i % myColCount;
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			byte[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], buffer.get());
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class ByteMatrixReductionBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
@@ -206,12 +206,18 @@ public class CharacterMatrixBuf
 		int ncols = Math.min (myColCount - c, charbuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			char[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				charbuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				charbuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				char[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					charbuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class CharacterMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, charbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, charbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			char[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = charbuffer.get();
-				++ c;
-				col += myColStride;
+				charbuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				char[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = charbuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, charbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, charbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
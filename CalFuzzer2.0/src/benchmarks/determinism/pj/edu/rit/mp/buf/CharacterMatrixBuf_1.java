@@ -193,7 +193,8 @@ public class CharacterMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, charbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, charbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			charbuffer.get (myMatrix[row], col, ncols);
@@ -202,7 +203,8 @@ public class CharacterMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, charbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, charbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
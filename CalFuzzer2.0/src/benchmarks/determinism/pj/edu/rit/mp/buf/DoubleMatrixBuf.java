@@ -206,12 +206,18 @@ public class DoubleMatrixBuf
 		int ncols = Math.min (myColCount - c, doublebuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			double[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				doublebuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				doublebuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				double[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					doublebuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class DoubleMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, doublebuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, doublebuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			double[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = doublebuffer.get();
-				++ c;
-				col += myColStride;
+				doublebuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				double[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = doublebuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, doublebuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, doublebuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
@@ -193,7 +193,8 @@ public class DoubleMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, doublebuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, doublebuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			doublebuffer.get (myMatrix[row], col, ncols);
@@ -202,7 +203,8 @@ public class DoubleMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, doublebuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, doublebuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
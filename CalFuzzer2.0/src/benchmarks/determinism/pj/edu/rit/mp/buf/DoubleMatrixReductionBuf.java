@@ -177,15 +177,15 @@ class DoubleMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, doublebuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, doublebuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			double[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], doublebuffer.get());
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class DoubleMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, doublebuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, doublebuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
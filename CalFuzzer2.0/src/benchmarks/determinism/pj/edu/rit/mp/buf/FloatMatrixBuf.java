@@ -206,12 +206,18 @@ public class FloatMatrixBuf
 		int ncols = Math.min (myColCount - c, floatbuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			float[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				floatbuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				floatbuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				float[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					floatbuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class FloatMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, floatbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, floatbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			float[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = floatbuffer.get();
-				++ c;
-				col += myColStride;
+				floatbuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				float[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = floatbuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, floatbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, floatbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
@@ -177,15 +177,15 @@ class FloatMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, floatbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, floatbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			float[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], floatbuffer.get());
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class FloatMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, floatbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, floatbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
@@ -206,12 +206,18 @@ public class IntegerMatrixBuf
 		int ncols = Math.min (myColCount - c, intbuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				intbuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				intbuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				int[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					intbuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class IntegerMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, intbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, intbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = intbuffer.get();
-				++ c;
-				col += myColStride;
+				intbuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				int[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = intbuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, intbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, intbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
@@ -193,7 +193,8 @@ public class IntegerMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, intbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, intbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			intbuffer.get (myMatrix[row], col, ncols);
@@ -202,7 +203,8 @@ public class IntegerMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, intbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, intbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
@@ -177,15 +177,15 @@ class IntegerMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, intbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, intbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], intbuffer.get());
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class IntegerMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, intbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, intbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
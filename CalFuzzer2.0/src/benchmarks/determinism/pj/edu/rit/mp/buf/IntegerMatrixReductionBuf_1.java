@@ -179,15 +179,15 @@ class IntegerMatrixReductionBuf_1
 		int row = r + myLowerRow;
 		int c = i % myColCount;
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, intbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, intbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], intbuffer.get());
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -195,7 +195,8 @@ class IntegerMatrixReductionBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, intbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, intbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 4*n);
 		return n;
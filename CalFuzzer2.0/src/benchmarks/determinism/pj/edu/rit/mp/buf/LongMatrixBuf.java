@@ -206,12 +206,18 @@ public class LongMatrixBuf
 		int ncols = Math.min (myColCount - c, longbuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			long[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				longbuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				longbuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				long[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					longbuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class LongMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, longbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, longbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			long[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = longbuffer.get();
-				++ c;
-				col += myColStride;
+				longbuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				long[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = longbuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, longbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, longbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
@@ -193,7 +193,8 @@ public class LongMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, longbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, longbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			longbuffer.get (myMatrix[row], col, ncols);
@@ -202,7 +203,8 @@ public class LongMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, longbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, longbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
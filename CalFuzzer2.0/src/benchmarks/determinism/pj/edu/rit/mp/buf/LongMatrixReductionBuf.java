@@ -177,15 +177,15 @@ class LongMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, longbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, longbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			long[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], longbuffer.get());
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class LongMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, longbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, longbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 8*n);
 		return n;
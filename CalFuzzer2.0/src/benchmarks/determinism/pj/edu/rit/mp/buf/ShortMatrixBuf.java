@@ -206,12 +206,18 @@ public class ShortMatrixBuf
 		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
 		while (r < myRowCount && ncols > 0)
 			{
-			short[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				shortbuffer.put (myMatrix_row[col]);
-				++ c;
-				col += myColStride;
+				shortbuffer.put (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				short[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					shortbuffer.put (myMatrix_row[col]);
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
@@ -249,22 +255,30 @@ public class ShortMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, shortbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
-			short[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			if (myColStride == 1)
 				{
-				myMatrix_row[col] = shortbuffer.get();
-				++ c;
-				col += myColStride;
+				shortbuffer.get (myMatrix[row], col, ncols);
+				}
+			else
+				{
+				short[] myMatrix_row = myMatrix[row];
+				for (int j = 0; j < ncols; ++ j)
+					{
+					myMatrix_row[col] = shortbuffer.get();
+					col += myColStride;
+					}
 				}
 			n += ncols;
 			++ r;
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, shortbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, shortbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
@@ -177,15 +177,15 @@ class ShortMatrixReductionBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i % myColCount;
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, shortbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			short[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] =
 					myOp.op (myMatrix_row[col], shortbuffer.get());
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -193,7 +193,8 @@ class ShortMatrixReductionBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, shortbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, shortbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
@@ -210,10 +210,9 @@ public class Signed16BitIntegerMatrixBuf
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				shortbuffer.put ((short) myMatrix_row[col]);
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -252,14 +251,14 @@ public class Signed16BitIntegerMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, shortbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = shortbuffer.get();
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -267,7 +266,8 @@ public class Signed16BitIntegerMatrixBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, shortbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, shortbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
@@ -157,10 +157,9 @@ public class Signed16BitIntegerMatrixBuf_1
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				shortbuffer.put ((short) myMatrix_row[col]);
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -199,14 +198,14 @@ public class Signed16BitIntegerMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, shortbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = shortbuffer.get();
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -214,7 +213,8 @@ public class Signed16BitIntegerMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, shortbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, shortbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
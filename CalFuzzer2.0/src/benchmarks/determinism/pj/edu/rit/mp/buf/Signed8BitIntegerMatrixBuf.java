@@ -208,10 +208,9 @@ public class Signed8BitIntegerMatrixBuf
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				buffer.put ((byte) myMatrix_row[col]);
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -248,14 +247,14 @@ public class Signed8BitIntegerMatrixBuf
 		int row = r * myRowStride + myLowerRow;
 		int c = i2c(i);
 		int col = c * myColStride + myLowerCol;
-		int ncols = Math.min (myColCount - c, buffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, buffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = buffer.get();
-				++ c;
 				col += myColStride;
 				}
 			n += ncols;
@@ -263,7 +262,8 @@ public class Signed8BitIntegerMatrixBuf
 			row += myRowStride;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, buffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, buffer.remaining()));
 			}
 		return n;
 		}
@@ -158,10 +158,9 @@ public class Unsigned16BitIntegerMatrixBuf_1
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				shortbuffer.put ((short) myMatrix_row[col]);
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -200,14 +199,14 @@ public class Unsigned16BitIntegerMatrixBuf_1
 		int row = r + myLowerRow;
 		int c = i2c(i);
 		int col = c + myLowerCol;
-		int ncols = Math.min (myColCount - c, shortbuffer.remaining());
+		int ncols = Math.min
+			(myColCount - c, Math.min (num, shortbuffer.remaining()));
 		while (r < myRowCount && ncols > 0)
 			{
 			int[] myMatrix_row = myMatrix[row];
-			while (c < ncols)
+			for (int j = 0; j < ncols; ++ j)
 				{
 				myMatrix_row[col] = shortbuffer.get() & 0xFFFF;
-				++ c;
 				++ col;
 				}
 			n += ncols;
@@ -215,7 +214,8 @@ public class Unsigned16BitIntegerMatrixBuf_1
 			++ row;
 			c = 0;
 			col = myLowerCol;
-			ncols = Math.min (myColCount, shortbuffer.remaining());
+			ncols = Math.min
+				(myColCount, Math.min (num - n, shortbuffer.remaining()));
 			}
 		buffer.position (buffer.position() + 2*n);
 		return n;
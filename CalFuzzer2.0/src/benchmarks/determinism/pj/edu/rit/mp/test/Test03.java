@@ -0,0 +1,198 @@
+//******************************************************************************
+//
+// File:    Test03.java
+// Package: benchmarks.determinism.pj.edu.rit.mp.test
+// Unit:    Class benchmarks.determinism.pj.edu.rit.mp.test.Test03
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.mp.test;
+
+import benchmarks.determinism.pj.edu.rit.mp.Channel;
+import benchmarks.determinism.pj.edu.rit.mp.ChannelGroup;
+import benchmarks.determinism.pj.edu.rit.mp.IntegerBuf;
+import benchmarks.determinism.pj.edu.rit.mp.ObjectBuf;
+import benchmarks.determinism.pj.edu.rit.mp.Status;
+
+import benchmarks.determinism.pj.edu.rit.mp.buf.ObjectItemBuf;
+
+import benchmarks.determinism.pj.edu.rit.pj.ParallelRegion;
+import benchmarks.determinism.pj.edu.rit.pj.ParallelTeam;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Class Test03 is a main program that sends and receives MP messages over
+ * network channels on the local host. A server channel group accepts
+ * connections from <I>K</I> client channel groups. Each client sends
+ * <I>count</I> messages of <I>length</I> integers to the server with tag
+ * <I>k</I>, and the server receives them from any channel, checks their
+ * contents, and replies to each client with an object message. The program
+ * prints the elapsed time, or throws an exception if a message is wrong.
+ * <P>
+ * To test the selector-based transport, run the program with the
+ * <TT>"pj.mp.selectors"</TT> Java system property set, for example
+ * <TT>-Dpj.mp.selectors=1</TT>.
+ * <P>
+ * Usage: java benchmarks.determinism.pj.edu.rit.mp.test.Test03 <I>length</I> <I>count</I> <I>K</I>
+ * <BR><I>length</I> = Length of each message
+ * <BR><I>count</I> = Number of messages per client
+ * <BR><I>K</I> = Number of clients
+ *
+ * @version 19-Oct-2026
+ */
+public class Test03
+	{
+
+	/**
+	 * Prevent construction.
+	 */
+	private Test03()
+		{
+		}
+
+	/**
+	 * Main routine.
+	 */
+	private void run
+		(String[] args)
+		throws Throwable
+		{
+		// Parse command line arguments.
+		if (args.length != 3) usage();
+		final int length = Integer.parseInt (args[0]);
+		final int count = Integer.parseInt (args[1]);
+		final int K = Integer.parseInt (args[2]);
+
+		// Set up server channel group.
+		final ChannelGroup server =
+			new ChannelGroup (new InetSocketAddress ("127.0.0.1", 0));
+		server.startListening();
+		InetSocketAddress address = server.listenAddress();
+
+		// Set up client channel groups.
+		final ChannelGroup[] client = new ChannelGroup [K];
+		final Channel[] channel = new Channel [K];
+		for (int k = 0; k < K; ++ k)
+			{
+			client[k] = new ChannelGroup();
+			client[k].setChannelGroupId (k);
+			channel[k] = client[k].connect (address);
+			}
+
+		long t1 = System.currentTimeMillis();
+
+		// Run a client thread and a server thread for each client.
+		new ParallelTeam(2*K).execute (new ParallelRegion()
+			{
+			public void run() throws Exception
+				{
+				int rank = getThreadIndex();
+				if (rank < K)
+					{
+					// Client: send messages, then receive the reply.
+					int k = rank;
+					int[] data = new int [length];
+					IntegerBuf src = IntegerBuf.buffer (data);
+					for (int msgnum = 0; msgnum < count; ++ msgnum)
+						{
+						for (int i = 0; i < length; ++ i)
+							{
+							data[i] = k + msgnum + i;
+							}
+						client[k].send (channel[k], k, src);
+						}
+					ObjectItemBuf<String> reply = ObjectBuf.buffer();
+					client[k].receive (channel[k], reply);
+					check (("done "+k).equals (reply.item),
+						"client "+k+" reply = "+reply.item);
+					}
+				else
+					{
+					// Server: receive messages with tag k from any channel,
+					// then reply.
+					int k = rank - K;
+					int[] data = new int [length];
+					IntegerBuf dst = IntegerBuf.buffer (data);
+					Status status = null;
+					for (int msgnum = 0; msgnum < count; ++ msgnum)
+						{
+						status = server.receive (null, k, dst);
+						check (status.length == length,
+							"tag "+k+" message "+msgnum+" length = "+
+							status.length);
+						for (int i = 0; i < length; ++ i)
+							{
+							check (data[i] == k + msgnum + i,
+								"tag "+k+" message "+msgnum+" item "+i+
+								" = "+data[i]);
+							}
+						}
+					if (status != null)
+						{
+						server.send (status.channel, ObjectBuf.buffer ("done "+k));
+						}
+					}
+				}
+			});
+
+		long t2 = System.currentTimeMillis();
+		System.out.println ((t2-t1) + " msec");
+
+		for (int k = 0; k < K; ++ k)
+			{
+			client[k].close();
+			}
+		server.close();
+		}
+
+	/**
+	 * Throw an exception with the given message if the given condition is
+	 * false.
+	 */
+	private static void check
+		(boolean condition,
+		 String message)
+		{
+		if (! condition)
+			{
+			throw new IllegalStateException (message);
+			}
+		}
+
+	/**
+	 * Main program.
+	 */
+	public static void main
+		(String[] args)
+		throws Throwable
+		{
+		new Test03().run (args);
+		}
+
+	/**
+	 * Print a usage message and exit.
+	 */
+	private static void usage()
+		{
+		System.err.println ("Usage: java benchmarks.determinism.pj.edu.rit.mp.test.Test03 <length> <count> <K>");
+		System.err.println ("<length> = Length of each message");
+		System.err.println ("<count> = Number of messages per client");
+		System.err.println ("<K> = Number of clients");
+		System.exit (1);
+		}
+
+	}
@@ -0,0 +1,210 @@
+//******************************************************************************
+//
+// File:    BarrierHistogram.java
+// Package: benchmarks.determinism.pj.edu.rit.pj
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.BarrierHistogram
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj;
+
+import java.io.PrintStream;
+
+/**
+ * Class BarrierHistogram provides a snapshot of the time the threads of a
+ * {@linkplain ParallelTeam} have spent waiting in barriers, obtained by calling
+ * the parallel team's <TT>getBarrierHistogram()</TT> method. Every barrier
+ * counts, whether it is an explicit barrier in a {@linkplain ParallelRegion}
+ * or the implicit barrier at the end of a parallel construct.
+ * <P>
+ * Each wait is counted in one bucket of a histogram. Bucket <I>i</I> counts
+ * the waits that took from 2<SUP><I>i</I></SUP> up to but not including
+ * 2<SUP><I>i</I>+1</SUP> nanoseconds; bucket 0 also counts waits of 0
+ * nanoseconds, and the last bucket also counts all longer waits. The total
+ * wait time of each thread is recorded too. In a region whose work is well
+ * balanced, the threads' total wait times are about the same; a thread with a
+ * much smaller total wait time than the others is the one they are waiting
+ * for.
+ *
+ * @version 19-Oct-2026
+ */
+public class BarrierHistogram
+	{
+
+// Hidden constants.
+
+	// Number of buckets. The last bucket starts at 2^39 nanoseconds, about 9
+	// minutes.
+	static final int BUCKETS = 40;
+
+// Hidden data members.
+
+	private long[] myCounts = new long [BUCKETS];
+	private long[] myThreadWaitTime;
+
+// Hidden constructors.
+
+	/**
+	 * Construct a new barrier histogram with the given threads' wait times.
+	 *
+	 * @param  theThreads  Array of parallel team threads.
+	 */
+	BarrierHistogram
+		(ParallelTeamThread[] theThreads)
+		{
+		int K = theThreads.length;
+		myThreadWaitTime = new long [K];
+		for (int k = 0; k < K; ++ k)
+			{
+			ParallelTeamThread thread = theThreads[k];
+			for (int i = 0; i < BUCKETS; ++ i)
+				{
+				myCounts[i] += thread.myBarrierWaitCounts[i];
+				}
+			myThreadWaitTime[k] = thread.myBarrierWaitTime;
+			}
+		}
+
+// Exported operations.
+
+	/**
+	 * Returns the number of buckets in this histogram.
+	 *
+	 * @return  Number of buckets.
+	 */
+	public int getBucketCount()
+		{
+		return BUCKETS;
+		}
+
+	/**
+	 * Returns the smallest wait time counted in the given bucket.
+	 *
+	 * @param  i  Bucket index in the range 0 .. <TT>getBucketCount()</TT>-1.
+	 *
+	 * @return  Lower bound of bucket <TT>i</TT> (nanoseconds).
+	 *
+	 * @exception  ArrayIndexOutOfBoundsException
+	 *     (unchecked exception) Thrown if <TT>i</TT> is out of bounds.
+	 */
+	public long getBucketLowerBound
+		(int i)
+		{
+		if (0 > i || i >= BUCKETS)
+			{
+			throw new ArrayIndexOutOfBoundsException
+				("BarrierHistogram.getBucketLowerBound(): i = " + i +
+				 " out of bounds");
+			}
+		return i == 0 ? 0L : 1L << i;
+		}
+
+	/**
+	 * Returns the number of barrier waits counted in the given bucket, summed
+	 * over all the threads.
+	 *
+	 * @param  i  Bucket index in the range 0 .. <TT>getBucketCount()</TT>-1.
+	 *
+	 * @return  Count in bucket <TT>i</TT>.
+	 *
+	 * @exception  ArrayIndexOutOfBoundsException
+	 *     (unchecked exception) Thrown if <TT>i</TT> is out of bounds.
+	 */
+	public long getCount
+		(int i)
+		{
+		return myCounts[i];
+		}
+
+	/**
+	 * Returns the number of barrier waits counted in all buckets.
+	 *
+	 * @return  Total count.
+	 */
+	public long getTotalCount()
+		{
+		long total = 0L;
+		for (int i = 0; i < BUCKETS; ++ i) total += myCounts[i];
+		return total;
+		}
+
+	/**
+	 * Returns the number of threads in the parallel team.
+	 *
+	 * @return  Number of threads.
+	 */
+	public int getThreadCount()
+		{
+		return myThreadWaitTime.length;
+		}
+
+	/**
+	 * Returns the total time the given thread spent waiting in barriers.
+	 *
+	 * @param  k  Thread index in the range 0 .. <TT>getThreadCount()</TT>-1.
+	 *
+	 * @return  Total wait time of thread <TT>k</TT> (nanoseconds).
+	 *
+	 * @exception  ArrayIndexOutOfBoundsException
+	 *     (unchecked exception) Thrown if <TT>k</TT> is out of bounds.
+	 */
+	public long getThreadWaitTime
+		(int k)
+		{
+		return myThreadWaitTime[k];
+		}
+
+	/**
+	 * Print this histogram on the given print stream. The nonempty buckets are
+	 * printed one per line, followed by each thread's total wait time.
+	 *
+	 * @param  out  Print stream.
+	 */
+	public void print
+		(PrintStream out)
+		{
+		out.println ("Barrier wait time (nsec)\tCount");
+		for (int i = 0; i < BUCKETS; ++ i)
+			{
+			if (myCounts[i] != 0L)
+				{
+				out.println (getBucketLowerBound (i) + "\t" + myCounts[i]);
+				}
+			}
+		out.println ("Thread\tTotal wait time (nsec)");
+		for (int k = 0; k < myThreadWaitTime.length; ++ k)
+			{
+			out.println (k + "\t" + myThreadWaitTime[k]);
+			}
+		}
+
+// Hidden operations.
+
+	/**
+	 * Returns the bucket in which a wait of the given time is counted.
+	 *
+	 * @param  nanos  Wait time (nanoseconds).
+	 *
+	 * @return  Bucket index.
+	 */
+	static int bucket
+		(long nanos)
+		{
+		if (nanos <= 1L) return 0;
+		return Math.min (BUCKETS - 1, 63 - Long.numberOfLeadingZeros (nanos));
+		}
+
+	}
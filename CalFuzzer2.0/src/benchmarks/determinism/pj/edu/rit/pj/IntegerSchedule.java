@@ -40,14 +40,16 @@ import java.lang.reflect.InvocationTargetException;
  * <LI><TT>IntegerSchedule.fixed()</TT>
  * <LI><TT>IntegerSchedule.dynamic()</TT>
  * <LI><TT>IntegerSchedule.guided()</TT>
+ * <LI><TT>IntegerSchedule.stealing()</TT>
  * <LI><TT>IntegerSchedule.runtime()</TT>
  * <LI><TT>IntegerSchedule.parse()</TT>
  * </UL>
  * <P>
- * The Parallel Java Library includes three built-in schedule implementations:
- * fixed, dynamic, and guided. You can create instances of these by calling the
- * <TT>fixed()</TT>, <TT>dynamic()</TT>, and <TT>guided()</TT> methods. You can
- * also create your own schedule implementation by writing a subclass of class
+ * The Parallel Java Library includes four built-in schedule implementations:
+ * fixed, dynamic, guided, and work stealing. You can create instances of
+ * these by calling the <TT>fixed()</TT>, <TT>dynamic()</TT>,
+ * <TT>guided()</TT>, and <TT>stealing()</TT> methods. You can also create
+ * your own schedule implementation by writing a subclass of class
  * IntegerSchedule. The subclass must have a no-argument constructor and a
  * constructor whose argument is an array of Strings; see the <TT>parse()</TT>
  * method for further information about how these constructors are used.
@@ -163,6 +165,42 @@ public abstract class IntegerSchedule
 		return new GuidedIntegerSchedule (theChunkSize);
 		}
 
+	/**
+	 * Returns a work stealing schedule object with a chunk size of 1. The loop
+	 * iterations are initially partitioned into one equal-sized block per
+	 * parallel team thread. Each thread repeatedly performs the next iteration
+	 * of its own block; when its block is empty, it steals the back half of
+	 * the remaining iterations of another thread's block. This balances
+	 * irregular loops without every chunk coming from one shared counter.
+	 *
+	 * @return  Work stealing schedule object.
+	 */
+	public static IntegerSchedule stealing()
+		{
+		return new StealingIntegerSchedule (1);
+		}
+
+	/**
+	 * Returns a work stealing schedule object with the given chunk size. The
+	 * loop iterations are initially partitioned into one equal-sized block per
+	 * parallel team thread. Each thread repeatedly performs the next chunk of
+	 * <TT>theChunkSize</TT> iterations of its own block; when its block is
+	 * empty, it steals the back half of the remaining iterations of another
+	 * thread's block. A chunk may be smaller than <TT>theChunkSize</TT>.
+	 *
+	 * @param  theChunkSize  Chunk size, &gt;= 1.
+	 *
+	 * @return  Work stealing schedule object.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>theChunkSize</TT> &lt; 1.
+	 */
+	public static IntegerSchedule stealing
+		(int theChunkSize)
+		{
+		return new StealingIntegerSchedule (theChunkSize);
+		}
+
 	/**
 	 * Returns a schedule object of a type determined at run time. If the
 	 * <TT>"pj.schedule"</TT> Java property is specified, the property's value
@@ -225,6 +263,10 @@ public abstract class IntegerSchedule
 	 * size of 1.
 	 * <P><LI><TT>"guided(<I>n</I>)"</TT> -- Self-guided schedule with a
 	 * minimum chunk size of <TT><I>n</I></TT>, an integer &gt;= 1.
+	 * <P><LI><TT>"stealing"</TT> -- Work stealing schedule with a chunk size
+	 * of 1.
+	 * <P><LI><TT>"stealing(<I>n</I>)"</TT> -- Work stealing schedule with a
+	 * chunk size of <TT><I>n</I></TT>, an integer &gt;= 1.
 	 * <P><LI><TT>"<I>classname</I>"</TT> -- Schedule that is an instance of the
 	 * given class. <I>classname</I> is the fully-qualified class name of the
 	 * schedule class, which must be a subclass of class IntegerSchedule. The
@@ -341,8 +383,8 @@ public abstract class IntegerSchedule
 
 	/**
 	 * Get the name of the subclass to instantiate. The names <TT>"fixed"</TT>,
-	 * <TT>"dynamic"</TT>, and <TT>"guided"</TT> are recognized as special
-	 * cases.
+	 * <TT>"dynamic"</TT>, <TT>"guided"</TT>, and <TT>"stealing"</TT> are
+	 * recognized as special cases.
 	 *
 	 * @param  name  Subclass name, or special case string.
 	 *
@@ -363,6 +405,10 @@ public abstract class IntegerSchedule
 			{
 			return "benchmarks.determinism.pj.edu.rit.pj.GuidedIntegerSchedule";
 			}
+		else if (name.equals ("stealing"))
+			{
+			return "benchmarks.determinism.pj.edu.rit.pj.StealingIntegerSchedule";
+			}
 		else
 			{
 			return name;
@@ -42,14 +42,15 @@ import java.util.concurrent.atomic.AtomicLong;
  * <LI><TT>LongSchedule.fixed()</TT>
  * <LI><TT>LongSchedule.dynamic()</TT>
  * <LI><TT>LongSchedule.guided()</TT>
+ * <LI><TT>LongSchedule.stealing()</TT>
  * <LI><TT>LongSchedule.runtime()</TT>
  * <LI><TT>LongSchedule.parse()</TT>
  * </UL>
  * <P>
- * The Parallel Java Library includes three built-in schedule implementations:
- * fixed, dynamic, and guided. You can create instances of these by calling the
- * <TT>fixed()</TT>, <TT>dynamic()</TT>, and <TT>guided()</TT> methods. You can
- * also create your own schedule implementation by writing a subclass of class
+ * The Parallel Java Library includes four built-in schedule implementations:
+ * fixed, dynamic, guided, and work stealing. You can create instances of these
+ * by calling the <TT>fixed()</TT>, <TT>dynamic()</TT>, <TT>guided()</TT>, and
+ * <TT>stealing()</TT> methods. You can also create your own schedule implementation by writing a subclass of class
  * LongSchedule. The subclass must have a no-argument constructor and a
  * constructor whose argument is an array of Strings; see the <TT>parse()</TT>
  * method for further information about how these constructors are used.
@@ -165,6 +166,42 @@ public abstract class LongSchedule
 		return new GuidedLongSchedule (theChunkSize);
 		}
 
+	/**
+	 * Returns a work stealing schedule object with a chunk size of 1. The loop
+	 * iterations are initially partitioned into one equal-sized block per
+	 * parallel team thread. Each thread repeatedly performs the next iteration
+	 * of its own block; when its block is empty, it steals the back half of
+	 * the remaining iterations of another thread's block. This balances
+	 * irregular loops without every chunk coming from one shared counter.
+	 *
+	 * @return  Work stealing schedule object.
+	 */
+	public static LongSchedule stealing()
+		{
+		return new StealingLongSchedule (1);
+		}
+
+	/**
+	 * Returns a work stealing schedule object with the given chunk size. The
+	 * loop iterations are initially partitioned into one equal-sized block per
+	 * parallel team thread. Each thread repeatedly performs the next chunk of
+	 * <TT>theChunkSize</TT> iterations of its own block; when its block is
+	 * empty, it steals the back half of the remaining iterations of another
+	 * thread's block. A chunk may be smaller than <TT>theChunkSize</TT>.
+	 *
+	 * @param  theChunkSize  Chunk size, &gt;= 1.
+	 *
+	 * @return  Work stealing schedule object.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>theChunkSize</TT> &lt; 1.
+	 */
+	public static LongSchedule stealing
+		(long theChunkSize)
+		{
+		return new StealingLongSchedule (theChunkSize);
+		}
+
 	/**
 	 * Returns a schedule object of a type determined at run time. If the
 	 * <TT>"pj.schedule"</TT> Java property is specified, the property's value
@@ -227,6 +264,10 @@ public abstract class LongSchedule
 	 * size of 1.
 	 * <P><LI><TT>"guided(<I>n</I>)"</TT> -- Self-guided schedule with a
 	 * minimum chunk size of <TT><I>n</I></TT>, an integer &gt;= 1.
+	 * <P><LI><TT>"stealing"</TT> -- Work stealing schedule with a chunk size
+	 * of 1.
+	 * <P><LI><TT>"stealing(<I>n</I>)"</TT> -- Work stealing schedule with a
+	 * chunk size of <TT><I>n</I></TT>, an integer &gt;= 1.
 	 * <P><LI><TT>"<I>classname</I>"</TT> -- Schedule that is an instance of the
 	 * given class. <I>classname</I> is the fully-qualified class name of the
 	 * schedule class, which must be a subclass of class LongSchedule. The
@@ -343,8 +384,8 @@ public abstract class LongSchedule
 
 	/**
 	 * Get the name of the subclass to instantiate. The names <TT>"fixed"</TT>,
-	 * <TT>"dynamic"</TT>, and <TT>"guided"</TT> are recognized as special
-	 * cases.
+	 * <TT>"dynamic"</TT>, <TT>"guided"</TT>, and <TT>"stealing"</TT> are
+	 * recognized as special cases.
 	 *
 	 * @param  name  Subclass name, or special case string.
 	 *
@@ -365,6 +406,10 @@ public abstract class LongSchedule
 			{
 			return "benchmarks.determinism.pj.edu.rit.pj.GuidedLongSchedule";
 			}
+		else if (name.equals ("stealing"))
+			{
+			return "benchmarks.determinism.pj.edu.rit.pj.StealingLongSchedule";
+			}
 		else
 			{
 			return name;
@@ -280,6 +280,10 @@ public class PJProperties
 	 * size of 1.
 	 * <P><LI><TT>"guided(&lt;n&gt;)"</TT> -- Self-guided schedule with a
 	 * minimum chunk size of <TT>&lt;n&gt;</TT>, an integer &gt;= 1.
+	 * <P><LI><TT>"stealing"</TT> -- Work stealing schedule with a chunk size
+	 * of 1.
+	 * <P><LI><TT>"stealing(&lt;n&gt;)"</TT> -- Work stealing schedule with a
+	 * chunk size of <TT>&lt;n&gt;</TT>, an integer &gt;= 1.
 	 * <P><LI><TT>"<I>classname</I>"</TT> -- Schedule that is an instance of the
 	 * given class. <I>classname</I> is the fully-qualified class name of the
 	 * schedule class. The instance is constructed using the subclass's
@@ -25,6 +25,8 @@
 
 package benchmarks.determinism.pj.edu.rit.pj;
 
+import java.util.Arrays;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 
@@ -38,6 +40,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * instance of a concrete subclass of class {@linkplain ParallelRegion}; and
  * pass this instance to the parallel team's <TT>execute()</TT> method. For
  * further information, see class {@linkplain ParallelRegion}.
+ * <P>
+ * The parallel team records how long its threads wait in barriers. To see
+ * whether the work in a parallel region is balanced among the threads, call
+ * the <TT>getBarrierHistogram()</TT> method after executing the region.
  *
  * @author  Alan Kaminsky
  * @version 19-May-2008
@@ -62,7 +68,10 @@ public class ParallelTeam
 	// Exception map for parallel region, or null if none is being executed.
 	ConcurrentHashMap<Integer,Throwable> myExceptionMap;
 
-	// Team barrier flag. Used by the ParallelRegion.barrier() method.
+	// Team barrier flag. Used by the ParallelRegion.barrier() method. The
+	// team threads arrive at a barrier up a combining tree to thread 0, which
+	// then switches this flag. While waiting, a thread spins for a while and
+	// then parks until the thread it waits for unparks it.
 	volatile int myBarrierFlag;
 
 	// Parallel construct counter. Counts how many parallel constructs have been
@@ -247,6 +256,36 @@ public class ParallelTeam
 		return K;
 		}
 
+	/**
+	 * Obtain a snapshot of the time this parallel team's threads have spent
+	 * waiting in barriers, since the team was created or since the last call
+	 * of <TT>resetBarrierHistogram()</TT>. Call this method when the team is
+	 * not executing a parallel region; otherwise the snapshot may be
+	 * inconsistent. For further information, see class {@linkplain
+	 * BarrierHistogram}.
+	 *
+	 * @return  Barrier histogram.
+	 */
+	public BarrierHistogram getBarrierHistogram()
+		{
+		return new BarrierHistogram (myThread);
+		}
+
+	/**
+	 * Clear the record of the time this parallel team's threads have spent
+	 * waiting in barriers. Call this method when the team is not executing a
+	 * parallel region.
+	 */
+	public void resetBarrierHistogram()
+		{
+		for (int k = 0; k < K; ++ k)
+			{
+			ParallelTeamThread thread = myThread[k];
+			Arrays.fill (thread.myBarrierWaitCounts, 0L);
+			thread.myBarrierWaitTime = 0L;
+			}
+		}
+
 	/**
 	 * Determine the default number of threads for a parallel team. If the
 	 * <TT>"pj.nt"</TT> Java property is specified, that property gives the
@@ -280,26 +319,20 @@ public class ParallelTeam
 	 */
 	void barrier()
 		{
+		ParallelTeamThread thread_0 = myThread[0];
+		long t1 = System.nanoTime();
+
 		// Get the new team barrier flag.
 		int newBarrierFlag = myBarrierFlag ^ 1;
 
-		// Wait until each team thread 1 .. K-1 has switched to the new
-		// barrier flag.
-		for (int i = 1; i < K; ++ i)
-			{
-			ParallelTeamThread thread_i = myThread[i];
-			if (thread_i.myBarrierFlag != newBarrierFlag)
-				{
-				Spinner spinner = new Spinner();
-				while (thread_i.myBarrierFlag != newBarrierFlag)
-					{
-					spinner.spin();
-					}
-				}
-			}
+		// Wait until every team thread 1 .. K-1 has switched to the new
+		// barrier flag, combining up the tree.
+		thread_0.arrive (newBarrierFlag);
 
 		// Switch to the new team barrier flag.
-		myBarrierFlag = newBarrierFlag;
+		release (newBarrierFlag);
+
+		thread_0.recordBarrierWait (System.nanoTime() - t1);
 		}
 
 	/**
@@ -316,23 +349,18 @@ public class ParallelTeam
 		(BarrierAction action)
 		throws Exception
 		{
+		ParallelTeamThread thread_0 = myThread[0];
+		long t1 = System.nanoTime();
+
 		// Get the new team barrier flag.
 		int newBarrierFlag = myBarrierFlag ^ 1;
 
-		// Wait until each team thread 1 .. K-1 has switched to the new
-		// barrier flag.
-		for (int i = 1; i < K; ++ i)
-			{
-			ParallelTeamThread thread_i = myThread[i];
-			if (thread_i.myBarrierFlag != newBarrierFlag)
-				{
-				Spinner spinner = new Spinner();
-				while (thread_i.myBarrierFlag != newBarrierFlag)
-					{
-					spinner.spin();
-					}
-				}
-			}
+		// Wait until every team thread 1 .. K-1 has switched to the new
+		// barrier flag, combining up the tree.
+		thread_0.arrive (newBarrierFlag);
+
+		// The barrier action's time is not counted as waiting.
+		thread_0.recordBarrierWait (System.nanoTime() - t1);
 
 		try
 			{
@@ -346,7 +374,23 @@ public class ParallelTeam
 			action.myTeam = null;
 
 			// Switch to the new team barrier flag.
-			myBarrierFlag = newBarrierFlag;
+			release (newBarrierFlag);
+			}
+		}
+
+	/**
+	 * Switch to the given team barrier flag, and wake up the team threads that
+	 * are parked waiting for it.
+	 *
+	 * @param  newBarrierFlag  New team barrier flag.
+	 */
+	private void release
+		(int newBarrierFlag)
+		{
+		myBarrierFlag = newBarrierFlag;
+		for (int i = 1; i < K; ++ i)
+			{
+			myThread[i].unparkFromBarrier();
 			}
 		}
 
@@ -26,6 +26,7 @@
 package benchmarks.determinism.pj.edu.rit.pj;
 
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Class ParallelTeamThread provides one thread in a {@linkplain ParallelTeam}
@@ -38,6 +39,13 @@ class ParallelTeamThread
 	extends Thread
 	{
 
+// Hidden constants.
+
+	// Arity of the barrier combining tree. Thread i waits for threads
+	// ARITY*i+1 .. ARITY*i+ARITY to arrive at a barrier before it arrives
+	// itself.
+	static final int ARITY = 4;
+
 // Hidden data members.
 
 	// Reference to the parallel team.
@@ -53,6 +61,18 @@ class ParallelTeamThread
 	// Thread barrier flag. Used by the ParallelRegion.barrier() method.
 	volatile int myBarrierFlag;
 
+	// True while this thread is parked waiting in a barrier.
+	volatile boolean myBarrierParked;
+
+	// Number of iterations this thread spins in a barrier wait before parking.
+	// Grows when waits end while spinning, shrinks when they end parked.
+	int myBarrierSpinLimit;
+
+	// Barrier wait times of this thread: count of waits in each histogram
+	// bucket, and total wait time in nanoseconds.
+	long[] myBarrierWaitCounts = new long [BarrierHistogram.BUCKETS];
+	long myBarrierWaitTime;
+
 	// Parallel construct counter. Counts how many times this thread has arrived
 	// at the top of a parallel construct.
 	volatile int myConstructCount;
@@ -87,6 +107,10 @@ class ParallelTeamThread
 		{
 		myTeam = theTeam;
 		myIndex = theIndex;
+		myBarrierSpinLimit =
+			theTeam.K > Runtime.getRuntime().availableProcessors() ?
+				Spinner.MIN_BARRIER_SPIN :
+				Spinner.MAX_BARRIER_SPIN;
 		setDaemon (true);
 		start();
 		}
@@ -134,21 +158,115 @@ class ParallelTeamThread
 	 */
 	void barrier()
 		{
+		long t1 = System.nanoTime();
+
 		// Get the new team barrier flag.
 		int newBarrierFlag = myTeam.myBarrierFlag ^ 1;
 
-		// Switch this thread to the new barrier flag.
-		myBarrierFlag = newBarrierFlag;
+		// Wait for this thread's children, then switch to the new barrier
+		// flag.
+		arrive (newBarrierFlag);
 
 		// Wait until thread 0 has switched to the new team barrier flag.
 		if (myTeam.myBarrierFlag != newBarrierFlag)
 			{
-			Spinner spinner = new Spinner();
-			while (myTeam.myBarrierFlag != newBarrierFlag)
+			int n = myBarrierSpinLimit;
+			while (n > 0 && myTeam.myBarrierFlag != newBarrierFlag) -- n;
+			if (n == 0)
 				{
-				spinner.spin();
+				myBarrierParked = true;
+				while (myTeam.myBarrierFlag != newBarrierFlag)
+					{
+					LockSupport.park (this);
+					}
+				myBarrierParked = false;
 				}
+			adaptBarrierSpinLimit (n > 0);
 			}
+
+		recordBarrierWait (System.nanoTime() - t1);
+		}
+
+	/**
+	 * Arrive at a barrier. Wait until each of this thread's children in the
+	 * barrier combining tree has switched to the given barrier flag, then
+	 * switch this thread to the given barrier flag and wake up its parent if
+	 * the parent is parked.
+	 *
+	 * @param  newBarrierFlag  New barrier flag.
+	 */
+	void arrive
+		(int newBarrierFlag)
+		{
+		ParallelTeamThread[] thread = myTeam.myThread;
+		int K = myTeam.K;
+		int first = ARITY*myIndex + 1;
+		int last = Math.min (first + ARITY, K);
+		for (int i = first; i < last; ++ i)
+			{
+			ParallelTeamThread child = thread[i];
+			if (child.myBarrierFlag != newBarrierFlag)
+				{
+				int n = myBarrierSpinLimit;
+				while (n > 0 && child.myBarrierFlag != newBarrierFlag) -- n;
+				if (n == 0)
+					{
+					myBarrierParked = true;
+					while (child.myBarrierFlag != newBarrierFlag)
+						{
+						LockSupport.park (this);
+						}
+					myBarrierParked = false;
+					}
+				adaptBarrierSpinLimit (n > 0);
+				}
+			}
+		myBarrierFlag = newBarrierFlag;
+		if (myIndex > 0)
+			{
+			thread[(myIndex - 1)/ARITY].unparkFromBarrier();
+			}
+		}
+
+	/**
+	 * Wake up this thread if it is parked waiting in a barrier. This method is
+	 * called by another thread after changing the flag this thread waits on.
+	 */
+	void unparkFromBarrier()
+		{
+		if (myBarrierParked)
+			{
+			LockSupport.unpark (this);
+			}
+		}
+
+	/**
+	 * Adapt this thread's barrier spin limit after a barrier wait. If the wait
+	 * ended while spinning, spin longer next time; if the thread had to park,
+	 * spin less next time.
+	 *
+	 * @param  spun  True if the wait ended while spinning, false if the thread
+	 *               parked.
+	 */
+	private void adaptBarrierSpinLimit
+		(boolean spun)
+		{
+		myBarrierSpinLimit = spun ?
+			Math.min (2*myBarrierSpinLimit, Spinner.MAX_BARRIER_SPIN) :
+			Math.max (myBarrierSpinLimit/2, Spinner.MIN_BARRIER_SPIN);
+		}
+
+	/**
+	 * Record a barrier wait of the given time in this thread's barrier
+	 * histogram.
+	 *
+	 * @param  nanos  Wait time (nanoseconds).
+	 */
+	void recordBarrierWait
+		(long nanos)
+		{
+		++ myBarrierWaitCounts[BarrierHistogram.bucket (nanos)];
+		myBarrierWaitTime += nanos;
 		}
 
 	/**
@@ -50,6 +50,12 @@ class Spinner
 	// the CPU.
 	static final int MAX_COUNT = 10000;
 
+	// In a barrier wait, the smallest and largest number of iterations to spin
+	// before parking. The largest is calibrated once to spin for about as long
+	// as it takes to park and unpark a thread, about 50 microseconds.
+	static final int MIN_BARRIER_SPIN = 64;
+	static final int MAX_BARRIER_SPIN = calibrate (50000L);
+
 // Hidden data members.
 
 	// Spin counter.
@@ -83,4 +89,35 @@ class Spinner
 			}
 		}
 
+// Hidden operations.
+
+	/**
+	 * Measure how many spin iterations, each reading a volatile field, take the
+	 * given number of nanoseconds on this machine. The loop is timed twice so
+	 * the second measurement runs compiled code.
+	 *
+	 * @param  nanos  Time to spin (nanoseconds).
+	 *
+	 * @return  Number of spin iterations, at least <TT>MIN_BARRIER_SPIN</TT>
+	 *          and at most 1000000.
+	 */
+	private static int calibrate
+		(long nanos)
+		{
+		final int N = 100000;
+		Spinner spinner = new Spinner();
+		long elapsed = 0L;
+		for (int pass = 0; pass < 2; ++ pass)
+			{
+			long t1 = System.nanoTime();
+			for (int i = 0; i < N; ++ i)
+				{
+				if (spinner.count < 0) break;
+				}
+			elapsed = System.nanoTime() - t1;
+			}
+		long spins = elapsed <= 0L ? 1000000L : N*nanos/elapsed;
+		return (int) Math.max (MIN_BARRIER_SPIN, Math.min (1000000L, spins));
+		}
+
 	}
@@ -0,0 +1,259 @@
+//******************************************************************************
+//
+// File:    StealingIntegerSchedule.java
+// Package: benchmarks.determinism.pj.edu.rit.pj
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.StealingIntegerSchedule
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj;
+
+import benchmarks.determinism.pj.edu.rit.util.Range;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class StealingIntegerSchedule provides a work stealing schedule object. The
+ * loop index is type <TT>int</TT>. The loop iterations are initially
+ * partitioned into <I>K</I> equal-sized blocks, one for each parallel team
+ * thread. Each thread repeatedly performs the next chunk of a given size from
+ * the front of its own block. When its block is empty, the thread steals the
+ * back half of the remaining iterations of another thread's block and carries
+ * on with those. The threads contend only when stealing, unlike the dynamic and
+ * guided schedules where every chunk comes from one shared counter.
+ *
+ * @version 19-Oct-2026
+ */
+class StealingIntegerSchedule
+	extends IntegerSchedule
+	{
+
+// Hidden constants.
+
+	// Distance between two threads' blocks in myBlocks. 16 longs are 128
+	// bytes, to avert cache interference.
+	private static final int PAD = 16;
+
+// Hidden data members.
+
+	// Number of parallel team threads.
+	private int K;
+
+	// Loop iteration range.
+	private Range myLoopRange;
+
+	// For each thread, the iterations remaining in its block, as a half-open
+	// interval of iteration indexes [lb,ub) packed into one long with lb in
+	// the upper 32 bits and ub in the lower 32 bits.
+	private AtomicLongArray myBlocks;
+
+	// Chunk size.
+	private int N2;
+
+// Exported constructors.
+
+	/**
+	 * Construct a new work stealing schedule object with a chunk size of 1.
+	 */
+	public StealingIntegerSchedule()
+		{
+		this (1);
+		}
+
+	/**
+	 * Construct a new work stealing schedule object with the given chunk size.
+	 *
+	 * @param  theChunkSize  Chunk size.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>theChunkSize</TT> is less than 1.
+	 */
+	public StealingIntegerSchedule
+		(int theChunkSize)
+		{
+		super();
+		if (theChunkSize < 1)
+			{
+			throw new IllegalArgumentException
+				("StealingIntegerSchedule(): Chunk size = " + theChunkSize +
+				 " illegal");
+			}
+		N2 = theChunkSize;
+		}
+
+	/**
+	 * Construct a new work stealing schedule object. This constructor is for
+	 * use by the <TT>IntegerSchedule.parse()</TT> method. <TT>args</TT> must be
+	 * an array of one string, namely the chunk size, an integer &gt;= 1.
+	 *
+	 * @param  args  Array of argument strings.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>args</TT> is not an array of one
+	 *     string. Thrown if the chunk size is less than 1.
+	 */
+	public StealingIntegerSchedule
+		(String[] args)
+		{
+		this (getChunkSize (args));
+		}
+
+	private static int getChunkSize
+		(String[] args)
+		{
+		if (args.length != 1)
+			{
+			throw new IllegalArgumentException
+				("StealingIntegerSchedule(): Usage: -Dpj.schedule=stealing or -Dpj.schedule=\"stealing(<n>)\"");
+			}
+		int theChunkSize;
+		try
+			{
+			theChunkSize = Integer.parseInt (args[0]);
+			}
+		catch (NumberFormatException exc)
+			{
+			throw new IllegalArgumentException
+				("StealingIntegerSchedule(): Chunk size = " + args[0] +
+				 " illegal");
+			}
+		return theChunkSize;
+		}
+
+// Hidden operations.
+
+	/**
+	 * Start generating chunks of iterations for a parallel for loop using this
+	 * schedule.
+	 * <P>
+	 * The <TT>start()</TT> method is only called by a single thread in the
+	 * Parallel Java middleware.
+	 *
+	 * @param  K             Number of threads in the parallel team.
+	 * @param  theLoopRange  Range of iterations for the entire parallel for
+	 *                       loop. The stride may be 1 or greater.
+	 */
+	public void start
+		(int K,
+		 Range theLoopRange)
+		{
+		this.K = K;
+		myLoopRange = theLoopRange;
+		if (myBlocks == null || myBlocks.length() != K*PAD)
+			{
+			myBlocks = new AtomicLongArray (K*PAD);
+			}
+		long N = theLoopRange.length();
+		for (int k = 0; k < K; ++ k)
+			{
+			myBlocks.set
+				(k*PAD, pack ((int) (k*N/K), (int) ((k + 1)*N/K)));
+			}
+		}
+
+	/**
+	 * Obtain the next chunk of iterations for the given thread index. If there
+	 * are more iterations, a range object is returned whose lower bound, upper
+	 * bound, and stride specify the chunk of iterations to perform. The
+	 * returned range object's stride is the same as that given to the
+	 * <TT>start()</TT> method. The returned range object's lower bound and
+	 * upper bound are contained within the range given to the <TT>start()</TT>
+	 * method. If there are no more iterations, null is returned.
+	 * <P>
+	 * The <TT>next()</TT> method is called by multiple parallel team threads in
+	 * the Parallel Java middleware. The <TT>next()</TT> method must be multiple
+	 * thread safe.
+	 *
+	 * @param  theThreadIndex  Thread index in the range 0 .. <I>K</I>-1.
+	 *
+	 * @return  Chunk of iterations, or null if no more iterations.
+	 */
+	public Range next
+		(int theThreadIndex)
+		{
+		int slot = theThreadIndex*PAD;
+		for (;;)
+			{
+			long block = myBlocks.get (slot);
+			int lb = lb (block);
+			int ub = ub (block);
+			if (lb < ub)
+				{
+				int N = Math.min (N2, ub - lb);
+				if (myBlocks.compareAndSet (slot, block, pack (lb + N, ub)))
+					{
+					return myLoopRange.chunk (lb, N);
+					}
+				}
+			else if (! steal (theThreadIndex))
+				{
+				return null;
+				}
+			}
+		}
+
+	/**
+	 * Move the back half of another thread's remaining iterations into the
+	 * given thread's block, which is empty.
+	 *
+	 * @param  theThreadIndex  Thread index in the range 0 .. <I>K</I>-1.
+	 *
+	 * @return  True if iterations were stolen, false if every other thread's
+	 *          block was empty.
+	 */
+	private boolean steal
+		(int theThreadIndex)
+		{
+		for (int i = 1; i < K; ++ i)
+			{
+			int victim = ((theThreadIndex + i) % K)*PAD;
+			for (;;)
+				{
+				long block = myBlocks.get (victim);
+				int lb = lb (block);
+				int ub = ub (block);
+				if (lb >= ub) break;
+				int mid = ub - (ub - lb + 1)/2;
+				if (myBlocks.compareAndSet (victim, block, pack (lb, mid)))
+					{
+					myBlocks.set (theThreadIndex*PAD, pack (mid, ub));
+					return true;
+					}
+				}
+			}
+		return false;
+		}
+
+	private static long pack
+		(int lb,
+		 int ub)
+		{
+		return ((long) lb << 32) | (ub & 0xFFFFFFFFL);
+		}
+
+	private static int lb
+		(long block)
+		{
+		return (int) (block >>> 32);
+		}
+
+	private static int ub
+		(long block)
+		{
+		return (int) block;
+		}
+
+	}
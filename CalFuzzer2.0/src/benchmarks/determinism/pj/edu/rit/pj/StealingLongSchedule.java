@@ -0,0 +1,263 @@
+//******************************************************************************
+//
+// File:    StealingLongSchedule.java
+// Package: benchmarks.determinism.pj.edu.rit.pj
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.StealingLongSchedule
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj;
+
+import benchmarks.determinism.pj.edu.rit.util.LongRange;
+
+/**
+ * Class StealingLongSchedule provides a work stealing schedule object. The loop
+ * index is type <TT>long</TT>. The loop iterations are initially partitioned
+ * into <I>K</I> equal-sized blocks, one for each parallel team thread. Each
+ * thread repeatedly performs the next chunk of a given size from the front of
+ * its own block. When its block is empty, the thread steals the back half of
+ * the remaining iterations of another thread's block and carries on with
+ * those. The threads contend only when stealing, unlike the dynamic and guided
+ * schedules where every chunk comes from one shared counter.
+ *
+ * @version 19-Oct-2026
+ */
+class StealingLongSchedule
+	extends LongSchedule
+	{
+
+// Hidden helper classes.
+
+	/**
+	 * Class Block holds the iterations remaining in one thread's block, as a
+	 * half-open interval of iteration indexes [lb,ub). Two longs do not fit in
+	 * one atomic word, so a block is guarded by its own monitor, which other
+	 * threads only lock when stealing.
+	 */
+	private static class Block
+		{
+		// 128 bytes of extra padding to avert cache interference.
+		private long p0, p1, p2, p3, p4, p5, p6, p7;
+		private long p8, p9, pa, pb, pc, pd, pe, pf;
+
+		long lb;
+		long ub;
+
+		// 128 bytes of extra padding to avert cache interference.
+		private long q0, q1, q2, q3, q4, q5, q6, q7;
+		private long q8, q9, qa, qb, qc, qd, qe, qf;
+		}
+
+// Hidden data members.
+
+	// Number of parallel team threads.
+	private int K;
+
+	// Loop iteration range.
+	private LongRange myLoopRange;
+
+	// Each thread's block of remaining iterations.
+	private Block[] myBlocks;
+
+	// Chunk size.
+	private long N2;
+
+// Exported constructors.
+
+	/**
+	 * Construct a new work stealing schedule object with a chunk size of 1.
+	 */
+	public StealingLongSchedule()
+		{
+		this (1);
+		}
+
+	/**
+	 * Construct a new work stealing schedule object with the given chunk size.
+	 *
+	 * @param  theChunkSize  Chunk size.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>theChunkSize</TT> is less than 1.
+	 */
+	public StealingLongSchedule
+		(long theChunkSize)
+		{
+		super();
+		if (theChunkSize < 1)
+			{
+			throw new IllegalArgumentException
+				("StealingLongSchedule(): Chunk size = " + theChunkSize +
+				 " illegal");
+			}
+		N2 = theChunkSize;
+		}
+
+	/**
+	 * Construct a new work stealing schedule object. This constructor is for
+	 * use by the <TT>LongSchedule.parse()</TT> method. <TT>args</TT> must be an
+	 * array of one string, namely the chunk size, an integer &gt;= 1.
+	 *
+	 * @param  args  Array of argument strings.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>args</TT> is not an array of one
+	 *     string. Thrown if the chunk size is less than 1.
+	 */
+	public StealingLongSchedule
+		(String[] args)
+		{
+		this (getChunkSize (args));
+		}
+
+	private static long getChunkSize
+		(String[] args)
+		{
+		if (args.length != 1)
+			{
+			throw new IllegalArgumentException
+				("StealingLongSchedule(): Usage: -Dpj.schedule=stealing or -Dpj.schedule=\"stealing(<n>)\"");
+			}
+		long theChunkSize;
+		try
+			{
+			theChunkSize = Long.parseLong (args[0]);
+			}
+		catch (NumberFormatException exc)
+			{
+			throw new IllegalArgumentException
+				("StealingLongSchedule(): Chunk size = " + args[0] +
+				 " illegal");
+			}
+		return theChunkSize;
+		}
+
+// Hidden operations.
+
+	/**
+	 * Start generating chunks of iterations for a parallel for loop using this
+	 * schedule.
+	 * <P>
+	 * The <TT>start()</TT> method is only called by a single thread in the
+	 * Parallel Java middleware.
+	 *
+	 * @param  K             Number of threads in the parallel team.
+	 * @param  theLoopRange  Range of iterations for the entire parallel for
+	 *                       loop. The stride may be 1 or greater.
+	 */
+	public void start
+		(int K,
+		 LongRange theLoopRange)
+		{
+		this.K = K;
+		myLoopRange = theLoopRange;
+		if (myBlocks == null || myBlocks.length != K)
+			{
+			myBlocks = new Block [K];
+			for (int k = 0; k < K; ++ k)
+				{
+				myBlocks[k] = new Block();
+				}
+			}
+		long N = theLoopRange.length();
+		long q = N / K;
+		long r = N % K;
+		long lb = 0L;
+		for (int k = 0; k < K; ++ k)
+			{
+			long ub = lb + q + (k < r ? 1 : 0);
+			myBlocks[k].lb = lb;
+			myBlocks[k].ub = ub;
+			lb = ub;
+			}
+		}
+
+	/**
+	 * Obtain the next chunk of iterations for the given thread index. If there
+	 * are more iterations, a range object is returned whose lower bound, upper
+	 * bound, and stride specify the chunk of iterations to perform. The
+	 * returned range object's stride is the same as that given to the
+	 * <TT>start()</TT> method. The returned range object's lower bound and
+	 * upper bound are contained within the range given to the <TT>start()</TT>
+	 * method. If there are no more iterations, null is returned.
+	 * <P>
+	 * The <TT>next()</TT> method is called by multiple parallel team threads in
+	 * the Parallel Java middleware. The <TT>next()</TT> method must be multiple
+	 * thread safe.
+	 *
+	 * @param  theThreadIndex  Thread index in the range 0 .. <I>K</I>-1.
+	 *
+	 * @return  Chunk of iterations, or null if no more iterations.
+	 */
+	public LongRange next
+		(int theThreadIndex)
+		{
+		Block block = myBlocks[theThreadIndex];
+		for (;;)
+			{
+			synchronized (block)
+				{
+				if (block.lb < block.ub)
+					{
+					long N = Math.min (N2, block.ub - block.lb);
+					LongRange result = myLoopRange.chunk (block.lb, N);
+					block.lb += N;
+					return result;
+					}
+				}
+			if (! steal (theThreadIndex))
+				{
+				return null;
+				}
+			}
+		}
+
+	/**
+	 * Move the back half of another thread's remaining iterations into the
+	 * given thread's block, which is empty.
+	 *
+	 * @param  theThreadIndex  Thread index in the range 0 .. <I>K</I>-1.
+	 *
+	 * @return  True if iterations were stolen, false if every other thread's
+	 *          block was empty.
+	 */
+	private boolean steal
+		(int theThreadIndex)
+		{
+		for (int i = 1; i < K; ++ i)
+			{
+			Block victim = myBlocks[(theThreadIndex + i) % K];
+			long lb;
+			long ub;
+			synchronized (victim)
+				{
+				if (victim.lb >= victim.ub) continue;
+				ub = victim.ub;
+				lb = ub - (ub - victim.lb + 1)/2;
+				victim.ub = lb;
+				}
+			Block block = myBlocks[theThreadIndex];
+			synchronized (block)
+				{
+				block.lb = lb;
+				block.ub = ub;
+				}
+			return true;
+			}
+		return false;
+		}
+
+	}
@@ -37,6 +37,10 @@ import java.util.concurrent.atomic.AtomicLong;
  * <I>Note:</I> Class SharedDouble is implemented using class
  * java.util.concurrent.atomic.AtomicLong. The double value is stored as a
  * <TT>long</TT> whose bit pattern is the same as the double value.
+ * <P>
+ * Every update from every thread goes to the same shared variable. To reduce
+ * in a tight parallel loop, consider class {@linkplain ThreadLocalDouble} or
+ * {@linkplain StripedDouble} instead.
  *
  * @author  Alan Kaminsky
  * @version 07-Jun-2007
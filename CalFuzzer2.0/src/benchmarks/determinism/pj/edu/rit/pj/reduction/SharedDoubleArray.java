@@ -37,6 +37,10 @@ import java.util.concurrent.atomic.AtomicLongArray;
  * <I>Note:</I> Class SharedDoubleArray is implemented using class
  * java.util.concurrent.atomic.AtomicLongArray. Each double array element is
  * stored as a <TT>long</TT> whose bit pattern is the same as the double value.
+ * <P>
+ * Every update from every thread goes to the same shared array. To reduce in a
+ * tight parallel loop, consider class {@linkplain ThreadLocalDoubleArray}
+ * instead.
  *
  * @author  Alan Kaminsky
  * @version 24-Aug-2007
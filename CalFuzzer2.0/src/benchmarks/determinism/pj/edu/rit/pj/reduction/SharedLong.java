@@ -36,6 +36,10 @@ import java.util.concurrent.atomic.AtomicLong;
  * <P>
  * <I>Note:</I> Class SharedLong is implemented using class
  * java.util.concurrent.atomic.AtomicLong.
+ * <P>
+ * Every update from every thread goes to the same shared variable. To reduce
+ * in a tight parallel loop, consider class {@linkplain ThreadLocalLong} or
+ * {@linkplain StripedLong} instead.
  *
  * @author  Alan Kaminsky
  * @version 07-Jun-2007
@@ -0,0 +1,251 @@
+//******************************************************************************
+//
+// File:    StripedDouble.java
+// Package: benchmarks.determinism.pj.edu.rit.pj.reduction
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.reduction.StripedDouble
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj.reduction;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class StripedDouble provides a reduction variable for a value of type
+ * <TT>double</TT> that many threads update often, such as a counter shared for
+ * the life of a program. The value is split into stripes, each in its own cache
+ * line, and a thread updates the stripe its thread ID maps to. Threads that map
+ * to different stripes do not contend. Reading the value combines all the
+ * stripes with the reduction variable's operation, so reading is slower than
+ * with class {@linkplain SharedDouble}; use class StripedDouble where updates far
+ * outnumber reads.
+ * <P>
+ * <I>Note:</I> Each stripe is stored as a <TT>long</TT> whose bit pattern is
+ * the same as the double value. Because the stripes are combined in a fixed
+ * order but a thread's updates may land in any stripe, the result of a
+ * floating point sum may differ in the last bits from run to run.
+ * <P>
+ * Class StripedDouble is multiple thread safe. The methods use lock-free atomic
+ * compare-and-set. The <TT>reduce()</TT> method is atomic; the
+ * <TT>get()</TT> and <TT>reset()</TT> methods are not atomic with respect to
+ * concurrent <TT>reduce()</TT> calls.
+ *
+ * @version 19-Oct-2026
+ */
+public class StripedDouble
+	extends Number
+	{
+
+// Hidden constants.
+
+	// Distance between two stripes in myStripes. 16 longs are 128 bytes, to
+	// avert cache interference.
+	private static final int PAD = 16;
+
+// Hidden data members.
+
+	private DoubleOp myOp;
+	private double myIdentity;
+
+	// Stripe s is at index (s+1)*PAD. The number of stripes is a power of 2.
+	private int myStripeMask;
+	private AtomicLongArray myStripes;
+
+// Exported constructors.
+
+	/**
+	 * Construct a new striped double sum reduction variable with the initial
+	 * value 0.
+	 */
+	public StripedDouble()
+		{
+		this (DoubleOp.SUM, 0.0);
+		}
+
+	/**
+	 * Construct a new striped double reduction variable with the given operation.
+	 * The initial value is the given identity element, a value <I>e</I> such
+	 * that <I>e</I> <I>op</I> <I>x</I> = <I>x</I> for all <I>x</I>, such as 0
+	 * for sum or 1 for product.
+	 *
+	 * @param  op        Binary operation.
+	 * @param  identity  Identity element of <TT>op</TT>.
+	 *
+	 * @exception  NullPointerException
+	 *     (unchecked exception) Thrown if <TT>op</TT> is null.
+	 */
+	public StripedDouble
+		(DoubleOp op,
+		 double identity)
+		{
+		if (op == null)
+			{
+			throw new NullPointerException ("StripedDouble(): op is null");
+			}
+		myOp = op;
+		myIdentity = identity;
+		int n = stripeCount();
+		myStripeMask = n - 1;
+		myStripes = new AtomicLongArray ((n + 2)*PAD);
+		reset();
+		}
+
+// Exported operations.
+
+	/**
+	 * Returns this reduction variable's current value, all the stripes
+	 * combined with this reduction variable's operation.
+	 *
+	 * @return  Current value.
+	 */
+	public double get()
+		{
+		double result = myIdentity;
+		for (int s = 0; s <= myStripeMask; ++ s)
+			{
+			result = myOp.op
+				(result, Double.longBitsToDouble (myStripes.get ((s + 1)*PAD)));
+			}
+		return result;
+		}
+
+	/**
+	 * Combine this reduction variable with the given value using this
+	 * reduction variable's operation.
+	 *
+	 * @param  value  Value.
+	 */
+	public void reduce
+		(double value)
+		{
+		int s = stripe (Thread.currentThread());
+		for (;;)
+			{
+			int i = (s + 1)*PAD;
+			long oldvalueLong = myStripes.get (i);
+			double oldvalue = Double.longBitsToDouble (oldvalueLong);
+			double newvalue = myOp.op (oldvalue, value);
+			long newvalueLong = Double.doubleToLongBits (newvalue);
+			if (myStripes.compareAndSet (i, oldvalueLong, newvalueLong)) return;
+
+			// Another thread updated the same stripe, try the next one.
+			s = (s + 1) & myStripeMask;
+			}
+		}
+
+	/**
+	 * Add one to this reduction variable. This reduction variable's operation
+	 * should be sum.
+	 */
+	public void increment()
+		{
+		reduce (1.0);
+		}
+
+	/**
+	 * Reset this reduction variable to the identity element.
+	 */
+	public void reset()
+		{
+		for (int s = 0; s <= myStripeMask; ++ s)
+			{
+			myStripes.set ((s + 1)*PAD, Double.doubleToLongBits (myIdentity));
+			}
+		}
+
+	/**
+	 * Returns a string version of this reduction variable.
+	 *
+	 * @return  String version.
+	 */
+	public String toString()
+		{
+		return Double.toString (get());
+		}
+
+	/**
+	 * Returns this reduction variable's current value converted to type
+	 * <TT>int</TT>.
+	 *
+	 * @return  Current value.
+	 */
+	public int intValue()
+		{
+		return (int) get();
+		}
+
+	/**
+	 * Returns this reduction variable's current value converted to type
+	 * <TT>long</TT>.
+	 *
+	 * @return  Current value.
+	 */
+	public long longValue()
+		{
+		return (long) get();
+		}
+
+	/**
+	 * Returns this reduction variable's current value converted to type
+	 * <TT>float</TT>.
+	 *
+	 * @return  Current value.
+	 */
+	public float floatValue()
+		{
+		return (float) get();
+		}
+
+	/**
+	 * Returns this reduction variable's current value converted to type
+	 * <TT>double</TT>.
+	 *
+	 * @return  Current value.
+	 */
+	public double doubleValue()
+		{
+		return (double) get();
+		}
+
+// Hidden operations.
+
+	/**
+	 * Returns the number of stripes: the smallest power of 2 at least twice the
+	 * number of processors.
+	 */
+	static int stripeCount()
+		{
+		int p = Runtime.getRuntime().availableProcessors();
+		int n = 1;
+		while (n < 2*p) n <<= 1;
+		return n;
+		}
+
+	/**
+	 * Returns the stripe the given thread maps to.
+	 */
+	private int stripe
+		(Thread thread)
+		{
+		long id = thread.getId();
+		int h = (int) (id ^ (id >>> 32));
+		h ^= (h >>> 16);
+		h *= 0x45d9f3b;
+		h ^= (h >>> 16);
+		return h & myStripeMask;
+		}
+
+	}
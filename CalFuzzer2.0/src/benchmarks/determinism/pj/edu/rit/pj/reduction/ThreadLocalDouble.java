@@ -0,0 +1,235 @@
+//******************************************************************************
+//
+// File:    ThreadLocalDouble.java
+// Package: benchmarks.determinism.pj.edu.rit.pj.reduction
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.reduction.ThreadLocalDouble
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj.reduction;
+
+/**
+ * Class ThreadLocalDouble provides a reduction variable for a value of type
+ * <TT>double</TT> with one private partial result for each thread of a
+ * parallel team. Each thread reduces values into its own partial result with
+ * no atomic operations, and the partial results lie in separate cache lines,
+ * so the threads do not contend. The partial results are combined with the
+ * reduction variable's operation when the threads are done, typically in a
+ * barrier action or after the parallel region:
+ * <PRE>
+ *     final ThreadLocalDouble partial =
+ *         new ThreadLocalDouble (K, DoubleOp.SUM, 0.0);
+ *     final SharedDouble total = new SharedDouble();
+ *     new ParallelTeam (K) .execute (new ParallelRegion()
+ *         {
+ *         public void run() throws Exception
+ *             {
+ *             final int k = getThreadIndex();
+ *             execute (0, N-1, new IntegerForLoop()
+ *                 {
+ *                 public void run (int first, int last)
+ *                     {
+ *                     for (int i = first; i &lt;= last; ++ i)
+ *                         partial.reduce (k, f(i));
+ *                     }
+ *                 });
+ *             barrier (new BarrierAction()
+ *                 {
+ *                 public void run()
+ *                     {
+ *                     partial.reduceInto (total);
+ *                     }
+ *                 });
+ *             }
+ *         });
+ * </PRE>
+ * <P>
+ * Class ThreadLocalDouble is multiple thread safe only in that each thread
+ * index may be used by one thread at a time. Combining the partial results
+ * must happen when no thread is reducing, for example in a barrier action.
+ *
+ * @version 19-Oct-2026
+ */
+public class ThreadLocalDouble
+	{
+
+// Hidden constants.
+
+	// Distance between two threads' partial results in mySlots. 16 doubles are
+	// 128 bytes, to avert cache interference.
+	private static final int PAD = 16;
+
+// Hidden data members.
+
+	private int K;
+	private DoubleOp myOp;
+	private double myIdentity;
+
+	// Partial result of thread k is at index (k+1)*PAD.
+	private double[] mySlots;
+
+// Exported constructors.
+
+	/**
+	 * Construct a new thread-local double sum reduction variable for the given
+	 * number of threads. Each partial result is initially 0.
+	 *
+	 * @param  K  Number of threads.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>K</TT> &lt; 1.
+	 */
+	public ThreadLocalDouble
+		(int K)
+		{
+		this (K, DoubleOp.SUM, 0.0);
+		}
+
+	/**
+	 * Construct a new thread-local double reduction variable for the given
+	 * number of threads. Each partial result is initially the given identity
+	 * element, a value <I>e</I> such that <I>e</I> <I>op</I> <I>x</I> =
+	 * <I>x</I> for all <I>x</I>, such as 0 for sum or 1 for product.
+	 *
+	 * @param  K         Number of threads.
+	 * @param  op        Binary operation.
+	 * @param  identity  Identity element of <TT>op</TT>.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>K</TT> &lt; 1.
+	 * @exception  NullPointerException
+	 *     (unchecked exception) Thrown if <TT>op</TT> is null.
+	 */
+	public ThreadLocalDouble
+		(int K,
+		 DoubleOp op,
+		 double identity)
+		{
+		if (K < 1)
+			{
+			throw new IllegalArgumentException
+				("ThreadLocalDouble(): K = " + K + " illegal");
+			}
+		if (op == null)
+			{
+			throw new NullPointerException
+				("ThreadLocalDouble(): op is null");
+			}
+		this.K = K;
+		myOp = op;
+		myIdentity = identity;
+		mySlots = new double [(K + 2)*PAD];
+		reset();
+		}
+
+// Exported operations.
+
+	/**
+	 * Returns the number of threads.
+	 *
+	 * @return  Number of threads.
+	 */
+	public int getThreadCount()
+		{
+		return K;
+		}
+
+	/**
+	 * Combine the given thread's partial result with the given value. The
+	 * partial result is set to (partial result) <I>op</I> (<TT>value</TT>).
+	 *
+	 * @param  k      Thread index in the range 0 .. <I>K</I>-1.
+	 * @param  value  Value.
+	 */
+	public void reduce
+		(int k,
+		 double value)
+		{
+		int slot = (k + 1)*PAD;
+		mySlots[slot] = myOp.op (mySlots[slot], value);
+		}
+
+	/**
+	 * Returns the given thread's partial result.
+	 *
+	 * @param  k  Thread index in the range 0 .. <I>K</I>-1.
+	 *
+	 * @return  Partial result.
+	 */
+	public double get
+		(int k)
+		{
+		return mySlots[(k + 1)*PAD];
+		}
+
+	/**
+	 * Returns all the threads' partial results combined with this reduction
+	 * variable's operation.
+	 *
+	 * @return  Combined result.
+	 */
+	public double get()
+		{
+		double result = myIdentity;
+		for (int k = 0; k < K; ++ k)
+			{
+			result = myOp.op (result, mySlots[(k + 1)*PAD]);
+			}
+		return result;
+		}
+
+	/**
+	 * Combine all the threads' partial results into the given shared
+	 * reduction variable, then reset the partial results to the identity
+	 * element.
+	 *
+	 * @param  target  Shared reduction variable.
+	 *
+	 * @return  The shared reduction variable's new value.
+	 *
+	 * @exception  NullPointerException
+	 *     (unchecked exception) Thrown if <TT>target</TT> is null.
+	 */
+	public double reduceInto
+		(SharedDouble target)
+		{
+		double result = target.reduce (get(), myOp);
+		reset();
+		return result;
+		}
+
+	/**
+	 * Reset all the threads' partial results to the identity element.
+	 */
+	public void reset()
+		{
+		for (int k = 0; k < K; ++ k)
+			{
+			mySlots[(k + 1)*PAD] = myIdentity;
+			}
+		}
+
+	/**
+	 * Returns a string version of this reduction variable's combined result.
+	 *
+	 * @return  String version.
+	 */
+	public String toString()
+		{
+		return Double.toString (get());
+		}
+
+	}
@@ -0,0 +1,254 @@
+//******************************************************************************
+//
+// File:    ThreadLocalDoubleArray.java
+// Package: benchmarks.determinism.pj.edu.rit.pj.reduction
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.reduction.ThreadLocalDoubleArray
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj.reduction;
+
+import java.util.Arrays;
+
+/**
+ * Class ThreadLocalDoubleArray provides an array reduction variable with
+ * elements of type <TT>double</TT> and one private array of partial results
+ * for each thread of a parallel team. It is the thread-local counterpart of
+ * class {@linkplain SharedDoubleArray}: each thread reduces values into its
+ * own array with no atomic operations, and the arrays are padded so that no
+ * two threads' elements share a cache line. When the threads are done,
+ * typically in a barrier action, the <TT>reduceInto()</TT> method combines the
+ * partial results element by element and reduces them into a shared array
+ * reduction variable with one atomic update per element. For usage, see class
+ * {@linkplain ThreadLocalDouble}.
+ * <P>
+ * Class ThreadLocalDoubleArray is multiple thread safe only in that each
+ * thread index may be used by one thread at a time. Combining the partial
+ * results must happen when no thread is reducing, for example in a barrier
+ * action.
+ *
+ * @version 19-Oct-2026
+ */
+public class ThreadLocalDoubleArray
+	{
+
+// Hidden constants.
+
+	// Extra elements after each thread's array. 16 doubles are 128 bytes, to
+	// avert cache interference.
+	private static final int PAD = 16;
+
+// Hidden data members.
+
+	private int K;
+	private int myLength;
+	private DoubleOp myOp;
+	private double myIdentity;
+
+	// Array of partial results of thread k is myArrays[k][0..myLength-1].
+	private double[][] myArrays;
+
+// Exported constructors.
+
+	/**
+	 * Construct a new thread-local double array sum reduction variable for the
+	 * given number of threads with the given length. Each partial result is
+	 * initially 0.
+	 *
+	 * @param  K    Number of threads.
+	 * @param  len  Length.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>K</TT> &lt; 1.
+	 * @exception  NegativeArraySizeException
+	 *     (unchecked exception) Thrown if <TT>len</TT> &lt; 0.
+	 */
+	public ThreadLocalDoubleArray
+		(int K,
+		 int len)
+		{
+		this (K, len, DoubleOp.SUM, 0.0);
+		}
+
+	/**
+	 * Construct a new thread-local double array reduction variable for the
+	 * given number of threads with the given length. Each partial result is
+	 * initially the given identity element, a value <I>e</I> such that
+	 * <I>e</I> <I>op</I> <I>x</I> = <I>x</I> for all <I>x</I>.
+	 *
+	 * @param  K         Number of threads.
+	 * @param  len       Length.
+	 * @param  op        Binary operation.
+	 * @param  identity  Identity element of <TT>op</TT>.
+	 *
+	 * @exception  IllegalArgumentException
+	 *     (unchecked exception) Thrown if <TT>K</TT> &lt; 1.
+	 * @exception  NegativeArraySizeException
+	 *     (unchecked exception) Thrown if <TT>len</TT> &lt; 0.
+	 * @exception  NullPointerException
+	 *     (unchecked exception) Thrown if <TT>op</TT> is null.
+	 */
+	public ThreadLocalDoubleArray
+		(int K,
+		 int len,
+		 DoubleOp op,
+		 double identity)
+		{
+		if (K < 1)
+			{
+			throw new IllegalArgumentException
+				("ThreadLocalDoubleArray(): K = " + K + " illegal");
+			}
+		if (len < 0)
+			{
+			throw new NegativeArraySizeException
+				("ThreadLocalDoubleArray(): len = " + len + " illegal");
+			}
+		if (op == null)
+			{
+			throw new NullPointerException
+				("ThreadLocalDoubleArray(): op is null");
+			}
+		this.K = K;
+		myLength = len;
+		myOp = op;
+		myIdentity = identity;
+		myArrays = new double [K] [];
+		for (int k = 0; k < K; ++ k)
+			{
+			myArrays[k] = new double [len + PAD];
+			}
+		reset();
+		}
+
+// Exported operations.
+
+	/**
+	 * Returns the number of threads.
+	 *
+	 * @return  Number of threads.
+	 */
+	public int getThreadCount()
+		{
+		return K;
+		}
+
+	/**
+	 * Returns this array reduction variable's length.
+	 *
+	 * @return  Length.
+	 */
+	public int length()
+		{
+		return myLength;
+		}
+
+	/**
+	 * Combine the given thread's partial result at the given index with the
+	 * given value. The partial result is set to (partial result) <I>op</I>
+	 * (<TT>value</TT>).
+	 *
+	 * @param  k      Thread index in the range 0 .. <I>K</I>-1.
+	 * @param  i      Index in the range 0 .. <TT>length()</TT>-1.
+	 * @param  value  Value.
+	 */
+	public void reduce
+		(int k,
+		 int i,
+		 double value)
+		{
+		double[] array = myArrays[k];
+		array[i] = myOp.op (array[i], value);
+		}
+
+	/**
+	 * Returns the given thread's partial result at the given index.
+	 *
+	 * @param  k  Thread index in the range 0 .. <I>K</I>-1.
+	 * @param  i  Index in the range 0 .. <TT>length()</TT>-1.
+	 *
+	 * @return  Partial result.
+	 */
+	public double get
+		(int k,
+		 int i)
+		{
+		return myArrays[k][i];
+		}
+
+	/**
+	 * Returns all the threads' partial results at the given index combined
+	 * with this reduction variable's operation.
+	 *
+	 * @param  i  Index in the range 0 .. <TT>length()</TT>-1.
+	 *
+	 * @return  Combined result.
+	 */
+	public double get
+		(int i)
+		{
+		double result = myIdentity;
+		for (int k = 0; k < K; ++ k)
+			{
+			result = myOp.op (result, myArrays[k][i]);
+			}
+		return result;
+		}
+
+	/**
+	 * Combine all the threads' partial results into the given shared array
+	 * reduction variable, then reset the partial results to the identity
+	 * element. For each index <TT>i</TT> from 0 to <TT>length()</TT>-1,
+	 * (<TT>target[i]</TT>) is set to (<TT>target[i]</TT>) <I>op</I> (the
+	 * partial results at index <TT>i</TT> combined).
+	 *
+	 * @param  target  Shared array reduction variable.
+	 *
+	 * @exception  NullPointerException
+	 *     (unchecked exception) Thrown if <TT>target</TT> is null.
+	 * @exception  IndexOutOfBoundsException
+	 *     (unchecked exception) Thrown if <TT>target</TT>'s length is less than
+	 *     <TT>length()</TT>.
+	 */
+	public void reduceInto
+		(SharedDoubleArray target)
+		{
+		double[] combined = new double [myLength];
+		System.arraycopy (myArrays[0], 0, combined, 0, myLength);
+		for (int k = 1; k < K; ++ k)
+			{
+			double[] array = myArrays[k];
+			for (int i = 0; i < myLength; ++ i)
+				{
+				combined[i] = myOp.op (combined[i], array[i]);
+				}
+			}
+		target.reduce (0, combined, 0, myLength, myOp);
+		reset();
+		}
+
+	/**
+	 * Reset all the threads' partial results to the identity element.
+	 */
+	public void reset()
+		{
+		for (int k = 0; k < K; ++ k)
+			{
+			Arrays.fill (myArrays[k], 0, myLength, myIdentity);
+			}
+		}
+
+	}
@@ -0,0 +1,157 @@
+//******************************************************************************
+//
+// File:    Test21.java
+// Package: benchmarks.determinism.pj.edu.rit.pj.test
+// Unit:    Class benchmarks.determinism.pj.edu.rit.pj.test.Test21
+//
+// This Java source file is part of the Parallel Java Library ("PJ"). PJ is free
+// software; you can redistribute it and/or modify it under the terms of the GNU
+// General Public License as published by the Free Software Foundation; either
+// version 3 of the License, or (at your option) any later version.
+//
+// PJ is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+//
+// A copy of the GNU General Public License is provided in the file gpl.txt. You
+// may also obtain a copy of the GNU General Public License on the World Wide
+// Web at http://www.gnu.org/licenses/gpl.html.
+//
+//******************************************************************************
+
+package benchmarks.determinism.pj.edu.rit.pj.test;
+
+import benchmarks.determinism.pj.edu.rit.pj.BarrierAction;
+import benchmarks.determinism.pj.edu.rit.pj.IntegerForLoop;
+import benchmarks.determinism.pj.edu.rit.pj.ParallelRegion;
+import benchmarks.determinism.pj.edu.rit.pj.ParallelTeam;
+
+import benchmarks.determinism.pj.edu.rit.pj.reduction.LongOp;
+import benchmarks.determinism.pj.edu.rit.pj.reduction.SharedDoubleArray;
+import benchmarks.determinism.pj.edu.rit.pj.reduction.SharedLong;
+import benchmarks.determinism.pj.edu.rit.pj.reduction.StripedLong;
+import benchmarks.determinism.pj.edu.rit.pj.reduction.ThreadLocalDoubleArray;
+import benchmarks.determinism.pj.edu.rit.pj.reduction.ThreadLocalLong;
+
+/**
+ * Class Test21 is a unit test main program for the thread-local and striped
+ * reduction variables in package {@linkplain
+ * benchmarks.determinism.pj.edu.rit.pj.reduction}. A parallel for loop over
+ * iterations 0 .. <I>N</I>-1 reduces each iteration index into a thread-local
+ * sum, a thread-local maximum, a thread-local array histogram of the index
+ * modulo 10, and a striped counter. The thread-local variables are combined
+ * into shared variables in a barrier action. The program prints the results
+ * and throws an exception if any of them is wrong.
+ * <P>
+ * Usage: java -Dpj.nt=<I>K</I> benchmarks.determinism.pj.edu.rit.pj.test.Test21 <I>N</I>
+ * <BR><I>K</I> = Number of parallel threads
+ * <BR><I>N</I> = Number of loop iterations
+ *
+ * @version 19-Oct-2026
+ */
+public class Test21
+	{
+
+// Prevent construction.
+
+	private Test21()
+		{
+		}
+
+// Main program.
+
+	/**
+	 * Unit test main program.
+	 */
+	public static void main
+		(String[] args)
+		throws Exception
+		{
+		// Parse command line arguments.
+		if (args.length != 1) usage();
+		final int N = Integer.parseInt (args[0]);
+
+		ParallelTeam team = new ParallelTeam();
+		int K = team.getThreadCount();
+
+		// Set up reduction variables.
+		final ThreadLocalLong sum = new ThreadLocalLong (K);
+		final ThreadLocalLong max =
+			new ThreadLocalLong (K, LongOp.MAXIMUM, Long.MIN_VALUE);
+		final ThreadLocalDoubleArray histogram =
+			new ThreadLocalDoubleArray (K, 10);
+		final StripedLong count = new StripedLong();
+		final SharedLong totalSum = new SharedLong();
+		final SharedLong totalMax = new SharedLong (Long.MIN_VALUE);
+		final SharedDoubleArray totalHistogram = new SharedDoubleArray (10);
+
+		team.execute (new ParallelRegion()
+			{
+			public void run() throws Exception
+				{
+				final int k = getThreadIndex();
+				execute (0, N-1, new IntegerForLoop()
+					{
+					public void run (int first, int last)
+						{
+						for (int i = first; i <= last; ++ i)
+							{
+							sum.reduce (k, i);
+							max.reduce (k, i);
+							histogram.reduce (k, i % 10, 1.0);
+							count.increment();
+							}
+						}
+					});
+				barrier (new BarrierAction()
+					{
+					public void run()
+						{
+						sum.reduceInto (totalSum);
+						max.reduceInto (totalMax);
+						histogram.reduceInto (totalHistogram);
+						}
+					});
+				}
+			});
+
+		// Print and check results.
+		System.out.println ("Sum = " + totalSum);
+		System.out.println ("Max = " + totalMax);
+		System.out.println ("Histogram = " + totalHistogram);
+		System.out.println ("Count = " + count);
+		check (totalSum.get() == (long) N*(N-1)/2, "sum");
+		check (totalMax.get() == N-1, "max");
+		for (int d = 0; d < 10; ++ d)
+			{
+			check (totalHistogram.get (d) == (N - d + 9)/10, "histogram");
+			}
+		check (count.get() == N, "count");
+		check (sum.get() == 0L, "sum reset");
+		}
+
+	/**
+	 * Throw an exception if the given condition is false.
+	 */
+	private static void check
+		(boolean condition,
+		 String what)
+		{
+		if (! condition)
+			{
+			throw new IllegalStateException ("Test21: Wrong " + what);
+			}
+		}
+
+	/**
+	 * Print a usage message and exit.
+	 */
+	private static void usage()
+		{
+		System.err.println ("Usage: java -Dpj.nt=<K> benchmarks.determinism.pj.edu.rit.pj.test.Test21 <N>");
+		System.err.println ("<K> = Number of parallel threads");
+		System.err.println ("<N> = Number of loop iterations");
+		System.exit (1);
+		}
+
+	}
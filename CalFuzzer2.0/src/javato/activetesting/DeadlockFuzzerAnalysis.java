@@ -8,6 +8,9 @@ import javato.activetesting.igoodlock.Node;
 import javato.activetesting.lockset.LockSetTracker;
 import javato.activetesting.reentrant.IgnoreRentrantLock;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.List;
 
 /**
@@ -51,8 +54,16 @@ public class DeadlockFuzzerAnalysis extends CheckerAnalysisImpl {
         synchronized (ActiveChecker.lock) {
             lsTracker = new LockSetTracker();
             ignoreRentrantLock = new IgnoreRentrantLock();
-            DeadlockCycleInfo cycles = DeadlockCycleInfo.read();
-            deadlockingCycle = cycles.getCycles().get(Parameters.errorId - 1);
+            try {
+                deadlockingCycle = DeadlockCycleInfo.readCycle(Parameters.errorId - 1);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+            if (deadlockingCycle == null) {
+                System.err.println("Deadlock cycle " + Parameters.errorId + " not found in " + Parameters.ERROR_LOG_FILE);
+                System.exit(1);
+            }
             System.out.println("cycle " + deadlockingCycle);
         }
     }
@@ -83,6 +94,7 @@ public class DeadlockFuzzerAnalysis extends CheckerAnalysisImpl {
             if (ignoreRentrantLock.lockBefore(thread, lock)) {
                 boolean isDeadlock = lsTracker.lockBefore(iid, thread, lock);
                 if (isDeadlock) {
+                    writeStat(Parameters.ERROR_STAT_FILE);
                     Runtime.getRuntime().halt(1);
                 } else {
                     List<Integer> lockSet = lsTracker.getLockSetIids(thread);
@@ -137,4 +149,18 @@ public class DeadlockFuzzerAnalysis extends CheckerAnalysisImpl {
 
     public void finish() {
     }
+
+    /**
+     * Records that the deadlock of the current error id was reproduced, in the
+     * format of RaceFuzzerAnalysis.writeStat.
+     */
+    private static void writeStat(String file) {
+        try {
+            PrintWriter pw = new PrintWriter(new FileWriter(file, true));
+            pw.print(Parameters.errorId + ":true ");
+            pw.close();
+        } catch (IOException e) {
+            System.err.println("Error while writing to " + file);
+        }
+    }
 }
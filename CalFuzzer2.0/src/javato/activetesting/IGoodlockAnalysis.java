@@ -3,6 +3,7 @@ package javato.activetesting;
 import javato.activetesting.activechecker.ActiveChecker;
 import javato.activetesting.analysis.AnalysisImpl;
 import javato.activetesting.analysis.Observer;
+import javato.activetesting.igoodlock.DeadlockCycleStream;
 import javato.activetesting.igoodlock.GoodlockDS;
 import javato.activetesting.reentrant.IgnoreRentrantLock;
 import javato.activetesting.common.Parameters;
@@ -42,11 +43,16 @@ import javato.activetesting.common.Parameters;
 public class IGoodlockAnalysis extends AnalysisImpl {
     private GoodlockDS gl;
     private IgnoreRentrantLock ignoreRentrantLock;
+    private DeadlockCycleStream cycleStream;
 
     public void initialize() {
         synchronized (ActiveChecker.lock) {
             ignoreRentrantLock = new IgnoreRentrantLock();
             gl = new GoodlockDS();
+            if (Parameters.streamDeadlockCycles) {
+                cycleStream = new DeadlockCycleStream();
+                gl.setDeadlockCycleListener(cycleStream);
+            }
         }
     }
 
@@ -100,6 +106,9 @@ public class IGoodlockAnalysis extends AnalysisImpl {
         synchronized (ActiveChecker.lock) {
             int nDeadlocks;
             nDeadlocks = gl.dumpDeadlocks();
+            if (cycleStream != null) {
+                cycleStream.close();
+            }
             Observer.writeIntegerList(Parameters.ERROR_LIST_FILE, nDeadlocks);
         }
     }
@@ -0,0 +1,106 @@
+package javato.activetesting;
+
+import javato.activetesting.analysis.AnalysisImpl;
+import javato.activetesting.common.Parameters;
+import javato.activetesting.trace.TraceFormat;
+import javato.activetesting.trace.TraceWriter;
+
+import java.io.IOException;
+
+/**
+ * Records the events of an instrumented run into a compact binary trace
+ * (Parameters.TRACE_FILE) instead of analyzing them online.  The trace can be
+ * fed later to any Analysis with javato.activetesting.trace.TraceReplay, so
+ * predictive analyses such as IGoodlockAnalysis or PAtomicityAnalysis do not
+ * slow down the instrumented run.
+ *
+ * Unlike PrintTraceAnalysis, events are not serialized on ActiveChecker.lock;
+ * every thread appends to its own buffer.
+ */
+public class TraceRecorderAnalysis extends AnalysisImpl {
+    private TraceWriter trace;
+
+    public void initialize() {
+        try {
+            trace = new TraceWriter(Parameters.TRACE_FILE);
+        } catch (IOException e) {
+            System.err.println("Cannot open trace file " + Parameters.TRACE_FILE);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public void lockBefore(Integer iid, Integer thread, Integer lock, Object actualLock) {
+        trace.event(TraceFormat.LOCK_BEFORE, iid, thread, lock);
+    }
+
+    public void unlockAfter(Integer iid, Integer thread, Integer lock) {
+        trace.event(TraceFormat.UNLOCK_AFTER, iid, thread, lock);
+    }
+
+    public void newExprAfter(Integer iid, Integer object, Integer objOnWhichMethodIsInvoked) {
+        trace.event(TraceFormat.NEW_EXPR_AFTER, iid, object, objOnWhichMethodIsInvoked);
+    }
+
+    public void methodEnterBefore(Integer iid, Integer thread) {
+        trace.event(TraceFormat.METHOD_ENTER_BEFORE, iid, thread);
+    }
+
+    public void methodExitAfter(Integer iid, Integer thread) {
+        trace.event(TraceFormat.METHOD_EXIT_AFTER, iid, thread);
+    }
+
+    public void startBefore(Integer iid, Integer parent, Integer child) {
+        trace.event(TraceFormat.START_BEFORE, iid, parent, child);
+    }
+
+    public void startAfter(Integer iid, Integer parent, Object child) {
+        trace.event(TraceFormat.START_AFTER, iid, parent, 0);
+    }
+
+    public void waitBefore(Integer iid, Integer thread, Integer lock) {
+        trace.event(TraceFormat.WAIT_BEFORE, iid, thread, lock);
+    }
+
+    public void waitAfter(Integer iid, Integer thread, Integer lock) {
+        trace.event(TraceFormat.WAIT_AFTER, iid, thread, lock);
+    }
+
+    public void notifyBefore(Integer iid, Integer thread, Integer lock) {
+        trace.event(TraceFormat.NOTIFY_BEFORE, iid, thread, lock);
+    }
+
+    public void notifyAllBefore(Integer iid, Integer thread, Integer lock) {
+        trace.event(TraceFormat.NOTIFY_ALL_BEFORE, iid, thread, lock);
+    }
+
+    public void joinAfter(Integer iid, Integer parent, Integer child) {
+        trace.event(TraceFormat.JOIN_AFTER, iid, parent, child);
+    }
+
+    public void readBefore(Integer iid, Integer thread, Long memory, boolean isVolatile) {
+        trace.memoryEvent(isVolatile ? TraceFormat.VOLATILE_READ_BEFORE : TraceFormat.READ_BEFORE, iid, thread, memory);
+    }
+
+    public void writeBefore(Integer iid, Integer thread, Long memory, boolean isVolatile) {
+        trace.memoryEvent(isVolatile ? TraceFormat.VOLATILE_WRITE_BEFORE : TraceFormat.WRITE_BEFORE, iid, thread, memory);
+    }
+
+    public void openDeterministicBlock(Integer bid) {
+        trace.event(TraceFormat.OPEN_DETERMINISTIC_BLOCK, bid, 0);
+    }
+
+    public void closeDeterministicBlock(Integer bid) {
+        trace.event(TraceFormat.CLOSE_DETERMINISTIC_BLOCK, bid, 0);
+    }
+
+    public void finish() {
+        if (trace.isClosed()) return;
+        try {
+            trace.close();
+            System.out.println("Recorded " + trace.getEventCount() + " events to " + Parameters.TRACE_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package javato.activetesting.activechecker;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import javato.activetesting.common.MersenneTwisterFast;
-import javato.activetesting.common.WeakIdentityHashMap;
+import javato.activetesting.common.Parameters;
 import javato.activetesting.scheduler.StallBreaker;
 
 /**
@@ -46,9 +48,14 @@ public class ActiveChecker {
 	//200-09-14: why we need a new random number generator?
 	
     static private LinkedList<ActiveChecker> blockedThreads = new LinkedList<ActiveChecker>();
-    static private Map threadToSemaphoreAndTime = Collections.synchronizedMap(new WeakIdentityHashMap());
+    // threads parked by the checker, blocked or sleeping; guarded by lock
+    static private LinkedList<Pause> pausedThreads = new LinkedList<Pause>();
+    static private ThreadLocal<Pause> pendingPause = new ThreadLocal<Pause>();
+    // application threads seen by the checker, until they terminate; guarded by lock
+    static private LinkedHashSet<Thread> liveThreads = new LinkedHashSet<Thread>();
+    static private final AtomicInteger parkedCount = new AtomicInteger(0);
     final public static Object lock = new Object();
-    public static MersenneTwisterFast rand = new MersenneTwisterFast(System.currentTimeMillis());
+    public static MersenneTwisterFast rand = new MersenneTwisterFast(Parameters.activeCheckerSeed);
     public final static AtomicBoolean dirty = new AtomicBoolean(false);
     private static double probability = 1.0;
 
@@ -62,30 +69,84 @@ public class ActiveChecker {
         System.out.println("Probability "+probability);
     }
 
-    class Pair {
-        int waitTime;
-        Semaphore sem;
-        ActiveChecker checker;
+    /**
+     * A thread paused by the checker.  waitTime > 0 pauses the thread for at
+     * most waitTime milliseconds; waitTime == 0 pauses it until unblock() is
+     * called, after which it is delayed by the milliseconds given to unblock().
+     */
+    static class Pause {
+        final Thread thread;
+        final ActiveChecker checker;
+        final int waitTime;
+        private volatile boolean released = false;
+        private volatile int delay = 0;
+        private volatile boolean sleeping = false;
+        private volatile boolean wakeUp = false;
+        // set right before the thread parks; until then it may still be running
+        private volatile boolean parked = false;
 
-        Pair(int waitTime, Semaphore sem, ActiveChecker checker) {
-            this.waitTime = waitTime;
-            this.sem = sem;
+        Pause(Thread thread, ActiveChecker checker, int waitTime) {
+            this.thread = thread;
             this.checker = checker;
+            this.waitTime = waitTime;
+        }
+
+        void release(int delay) {
+            this.delay = delay;
+            released = true;
+            LockSupport.unpark(thread);
+        }
+
+        void wake() {
+            wakeUp = true;
+            LockSupport.unpark(thread);
+        }
+
+        private void parking() {
+            parked = true;
+            parkedCount.incrementAndGet();
+            StallBreaker.threadParked();
+        }
+
+        private void unparked() {
+            parked = false;
+            parkedCount.decrementAndGet();
+        }
+
+        /** Returns false if the thread was interrupted. */
+        boolean awaitRelease() {
+            while (!released) {
+                parking();
+                if (!released) LockSupport.park(this);
+                unparked();
+                if (Thread.interrupted()) return false;
+            }
+            return true;
+        }
+
+        void sleep(int milliSeconds) {
+            long deadline = System.nanoTime() + milliSeconds * 1000000L;
+            long remaining;
+            sleeping = true;
+            while (!wakeUp && (remaining = deadline - System.nanoTime()) > 0) {
+                parking();
+                if (!wakeUp) LockSupport.parkNanos(this, remaining);
+                unparked();
+            }
+            sleeping = false;
         }
     }
 
 
-    private Semaphore sem;
+    private Pause pause;
 
     final protected void block(int milliSeconds) {
-        if (milliSeconds > 0) {
-            threadToSemaphoreAndTime.put(Thread.currentThread(), new Pair(milliSeconds, null, this));//nothing more? why not block this thread?
-        } else {
-            sem = new Semaphore();
+        pause = new Pause(Thread.currentThread(), this, milliSeconds);
+        if (milliSeconds <= 0) {
             blockedThreads.add(this);
             dirty.set(true); //2010-09-14:why we can change a final object?
-            threadToSemaphoreAndTime.put(Thread.currentThread(), new Pair(0, sem, this));
         }
+        pendingPause.set(pause);
     }
 
     final protected void unblock(int milliSeconds) {
@@ -93,39 +154,127 @@ public class ActiveChecker {
         blockedThreads.remove(this);
         dirty.set(true);
         //System.out.println("After "+blockedThreads.size());
-        sem.release(milliSeconds);
+        pause.release(milliSeconds);
     }
 
     final public static void blockIfRequired() {
-        Pair p = (Pair) threadToSemaphoreAndTime.remove(Thread.currentThread());
+        Pause p = pendingPause.get();
         if (p != null) {
-            if (p.waitTime > 0) {
-                try {
-                    Thread.sleep(p.waitTime);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            pendingPause.remove();
+            synchronized (lock) {
+                pausedThreads.add(p);
+            }
+            try {
+                if (p.waitTime > 0) {
+                    p.sleep(p.waitTime);
+                } else {
+                    if (!p.awaitRelease()) {
+                        synchronized (lock) {
+                            blockedThreads.remove(p.checker);
+                        }
+                        dirty.set(true);
+                    } else if (p.delay > 0) {
+                        p.sleep(p.delay);
+                    }
                 }
-            } else {
-                StallBreaker.breakAnyStall();
-                try {
-                    p.sem.acquire();
-                } catch (InterruptedException e) {
-                    blockedThreads.remove(p.checker);
-                    dirty.set(true);
+            } finally {
+                synchronized (lock) {
+                    pausedThreads.remove(p);
                 }
             }
         }
     }
 
+    /**
+     * Registers a thread that is about to be started, so that it is counted by
+     * getLiveThreadCount() and getRunnableThreadCount() until it terminates.
+     * Threads that reach check() are registered as well.
+     */
+    public static void threadStarted(Thread t) {
+        synchronized (lock) {
+            liveThreads.add(t);
+        }
+    }
+
+    private static int liveThreadCount() {
+        for (Iterator<Thread> it = liveThreads.iterator(); it.hasNext();) {
+            if (it.next().getState() == Thread.State.TERMINATED) it.remove();
+        }
+        return liveThreads.size();
+    }
+
+    public static int getLiveThreadCount() {
+        synchronized (lock) {
+            return liveThreadCount();
+        }
+    }
+
+    /**
+     * Returns the number of live threads that can make progress: threads that
+     * are neither parked by the checker nor blocked on a monitor or in wait().
+     * A thread that is about to park is still runnable; it is counted as
+     * parked once it calls LockSupport.park.
+     */
+    public static int getRunnableThreadCount() {
+        synchronized (lock) {
+            liveThreadCount();
+            int count = 0;
+            for (Thread t : liveThreads) {
+                if (isParked(t)) continue;
+                Thread.State state = t.getState();
+                if (state == Thread.State.RUNNABLE
+                        || state == Thread.State.TIMED_WAITING
+                        || state == Thread.State.NEW) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static boolean isParked(Thread t) {
+        for (Pause p : pausedThreads) {
+            if (p.thread == t) return p.parked;
+        }
+        return false;
+    }
+
+    /** Returns the number of paused threads that are parked right now. */
+    public static int getParkedThreadCount() {
+        return parkedCount.get();
+    }
+
+    public static int getPausedThreadCount() {
+        synchronized (lock) {
+            return pausedThreads.size();
+        }
+    }
+
+    /**
+     * Ends a timed pause early.  Returns false if no thread is in a timed pause.
+     */
+    public static boolean wakeASleepingThread() {
+        synchronized (lock) {
+            for (Pause p : pausedThreads) {
+                if (p.sleeping) {
+                    p.wake();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     public void check(Collection<ActiveChecker> checkers) {
         block(0);
     }
 
     final public void check() {
         synchronized (lock) {
+            liveThreads.add(Thread.currentThread());
             if (rand.nextDouble()<=probability) {
-                int activeThreadCount = StallBreaker.getActiveThreadCount();
-                if (activeThreadCount > 1 && threadToSemaphoreAndTime.get(Thread.currentThread()) == null) {
+                int activeThreadCount = liveThreadCount();
+                if (activeThreadCount > 1 && pendingPause.get() == null) {
                     check(blockedThreads);
                 }
             }
@@ -134,13 +283,26 @@ public class ActiveChecker {
 
     final public void check(int waitTime) {
         synchronized (lock) {
-            int activeThreadCount = StallBreaker.getActiveThreadCount();
-            if (activeThreadCount > 1 && threadToSemaphoreAndTime.get(Thread.currentThread()) == null) {
+            liveThreads.add(Thread.currentThread());
+            int activeThreadCount = liveThreadCount();
+            if (activeThreadCount > 1 && pendingPause.get() == null) {
                 block(waitTime);
             }
         }
     }
 
+    /**
+     * Called by a checker once the target interleaving of the trial is
+     * reached.  Ends the trial if javato.activetesting.endtrial is set; the
+     * shutdown hook of the analysis still records the result.
+     */
+    public static void targetReached() {
+        if (Parameters.endTrialAtTarget) {
+            System.out.println("Target interleaving reached; ending the trial");
+            System.exit(0);
+        }
+    }
+
     public static void Check() {
         (new ActiveChecker()).check();
         blockIfRequired();
@@ -1,75 +0,0 @@
-package javato.activetesting.activechecker;
-
-/**
- * Copyright (c) 2007-2008,
- * Koushik Sen    <ksen@cs.berkeley.edu>
- * All rights reserved.
- * <p/>
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions are
- * met:
- * <p/>
- * 1. Redistributions of source code must retain the above copyright
- * notice, this list of conditions and the following disclaimer.
- * <p/>
- * 2. Redistributions in binary form must reproduce the above copyright
- * notice, this list of conditions and the following disclaimer in the
- * documentation and/or other materials provided with the distribution.
- * <p/>
- * 3. The names of the contributors may not be used to endorse or promote
- * products derived from this software without specific prior written
- * permission.
- * <p/>
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
- * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
- * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
- * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
- * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
- * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
- * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
- * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
- * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
- * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
- * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-public class Semaphore {
-    public int counter;
-    public int waitTime;
-
-    public Semaphore() {
-        this(0);
-        waitTime = 0;
-    }
-
-    public Semaphore(int i) {
-        if (i < 0) throw new IllegalArgumentException(i + " < 0");
-        counter = i;
-    }
-
-    public synchronized void release(int waitTime) {
-        counter++;
-        this.waitTime = waitTime;
-        this.notify();
-    }
-
-    public synchronized void acquire() throws InterruptedException {
-    	//2010-09-14(Martin): why not "if(counter <= 0)"? There may be multiple threads to compete for this semaphore
-    	//why not "while(counter < 0)"? "counter" is initialized as 0
-        while (counter <= 0) {
-            this.wait();
-        }
-        counter--;
-        if (waitTime > 0) {
-            try {
-                Thread.sleep(waitTime);
-            } catch (InterruptedException e) {
-                e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
-            }
-        }
-    }
-
-    public synchronized void decrement(int i) {
-        counter = counter - i;
-    }
-}
-
@@ -1,5 +1,6 @@
 package javato.activetesting.analysis;
 
+import javato.activetesting.activechecker.ActiveChecker;
 import javato.activetesting.common.Parameters;
 import javato.activetesting.scheduler.LivelockBreaker;
 import javato.activetesting.scheduler.StallBreaker;
@@ -38,6 +39,7 @@ import javato.activetesting.scheduler.StallBreaker;
  */
 abstract public class CheckerAnalysisImpl extends Thread implements Analysis {
     public CheckerAnalysisImpl() {
+        ActiveChecker.threadStarted(Thread.currentThread());
         initialize();
         (new LivelockBreaker(Parameters.livelockCheckerInterval)).start();
         (new StallBreaker()).start();
@@ -1,5 +1,6 @@
 package javato.activetesting.analysis;
 
+import javato.activetesting.activechecker.ActiveChecker;
 import javato.activetesting.common.Parameters;
 import javato.activetesting.common.IIDAccessCounter;
 
@@ -148,6 +149,9 @@ public class ObserverForActiveTesting extends Observer {
     }
 
     public static void myStartBefore(int iid, Object t) {
+        if (t instanceof Thread) {
+            ActiveChecker.threadStarted((Thread) t);
+        }
         analysis.startBefore(iid, uniqueId(Thread.currentThread()), uniqueId(t));
     }
 
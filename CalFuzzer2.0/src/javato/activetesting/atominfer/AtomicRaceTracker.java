@@ -1,6 +1,6 @@
 package javato.activetesting.atominfer;
 
-import javato.activetesting.common.Parameters;
+import javato.activetesting.common.AccessHistory;
 import javato.activetesting.lockset.LockSet;
 import javato.activetesting.vc.VectorClock;
 import java.util.*;
@@ -22,21 +22,23 @@ public class AtomicRaceTracker {
     private LinkedHashSet<CommutativePair> alreadySeenRaces;
 
     // m -> t -> list(vc,ls->Set(iid))
-    private Map<Long, Map<Integer, LinkedList<VCLockPair>>> readMap;
-    private Map<Long, Map<Integer, LinkedList<VCLockPair>>> writeMap;
-    private Map<Long, Map<Integer, LinkedList<VCLockPair>>> lockMap;
+    private Map<Long, AccessHistory<VCLockPair>> readMap;
+    private Map<Long, AccessHistory<VCLockPair>> writeMap;
+    private Map<Long, AccessHistory<VCLockPair>> lockMap;
+    private AccessHistory.Stats historyStats;
 
     public AtomicRaceTracker() {
-        readMap = new TreeMap<Long, Map<Integer, LinkedList<VCLockPair>>>();
-        writeMap = new TreeMap<Long, Map<Integer, LinkedList<VCLockPair>>>();
-	lockMap = new TreeMap<Long, Map<Integer, LinkedList<VCLockPair>>>();
+        readMap = new TreeMap<Long, AccessHistory<VCLockPair>>();
+        writeMap = new TreeMap<Long, AccessHistory<VCLockPair>>();
+	lockMap = new TreeMap<Long, AccessHistory<VCLockPair>>();
+	historyStats = new AccessHistory.Stats();
 
 	alreadySeenRaces = new LinkedHashSet<CommutativePair>();
     }
 
     public void checkRace(Integer iid, Integer t, Long m, boolean isRead, VectorClock vc, LockSet ls, UniqueEvent e) {
-        Map<Integer, LinkedList<VCLockPair>> threadLists1;
-        Map<Integer, LinkedList<VCLockPair>> threadLists2 = null;
+        AccessHistory<VCLockPair> threadLists1;
+        AccessHistory<VCLockPair> threadLists2 = null;
         if (isRead) {
             threadLists1 = writeMap.get(m);
         } else {
@@ -51,12 +53,14 @@ public class AtomicRaceTracker {
         }
     }
 
-    protected void checkRaceAux(Integer iid, Map<Integer, LinkedList<VCLockPair>> threadLists, Integer t, VectorClock vc, LockSet ls, Long m, UniqueEvent uniqueEvent) {
-        for (Integer t2 : threadLists.keySet()) {
+    protected void checkRaceAux(Integer iid, AccessHistory<VCLockPair> threadLists, Integer t, VectorClock vc, LockSet ls, Long m, UniqueEvent uniqueEvent) {
+        historyStats.raceChecks++;
+        for (Integer t2 : threadLists.threads()) {
             if (!t2.equals(t)) {
                 Long c2 = vc.getValue(t2);
                 LinkedList<VCLockPair> vcs = threadLists.get(t2);
                 for (VCLockPair c : vcs) {
+                    historyStats.entriesScanned++;
                     if (c2 < c.getClock()) {
                         Map<LockSet, TreeSet<UniqueEvent>> lockSets = c.getLockSets();
                         for (LockSet ls2 : lockSets.keySet()) {
@@ -86,31 +90,22 @@ public class AtomicRaceTracker {
     }
 
     public void addEvent(Integer iid, Integer t, Long m, boolean isRead, VectorClock vc, LockSet ls, UniqueEvent e) {
-        Map<Long, Map<Integer, LinkedList<VCLockPair>>> currentMap = isRead ? readMap : writeMap;
-        Map<Integer, LinkedList<VCLockPair>> threadLists = currentMap.get(m);
+        Map<Long, AccessHistory<VCLockPair>> currentMap = isRead ? readMap : writeMap;
+        AccessHistory<VCLockPair> threadLists = currentMap.get(m);
         if (threadLists == null) {
-            threadLists = new TreeMap<Integer, LinkedList<VCLockPair>>();
+            threadLists = new AccessHistory<VCLockPair>(historyStats);
             currentMap.put(m, threadLists);
         }
 	addEventAux(iid, threadLists, t, vc, ls, e);
     }
 
-    protected void addEventAux(Integer iid, Map<Integer, LinkedList<VCLockPair>> threadLists, Integer t, VectorClock vc, LockSet ls, UniqueEvent e) {
-        LinkedList<VCLockPair> vcLists = threadLists.get(t);
-        if (vcLists == null) {
-            vcLists = new LinkedList<VCLockPair>();
-            threadLists.put(t, vcLists);
-        }
+    protected void addEventAux(Integer iid, AccessHistory<VCLockPair> threadLists, Integer t, VectorClock vc, LockSet ls, UniqueEvent e) {
+        threadLists.pruneOrdered(t, vc, ls);
         long c = vc.getValue(t);
-        VCLockPair cPair;
-        if (vcLists.isEmpty() || vcLists.getFirst().getClock() < c) {
+        VCLockPair cPair = threadLists.getNewest(t);
+        if (cPair == null || cPair.getClock() < c) {
             cPair = new VCLockPair(c);
-            vcLists.addFirst(cPair);
-            if (vcLists.size() > Parameters.N_VECTOR_CLOCKS_WINDOW) {
-                vcLists.removeLast();
-            }
-        } else {
-            cPair = vcLists.getFirst();
+            threadLists.addNewest(t, cPair);
         }
         HashMap<LockSet, TreeSet<UniqueEvent>> lockSets = cPair.getLockSets();
         TreeSet<UniqueEvent> uniqueEvents = lockSets.get(ls);
@@ -141,20 +136,24 @@ public class AtomicRaceTracker {
 	return alreadySeenRaces;
     }
 
+    public AccessHistory.Stats getHistoryStats() {
+	return historyStats;
+    }
+
     /* Lock versions */
 
     public void checkRace(Integer iid, Integer t, Integer l, boolean isLock, VectorClock vc, LockSet ls, UniqueEvent e) {
 	Long m = l.longValue();
-	Map<Integer, LinkedList<VCLockPair>> threadLists = lockMap.get(m);
+	AccessHistory<VCLockPair> threadLists = lockMap.get(m);
 	if (threadLists != null)
 	    checkRaceAux(iid, threadLists, t, vc, ls, m, e);
     }
 
     public void addEvent(Integer iid, Integer t, Integer l, boolean isLock, VectorClock vc, LockSet ls, UniqueEvent e) {
 	Long m = l.longValue();
-	Map<Integer, LinkedList<VCLockPair>> threadLists = lockMap.get(m);
+	AccessHistory<VCLockPair> threadLists = lockMap.get(m);
         if (threadLists == null) {
-            threadLists = new TreeMap<Integer, LinkedList<VCLockPair>>();
+            threadLists = new AccessHistory<VCLockPair>(historyStats);
             lockMap.put(m, threadLists);
         }
 	addEventAux(iid, threadLists, t, vc, ls, e);
@@ -159,6 +159,7 @@ public class AtomicityAnalysis extends AnalysisImpl {
 	    Map<UniqueEvent, Set<UniqueEvent>> raceRelation = buildRaceRelation();
 	    Map<UniqueEvent, UniqueEvent> prunedImmediateSequentialRelation = simplifySequentialRelation(raceRelation.keySet());
 	    dumpInfo(raceRelation, prunedImmediateSequentialRelation);
+	    eb.getHistoryStats().print(System.out);
         }
     }
     
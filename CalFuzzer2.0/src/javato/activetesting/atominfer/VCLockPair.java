@@ -1,6 +1,7 @@
 package javato.activetesting.atominfer;
 
 
+import javato.activetesting.common.AccessHistory;
 import javato.activetesting.lockset.LockSet;
 
 import java.util.HashMap;
@@ -10,7 +11,7 @@ import java.util.TreeSet;
  * Copy of hybridracedetection.VCLockPair except that
  * locksets guard UniqueEvents instead of Integers.
  */
-public class VCLockPair {
+public class VCLockPair implements AccessHistory.Entry {
     
     private long clockValue;
     private HashMap<LockSet, TreeSet<UniqueEvent>> lockSets;
@@ -0,0 +1,172 @@
+package javato.activetesting.common;
+
+import javato.activetesting.lockset.LockSet;
+import javato.activetesting.vc.VectorClock;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Bounded access history of a single memory location (or lock).  Entries are
+ * kept per thread, newest first, as in the original race trackers.
+ *
+ * Two bounds are enforced on top of the per-thread window of
+ * Parameters.N_VECTOR_CLOCKS_WINDOW clocks:
+ *
+ * - if Parameters.pruneOrderedAccess is set, an entry of another thread that
+ *   happens-before a new access of the same kind, and whose lockset contains
+ *   the lockset of the new access, is dropped.  Any later access racing with
+ *   the dropped entry also races with the new access, so the location is still
+ *   reported as racy, but only against the iid of the new access: the race
+ *   pairs with the iids of the dropped entry are lost.  Pruning is off by
+ *   default for that reason.
+ * - the total number of entries per location is capped by
+ *   Parameters.accessHistoryCapacity; the oldest entry of the longest thread
+ *   list is evicted first.
+ */
+public class AccessHistory<E extends AccessHistory.Entry> {
+
+    public interface Entry {
+        long getClock();
+
+        Map<LockSet, ?> getLockSets();
+    }
+
+    private final Map<Integer, LinkedList<E>> threadLists;
+    private final Stats stats;
+    private int size;
+
+    public AccessHistory(Stats stats) {
+        this.threadLists = new TreeMap<Integer, LinkedList<E>>();
+        this.stats = stats;
+        this.size = 0;
+        stats.locations++;
+    }
+
+    public Set<Integer> threads() {
+        return threadLists.keySet();
+    }
+
+    public LinkedList<E> get(Integer t) {
+        return threadLists.get(t);
+    }
+
+    public E getNewest(Integer t) {
+        LinkedList<E> list = threadLists.get(t);
+        if (list == null || list.isEmpty()) return null;
+        return list.getFirst();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public void addNewest(Integer t, E e) {
+        LinkedList<E> list = threadLists.get(t);
+        if (list == null) {
+            list = new LinkedList<E>();
+            threadLists.put(t, list);
+        }
+        list.addFirst(e);
+        size++;
+        stats.added++;
+        stats.incLive(1);
+        if (list.size() > Parameters.N_VECTOR_CLOCKS_WINDOW) {
+            list.removeLast();
+            size--;
+            stats.decLive(1);
+        }
+        while (size > Parameters.accessHistoryCapacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Drops the entries of threads other than t that are ordered before the
+     * access of t with vector clock vc and are guarded by a superset of ls,
+     * if Parameters.pruneOrderedAccess is set.
+     */
+    public void pruneOrdered(Integer t, VectorClock vc, LockSet ls) {
+        if (!Parameters.pruneOrderedAccess) return;
+        Iterator<Map.Entry<Integer, LinkedList<E>>> threadIter = threadLists.entrySet().iterator();
+        while (threadIter.hasNext()) {
+            Map.Entry<Integer, LinkedList<E>> threadList = threadIter.next();
+            if (threadList.getKey().equals(t)) continue;
+            long c2 = vc.getValue(threadList.getKey());
+            Iterator<E> iter = threadList.getValue().descendingIterator();
+            while (iter.hasNext()) {
+                E e = iter.next();
+                if (e.getClock() > c2) break;
+                Iterator<LockSet> lsIter = e.getLockSets().keySet().iterator();
+                while (lsIter.hasNext()) {
+                    Set<?> held = lsIter.next();
+                    if (held.containsAll(ls)) lsIter.remove();
+                }
+                if (e.getLockSets().isEmpty()) {
+                    iter.remove();
+                    size--;
+                    stats.pruned++;
+                    stats.decLive(1);
+                }
+            }
+            if (threadList.getValue().isEmpty()) {
+                threadIter.remove();
+            }
+        }
+    }
+
+    private void evictOldest() {
+        Integer longest = null;
+        int max = 0;
+        for (Map.Entry<Integer, LinkedList<E>> threadList : threadLists.entrySet()) {
+            if (threadList.getValue().size() > max) {
+                max = threadList.getValue().size();
+                longest = threadList.getKey();
+            }
+        }
+        LinkedList<E> list = threadLists.get(longest);
+        list.removeLast();
+        if (list.isEmpty()) {
+            threadLists.remove(longest);
+        }
+        size--;
+        stats.evicted++;
+        stats.decLive(1);
+    }
+
+    /**
+     * Memory and race-check cost counters shared by all the histories of a
+     * tracker.
+     */
+    public static class Stats {
+        public long locations;
+        public long added;
+        public long pruned;
+        public long evicted;
+        public long live;
+        public long peakLive;
+        public long raceChecks;
+        public long entriesScanned;
+
+        void incLive(int n) {
+            live += n;
+            if (live > peakLive) peakLive = live;
+        }
+
+        void decLive(int n) {
+            live -= n;
+        }
+
+        public void print(PrintStream out) {
+            out.println("# of tracked locations " + locations + ", live history entries " + live
+                    + " (peak " + peakLive + ")");
+            out.println("# of history entries added " + added + ", pruned by happens-before " + pruned
+                    + ", evicted by capacity " + evicted);
+            out.println("# of race checks " + raceChecks + ", history entries scanned " + entriesScanned);
+        }
+    }
+}
@@ -39,7 +39,11 @@ public class Parameters {
     public static final long stallCheckerInterval = Long.getLong("javato.activeChecker.stallCheckerInterval", 10);
     public static final long livelockCheckerInterval = Long.getLong("javato.activeChecker.livelockCheckerInterval", 200);
     public static final int deadlockCycleLength = Integer.getInteger("javato.deadlock.cycle.length", 2);
+    public static final int goodlockThreads = Integer.getInteger("javato.goodlock.threads", Runtime.getRuntime().availableProcessors());
+    public static final boolean streamDeadlockCycles = Boolean.getBoolean("javato.goodlock.stream");
     public static final int maxPausesInActiveTesting = Integer.getInteger("javato.max.iid.count",100);
+    public static final long activeCheckerSeed = Long.getLong("javato.activetesting.seed", System.currentTimeMillis());
+    public static final boolean endTrialAtTarget = Boolean.getBoolean("javato.activetesting.endtrial");
 
     // hybrid race detection and thrille specific
     public static final int N_VECTOR_CLOCKS_WINDOW = 5;
@@ -52,6 +56,8 @@ public class Parameters {
     public final static boolean removeOlderRace = Boolean.getBoolean("javato.hybrid.removeoldrace");
     public final static boolean removeOlderAccess = Boolean.getBoolean("javato.hybrid.removeoldaccess");
     public static final boolean trackWaitNotifyOnly = Boolean.getBoolean("javato.track.waitnotifyonly");
+    public static final int accessHistoryCapacity = Integer.getInteger("javato.hybrid.history.capacity", 64);
+    public final static boolean pruneOrderedAccess = Boolean.getBoolean("javato.hybrid.pruneorderedaccess");
 
     // instrumentation specific
     public static final boolean ignoreArrays = Boolean.getBoolean("javato.ignore.arrays");
@@ -62,6 +68,9 @@ public class Parameters {
     public static final boolean trackLocals = Boolean.getBoolean("javato.track.locals");
     public static final boolean trackDeterministicLocals
         = Boolean.getBoolean("javato.track.locals.deterministic");
+    public static final boolean incrementalInstrumentation = Boolean.getBoolean("javato.instrument.incremental");
+    public static final String instrumentationCacheDir = System.getProperty("javato.instrument.cache", "javato.instrcache");
+    public static final int instrumentationThreads = Integer.getInteger("javato.instrument.threads", Runtime.getRuntime().availableProcessors());
 
     // various files for persistent data and logs
     public static final String iidToLineMapFile = "iidToLine.map";
@@ -70,10 +79,11 @@ public class Parameters {
     public static final String ERROR_LOG_FILE = System.getProperty("javato.activetesting.errorlog.file", "error.log");
     public static final String ERROR_LIST_FILE = System.getProperty("javato.activetesting.errorlist.file", "error.list");
     public static final String ERROR_STALL_FILE = System.getProperty("javato.activetesting.errorstall.file", "error.stall");
+    public static final String DEADLOCK_STREAM_FILE = System.getProperty("javato.activetesting.deadlockstream.file", "error.log.stream");
+    public static final String TRACE_FILE = System.getProperty("javato.activetesting.trace.file", "trace.bin");
 
     // entry class and must be specified
-//    public static final String analysisClass = System.getProperty("javato.activetesting.analysis.class");
-    public static final String analysisClass = "javato.activetesting.HybridAnalysis";
+    public static final String analysisClass = System.getProperty("javato.activetesting.analysis.class", "javato.activetesting.HybridAnalysis");
 //    public static final String analysisClass = "javato.activetesting.RaceFuzzerAnalysis";
     
     // deterministic scheduler specific
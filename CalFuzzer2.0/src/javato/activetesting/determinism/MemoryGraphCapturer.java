@@ -37,21 +37,18 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
-import java.io.Serializable;
-
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.Vector;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -61,17 +58,35 @@ import java.util.concurrent.atomic.AtomicStampedReference;
 
 import static javato.activetesting.determinism.MemoryGraph.Node;
 
+/**
+ * Captures the part of the heap reachable from the given locals and from
+ * the static fields of the loaded application classes.
+ *
+ * The fields of every class are looked up and made accessible once, and
+ * kept in a cache shared by all capturers, so that a capture only reads
+ * field values.  The list of loaded application classes is also extended
+ * incrementally, from where the previous capture stopped.  A capturer
+ * created with a maxDepth does not expand nodes that are maxDepth edges
+ * away from the root, which is all MemoryGraph.generatePaths(maxDepth)
+ * looks at.
+ */
 public class MemoryGraphCapturer {
 
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
     public MemoryGraphCapturer() {
+        this(UNBOUNDED);
+    }
+
+    public MemoryGraphCapturer(int maxDepth) {
+        this.maxDepth = maxDepth;
         G = null;
         objNodes = new IdentityHashMap<Object,Node>();
         Q = new LinkedList<Node>();
+        depths = new IdentityHashMap<Node,Integer>();
     }
 
     public MemoryGraph capture(Set<Map.Entry<String,Object>> localRoots) {
-        System.out.println(localRoots);
-
         if (G != null)
             return G;
         G = new MemoryGraph();
@@ -79,28 +94,23 @@ public class MemoryGraphCapturer {
         // Initialize root set and work queue with local variables.
         for (Map.Entry<String,Object> e : localRoots) {
             if (e.getValue() != null) {
-                Node n = add(e.getValue());
+                Node n = add(e.getValue(), 1);
                 G.root.fields.put(e.getKey(), n);
             }
         }
 
         // Also add static fields of app classes to root set / work queue.
-        for (Class<?> c : getLoadedClasses()) {
-            if (!isApplicationClass(c))
-                continue;
-
+        for (ClassInfo ci : getApplicationClasses()) {
             // Add class object to the root set.
-            Node cn = add(c);
-            G.root.fields.put(c.getName(), cn);
+            Node cn = add(ci.cls, 1);
+            G.root.fields.put(ci.cls.getName(), cn);
 
             // Add edges from class object for its static fields.
-            // (It's safe to use getDeclaredFields() here because we
-            // only want static fields, which cannot be inherited.)
-            for (Field f : c.getDeclaredFields()) {
-                if (isStaticField(f)) {
-                    Object obj = getStaticFieldValue(f);
+            if (maxDepth > 1) {
+                for (Field f : ci.staticFields) {
+                    Object obj = getFieldValue(f, null);
                     if (obj != null) {
-                        Node n = add(obj);
+                        Node n = add(obj, 2);
                         cn.fields.put(f.getName(), n);
                     }
                 }
@@ -110,9 +120,13 @@ public class MemoryGraphCapturer {
         // Breadth-first search through the memory graph.
         while (!isQueueEmpty()) {
             Node n = popQueue();
+            int depth = depths.get(n);
+            if (depth >= maxDepth)
+                continue;
+            int childDepth = depth + 1;
             Class<?> cls = n.obj.getClass();
 
-            if (n.obj.getClass().isArray()) {
+            if (cls.isArray()) {
                 // Special handling for arrays.
                 //
                 // NOTE: We skip large arrays, as it is wasteful and
@@ -120,53 +134,59 @@ public class MemoryGraphCapturer {
                 // individual pairs of elements from huge data arrays.
                 int len = Array.getLength(n.obj);
                 if (len <= 10) {
-                    for (int i = 0; i < len; i++) {
-                        Object obj = Array.get(n.obj, i);
-                        if (obj != null) {
-                            Node m = add(obj);
-                            n.fields.put("[" + i + "]", m);
+                    if (n.obj instanceof Object[]) {
+                        Object[] arr = (Object[]) n.obj;
+                        for (int i = 0; i < len; i++) {
+                            if (arr[i] != null) {
+                                n.fields.put("[" + i + "]", add(arr[i], childDepth));
+                            }
+                        }
+                    } else {
+                        for (int i = 0; i < len; i++) {
+                            n.fields.put("[" + i + "]", add(Array.get(n.obj, i), childDepth));
                         }
                     }
                 }
 
                 // Add array length as a field.
-                n.fields.put("length", add(len));
-
-            } else if (!isApplicationClass(cls)) {
-                // Skip normal processing for non-application classes.
-
-                // Special handling of AtomicX classes -- treat get()
-                // method as a field.
-                if (n.obj instanceof AtomicInteger) {
-                    n.fields.put("get()", add(((AtomicInteger)n.obj).get()));
-                } else if (n.obj instanceof AtomicLong) {
-                    n.fields.put("get()", add(((AtomicLong)n.obj).get()));
-                } else if (n.obj instanceof AtomicBoolean) {
-                    n.fields.put("get()", add(((AtomicBoolean)n.obj).get()));
-                } else if (n.obj instanceof AtomicReference) {
-                    Object obj = ((AtomicReference)n.obj).get();
-                    if (obj != null) {
-                        n.fields.put("get()", add(obj));
-                    }
-                } else if (n.obj instanceof AtomicMarkableReference) {
-                    Object obj = ((AtomicMarkableReference)n.obj).getReference();
-                    if (obj != null) {
-                        n.fields.put("get()", add(obj));
-                    }
-                } else if (n.obj instanceof AtomicStampedReference) {
-                    Object obj = ((AtomicStampedReference)n.obj).getReference();
-                    if (obj != null) {
-                        n.fields.put("getReference()", add(obj));
-                    }
-                }
+                n.fields.put("length", add(len, childDepth));
 
             } else {
-                // Add edges for each field.
-                for (Field f : getFields(cls)) {
-                    if (!isStaticField(f)) {
-                        Object obj = getInstanceFieldValue(f, n.obj);
+                ClassInfo ci = getClassInfo(cls);
+                if (!ci.isApplication) {
+                    // Skip normal processing for non-application classes.
+
+                    // Special handling of AtomicX classes -- treat get()
+                    // method as a field.
+                    if (n.obj instanceof AtomicInteger) {
+                        n.fields.put("get()", add(((AtomicInteger)n.obj).get(), childDepth));
+                    } else if (n.obj instanceof AtomicLong) {
+                        n.fields.put("get()", add(((AtomicLong)n.obj).get(), childDepth));
+                    } else if (n.obj instanceof AtomicBoolean) {
+                        n.fields.put("get()", add(((AtomicBoolean)n.obj).get(), childDepth));
+                    } else if (n.obj instanceof AtomicReference) {
+                        Object obj = ((AtomicReference)n.obj).get();
+                        if (obj != null) {
+                            n.fields.put("get()", add(obj, childDepth));
+                        }
+                    } else if (n.obj instanceof AtomicMarkableReference) {
+                        Object obj = ((AtomicMarkableReference)n.obj).getReference();
+                        if (obj != null) {
+                            n.fields.put("get()", add(obj, childDepth));
+                        }
+                    } else if (n.obj instanceof AtomicStampedReference) {
+                        Object obj = ((AtomicStampedReference)n.obj).getReference();
                         if (obj != null) {
-                            Node m = add(obj);
+                            n.fields.put("getReference()", add(obj, childDepth));
+                        }
+                    }
+
+                } else {
+                    // Add edges for each field.
+                    for (Field f : ci.instanceFields) {
+                        Object obj = getFieldValue(f, n.obj);
+                        if (obj != null) {
+                            Node m = add(obj, childDepth);
                             n.fields.put(f.getName(), m);
                         }
                     }
@@ -175,13 +195,16 @@ public class MemoryGraphCapturer {
         }
 
         removeNonSerializableRefs(G);
+        depths = null;
         return G;
     }
 
     private void removeNonSerializableRefs(MemoryGraph G) {
+        // Shared by all the nodes, so that each object is checked once.
+        IdentityHashMap<Object,Boolean> known = new IdentityHashMap<Object,Boolean>();
         for (Node n : objNodes.values()) {
             if (n.obj != null) {
-                if (!MemoryUtils.isSerializable(n.obj)) {
+                if (!MemoryUtils.isSerializable(n.obj, known)) {
                     n.obj = null;
                 }
             }
@@ -196,36 +219,22 @@ public class MemoryGraphCapturer {
         return Q.remove();
     }
 
-    private Node add(Object o) {
+    private Node add(Object o, int depth) {
         Node n = objNodes.get(o);
 
         if (n == null) {
             n = new Node(o);
             objNodes.put(o, n);
+            depths.put(n, depth);
             Q.add(n);
         }
 
         return n;
     }
 
-    private Iterable<Field> getFields(Class<?> cls) {
-        HashSet<Field> fields = new HashSet<Field>();
-        Collections.addAll(fields, cls.getFields());
-        while ((cls != Object.class) && (cls != null)) {
-            Collections.addAll(fields, cls.getDeclaredFields());
-            cls = cls.getSuperclass();
-        }
-        return fields;
-    }
-
-    private Object getStaticFieldValue(Field f) {
+    private static Object getFieldValue(Field f, Object o) {
         try {
-            f.setAccessible(true);
-            return f.get(null);
-        } catch (SecurityException e) {
-            System.err.println("Failed to access static field "
-                               + f.getName() + " of "
-                               + f.getDeclaringClass().getName());
+            return f.get(o);
         } catch (IllegalAccessException e) {
             System.err.println("Impossible!");
             e.printStackTrace();
@@ -233,19 +242,84 @@ public class MemoryGraphCapturer {
         return null;
     }
 
-    private Object getInstanceFieldValue(Field f, Object o) {
-        try {
-            f.setAccessible(true);
-            return f.get(o);
-        } catch (SecurityException e) {
-            System.err.println("Failed to access instance field "
-                               + f.getName() + " of " + o
-                               + " of type " + o.getClass().getName());
-        } catch (IllegalAccessException e) {
-            System.err.println("Impossible!");
-            e.printStackTrace();
+    /**
+     * The accessible fields of a class, looked up once.
+     */
+    private static class ClassInfo {
+        final Class<?> cls;
+        final boolean isApplication;
+        final Field[] instanceFields;
+        final Field[] staticFields;
+
+        ClassInfo(Class<?> cls) {
+            this.cls = cls;
+            this.isApplication = isApplicationClass(cls);
+            if (!isApplication) {
+                instanceFields = staticFields = new Field[0];
+                return;
+            }
+
+            // (It's safe to use getDeclaredFields() for the static
+            // fields because static fields cannot be inherited.)
+            List<Field> statics = new ArrayList<Field>();
+            for (Field f : cls.getDeclaredFields()) {
+                if (isStaticField(f) && makeAccessible(f)) {
+                    statics.add(f);
+                }
+            }
+            staticFields = statics.toArray(new Field[statics.size()]);
+
+            // Instance fields, by name: a field of a subclass hides
+            // the fields of the same name in its superclasses.
+            Map<String,Field> fields = new LinkedHashMap<String,Field>();
+            for (Class<?> c = cls; (c != Object.class) && (c != null); c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!isStaticField(f) && !fields.containsKey(f.getName())
+                        && makeAccessible(f)) {
+                        fields.put(f.getName(), f);
+                    }
+                }
+            }
+            instanceFields = fields.values().toArray(new Field[fields.size()]);
         }
-        return null;
+
+        private static boolean makeAccessible(Field f) {
+            try {
+                f.setAccessible(true);
+                return true;
+            } catch (SecurityException e) {
+                System.err.println("Failed to access field "
+                                   + f.getName() + " of "
+                                   + f.getDeclaringClass().getName());
+                return false;
+            }
+        }
+    }
+
+    private static ClassInfo getClassInfo(Class<?> cls) {
+        ClassInfo ci = classInfos.get(cls);
+        if (ci == null) {
+            ci = new ClassInfo(cls);
+            classInfos.put(cls, ci);
+        }
+        return ci;
+    }
+
+    /**
+     * Returns the loaded application classes, scanning only the classes
+     * loaded since the previous call.
+     */
+    private static synchronized List<ClassInfo> getApplicationClasses() {
+        List<Class<?>> loaded = getLoadedClasses();
+        int count = loaded.size();
+        for (int i = loadedClassesSeen; i < count; i++) {
+            Class<?> c = loaded.get(i);
+            if (isApplicationClass(c)) {
+                appClasses.add(getClassInfo(c));
+            }
+        }
+        loadedClassesSeen = count;
+        return new ArrayList<ClassInfo>(appClasses);
     }
 
     private static boolean isApplicationClass(Class<?> c) {
@@ -260,7 +334,7 @@ public class MemoryGraphCapturer {
         return Modifier.isStatic(f.getModifiers());
     }
 
-    private static Iterable<Class<?>> getLoadedClasses() {
+    private static List<Class<?>> getLoadedClasses() {
         // Hacky magic, from: Ted Neward, "Know What You're Executing:
         // Finding a list of of All Loaded Classes".
         //
@@ -283,7 +357,14 @@ public class MemoryGraphCapturer {
         return Collections.emptyList();
     }
 
+    private static final Map<Class<?>,ClassInfo> classInfos =
+        new ConcurrentHashMap<Class<?>,ClassInfo>();
+    private static final List<ClassInfo> appClasses = new ArrayList<ClassInfo>();
+    private static int loadedClassesSeen = 0;
+
+    private final int maxDepth;
     private MemoryGraph G;
     private IdentityHashMap<Object,Node> objNodes;
     private Queue<Node> Q;
+    private IdentityHashMap<Node,Integer> depths;
 }
@@ -143,6 +143,25 @@ public class MemoryGraphCapturerTest {
         assertNull(G.get(new Path("os", "[819]")));
     }
 
+    @Test
+    public void testCaptureMemoryGraphMaxDepth() {
+        B.C c = (new B()).new C();
+        c.as[0] = new A();
+
+        TreeMap<String,Object> locals = new TreeMap<String,Object>();
+        locals.put("c", c);
+
+        MemoryGraphCapturer mgc = new MemoryGraphCapturer(2);
+        MemoryGraph G = mgc.capture(locals.entrySet());
+
+        assertNotNull(G.get(new Path("c")));
+        assertNotNull(G.get(new Path("c", "as")));
+        assertNull(G.get(new Path("c", "as", "[0]")));
+        assertNull(G.get(new Path("c", "as", "length")));
+        assertEquals(G.generatePaths(2),
+                     new MemoryGraphCapturer().capture(locals.entrySet()).generatePaths(2));
+    }
+
     @Test
     public void testCaptureMemoryGraphInherited() {
         E e = new E();
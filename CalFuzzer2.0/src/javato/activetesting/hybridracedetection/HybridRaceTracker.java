@@ -1,5 +1,6 @@
 package javato.activetesting.hybridracedetection;
 
+import javato.activetesting.common.AccessHistory;
 import javato.activetesting.common.Parameters;
 import javato.activetesting.common.MutableLong;
 import javato.activetesting.lockset.LockSet;
@@ -44,8 +45,9 @@ public class HybridRaceTracker {
     private LinkedHashSet<CommutativePair> alreadySeenRaces;
 
     // m -> t -> list(vc,ls->Set(iid))
-    private Map<Long, Map<Integer, LinkedList<VCLockPair>>> readMap;
-    private Map<Long, Map<Integer, LinkedList<VCLockPair>>> writeMap;
+    private Map<Long, AccessHistory<VCLockPair>> readMap;
+    private Map<Long, AccessHistory<VCLockPair>> writeMap;
+    private AccessHistory.Stats historyStats;
 
     private Map<Integer, MutableLong> iidVisitCount;
     private int lockRaceCount = 0;
@@ -53,8 +55,9 @@ public class HybridRaceTracker {
 
 
     public HybridRaceTracker() {
-        readMap = new TreeMap<Long, Map<Integer, LinkedList<VCLockPair>>>();
-        writeMap = new TreeMap<Long, Map<Integer, LinkedList<VCLockPair>>>();
+        readMap = new TreeMap<Long, AccessHistory<VCLockPair>>();
+        writeMap = new TreeMap<Long, AccessHistory<VCLockPair>>();
+        historyStats = new AccessHistory.Stats();
         iidVisitCount = new TreeMap<Integer, MutableLong>();
 
         alreadySeenRaces = getRacesFromFile();
@@ -85,6 +88,7 @@ public class HybridRaceTracker {
                 cp.printcryptic(System.out);
             }
             System.out.println("# of data races " + dataRaceCount + " and lock races "+lockRaceCount);
+            historyStats.print(System.out);
             out.close();
         } catch (IOException e) {
             e.printStackTrace();
@@ -93,8 +97,8 @@ public class HybridRaceTracker {
 
     public void checkRace(Integer iid, Integer t, Long m, boolean isRead, VectorClock vc, LockSet ls,
                           boolean isLock, boolean isVolatile) {
-        Map<Integer, LinkedList<VCLockPair>> threadLists1;
-        Map<Integer, LinkedList<VCLockPair>> threadLists2 = null;
+        AccessHistory<VCLockPair> threadLists1;
+        AccessHistory<VCLockPair> threadLists2 = null;
 
         long visitC = incAndGetVisitCount(iid);
 
@@ -125,14 +129,16 @@ public class HybridRaceTracker {
         return 0;
     }
 
-    protected void checkRaceAux(Integer iid, Map<Integer, LinkedList<VCLockPair>> threadLists,
+    protected void checkRaceAux(Integer iid, AccessHistory<VCLockPair> threadLists,
                                 Integer t, VectorClock vc, LockSet ls, Long m, long iidVisitCount,
                                 boolean isLock, boolean isRead1, boolean isRead2, boolean isVolatile) {
-        for (Integer t2 : threadLists.keySet()) {
+        historyStats.raceChecks++;
+        for (Integer t2 : threadLists.threads()) {
             if (!t2.equals(t)) {
                 Long c2 = vc.getValue(t2);
                 LinkedList<VCLockPair> vcs = threadLists.get(t2);
                 for (VCLockPair c : vcs) {
+                    historyStats.entriesScanned++;
                     if (c2 < c.getClock()) {
                         Map<LockSet, TreeMap<Integer,Long>> lockSets = c.getLockSets();
                         for (LockSet ls2 : lockSets.keySet()) {
@@ -186,31 +192,22 @@ public class HybridRaceTracker {
     }
 
     public void addEvent(Integer iid, Integer t, Long m, boolean isRead, VectorClock vc, LockSet ls) {
-        Map<Long, Map<Integer, LinkedList<VCLockPair>>> currentMap = isRead ? readMap : writeMap;
-        Map<Integer, LinkedList<VCLockPair>> threadLists = currentMap.get(m);
+        Map<Long, AccessHistory<VCLockPair>> currentMap = isRead ? readMap : writeMap;
+        AccessHistory<VCLockPair> threadLists = currentMap.get(m);
         if (threadLists == null) {
-            threadLists = new TreeMap<Integer, LinkedList<VCLockPair>>();
+            threadLists = new AccessHistory<VCLockPair>(historyStats);
             currentMap.put(m, threadLists);
         }
         addEventAux(iid, threadLists, t, vc, ls);
     }
 
-    protected void addEventAux(Integer iid, Map<Integer, LinkedList<VCLockPair>> threadLists, Integer t, VectorClock vc, LockSet ls) {
-        LinkedList<VCLockPair> vcLists = threadLists.get(t);
-        if (vcLists == null) {
-            vcLists = new LinkedList<VCLockPair>();
-            threadLists.put(t, vcLists);
-        }
+    protected void addEventAux(Integer iid, AccessHistory<VCLockPair> threadLists, Integer t, VectorClock vc, LockSet ls) {
+        threadLists.pruneOrdered(t, vc, ls);
         long c = vc.getValue(t);
-        VCLockPair cPair;
-        if (vcLists.isEmpty() || vcLists.getFirst().getClock() < c) {
+        VCLockPair cPair = threadLists.getNewest(t);
+        if (cPair == null || cPair.getClock() < c) {
             cPair = new VCLockPair(c);
-            vcLists.addFirst(cPair);
-            if (vcLists.size() > Parameters.N_VECTOR_CLOCKS_WINDOW) {
-                vcLists.removeLast();
-            }
-        } else {
-            cPair = vcLists.getFirst();
+            threadLists.addNewest(t, cPair);
         }
         HashMap<LockSet, TreeMap<Integer,Long>> lockSets = cPair.getLockSets();
         TreeMap<Integer,Long> iids = lockSets.get(ls);
@@ -1,6 +1,7 @@
 package javato.activetesting.hybridracedetection;
 
 
+import javato.activetesting.common.AccessHistory;
 import javato.activetesting.lockset.LockSet;
 
 import java.util.HashMap;
@@ -39,7 +40,7 @@ import java.util.TreeMap;
  * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-public class VCLockPair {
+public class VCLockPair implements AccessHistory.Entry {
     private long clockValue;
     private HashMap<LockSet, TreeMap<Integer,Long>> lockSets;
 
@@ -93,6 +93,28 @@ public class DeadlockCycleInfo implements Serializable {
         cycles.add(current);
     }
 
+    public void addACycle(List<Node> cycle) {
+        current = cycle;
+        cycles.add(current);
+    }
+
+    /**
+     * Returns the cycle at index from the complete error log or, while
+     * iGoodlock is still streaming cycles, from the partial stream.  Returns
+     * null if the cycle has not been found (yet), and throws an IOException if
+     * its record in the stream is cut short.
+     */
+    public static List<Node> readCycle(int index) throws IOException {
+        if (!new File(Parameters.ERROR_LOG_FILE).exists()) {
+            return DeadlockCycleStream.readCycle(index);
+        }
+        DeadlockCycleInfo info = read();
+        if (info == null || index < 0 || index >= info.cycles.size()) {
+            return null;
+        }
+        return info.cycles.get(index);
+    }
+
     public List<List<Node>> getCycles() {
         return cycles;
     }
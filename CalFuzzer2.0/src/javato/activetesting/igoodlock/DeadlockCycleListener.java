@@ -0,0 +1,11 @@
+package javato.activetesting.igoodlock;
+
+import java.util.List;
+
+/**
+ * Receives the deadlock cycles of GoodlockDS as soon as they are found.
+ * Called from the search threads, one cycle at a time.
+ */
+public interface DeadlockCycleListener {
+    public void cycleFound(int index, List<Node> cycle);
+}
@@ -0,0 +1,93 @@
+package javato.activetesting.igoodlock;
+
+import javato.activetesting.common.Parameters;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Appends every cycle found by GoodlockDS to Parameters.DEADLOCK_STREAM_FILE as
+ * soon as it is found, so that DeadlockFuzzer runs for the first cycles can
+ * start while iGoodlock is still searching.  The complete DeadlockCycleInfo is
+ * still written to Parameters.ERROR_LOG_FILE at the end, in the same order.
+ */
+public class DeadlockCycleStream implements DeadlockCycleListener {
+    private ObjectOutputStream out;
+
+    public DeadlockCycleStream() {
+        new File(Parameters.ERROR_LOG_FILE).delete();
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(Parameters.DEADLOCK_STREAM_FILE)));
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void cycleFound(int index, List<Node> cycle) {
+        if (out == null) return;
+        try {
+            out.writeObject(cycle);
+            out.reset();
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            out = null;
+        }
+    }
+
+    public synchronized void close() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+    }
+
+    /**
+     * Returns the cycle at index, or null if the stream ends before it.  Throws
+     * an IOException if a record is cut short or is not a cycle.
+     */
+    @SuppressWarnings("unchecked") // cycleFound() writes only List<Node> records
+    public static List<Node> readCycle(int index) throws IOException {
+        File file = new File(Parameters.DEADLOCK_STREAM_FILE);
+        if (!file.exists()) return null;
+        BufferedInputStream raw = new BufferedInputStream(new FileInputStream(file));
+        try {
+            if (atEnd(raw)) return null;
+            ObjectInputStream in = new ObjectInputStream(raw);
+            Object cycle = null;
+            for (int i = 0; i <= index; i++) {
+                if (atEnd(raw)) return null;
+                try {
+                    cycle = in.readObject();
+                } catch (IOException e) {
+                    throw new IOException("Deadlock cycle " + (i + 1) + " is cut short in " + Parameters.DEADLOCK_STREAM_FILE + ": " + e.getMessage());
+                }
+            }
+            if (!(cycle instanceof List)) {
+                throw new StreamCorruptedException("Record " + (index + 1) + " in " + Parameters.DEADLOCK_STREAM_FILE + " is not a deadlock cycle");
+            }
+            return (List<Node>) cycle;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Record " + (index + 1) + " in " + Parameters.DEADLOCK_STREAM_FILE + " is not a deadlock cycle: " + e);
+        } finally {
+            raw.close();
+        }
+    }
+
+    /**
+     * True if nothing but the reset that follows each record is left in the
+     * stream.  ObjectInputStream does not read ahead between records, so this
+     * tells a clean end from a cut record.
+     */
+    private static boolean atEnd(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int b = in.read();
+        if (b == ObjectStreamConstants.TC_RESET) b = in.read();
+        in.reset();
+        return b == -1;
+    }
+}
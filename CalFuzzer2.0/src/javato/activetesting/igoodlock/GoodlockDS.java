@@ -3,7 +3,16 @@ package javato.activetesting.igoodlock;
 
 import javato.activetesting.common.Parameters;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Copyright (c) 2007-2008,
@@ -42,6 +51,8 @@ public class GoodlockDS {
     private InterEdges interEdges;
     private LinkedList<Path> initialSingleNodePaths;
     private LinkedList<Path> deadlocks;
+    private HashSet<List<List<Integer>>> seenCycles;
+    private DeadlockCycleListener listener;
 
     public GoodlockDS() {
         this.lockGraph = new LockGraph();
@@ -64,46 +75,116 @@ public class GoodlockDS {
         lockGraph.unlock(iid, threadId, lockId);
     }
 
+    public void setDeadlockCycleListener(DeadlockCycleListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Enumerates the cycles on Parameters.goodlockThreads threads, one task per
+     * initial lock node.  Cycles that only differ in the threads exhibiting them
+     * or in their rotation are reported once.  Without a listener the cycles are
+     * ordered by initial lock node, as in the sequential search; with a listener
+     * they are ordered as they are reported.
+     */
     private LinkedList<Path> findDeadlocks() {
         if (deadlocks == null) {
             deadlocks = new LinkedList<Path>();
-            LinkedList<Path> bucket = new LinkedList<Path>();
-            LinkedList<Path> nextBucket = new LinkedList<Path>();
+            seenCycles = new HashSet<List<List<Integer>>>();
 
-            //        lockGraph.printGraph(iidToLineMap);
-            //        interEdges.printInterEdges(iidToLineMap);
-
-            for (Path path : initialSingleNodePaths) {
-                path.addIntraEdges(bucket, deadlocks);
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Parameters.goodlockThreads));
+            List<Future<LinkedList<Path>>> results = new ArrayList<Future<LinkedList<Path>>>(initialSingleNodePaths.size());
+            for (final Path path : initialSingleNodePaths) {
+                results.add(pool.submit(new Callable<LinkedList<Path>>() {
+                    public LinkedList<Path> call() {
+                        return findDeadlocks(path);
+                    }
+                }));
             }
+            try {
+                for (Future<LinkedList<Path>> result : results) {
+                    for (Path path : result.get()) {
+                        addDeadlock(path);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return deadlocks;
+    }
+
+    private LinkedList<Path> findDeadlocks(Path start) {
+        LinkedList<Path> found = new LinkedList<Path>();
+        LinkedList<Path> bucket = new LinkedList<Path>();
+        LinkedList<Path> nextBucket = new LinkedList<Path>();
 
-            //        System.out.println("###################################");
-            //        for (Path path : bucket) {
-            //            path.printPath(iidToLineMap);
-            //        }
-            assert deadlocks.isEmpty();
-            int i = 0;
-            while ((Parameters.deadlockCycleLength == 0 && !bucket.isEmpty()) || i < Parameters.deadlockCycleLength) {
-                i++;
-                nextBucket.clear();
-                for (Path path : bucket) {
-                    path.addInterEdges(nextBucket, interEdges);
+        start.addIntraEdges(bucket, found);
+        assert found.isEmpty();
+        int i = 0;
+        while ((Parameters.deadlockCycleLength == 0 && !bucket.isEmpty()) || i < Parameters.deadlockCycleLength) {
+            i++;
+            nextBucket.clear();
+            for (Path path : bucket) {
+                path.addInterEdges(nextBucket, interEdges);
+            }
+            bucket.clear();
+            for (Path path : nextBucket) {
+                path.addIntraEdges(bucket, found);
+            }
+            if (listener != null) {
+                for (Path path : found) {
+                    addDeadlock(path);
                 }
-                //            System.out.println("###################################");
-                //            for (Path path : nextBucket) {
-                //                path.printPath(iidToLineMap);
-                //            }
-                bucket.clear();
-                for (Path path : nextBucket) {
-                    path.addIntraEdges(bucket, deadlocks);
+                found.clear();
+            }
+        }
+        return found;
+    }
+
+    private synchronized void addDeadlock(Path path) {
+        List<Node> cycle = path.getCycle();
+        if (seenCycles.add(canonicalCycle(cycle))) {
+            deadlocks.add(path);
+            if (listener != null) {
+                listener.cycleFound(deadlocks.size() - 1, cycle);
+            }
+        }
+    }
+
+    private static List<List<Integer>> canonicalCycle(List<Node> cycle) {
+        List<List<Integer>> contexts = new ArrayList<List<Integer>>(cycle.size());
+        for (Node node : cycle) {
+            contexts.add(node.getContext());
+        }
+        int best = 0;
+        for (int rot = 1; rot < contexts.size(); rot++) {
+            for (int k = 0; k < contexts.size(); k++) {
+                int c = compareContexts(contexts.get((rot + k) % contexts.size()), contexts.get((best + k) % contexts.size()));
+                if (c != 0) {
+                    if (c < 0) best = rot;
+                    break;
                 }
-                //            System.out.println("###################################");
-                //            for (Path path : bucket) {
-                //                path.printPath(iidToLineMap);
-                //            }
             }
         }
-        return deadlocks;
+        List<List<Integer>> ret = new ArrayList<List<Integer>>(contexts.size());
+        for (int k = 0; k < contexts.size(); k++) {
+            ret.add(contexts.get((best + k) % contexts.size()));
+        }
+        return ret;
+    }
+
+    private static int compareContexts(List<Integer> c1, List<Integer> c2) {
+        Iterator<Integer> i1 = c1.iterator();
+        Iterator<Integer> i2 = c2.iterator();
+        while (i1.hasNext() && i2.hasNext()) {
+            int c = i1.next().compareTo(i2.next());
+            if (c != 0) return c;
+        }
+        return i1.hasNext() ? 1 : (i2.hasNext() ? -1 : 0);
     }
 
     public void printDeadlocks() {
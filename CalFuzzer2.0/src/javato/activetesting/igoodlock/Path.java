@@ -4,6 +4,7 @@ package javato.activetesting.igoodlock;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
@@ -155,4 +156,23 @@ public class Path {
             ret.addALockNode(old); // parkcs: addANode renamed to addALockNode
         }
     }
+
+    /**
+     * Returns the cycle as the list of lock contexts recorded by
+     * addCycleToDeadlockCycleInfo, one per thread.
+     */
+    public List<Node> getCycle() {
+        List<Node> ret = new LinkedList<Node>();
+        LockNode old = null;
+        for (LockNode cur : path) {
+            if (old != null && old.getThreadId() != cur.getThreadId()) {
+                ret.add(new Node(old.getContext()));
+            }
+            old = cur;
+        }
+        if (old != null) {
+            ret.add(new Node(old.getContext()));
+        }
+        return ret;
+    }
 }
@@ -65,6 +65,7 @@ public class RaceChecker extends ActiveChecker {
                             + javato.activetesting.analysis.Observer.getIidToLine(rc.iid));
                 }
                 isRace = true;
+                targetReached();
                 if (rand.nextBoolean()) {
                     block(100);
                     rc.unblock(0);
@@ -42,79 +42,62 @@ public class StallBreaker extends Thread {
         setPriority(Thread.MIN_PRIORITY);
     }
 
+    private static final Object pauseMonitor = new Object();
+
+    /**
+     * Called by ActiveChecker right before it parks a paused thread.  A stall
+     * is only possible while some thread is parked, so the checker thread
+     * waits for this instead of polling the thread list.
+     */
+    public static void threadParked() {
+        synchronized (pauseMonitor) {
+            pauseMonitor.notifyAll();
+        }
+    }
+
     public void run() {
-        Object lock = new Object();
-        synchronized (lock) {
-            try {
-                while (true) {
-                    lock.wait(Parameters.stallCheckerInterval);
-                    breakAnyStall();
+        try {
+            while (true) {
+                synchronized (pauseMonitor) {
+                    while (ActiveChecker.getParkedThreadCount() == 0) {
+                        pauseMonitor.wait();
+                    }
+                }
+                breakAnyStall();
+                // threads that block on a monitor or in wait() do not notify us
+                synchronized (pauseMonitor) {
+                    pauseMonitor.wait(Parameters.stallCheckerInterval);
                 }
-            } catch (InterruptedException e) {
             }
+        } catch (InterruptedException e) {
         }
-
     }
 
 
+    /**
+     * Breaks a stall, i.e. a state in which some thread is parked by the
+     * ActiveChecker and no other live thread can make progress.  A timed pause
+     * is ended first.  Otherwise every paused thread waits for a partner that
+     * cannot arrive, so the target interleaving is ruled out: the trial ends
+     * if javato.activetesting.endtrial is set, and a random paused thread is
+     * released if not.
+     */
     public static void breakAnyStall() {
-        Thread[] tList = new Thread[Thread.activeCount()];
-        int numThreads = Thread.enumerate(tList);
-        int count = 0;
-        int activeCount = 0;
-
-        //System.out.println("----------------------------------------------------------");
-        for (int i = 0; i < numThreads; i++) {
-            //System.out.println("Thread " + tList[i] + " in state " + tList[i].getState()
-            //        + " isDaemon " + tList[i].isDaemon() + " priority "+tList[i].getPriority());
-            if (!tList[i].getName().equals("ipc1")
-                    && !tList[i].getName().equals("ipc2")
-                    && !tList[i].getName().equals("Keep-Alive-Timer")
-                    && !tList[i].getName().equals("DestroyJavaVM")) {
-
-                if (tList[i] != Thread.currentThread()
-                        && (tList[i].getState() == Thread.State.RUNNABLE
-                        || tList[i].getState() == Thread.State.TIMED_WAITING
-                        || tList[i].getState() == Thread.State.NEW)) {
-                    count++;
-                }
-                activeCount++;
-            }
+        if (ActiveChecker.getParkedThreadCount() == 0
+                || ActiveChecker.getRunnableThreadCount() > 0) {
+            return;
         }
-        //System.out.println("Active Count "+activeCount+" count "+count);
-        if (activeCount == 0) {
-            System.exit(0);
+        if (ActiveChecker.wakeASleepingThread()) {
+            return;
         }
-        if (count == 0) {
-            if (!ActiveChecker.unblockAThread()) {
-            	//2010-09-14:what is the purpose of these statements
-                //System.err.println("System stall identified by "+Thread.currentThread());
-                //printThreadState();
-                //System.exit(1);
-            }
-//            } else {
-//                System.out.println("s");
-//            }
+        if (Parameters.endTrialAtTarget) {
+            System.out.println("Target interleaving ruled out: every live thread is paused or blocked; ending the trial");
+            System.exit(0);
         }
+        ActiveChecker.unblockAThread();
     }
 
 
-    public static int getActiveThreadCount() {
-        Thread[] tList = new Thread[Thread.activeCount()];
-        int numThreads = Thread.enumerate(tList);
-        int count = 0;
-
-        for (int i = 0; i < numThreads; i++) {
-            if (!tList[i].getName().equals("ipc1")
-                    && !tList[i].getName().equals("ipc2")
-                    && !tList[i].getName().equals("Keep-Alive-Timer")
-                    && !tList[i].getName().equals("DestroyJavaVM")) {
-                count++;
-            }
-        }
-        return count;
-    }
-
     public static void printThreadState() {
         Thread[] tList = new Thread[Thread.activeCount()];
         int numThreads = Thread.enumerate(tList);
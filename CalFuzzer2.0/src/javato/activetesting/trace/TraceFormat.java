@@ -0,0 +1,43 @@
+package javato.activetesting.trace;
+
+/**
+ * Layout of the binary trace written by TraceWriter and read by TraceReader.
+ *
+ * A trace file starts with a fixed header (magic, version, length of the data
+ * section) followed by chunks.  Every chunk is the flushed content of one
+ * per-thread buffer: a stream id, the payload length and the payload.  The
+ * payload is a sequence of events; every event is an opcode byte, the delta of
+ * its global sequence number to the previous event of the chunk, and its
+ * arguments.  All numbers except the chunk header are zig-zag varints, so small
+ * iids, thread and lock ids take one or two bytes.
+ */
+public final class TraceFormat {
+    public static final int MAGIC = 0x43465452; // "CFTR"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int CHUNK_HEADER_SIZE = 8;
+    public static final int CHUNK_SIZE = 64 * 1024;
+    public static final int MAX_EVENT_SIZE = 1 + 5 * 10;
+
+    public static final byte LOCK_BEFORE = 1;
+    public static final byte UNLOCK_AFTER = 2;
+    public static final byte NEW_EXPR_AFTER = 3;
+    public static final byte METHOD_ENTER_BEFORE = 4;
+    public static final byte METHOD_EXIT_AFTER = 5;
+    public static final byte START_BEFORE = 6;
+    public static final byte START_AFTER = 7;
+    public static final byte WAIT_BEFORE = 8;
+    public static final byte WAIT_AFTER = 9;
+    public static final byte NOTIFY_BEFORE = 10;
+    public static final byte NOTIFY_ALL_BEFORE = 11;
+    public static final byte JOIN_AFTER = 12;
+    public static final byte READ_BEFORE = 13;
+    public static final byte WRITE_BEFORE = 14;
+    public static final byte VOLATILE_READ_BEFORE = 15;
+    public static final byte VOLATILE_WRITE_BEFORE = 16;
+    public static final byte OPEN_DETERMINISTIC_BLOCK = 17;
+    public static final byte CLOSE_DETERMINISTIC_BLOCK = 18;
+
+    private TraceFormat() {
+    }
+}
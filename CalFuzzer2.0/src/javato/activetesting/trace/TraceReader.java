@@ -0,0 +1,221 @@
+package javato.activetesting.trace;
+
+import javato.activetesting.analysis.Analysis;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Reads a trace written by TraceWriter and feeds its events, in global
+ * sequence order, to an Analysis.
+ *
+ * Only the chunk index is kept in memory; the payload of every per-thread
+ * stream is decoded one chunk at a time and the streams are merged on their
+ * sequence numbers.  Arguments that are live objects in the instrumented run
+ * (the actual lock of lockBefore, the child thread of startAfter) are replayed
+ * as null.
+ */
+public class TraceReader {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final Map<Integer, LinkedList<long[]>> chunks;
+
+    public TraceReader(String fileName) throws IOException {
+        file = new RandomAccessFile(fileName, "r");
+        channel = file.getChannel();
+        ByteBuffer header = read(0, TraceFormat.HEADER_SIZE);
+        if (header.getInt() != TraceFormat.MAGIC || header.getInt() != TraceFormat.VERSION) {
+            file.close();
+            throw new IOException(fileName + " is not a javato trace");
+        }
+        long end = TraceFormat.HEADER_SIZE + header.getLong();
+
+        chunks = new TreeMap<Integer, LinkedList<long[]>>();
+        long pos = TraceFormat.HEADER_SIZE;
+        while (pos < end) {
+            ByteBuffer chunkHeader = read(pos, TraceFormat.CHUNK_HEADER_SIZE);
+            int stream = chunkHeader.getInt();
+            int len = chunkHeader.getInt();
+            LinkedList<long[]> list = chunks.get(stream);
+            if (list == null) {
+                list = new LinkedList<long[]>();
+                chunks.put(stream, list);
+            }
+            list.add(new long[]{pos + TraceFormat.CHUNK_HEADER_SIZE, len});
+            pos += TraceFormat.CHUNK_HEADER_SIZE + len;
+        }
+    }
+
+    /**
+     * Replays all events of the trace on analysis and returns the number of
+     * replayed events.  analysis.finish() is not called.  The chunk index is
+     * not consumed, so the trace can be replayed again.
+     */
+    public long replay(Analysis analysis) throws IOException {
+        PriorityQueue<Stream> pending = new PriorityQueue<Stream>();
+        for (LinkedList<long[]> list : chunks.values()) {
+            Stream s = new Stream(list.iterator());
+            if (s.next()) pending.add(s);
+        }
+        long count = 0;
+        while (!pending.isEmpty()) {
+            Stream s = pending.poll();
+            s.dispatch(analysis);
+            count++;
+            if (s.next()) pending.add(s);
+        }
+        return count;
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) {
+                throw new IOException("truncated trace");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private class Stream implements Comparable<Stream> {
+        private final Iterator<long[]> remaining;
+        private byte[] data = new byte[0];
+        private int pos = 0;
+
+        private long seq;
+        private byte op;
+        private int iid;
+        private int thread;
+        private int arg;
+        private long memory;
+
+        Stream(Iterator<long[]> remaining) {
+            this.remaining = remaining;
+        }
+
+        boolean next() throws IOException {
+            if (pos >= data.length) {
+                if (!remaining.hasNext()) return false;
+                long[] chunk = remaining.next();
+                data = read(chunk[0], (int) chunk[1]).array();
+                pos = 0;
+                seq = 0;
+            }
+            op = data[pos++];
+            seq += getVarLong();
+            iid = getInt();
+            thread = getInt();
+            switch (op) {
+                case TraceFormat.READ_BEFORE:
+                case TraceFormat.WRITE_BEFORE:
+                case TraceFormat.VOLATILE_READ_BEFORE:
+                case TraceFormat.VOLATILE_WRITE_BEFORE:
+                    memory = getLong();
+                    break;
+                case TraceFormat.METHOD_ENTER_BEFORE:
+                case TraceFormat.METHOD_EXIT_AFTER:
+                case TraceFormat.OPEN_DETERMINISTIC_BLOCK:
+                case TraceFormat.CLOSE_DETERMINISTIC_BLOCK:
+                    break;
+                default:
+                    arg = getInt();
+            }
+            return true;
+        }
+
+        void dispatch(Analysis a) throws IOException {
+            switch (op) {
+                case TraceFormat.LOCK_BEFORE:
+                    a.lockBefore(iid, thread, arg, null);
+                    break;
+                case TraceFormat.UNLOCK_AFTER:
+                    a.unlockAfter(iid, thread, arg);
+                    break;
+                case TraceFormat.NEW_EXPR_AFTER:
+                    a.newExprAfter(iid, thread, arg);
+                    break;
+                case TraceFormat.METHOD_ENTER_BEFORE:
+                    a.methodEnterBefore(iid, thread);
+                    break;
+                case TraceFormat.METHOD_EXIT_AFTER:
+                    a.methodExitAfter(iid, thread);
+                    break;
+                case TraceFormat.START_BEFORE:
+                    a.startBefore(iid, thread, arg);
+                    break;
+                case TraceFormat.START_AFTER:
+                    a.startAfter(iid, thread, null);
+                    break;
+                case TraceFormat.WAIT_BEFORE:
+                    a.waitBefore(iid, thread, arg);
+                    break;
+                case TraceFormat.WAIT_AFTER:
+                    a.waitAfter(iid, thread, arg);
+                    break;
+                case TraceFormat.NOTIFY_BEFORE:
+                    a.notifyBefore(iid, thread, arg);
+                    break;
+                case TraceFormat.NOTIFY_ALL_BEFORE:
+                    a.notifyAllBefore(iid, thread, arg);
+                    break;
+                case TraceFormat.JOIN_AFTER:
+                    a.joinAfter(iid, thread, arg);
+                    break;
+                case TraceFormat.READ_BEFORE:
+                case TraceFormat.VOLATILE_READ_BEFORE:
+                    a.readBefore(iid, thread, memory, op == TraceFormat.VOLATILE_READ_BEFORE);
+                    break;
+                case TraceFormat.WRITE_BEFORE:
+                case TraceFormat.VOLATILE_WRITE_BEFORE:
+                    a.writeBefore(iid, thread, memory, op == TraceFormat.VOLATILE_WRITE_BEFORE);
+                    break;
+                case TraceFormat.OPEN_DETERMINISTIC_BLOCK:
+                    a.openDeterministicBlock(iid);
+                    break;
+                case TraceFormat.CLOSE_DETERMINISTIC_BLOCK:
+                    a.closeDeterministicBlock(iid);
+                    break;
+                default:
+                    throw new IOException("unknown trace event " + op);
+            }
+        }
+
+        private int getInt() {
+            long v = getVarLong();
+            return (int) (v >>> 1) ^ -(int) (v & 1);
+        }
+
+        private long getLong() {
+            long v = getVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private long getVarLong() {
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return v;
+        }
+
+        public int compareTo(Stream other) {
+            return seq < other.seq ? -1 : (seq == other.seq ? 0 : 1);
+        }
+    }
+}
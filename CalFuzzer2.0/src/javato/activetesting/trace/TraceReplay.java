@@ -0,0 +1,65 @@
+package javato.activetesting.trace;
+
+import javato.activetesting.analysis.Analysis;
+import javato.activetesting.analysis.AnalysisImpl;
+
+import java.io.IOException;
+
+/**
+ * Offline driver that feeds a trace recorded by TraceRecorderAnalysis into one
+ * or more Analysis implementations:
+ *
+ *   java javato.activetesting.trace.TraceReplay trace.bin javato.activetesting.IGoodlockAnalysis ...
+ *
+ * Every analysis gets its own reader and thread.  Analyses derived from
+ * AnalysisImpl report through their shutdown hook as in an instrumented run;
+ * finish() is called explicitly on the others.  Analyses that synchronize on
+ * ActiveChecker.lock still serialize their callbacks, so for full parallelism
+ * replay them in separate JVMs.
+ */
+public class TraceReplay {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java javato.activetesting.trace.TraceReplay <trace file> <analysis class>...");
+            System.exit(1);
+        }
+        final String traceFile = args[0];
+        Thread[] workers = new Thread[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            final String analysisClass = args[i];
+            workers[i - 1] = new Thread("replay " + analysisClass) {
+                public void run() {
+                    replay(traceFile, analysisClass);
+                }
+            };
+            workers[i - 1].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void replay(String traceFile, String analysisClass) {
+        Analysis analysis;
+        try {
+            analysis = (Analysis) Class.forName(analysisClass).newInstance();
+        } catch (Exception e) {
+            System.err.println("Cannot find or instantiate Analysis class: " + analysisClass);
+            e.printStackTrace();
+            return;
+        }
+        try {
+            TraceReader reader = new TraceReader(traceFile);
+            long start = System.currentTimeMillis();
+            long count = reader.replay(analysis);
+            reader.close();
+            System.out.println(analysisClass + ": replayed " + count + " events in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!(analysis instanceof AnalysisImpl)) {
+            analysis.finish();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package javato.activetesting.trace;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records analysis events into a binary trace (see TraceFormat).
+ *
+ * Every application thread encodes its events into its own buffer, so
+ * recording does not serialize the instrumented program on a global lock.  Full
+ * buffers are handed to a background thread which appends them to the trace
+ * file through a memory-mapped region.  A global sequence number is attached to
+ * every event so that TraceReader can restore the order in which the analysis
+ * would have observed the events online.
+ */
+public class TraceWriter {
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+    private static final byte[] STOP = new byte[0];
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long length;
+
+    private final AtomicLong seq = new AtomicLong(0);
+    private final AtomicInteger streams = new AtomicInteger(0);
+    private final List<Buffer> buffers = new ArrayList<Buffer>();
+    private final BlockingQueue<byte[]> fullChunks = new LinkedBlockingQueue<byte[]>();
+    private final Thread flusher;
+    private volatile boolean closed = false;
+    private IOException flushError;
+
+    private final ThreadLocal<Buffer> localBuffer = new ThreadLocal<Buffer>() {
+        protected Buffer initialValue() {
+            Buffer b = new Buffer(streams.getAndIncrement());
+            synchronized (buffers) {
+                buffers.add(b);
+            }
+            return b;
+        }
+    };
+
+    public TraceWriter(String fileName) throws IOException {
+        file = new RandomAccessFile(fileName, "rw");
+        file.setLength(0);
+        channel = file.getChannel();
+        length = 0;
+        regionStart = TraceFormat.HEADER_SIZE;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        writeHeader();
+
+        flusher = new Thread("javato trace flusher") {
+            public void run() {
+                flushLoop();
+            }
+        };
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void event(byte op, int iid, int thread, int arg) {
+        if (closed) return;
+        Buffer b = localBuffer.get();
+        synchronized (b) {
+            b.begin(op, seq.getAndIncrement());
+            b.putInt(iid);
+            b.putInt(thread);
+            b.putInt(arg);
+        }
+    }
+
+    public void event(byte op, int iid, int thread) {
+        if (closed) return;
+        Buffer b = localBuffer.get();
+        synchronized (b) {
+            b.begin(op, seq.getAndIncrement());
+            b.putInt(iid);
+            b.putInt(thread);
+        }
+    }
+
+    public void memoryEvent(byte op, int iid, int thread, long memory) {
+        if (closed) return;
+        Buffer b = localBuffer.get();
+        synchronized (b) {
+            b.begin(op, seq.getAndIncrement());
+            b.putInt(iid);
+            b.putInt(thread);
+            b.putLong(memory);
+        }
+    }
+
+    public long getEventCount() {
+        return seq.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Flushes the buffers of all threads, waits for the background thread and
+     * finalizes the header.  Events reported after close() are dropped.
+     */
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        synchronized (buffers) {
+            for (Buffer b : buffers) {
+                synchronized (b) {
+                    b.flush();
+                }
+            }
+        }
+        fullChunks.add(STOP);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flushError != null) {
+            throw flushError;
+        }
+        region.force();
+        writeHeader();
+        try {
+            channel.truncate(TraceFormat.HEADER_SIZE + length);
+        } catch (IOException e) {
+            // the mapped region may prevent truncation on some platforms; the
+            // header still records the valid length.
+        }
+        file.close();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TraceFormat.HEADER_SIZE);
+        header.putInt(TraceFormat.MAGIC);
+        header.putInt(TraceFormat.VERSION);
+        header.putLong(length);
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            byte[] chunk;
+            try {
+                chunk = fullChunks.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (chunk == STOP) return;
+            try {
+                append(chunk);
+            } catch (IOException e) {
+                flushError = e;
+                closed = true;
+                return;
+            }
+        }
+    }
+
+    private void append(byte[] chunk) throws IOException {
+        if (region.remaining() < chunk.length) {
+            region.force();
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, chunk.length));
+        }
+        region.put(chunk);
+        length += chunk.length;
+    }
+
+    private class Buffer {
+        private final int stream;
+        private byte[] data = new byte[TraceFormat.CHUNK_SIZE];
+        private int pos = TraceFormat.CHUNK_HEADER_SIZE;
+        private long lastSeq = 0;
+
+        Buffer(int stream) {
+            this.stream = stream;
+        }
+
+        void begin(byte op, long s) {
+            if (pos + TraceFormat.MAX_EVENT_SIZE > data.length) {
+                flush();
+            }
+            data[pos++] = op;
+            putVarLong(s - lastSeq);
+            lastSeq = s;
+        }
+
+        void putInt(int v) {
+            putVarLong(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void putLong(long v) {
+            putVarLong((v << 1) ^ (v >> 63));
+        }
+
+        private void putVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                data[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[pos++] = (byte) v;
+        }
+
+        void flush() {
+            int payload = pos - TraceFormat.CHUNK_HEADER_SIZE;
+            if (payload == 0) return;
+            ByteBuffer.wrap(data, 0, TraceFormat.CHUNK_HEADER_SIZE).putInt(stream).putInt(payload);
+            fullChunks.add(Arrays.copyOf(data, pos));
+            pos = TraceFormat.CHUNK_HEADER_SIZE;
+            lastSeq = 0;
+        }
+    }
+}
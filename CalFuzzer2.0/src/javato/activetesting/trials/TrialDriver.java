@@ -0,0 +1,270 @@
+package javato.activetesting.trials;
+
+import javato.activetesting.common.Parameters;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the confirmation trials of RaceFuzzer or DeadlockFuzzer concurrently,
+ * each in its own JVM:
+ *
+ *   java -Djavato.activetesting.analysis.class=javato.activetesting.RaceFuzzerAnalysis \
+ *        javato.activetesting.trials.TrialDriver -cp ... MainClass args...
+ *
+ * The arguments are passed to every forked JVM, together with the error id,
+ * the analysis class, a distinct seed for ActiveChecker.rand and a private
+ * error stat file.  Each trial ends as soon as its target interleaving is
+ * reached or ruled out (javato.activetesting.endtrial).  The error ids are read from javato.trials.errorids or from
+ * the error list written by the prediction phase.  A trial confirms its error
+ * only if the analysis records it as true in the stat file; other trials that
+ * exit with a non-zero code are reported as failed.  Once an error is
+ * confirmed by javato.trials.confirmations trials, its remaining trials are
+ * cancelled.  The aggregated report is printed and written to
+ * javato.trials.report.
+ */
+public class TrialDriver {
+    private static final int nTrials = Integer.getInteger("javato.trials.count", 10);
+    private static final int nParallel = Integer.getInteger("javato.trials.parallel", Runtime.getRuntime().availableProcessors());
+    private static final int nConfirmations = Integer.getInteger("javato.trials.confirmations", 1);
+    private static final long trialTimeout = Long.getLong("javato.trials.timeout", 60000);
+    private static final long baseSeed = Long.getLong("javato.trials.seed", System.currentTimeMillis());
+    private static final String trialDir = System.getProperty("javato.trials.dir", "trials");
+    private static final String reportFile = System.getProperty("javato.trials.report", "trials.report");
+    private static final String errorIds = System.getProperty("javato.trials.errorids");
+
+    private final List<String> command;
+    private final Map<Integer, ErrorState> states = new TreeMap<Integer, ErrorState>();
+    private final List<TrialResult> results = Collections.synchronizedList(new ArrayList<TrialResult>());
+    private final Timer watchdog = new Timer("javato trial watchdog", true);
+
+    public TrialDriver(List<String> command) {
+        this.command = command;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java javato.activetesting.trials.TrialDriver <java arguments of a trial>...");
+            System.exit(1);
+        }
+        List<Integer> ids = readErrorIds();
+        if (ids.isEmpty()) {
+            System.out.println("No errors to confirm");
+            return;
+        }
+        new File(trialDir).mkdirs();
+        TrialDriver driver = new TrialDriver(Arrays.asList(args));
+        driver.run(ids);
+        driver.report(System.out);
+        PrintStream out = new PrintStream(new FileOutputStream(reportFile));
+        driver.report(out);
+        out.close();
+    }
+
+    private static List<Integer> readErrorIds() throws IOException {
+        String list = errorIds;
+        if (list == null) {
+            BufferedReader in = new BufferedReader(new FileReader(Parameters.ERROR_LIST_FILE));
+            list = in.readLine();
+            in.close();
+        }
+        List<Integer> ids = new ArrayList<Integer>();
+        if (list != null) {
+            for (String id : list.split(",")) {
+                if (id.trim().length() > 0) {
+                    ids.add(Integer.valueOf(id.trim()));
+                }
+            }
+        }
+        return ids;
+    }
+
+    public void run(List<Integer> ids) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, nParallel));
+        for (Integer id : ids) {
+            states.put(id, new ErrorState(id));
+        }
+        // trial-major order, so that every error gets its first trials early
+        for (int trial = 0; trial < nTrials; trial++) {
+            for (Integer id : ids) {
+                final ErrorState state = states.get(id);
+                final int n = trial;
+                pool.execute(new Runnable() {
+                    public void run() {
+                        results.add(runTrial(state, n));
+                    }
+                });
+            }
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        watchdog.cancel();
+    }
+
+    private TrialResult runTrial(ErrorState state, int trial) {
+        long seed = baseSeed + 1000003L * state.id + trial;
+        if (state.done) {
+            return new TrialResult(state.id, trial, seed, TrialResult.CANCELLED, 0, 0);
+        }
+        String name = trialDir + File.separator + "error" + state.id + "-trial" + trial;
+        File statFile = new File(name + ".stat");
+        statFile.delete();
+
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.add("-Djavato.activetesting.analysis.class=" + Parameters.analysisClass);
+        cmd.add("-Djavato.activetesting.errorid=" + state.id);
+        cmd.add("-Djavato.activetesting.seed=" + seed);
+        cmd.add("-Djavato.activetesting.errorstat.file=" + statFile.getPath());
+        cmd.add("-Djavato.activetesting.endtrial=true");
+        cmd.addAll(command);
+
+        long start = System.currentTimeMillis();
+        final Process process;
+        try {
+            ProcessBuilder pb = new ProcessBuilder(cmd);
+            pb.redirectErrorStream(true);
+            process = pb.start();
+        } catch (IOException e) {
+            System.err.println("Cannot start trial " + name + ": " + e);
+            return new TrialResult(state.id, trial, seed, TrialResult.FAILED, -1, 0);
+        }
+        if (!state.register(process)) {
+            process.destroy();
+        }
+        Thread logger = copyOutput(process.getInputStream(), name + ".log");
+        final AtomicBoolean timedOut = new AtomicBoolean(false);
+        TimerTask kill = new TimerTask() {
+            public void run() {
+                timedOut.set(true);
+                process.destroy();
+            }
+        };
+        watchdog.schedule(kill, trialTimeout);
+
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+            logger.join();
+        } catch (InterruptedException e) {
+            process.destroy();
+            exitCode = -1;
+        }
+        kill.cancel();
+        state.unregister(process);
+        long time = System.currentTimeMillis() - start;
+
+        int status;
+        if (isConfirmed(statFile)) {
+            status = TrialResult.CONFIRMED;
+            state.confirmed();
+        } else if (state.done && exitCode != 0) {
+            status = TrialResult.CANCELLED;
+        } else if (timedOut.get()) {
+            status = TrialResult.TIMEOUT;
+        } else if (exitCode != 0) {
+            status = TrialResult.FAILED;
+        } else {
+            status = TrialResult.NOT_CONFIRMED;
+        }
+        TrialResult result = new TrialResult(state.id, trial, seed, status, exitCode, time);
+        System.out.println(result);
+        return result;
+    }
+
+    private static boolean isConfirmed(File statFile) {
+        if (!statFile.exists()) return false;
+        try {
+            BufferedReader in = new BufferedReader(new FileReader(statFile));
+            String line = in.readLine();
+            in.close();
+            return line != null && line.contains(":true");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Thread copyOutput(final InputStream in, final String logFile) {
+        Thread t = new Thread("javato trial output") {
+            public void run() {
+                try {
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(logFile));
+                    byte[] buf = new byte[8192];
+                    int n;
+                    while ((n = in.read(buf)) > 0) {
+                        out.write(buf, 0, n);
+                    }
+                    out.close();
+                } catch (IOException e) {
+                    // the trial was killed
+                }
+            }
+        };
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    public void report(PrintStream out) {
+        out.println("error id, trials, confirmed, not confirmed, timeout, failed, cancelled, first confirming seed");
+        for (ErrorState state : states.values()) {
+            int[] counts = new int[5];
+            TrialResult first = null;
+            synchronized (results) {
+                for (TrialResult r : results) {
+                    if (r.errorId != state.id) continue;
+                    counts[r.status]++;
+                    if (r.status == TrialResult.CONFIRMED && (first == null || r.trial < first.trial)) {
+                        first = r;
+                    }
+                }
+            }
+            int run = counts[0] + counts[1] + counts[2] + counts[4];
+            out.println(state.id + ", " + run + ", " + counts[TrialResult.CONFIRMED] + ", "
+                    + counts[TrialResult.NOT_CONFIRMED] + ", " + counts[TrialResult.TIMEOUT] + ", "
+                    + counts[TrialResult.FAILED] + ", " + counts[TrialResult.CANCELLED] + ", "
+                    + (first == null ? "-" : String.valueOf(first.seed)));
+        }
+    }
+
+    /**
+     * Confirmation count and running trials of one error id.
+     */
+    private static class ErrorState {
+        final int id;
+        final AtomicInteger confirmations = new AtomicInteger(0);
+        final Set<Process> running = new HashSet<Process>();
+        volatile boolean done = false;
+
+        ErrorState(int id) {
+            this.id = id;
+        }
+
+        synchronized boolean register(Process p) {
+            if (done) return false;
+            running.add(p);
+            return true;
+        }
+
+        synchronized void unregister(Process p) {
+            running.remove(p);
+        }
+
+        void confirmed() {
+            if (confirmations.incrementAndGet() >= nConfirmations) {
+                synchronized (this) {
+                    done = true;
+                    for (Process p : running) {
+                        p.destroy();
+                    }
+                    running.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package javato.activetesting.trials;
+
+/**
+ * Outcome of one fuzzing trial run by TrialDriver.
+ */
+public class TrialResult {
+    public static final int CONFIRMED = 0;
+    public static final int NOT_CONFIRMED = 1;
+    public static final int TIMEOUT = 2;
+    public static final int CANCELLED = 3;
+    public static final int FAILED = 4;
+
+    private static final String[] NAMES = {"confirmed", "not confirmed", "timeout", "cancelled", "failed"};
+
+    public final int errorId;
+    public final int trial;
+    public final long seed;
+    public final int status;
+    public final int exitCode;
+    public final long time;
+
+    public TrialResult(int errorId, int trial, long seed, int status, int exitCode, long time) {
+        this.errorId = errorId;
+        this.trial = trial;
+        this.seed = seed;
+        this.status = status;
+        this.exitCode = exitCode;
+        this.time = time;
+    }
+
+    public static String statusName(int status) {
+        return NAMES[status];
+    }
+
+    public String toString() {
+        return "error " + errorId + " trial " + trial + " seed " + seed + ": " + statusName(status)
+                + " (exit " + exitCode + ", " + time + " ms)";
+    }
+}
@@ -45,6 +45,11 @@ import java.util.TreeMap;
 
 public class DeterminismInference {
 
+    // Paths longer than this are not used by the inference, so the
+    // capture does not need to look past them.
+    private static final int captureDepth =
+        Integer.getInteger("javato.determinism.depth", MemoryGraphCapturer.UNBOUNDED);
+
     public static void openDeterministicBlock(String[] localNames,
                                               Object[] localVals) {
         // Capture pre-state.
@@ -67,7 +72,7 @@ public class DeterminismInference {
             locals.put(localNames[i], localVals[i]);
         }
 
-        MemoryGraphCapturer mgc = new MemoryGraphCapturer();
+        MemoryGraphCapturer mgc = new MemoryGraphCapturer(captureDepth);
         MemoryGraph G = mgc.capture(locals.entrySet());
         try {
             ObjectOutputStream oos =
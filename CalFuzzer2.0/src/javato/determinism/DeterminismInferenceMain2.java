@@ -33,27 +33,41 @@
 
 package javato.determinism;
 
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.EOFException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.lang.reflect.Array;
 import java.util.Arrays;
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DeterminismInferenceMain2 {
 
     private static final int kMaxIterableSize = 1000000;
 
+    private static final int nThreads =
+        Integer.getInteger("javato.determinism.threads",
+                           Runtime.getRuntime().availableProcessors());
+
     public static class Predicate implements Comparable<Predicate> {
 
         public Predicate(Path p) {
@@ -380,42 +394,6 @@ public class DeterminismInferenceMain2 {
     }
 
 
-    static Set<Predicate> findPredicates(Set<Path> paths, MemoryGraph G, MemoryGraph H) {
-        Set<Predicate> ret = new TreeSet<Predicate>();
-
-        for (Path p : paths) {
-            MemoryGraph.Node n1 = G.get(p);
-            MemoryGraph.Node n2 = H.get(p);
-            Object o1 = (n1 != null) ? n1.obj : null;
-            Object o2 = (n2 != null) ? n2.obj : null;
-
-            if ((n1 == null) && (n2 == null)) {
-                // If the memory is not set in either, count as a match.
-                // ret.add(p);
-
-            } else if ((o1 == null) || (o2 == null)) {
-                continue;
-
-            } else if (o1 instanceof Class) {
-                // Skip class objects -- not interesting to report.
-                continue;
-
-            } else {
-                if (equals(o1, o2))
-                    ret.add(new Predicate(p));
-
-                if (approxEquals(o1, o2))
-                    ret.add(new Predicate(p, "Approx"));
-
-                if (setEquals(o1, o2))
-                    ret.add(new Predicate(p, "Set"));
-            }
-        }
-
-        return ret;
-    }
-
-
     static boolean isFloatingPoint(Object o) {
         if ((o instanceof Float) || (o instanceof Double)
             || (o instanceof float[]) || (o instanceof double[])) {
@@ -465,22 +443,22 @@ public class DeterminismInferenceMain2 {
     }
 
 
-    private static MemoryGraph readMemoryGraph(FileInputStream fis)
+    private static MemoryGraph readMemoryGraph(InputStream in)
         throws ClassNotFoundException, IOException {
 
-        ObjectInputStream ois = new ObjectInputStream(fis);
+        ObjectInputStream ois = new ObjectInputStream(in);
         return (MemoryGraph)ois.readObject();
     }
 
 
-    private static int countExecutions(FileInputStream fis)
+    private static int countExecutions(InputStream in)
         throws ClassNotFoundException, IOException {
 
         int count = 0;
         try {
             while (true) {
-                readMemoryGraph(fis);
-                readMemoryGraph(fis);
+                readMemoryGraph(in);
+                readMemoryGraph(in);
                 ++count;
             }
         } catch (IOException e) {
@@ -491,6 +469,575 @@ public class DeterminismInferenceMain2 {
     }
 
 
+    /**
+     * The pre- and post-state of the n-th requested execution.
+     */
+    static class Execution {
+        Execution(int n, MemoryGraph pre, MemoryGraph post) {
+            this.n = n;
+            this.pre = pre;
+            this.post = post;
+        }
+
+        final int n;
+        final MemoryGraph pre;
+        final MemoryGraph post;
+    }
+
+    interface ExecutionVisitor {
+        void visit(Execution e);
+    }
+
+    /**
+     * Reads the requested executions from the file one at a time and
+     * hands them to the visitor on nThreads threads.  At most
+     * 2 * nThreads executions are in memory at once.  Returns the
+     * number of executions skipped.
+     */
+    static int forEachExecution(String filename, Set<Integer> execs,
+                                final ExecutionVisitor visitor)
+        throws ClassNotFoundException, IOException, InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        final Semaphore inFlight = new Semaphore(2 * nThreads);
+        final AtomicReference<RuntimeException> failure =
+            new AtomicReference<RuntimeException>();
+        InputStream in = new BufferedInputStream(new FileInputStream(filename));
+        int skipped = 0;
+        try {
+            int n = 0;
+            int last = 0;
+            for (int next : execs) {
+                // Skip to next requested execution.
+                for (int i = last + 1; i < next; i++) {
+                    readMemoryGraph(in);
+                    readMemoryGraph(in);
+                    skipped++;
+                }
+                // Read the requested execution.
+                MemoryGraph pre = readMemoryGraph(in);
+                MemoryGraph post = readMemoryGraph(in);
+                final Execution e = new Execution(n++, pre, post);
+                last = next;
+
+                inFlight.acquire();
+                pool.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            visitor.visit(e);
+                        } catch (RuntimeException ex) {
+                            failure.compareAndSet(null, ex);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+            }
+        } finally {
+            in.close();
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        if (failure.get() != null)
+            throw failure.get();
+        return skipped;
+    }
+
+    /**
+     * Runs task.run(i) for 0 <= i < n on nThreads threads.
+     */
+    static void parallelFor(int n, final IndexedTask task)
+        throws InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        final AtomicReference<RuntimeException> failure =
+            new AtomicReference<RuntimeException>();
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            pool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        task.run(index);
+                    } catch (RuntimeException ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        if (failure.get() != null)
+            throw failure.get();
+    }
+
+    interface IndexedTask {
+        void run(int i);
+    }
+
+
+    /**
+     * The values of one memory graph at the paths of a PredicateTable,
+     * reduced to what comparing two graphs needs: a fingerprint of each
+     * value for the equality and Set predicates, and the values that
+     * are compared pairwise -- the floating-point values for the Approx
+     * predicates, because approxEquals() is not transitive, and the
+     * values with Fingerprints.PAIRWISE, because they contain objects
+     * whose equals() cannot be fingerprinted.  A List also gets its
+     * iterableSet() fingerprint, for the Set predicate with an iterable
+     * that is not a List.
+     */
+    static class Signature {
+        Signature(int size) {
+            eqHash = new long[size];
+            setHash = new long[size];
+            isList = new boolean[size];
+            iterableSetHash = new long[size];
+            eqValue = new Object[size];
+            setValue = new Object[size];
+            approxValue = new Object[size];
+        }
+
+        final long[] eqHash;
+        final long[] setHash;
+        final boolean[] isList;
+        final long[] iterableSetHash;
+        final Object[] eqValue;
+        final Object[] setValue;
+        final Object[] approxValue;
+    }
+
+    /**
+     * 64-bit fingerprints of values.  Two values get the same eq()
+     * fingerprint iff equals() holds for them, and the same set()
+     * fingerprint iff setEquals() holds for them, up to fingerprint
+     * collisions.
+     *
+     * Only values built from known types are fingerprinted: boxed
+     * primitives, Strings, enums, Classes, arrays and Iterables, and
+     * the Lists, Sets and Maps of java.util.  A value that contains
+     * an object of another class with its own equals() method gets
+     * PAIRWISE and is compared with equals() or setEquals() instead;
+     * equals() is assumed to be symmetric, so such a value is never
+     * equal to a value with a fingerprint.  Values that are never
+     * equal to a value of another execution get NONE: objects
+     * compared by identity, iterables with null elements or more than
+     * kMaxIterableSize elements, and values that contain them.
+     */
+    static class Fingerprints {
+        static final long NONE = 0;
+        static final long PAIRWISE = 1;
+
+        private static final long NULL = 0x5bd1e9955bd1e995L;
+
+        private static final Map<Class<?>,Boolean> ownEquals =
+            new ConcurrentHashMap<Class<?>,Boolean>();
+
+        /** Fingerprint for equals(). */
+        static long eq(Object o) {
+            if (o instanceof Object[]) {
+                return deep((Object[])o);
+            } else if (isPrimitiveArray(o)) {
+                return primitiveArray(o);
+            } else if (o instanceof Iterable) {
+                long h = start("Iterable");
+                boolean pairwise = false;
+                Iterator<?> it = ((Iterable<?>)o).iterator();
+                for (int i = 0; it.hasNext(); i++) {
+                    Object e = it.next();
+                    if ((i == kMaxIterableSize) || (e == null))
+                        return NONE;
+                    long f = eq(e);
+                    if (f == NONE)
+                        return NONE;
+                    pairwise |= (f == PAIRWISE);
+                    h = mix(h, f);
+                }
+                return pairwise ? PAIRWISE : finish(h);
+            } else {
+                return java(o);
+            }
+        }
+
+        /**
+         * Fingerprint for setEquals() of an array or Iterable with a
+         * value of the same kind: two arrays, two Lists, or two
+         * iterables that are not Lists.
+         */
+        static long set(Object o) {
+            if (o instanceof Object[])
+                return set(start("Object[] as set"), Arrays.asList((Object[])o), Integer.MAX_VALUE);
+            else if (o instanceof List)
+                return set(start("List as set"), (List<?>)o, Integer.MAX_VALUE);
+            else
+                return iterableSet((Iterable<?>)o);
+        }
+
+        /**
+         * Fingerprint for setEquals() of an Iterable with an iterable
+         * that is not a List, which also compares their sizes.
+         */
+        static long iterableSet(Iterable<?> c) {
+            return set(start("Iterable as set"), c, kMaxIterableSize);
+        }
+
+        private static long set(long h, Iterable<?> c, int max) {
+            long[] elems = new long[16];
+            int n = 0;
+            boolean pairwise = false;
+            for (Object e : c) {
+                if (n == max)
+                    return NONE;
+                long f = java(e);
+                if (f == NONE) {
+                    // setEquals() may still find Comparable elements
+                    // equal through compareTo().
+                    if (!(e instanceof Comparable))
+                        return NONE;
+                    pairwise = true;
+                } else if (f == PAIRWISE) {
+                    pairwise = true;
+                }
+                if (n == elems.length)
+                    elems = Arrays.copyOf(elems, 2 * n);
+                elems[n++] = f;
+            }
+            if (pairwise)
+                return PAIRWISE;
+            // only iterables that are not Lists have a size limit, and
+            // setEquals() compares their sizes
+            if (max == kMaxIterableSize)
+                h = mix(h, n);
+            return distinct(h, Arrays.copyOf(elems, n));
+        }
+
+        /** Fingerprint for Arrays.deepEquals(). */
+        private static long deep(Object[] a) {
+            long h = mix(start("Object[]"), a.length);
+            boolean pairwise = false;
+            for (Object e : a) {
+                long f;
+                if (e == null)
+                    f = NULL;
+                else if (e instanceof Object[])
+                    f = deep((Object[])e);
+                else if (isPrimitiveArray(e))
+                    f = primitiveArray(e);
+                else
+                    f = java(e);
+                if (f == NONE)
+                    return NONE;
+                pairwise |= (f == PAIRWISE);
+                h = mix(h, f);
+            }
+            return pairwise ? PAIRWISE : finish(h);
+        }
+
+        /** Fingerprint for the equals() method of o. */
+        private static long java(Object o) {
+            if (o == null) {
+                return NULL;
+            } else if (o.getClass().isArray()) {
+                return NONE;
+            } else if ((o instanceof Float) || (o instanceof Double)) {
+                long bits = (o instanceof Float)
+                    ? Float.floatToIntBits((Float)o)
+                    : Double.doubleToLongBits((Double)o);
+                return finish(mix(start(o.getClass().getName()), bits));
+            } else if ((o instanceof Number) && (o.getClass().getName().startsWith("java.lang."))) {
+                return finish(mix(start(o.getClass().getName()), ((Number)o).longValue()));
+            } else if (o instanceof Boolean) {
+                return finish(mix(start("java.lang.Boolean"), ((Boolean)o) ? 1 : 0));
+            } else if (o instanceof Character) {
+                return finish(mix(start("java.lang.Character"), (Character)o));
+            } else if (o instanceof String) {
+                return finish(string(start("java.lang.String"), (String)o));
+            } else if (o instanceof Enum) {
+                Enum<?> e = (Enum<?>)o;
+                return finish(string(start(e.getDeclaringClass().getName()), e.name()));
+            } else if (o instanceof Class) {
+                return finish(string(start("java.lang.Class"), ((Class<?>)o).getName()));
+            } else if (!hasOwnEquals(o.getClass())) {
+                return NONE;
+            } else if (!o.getClass().getName().startsWith("java.util.")) {
+                return PAIRWISE;
+            } else if (o instanceof List) {
+                long[] elems = javaAll((List<?>)o, false);
+                if (elems == null)
+                    return NONE;
+                if (hasPairwise(elems))
+                    return PAIRWISE;
+                long h = start("java.util.List");
+                for (long f : elems)
+                    h = mix(h, f);
+                return finish(h);
+            } else if (o instanceof Set) {
+                boolean sorted = (o instanceof SortedSet);
+                if (sorted && (((SortedSet<?>)o).comparator() != null))
+                    return PAIRWISE;
+                long[] elems = javaAll((Set<?>)o, sorted);
+                if (elems == null)
+                    return NONE;
+                if (hasPairwise(elems))
+                    return PAIRWISE;
+                return distinct(start("java.util.Set"), elems);
+            } else if (o instanceof Map) {
+                boolean sorted = (o instanceof SortedMap);
+                if (sorted && (((SortedMap<?,?>)o).comparator() != null))
+                    return PAIRWISE;
+                Map<?,?> m = (Map<?,?>)o;
+                long[] keys = javaAll(m.keySet(), sorted);
+                if (keys == null)
+                    return NONE;
+                long[] entries = new long[keys.length];
+                int i = 0;
+                for (Object v : m.values()) {
+                    long f = java(v);
+                    if (f == NONE)
+                        return NONE;
+                    if ((f == PAIRWISE) || (keys[i] == PAIRWISE))
+                        return PAIRWISE;
+                    entries[i] = finish(mix(keys[i], f));
+                    i++;
+                }
+                return distinct(start("java.util.Map"), entries);
+            } else {
+                return PAIRWISE;
+            }
+        }
+
+        /**
+         * Fingerprints of the elements, or null if one of them has NONE.
+         * A sorted collection compares its elements with compareTo(), so
+         * there an element with NONE counts as PAIRWISE instead.
+         */
+        private static long[] javaAll(Collection<?> c, boolean sorted) {
+            long[] ret = new long[c.size()];
+            int n = 0;
+            for (Object e : c) {
+                long f = java(e);
+                if (f == NONE) {
+                    if (!sorted)
+                        return null;
+                    f = PAIRWISE;
+                }
+                if (n == ret.length)
+                    ret = Arrays.copyOf(ret, 2 * n + 1);
+                ret[n++] = f;
+            }
+            return (n == ret.length) ? ret : Arrays.copyOf(ret, n);
+        }
+
+        private static boolean hasPairwise(long[] elems) {
+            for (long f : elems) {
+                if (f == PAIRWISE)
+                    return true;
+            }
+            return false;
+        }
+
+        /** Mixes the distinct fingerprints in elems into h. */
+        private static long distinct(long h, long[] elems) {
+            Arrays.sort(elems);
+            for (int i = 0; i < elems.length; i++) {
+                if ((i == 0) || (elems[i] != elems[i - 1]))
+                    h = mix(h, elems[i]);
+            }
+            return finish(h);
+        }
+
+        private static boolean isPrimitiveArray(Object o) {
+            return (o != null) && o.getClass().isArray()
+                && o.getClass().getComponentType().isPrimitive();
+        }
+
+        /** Fingerprint for Arrays.equals() of primitive arrays. */
+        private static long primitiveArray(Object a) {
+            int n = Array.getLength(a);
+            long h = mix(start(a.getClass().getName()), n);
+            if (a instanceof float[]) {
+                for (float f : (float[])a)
+                    h = mix(h, Float.floatToIntBits(f));
+            } else if (a instanceof double[]) {
+                for (double d : (double[])a)
+                    h = mix(h, Double.doubleToLongBits(d));
+            } else if (a instanceof boolean[]) {
+                for (boolean b : (boolean[])a)
+                    h = mix(h, b ? 1 : 0);
+            } else if (a instanceof char[]) {
+                for (char c : (char[])a)
+                    h = mix(h, c);
+            } else {
+                for (int i = 0; i < n; i++)
+                    h = mix(h, Array.getLong(a, i));
+            }
+            return finish(h);
+        }
+
+        private static boolean hasOwnEquals(Class<?> c) {
+            Boolean own = ownEquals.get(c);
+            if (own == null) {
+                try {
+                    own = (c.getMethod("equals", Object.class).getDeclaringClass()
+                           != Object.class);
+                } catch (NoSuchMethodException e) {
+                    own = false;
+                }
+                ownEquals.put(c, own);
+            }
+            return own;
+        }
+
+        private static long start(String tag) {
+            return string(0x9e3779b97f4a7c15L, tag);
+        }
+
+        private static long string(long h, String s) {
+            h = mix(h, s.length());
+            for (int i = 0; i < s.length(); i++)
+                h = mix(h, s.charAt(i));
+            return h;
+        }
+
+        private static long mix(long h, long v) {
+            return Long.rotateLeft(h ^ scramble(v), 29) * 0xbf58476d1ce4e5b9L
+                + 0x94d049bb133111ebL;
+        }
+
+        private static long finish(long h) {
+            h = scramble(h);
+            return ((h == NONE) || (h == PAIRWISE)) ? 2 : h;
+        }
+
+        private static long scramble(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+
+    /**
+     * The candidate predicates over a set of paths.  Predicate 3*k,
+     * 3*k+1 and 3*k+2 are the equality, Approx and Set predicates of
+     * the k-th path, which is also their order as Predicates.
+     */
+    static class PredicateTable {
+        PredicateTable(Set<Path> paths) {
+            this.paths = paths.toArray(new Path[paths.size()]);
+        }
+
+        Signature signature(MemoryGraph G) {
+            Signature sig = new Signature(paths.length);
+            for (int k = 0; k < paths.length; k++) {
+                MemoryGraph.Node n = G.get(paths[k]);
+                Object obj = (n != null) ? n.obj : null;
+                if ((obj == null) || (obj instanceof Class)) {
+                    // Class objects are not interesting to report.
+                    continue;
+                }
+                sig.eqHash[k] = Fingerprints.eq(obj);
+                if (sig.eqHash[k] == Fingerprints.PAIRWISE)
+                    sig.eqValue[k] = obj;
+                if ((obj instanceof Object[]) || (obj instanceof Iterable)) {
+                    sig.setHash[k] = Fingerprints.set(obj);
+                    if (obj instanceof List) {
+                        sig.isList[k] = true;
+                        sig.iterableSetHash[k] = Fingerprints.iterableSet((List<?>)obj);
+                    }
+                    if ((sig.setHash[k] == Fingerprints.PAIRWISE)
+                        || (sig.iterableSetHash[k] == Fingerprints.PAIRWISE))
+                        sig.setValue[k] = obj;
+                }
+                if (isFloatingPoint(obj))
+                    sig.approxValue[k] = obj;
+            }
+            return sig;
+        }
+
+        /**
+         * The predicates true of the pair -- what findPredicates()
+         * returned for the two memory graphs.
+         */
+        BitSet compare(Signature a, Signature b) {
+            BitSet ret = new BitSet(3 * paths.length);
+            for (int k = 0; k < paths.length; k++) {
+                if (matches(a.eqHash[k], b.eqHash[k])
+                    && ((a.eqHash[k] != Fingerprints.PAIRWISE)
+                        || DeterminismInferenceMain2.equals(a.eqValue[k], b.eqValue[k])))
+                    ret.set(3 * k);
+                if ((a.approxValue[k] != null) && (b.approxValue[k] != null)
+                    && approxEquals(a.approxValue[k], b.approxValue[k]))
+                    ret.set(3 * k + 1);
+                // setEquals() compares a List with an iterable that is
+                // not a List as two such iterables
+                boolean mixed = (a.isList[k] != b.isList[k]);
+                long f = (mixed && a.isList[k]) ? a.iterableSetHash[k] : a.setHash[k];
+                long g = (mixed && b.isList[k]) ? b.iterableSetHash[k] : b.setHash[k];
+                if (matches(f, g)
+                    && ((f != Fingerprints.PAIRWISE) || setEquals(a.setValue[k], b.setValue[k])))
+                    ret.set(3 * k + 2);
+            }
+            return ret;
+        }
+
+        /**
+         * True if the fingerprints are equal and not NONE; for two
+         * PAIRWISE fingerprints the values still have to be compared.
+         */
+        private static boolean matches(long f, long g) {
+            return (f != Fingerprints.NONE) && (f == g);
+        }
+
+        Set<Predicate> toPredicates(BitSet bits) {
+            Set<Predicate> ret = new TreeSet<Predicate>();
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                ret.add(new Predicate(paths[i / 3], KINDS[i % 3]));
+            }
+            return ret;
+        }
+
+        private static final String[] KINDS = { "", "Approx", "Set" };
+
+        final Path[] paths;
+    }
+
+
+    static boolean containsAll(BitSet s, BitSet t) {
+        for (int i = t.nextSetBit(0); i >= 0; i = t.nextSetBit(i + 1)) {
+            if (!s.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Intersects s into acc; a null acc stands for the set of all
+     * predicates.
+     */
+    static BitSet intersect(BitSet acc, BitSet s) {
+        if (acc == null)
+            return (BitSet)s.clone();
+        acc.and(s);
+        return acc;
+    }
+
+    /**
+     * Orders predicate sets by size, then by their smallest differing
+     * predicate, so that the output does not depend on thread timing.
+     */
+    static final Comparator<BitSet> bitSetOrder = new Comparator<BitSet>() {
+        public int compare(BitSet s, BitSet t) {
+            if (s.cardinality() != t.cardinality())
+                return (s.cardinality() < t.cardinality()) ? -1 : 1;
+            BitSet diff = (BitSet)s.clone();
+            diff.xor(t);
+            int i = diff.nextSetBit(0);
+            if (i < 0)
+                return 0;
+            return s.get(i) ? -1 : 1;
+        }
+    };
+
+
     public static void main(String args[]) throws Exception {
         // Process command-line arguments.
         if (args.length < 1) {
@@ -498,8 +1045,9 @@ public class DeterminismInferenceMain2 {
                                "<file> [<depth> <list>]\n");
             return;
         } else if (args.length != 3) {
-            FileInputStream fis = new FileInputStream(args[0]);
-            int count = countExecutions(fis);
+            InputStream in = new BufferedInputStream(new FileInputStream(args[0]));
+            int count = countExecutions(in);
+            in.close();
             System.out.println(count + " executions.");
             return;
         }
@@ -517,208 +1065,236 @@ public class DeterminismInferenceMain2 {
             return;
         }
 
-        // Read the given pre- and post- states.
-        ArrayList<MemoryGraph> preStates = new ArrayList<MemoryGraph>();
-        ArrayList<MemoryGraph> postStates = new ArrayList<MemoryGraph>();
-        {
-            FileInputStream fis = new FileInputStream(filename);
-            int skipped = 0;
-            int last = 0;
-            for (int next : execs) {
-                // Skip to next requested execution.
-                for (int i = last + 1; i < next; i++) {
-                    readMemoryGraph(fis);
-                    readMemoryGraph(fis);
-                    skipped++;
-                }
-                // Read the requested execution.
-                preStates.add(readMemoryGraph(fis));
-                postStates.add(readMemoryGraph(fis));
-                last = next;
-            }
-            System.out.println("Skipped " + skipped + " executions.");
-            System.out.println("Read " + N + " executions.");
-            fis.close();
-        }
+        // The executions are streamed from the file three times, so
+        // that no more than a few of them are in memory at once.  Of
+        // each execution only its Signatures are kept: two
+        // fingerprints per path, plus the floating-point values at
+        // the paths that hold them, which still take memory in
+        // proportion to the number of executions.
 
         // First, generate a list of all possible paths.
-        Set<Path> paths = new TreeSet<Path>();
-        for (int i = 0; i < N; i++) {
-            paths.addAll(preStates.get(i).generatePaths(depth));
-            paths.addAll(postStates.get(i).generatePaths(depth));
-        }
-
-        // Find all "input" paths.
-        TreeSet<Path> inputs = new TreeSet<Path>(paths);
-        for (int i = 0; i < N; i++) {
-            inputs.retainAll(findInputs(paths, preStates.get(i), postStates.get(i)));
-        }
-
-        // Find pre- and post-paths that are sometimes missing.
-        TreeSet<Path> missingPre = new TreeSet<Path>();
-        TreeSet<Path> missingPost = new TreeSet<Path>();
-        for (int i = 0; i < N; i++) {
-            missingPre.addAll(findMissing(paths, preStates.get(i)));
-            missingPost.addAll(findMissing(paths, postStates.get(i)));
-        }
+        final Set<Path> paths = new TreeSet<Path>();
+        int skipped = forEachExecution(filename, execs, new ExecutionVisitor() {
+            public void visit(Execution e) {
+                Set<Path> ps = e.pre.generatePaths(depth);
+                ps.addAll(e.post.generatePaths(depth));
+                synchronized (paths) {
+                    paths.addAll(ps);
+                }
+            }
+        });
+        System.out.println("Skipped " + skipped + " executions.");
+        System.out.println("Read " + N + " executions.");
+
+        // Find all "input" paths, and pre- and post-paths that are
+        // sometimes missing.
+        final TreeSet<Path> inputs = new TreeSet<Path>(paths);
+        final TreeSet<Path> missingPre = new TreeSet<Path>();
+        final TreeSet<Path> missingPost = new TreeSet<Path>();
+        forEachExecution(filename, execs, new ExecutionVisitor() {
+            public void visit(Execution e) {
+                Set<Path> in = findInputs(paths, e.pre, e.post);
+                Set<Path> mPre = findMissing(paths, e.pre);
+                Set<Path> mPost = findMissing(paths, e.post);
+                synchronized (inputs) {
+                    inputs.retainAll(in);
+                    missingPre.addAll(mPre);
+                    missingPost.addAll(mPost);
+                }
+            }
+        });
 
-        // Find all post-paths that are "copies".
-        TreeSet<Path> copies = new TreeSet<Path>();
-        TreeMap<Path,TreeSet<Path>> copySources = new TreeMap<Path,TreeSet<Path>>();
+        // Prepare paths for comparing pre- and post-states.
+        TreeSet<Path> prePaths = new TreeSet<Path>(paths);
+        TreeSet<Path> postPaths = new TreeSet<Path>(paths);
+        // Eliminate inputs from post-paths.
+        postPaths.removeAll(inputs);
+        // Eliminate "missing" pre-paths.
+        prePaths.removeAll(missingPre);
+        // Eliminate "missing" post-paths.
+        postPaths.removeAll(missingPost);
+        final Set<Path> finalPrePaths = prePaths;
+        final Set<Path> finalPostPaths = postPaths;
+
+        // Find all post-paths that are "copies", compute the set of
+        // "possible" conjuncts (just for diagnostics/statistics), and
+        // reduce every execution to the signatures its pairwise
+        // comparisons need.
+        final TreeMap<Path,TreeSet<Path>> copySources = new TreeMap<Path,TreeSet<Path>>();
         for (Path p : paths) {
             if (!missingPost.contains(p) && !inputs.contains(p)) {
                 copySources.put(p, new TreeSet<Path>(inputs));
             }
         }
-        for (int i = 0; i < N; i++) {
-            for (Map.Entry<Path,TreeSet<Path>> e : copySources.entrySet()) {
-                Path p = e.getKey();
-                MemoryGraph.Node postNode = postStates.get(i).get(p);
-                if (postNode != null) {
-                    Object postObj = postNode.obj;
-                    e.getValue().retainAll
-                        (findMatches(postObj, e.getValue(), preStates.get(i)));
+        final TreeSet<Predicate> preConjuncts = new TreeSet<Predicate>();
+        final TreeSet<Predicate> postConjuncts = new TreeSet<Predicate>();
+        final PredicateTable preTable = new PredicateTable(prePaths);
+        final PredicateTable postTable = new PredicateTable(postPaths);
+        final Signature[] preSigs = new Signature[N];
+        final Signature[] postSigs = new Signature[N];
+        forEachExecution(filename, execs, new ExecutionVisitor() {
+            public void visit(Execution e) {
+                for (Map.Entry<Path,TreeSet<Path>> c : copySources.entrySet()) {
+                    MemoryGraph.Node postNode = e.post.get(c.getKey());
+                    if (postNode != null) {
+                        TreeSet<Path> sources;
+                        synchronized (c.getValue()) {
+                            sources = new TreeSet<Path>(c.getValue());
+                        }
+                        Set<Path> matches = findMatches(postNode.obj, sources, e.pre);
+                        synchronized (c.getValue()) {
+                            c.getValue().retainAll(matches);
+                        }
+                    }
+                }
+
+                Set<Predicate> pre = findConjuncts(finalPrePaths, e.pre);
+                Set<Predicate> post = findConjuncts(finalPostPaths, e.post);
+                synchronized (preConjuncts) {
+                    preConjuncts.addAll(pre);
+                    postConjuncts.addAll(post);
                 }
+
+                preSigs[e.n] = preTable.signature(e.pre);
+                postSigs[e.n] = postTable.signature(e.post);
             }
-        }
+        });
+        TreeSet<Path> copies = new TreeSet<Path>();
         for (Map.Entry<Path,TreeSet<Path>> e : copySources.entrySet()) {
             if (!e.getValue().isEmpty()) {
                 copies.add(e.getKey());
             }
         }
 
-        // Prepare paths for comparing pre- and post-states.
-        TreeSet<Path> prePaths = new TreeSet<Path>(paths);
-        TreeSet<Path> postPaths = new TreeSet<Path>(paths);
-
-        // Eliminate inputs from post-paths.
         System.out.println("INPUTS (" + inputs.size() + "): " + inputs + "\n\n");
-        postPaths.removeAll(inputs);
-
-        // Eliminate "missing" pre-paths.
         System.out.println("MISSING PRE: " + missingPre + "\n\n");
-        prePaths.removeAll(missingPre);
-
-        // Eliminate "missing" post-paths.
         System.out.println("MISSING POST: " + missingPost + "\n\n");
-        postPaths.removeAll(missingPost);
-
-        // Eliminate "copied" post-paths.
         System.out.println("COPIED POST (" + copies.size() + "): " + copies + "\n\n");
-        // postPaths.removeAll(copies);
-
-        // Just for diagnostics/statistics, compute set of "possible" conjuncts.
-        TreeSet<Predicate> preConjuncts = new TreeSet<Predicate>();
-        TreeSet<Predicate> postConjuncts = new TreeSet<Predicate>();
-        for (int i = 0; i < N; i++) {
-            preConjuncts.addAll(findConjuncts(prePaths, preStates.get(i)));
-            postConjuncts.addAll(findConjuncts(postPaths, postStates.get(i)));
-        }
         System.out.println("POSSIBLE PRE CONJUNCTS: " + preConjuncts.size());
         System.out.println("POSSIBLE POST CONJUNCTS: " + postConjuncts.size());
         System.out.println();
 
-        // Generate all pairwise comparisons.
+        // Compare all pairs, collecting the distinct pre-predicates
+        // and the predicates true in every pair or in some pair.  The
+        // pairs are not kept; they are recomputed from the signatures
+        // when needed.
         int M = N * (N-1) / 2;
-        ArrayList<Set<Predicate>> pres = new ArrayList<Set<Predicate>>();
-        ArrayList<Set<Predicate>> posts = new ArrayList<Set<Predicate>>();
-        for (int i = 0; i < N; i++) {
-            for (int j = i+1; j < N; j++) {
-                pres.add(findPredicates(prePaths, preStates.get(i), preStates.get(j)));
-                posts.add(findPredicates(postPaths, postStates.get(i), postStates.get(j)));
+        final Set<BitSet> distinctPres = new HashSet<BitSet>();
+        final BitSet[] pairStats = new BitSet[4];
+        final int ALL_PRES = 0, ALL_POSTS = 1, SOME_PRES = 2, SOME_POSTS = 3;
+        parallelFor(N, new IndexedTask() {
+            public void run(int i) {
+                Set<BitSet> pres = new HashSet<BitSet>();
+                BitSet allPres = null, allPosts = null;
+                BitSet somePres = new BitSet(), somePosts = new BitSet();
+                for (int j = i+1; j < N; j++) {
+                    BitSet pre = preTable.compare(preSigs[i], preSigs[j]);
+                    BitSet post = postTable.compare(postSigs[i], postSigs[j]);
+                    pres.add(pre);
+                    allPres = intersect(allPres, pre);
+                    allPosts = intersect(allPosts, post);
+                    somePres.or(pre);
+                    somePosts.or(post);
+                }
+                synchronized (distinctPres) {
+                    distinctPres.addAll(pres);
+                    if (allPres != null) {
+                        pairStats[ALL_PRES] = intersect(pairStats[ALL_PRES], allPres);
+                        pairStats[ALL_POSTS] = intersect(pairStats[ALL_POSTS], allPosts);
+                    }
+                    pairStats[SOME_PRES] = union(pairStats[SOME_PRES], somePres);
+                    pairStats[SOME_POSTS] = union(pairStats[SOME_POSTS], somePosts);
+                }
             }
-        }
+        });
         System.out.println(M + " pairs.\n\n");
-        System.out.println("PRE-PREDICATES: " + union(pres).size());
-        System.out.println("POST-PREDICATES: " + union(posts).size());
+        System.out.println("PRE-PREDICATES: " + pairStats[SOME_PRES].cardinality());
+        System.out.println("POST-PREDICATES: " + pairStats[SOME_POSTS].cardinality());
         System.out.println();
 
         // Eliminate any pre-predicates true in every single pair.
         //
         // (Either because they are not interesting or because we
         // cannot say anything about them.)
-        Set<Predicate> allPres = intersection(pres);
-        System.out.println("ALL PRES (" + allPres.size() + "): " + allPres + "\n\n");
-        for (Set<Predicate> pre : pres) {
-            pre.removeAll(allPres);
-        }
+        final BitSet allPres = pairStats[ALL_PRES];
+        System.out.println("ALL PRES (" + allPres.cardinality() + "): "
+                           + preTable.toPredicates(allPres) + "\n\n");
 
         // Eliminate any post-predicates true in every single pair.
         //
         // (Either because they are not interesting or because we
         // cannot say anything about them.)
-        Set<Predicate> allPosts = intersection(posts);
-        System.out.println("ALL POSTS (" + allPosts.size() + "): " + allPosts + "\n\n");
-        for (Set<Predicate> post : posts) {
-            post.removeAll(allPosts);
-        }
-
-        // Collect the set of occurring pre-predicates as keys in 'sp'.
-        HashMap<Set<Predicate>,Set<Predicate>> sp = new HashMap<Set<Predicate>,Set<Predicate>>();
-        for (Set<Predicate> pre : pres) {
-            sp.put(pre, null);
-        }
-
-        // Compute the strongest post-predicate for each pre-predicate.
-        for (Map.Entry<Set<Predicate>,Set<Predicate>> e : sp.entrySet()) {
-            // Filter the post-predicates observed for this pre-predicate.
-            List<Set<Predicate>> seenPosts = new ArrayList<Set<Predicate>>();
-            for (int i = 0; i < pres.size(); i++) {
-                if (pres.get(i).containsAll(e.getKey())) {
-                    seenPosts.add(posts.get(i));
+        final BitSet allPosts = pairStats[ALL_POSTS];
+        System.out.println("ALL POSTS (" + allPosts.cardinality() + "): "
+                           + postTable.toPredicates(allPosts) + "\n\n");
+
+        // Every pre-predicate contains allPres, so removing allPres
+        // keeps distinct pre-predicates distinct and does not change
+        // which of them contain which.
+        final BitSet[] pres = distinctPres.toArray(new BitSet[distinctPres.size()]);
+        Arrays.sort(pres, bitSetOrder);
+
+        // Compute the strongest post-predicate for each pre-predicate:
+        // the intersection of the post-predicates observed with it.
+        final BitSet[] sp = new BitSet[pres.length];
+        parallelFor(N, new IndexedTask() {
+            public void run(int i) {
+                BitSet[] seen = new BitSet[pres.length];
+                for (int j = i+1; j < N; j++) {
+                    BitSet pre = preTable.compare(preSigs[i], preSigs[j]);
+                    BitSet post = null;
+                    for (int k = 0; k < pres.length; k++) {
+                        if (containsAll(pre, pres[k])) {
+                            if (post == null)
+                                post = postTable.compare(postSigs[i], postSigs[j]);
+                            seen[k] = intersect(seen[k], post);
+                        }
+                    }
+                }
+                synchronized (sp) {
+                    for (int k = 0; k < pres.length; k++) {
+                        if (seen[k] != null)
+                            sp[k] = intersect(sp[k], seen[k]);
+                    }
                 }
             }
-            // Intersect all of the observed posts.
-            e.setValue(intersection(seenPosts));
+        });
+        for (int k = 0; k < pres.length; k++) {
+            pres[k].andNot(allPres);
+            sp[k].andNot(allPosts);
         }
 
         // Collect non-redundant/non-dominated (pre, sp(pre)) pairs.
-        HashMap<Set<Predicate>,Set<Predicate>> inferred = new HashMap<Set<Predicate>,Set<Predicate>>();
-        for (Map.Entry<Set<Predicate>,Set<Predicate>> e1 : sp.entrySet()) {
+        for (int k1 = 0; k1 < pres.length; k1++) {
             // Check for dominating entry.
             boolean dominated = false;
-            for (Map.Entry<Set<Predicate>,Set<Predicate>> e2 : sp.entrySet()) {
-                if (e2.getKey() == e1.getKey())
+            for (int k2 = 0; k2 < pres.length; k2++) {
+                if (k2 == k1)
                     continue;
-                if (e1.getKey().containsAll(e2.getKey())
-                    && e2.getValue().containsAll(e1.getValue())) {
+                if (containsAll(pres[k1], pres[k2])
+                    && containsAll(sp[k2], sp[k1])) {
                     dominated = true;
                     break;
                 }
             }
-            // Save the pair if it's not dominated.
+            // Print the pair if it's not dominated.
             if (!dominated) {
-                inferred.put(e1.getKey(), e1.getValue());
                 System.out.println("********************************\n");
-                System.out.println("Pre: " + e1.getKey());
+                System.out.println("Pre: " + preTable.toPredicates(pres[k1]));
                 System.out.println("\n");
-                System.out.println("Post: " + e1.getValue());
+                System.out.println("Post: " + postTable.toPredicates(sp[k1]));
                 System.out.println("\n\n\n");
             }
         }
     }
 
-    static <T> Set<T> intersection(Collection<Set<T>> sets) {
-        if (sets.isEmpty())
-            return new TreeSet<T>();
-
-        Set<T> ret = new TreeSet<T>(sets.iterator().next());
-        for (Set<T> s : sets) {
-            ret.retainAll(s);
-        }
-
-        return ret;
-    }
-
-    static <T> Set<T> union(Collection<Set<T>> sets) {
-        if (sets.isEmpty())
-            return new TreeSet<T>();
-
-        Set<T> ret = new TreeSet<T>();
-        for (Set<T> s : sets) {
-            ret.addAll(s);
-        }
-
-        return ret;
+    /**
+     * Adds s to acc; a null acc stands for the empty set.
+     */
+    static BitSet union(BitSet acc, BitSet s) {
+        if (acc == null)
+            return (BitSet)s.clone();
+        acc.or(s);
+        return acc;
     }
 }
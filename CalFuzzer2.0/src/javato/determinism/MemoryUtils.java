@@ -57,14 +57,44 @@ public class MemoryUtils {
         if (obj == null)
             return true;
 
-        return isSerializable(new IdentityHashMap<Object,Boolean>(), obj);
+        return isSerializable(new IdentityHashMap<Object,Boolean>(), null, obj);
+    }
+
+    /**
+     * Like isSerializable(obj), but remembers results in known, so that
+     * checking all the objects of one memory graph does not walk shared
+     * collections again for every object.
+     */
+    public static boolean isSerializable(Object obj,
+                                         IdentityHashMap<Object,Boolean> known) {
+        if (obj == null)
+            return true;
+
+        IdentityHashMap<Object,Boolean> seen = new IdentityHashMap<Object,Boolean>();
+        boolean result = isSerializable(seen, known, obj);
+        if (result) {
+            // Everything reachable from the objects we walked was
+            // either walked or already known to be serializable.
+            for (Object o : seen.keySet()) {
+                known.put(o, Boolean.TRUE);
+            }
+        } else {
+            known.put(obj, Boolean.FALSE);
+        }
+        return result;
     }
 
     private static boolean isSerializable(IdentityHashMap<Object,Boolean> seen,
+                                          IdentityHashMap<Object,Boolean> known,
                                           Object obj) {
         // Cycles in the reference graph do not prevent serialization.
         if (seen.containsKey(obj) || (obj == null))
             return true;
+        if (known != null) {
+            Boolean result = known.get(obj);
+            if (result != null)
+                return result;
+        }
         seen.put(obj, Boolean.TRUE);
 
         if (!(obj instanceof Serializable)) {
@@ -75,7 +105,7 @@ public class MemoryUtils {
             // serialization will still fail unless all contained
             // objects are serializable, too.
             for (Object o : (Collection)obj) {
-                if (!isSerializable(seen, o))
+                if (!isSerializable(seen, known, o))
                     return false;
             }
 
@@ -84,8 +114,8 @@ public class MemoryUtils {
             // will still fail unless all contained keys and values
             // are serializable, too.
             for (Map.Entry<?,?> e : ((Map<?,?>)obj).entrySet()) {
-                if (!isSerializable(seen, e.getKey())
-                    || !isSerializable(seen, e.getValue()))
+                if (!isSerializable(seen, known, e.getKey())
+                    || !isSerializable(seen, known, e.getValue()))
                     return false;
             }
 
@@ -98,7 +128,7 @@ public class MemoryUtils {
             // component type is a primitive.
             int len = Array.getLength(obj);
             for (int i = 0; i < len; i++) {
-                if (!isSerializable(seen, Array.get(obj, i)))
+                if (!isSerializable(seen, known, Array.get(obj, i)))
                     return false;
             }
         }
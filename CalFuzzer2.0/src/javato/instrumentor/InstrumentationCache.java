@@ -0,0 +1,358 @@
+package javato.instrumentor;
+
+import soot.SootClass;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Remembers, between two runs of the instrumentor, the hash of every input
+ * classfile, the iid and symbol table allocations and a copy of every
+ * instrumented classfile.
+ *
+ * A class is unchanged if the instrumentation configuration is the same and
+ * the classfiles of the class, of the application classes named in its
+ * constant pool and of the application superclasses of all of them hash as in
+ * the previous run.  The referenced classes matter because the instrumentation
+ * of a method body depends on whether its callees are synchronized and its
+ * fields are volatile; every class whose methods or fields a class uses is
+ * named in its constant pool.  Unchanged classes are loaded by Soot as library
+ * classes, so they are neither transformed nor written; their previous output
+ * is copied into the output directory, and their iids and symbol ids stay valid
+ * because the allocation continues from the previous run.  A class that is
+ * instrumented again reuses the iids of its previous run.  Changing the
+ * configuration or removing the cache directory forces a full instrumentation.
+ */
+public class InstrumentationCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final String STATE_FILE = "state.ser";
+    private static final String CLASSES_DIR = "classes";
+
+    private String config;
+    private HashMap<String, String> classHashes = new HashMap<String, String>();
+    private int iidCount = 0;
+    private ArrayList<String> iidToLineMap = new ArrayList<String>(10000);
+    private HashMap<String, ArrayList<Integer>> classIids = new HashMap<String, ArrayList<Integer>>();
+    private HashMap<String, Integer> symbols = new HashMap<String, Integer>();
+
+    private transient File dir;
+    private transient HashMap<String, String> newHashes;
+    private transient Map<String, Set<String>> references;
+    private transient Set<String> unchanged;
+
+    private InstrumentationCache(File dir, String config) {
+        this.dir = dir;
+        this.config = config;
+    }
+
+    /**
+     * Loads the cache from dir, or returns an empty cache if there is none or
+     * it was written with a different configuration.
+     */
+    public static InstrumentationCache load(String dirName, String config) {
+        File dir = new File(dirName);
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(new File(dir, STATE_FILE))));
+            InstrumentationCache cache = (InstrumentationCache) in.readObject();
+            in.close();
+            if (cache.config.equals(config)) {
+                cache.dir = dir;
+                return cache;
+            }
+            System.out.println("Instrumentation configuration changed, instrumenting all classes");
+        } catch (IOException e) {
+            // no previous run
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        return new InstrumentationCache(dir, config);
+    }
+
+    /**
+     * Makes the instrumentor continue the allocations of the previous run.
+     */
+    public void restoreAllocations() {
+        Visitor.restoreIids(iidCount, iidToLineMap, classIids);
+        Visitor.getSymbolTables().setTable(symbols);
+    }
+
+    /**
+     * Hashes the classfiles of the application classes on nThreads threads
+     * and decides which classes need to be instrumented again.
+     */
+    public void computeUnchanged(Collection<SootClass> appClasses, String classPath, int nThreads) {
+        final ClassFileLocator locator = new ClassFileLocator(classPath);
+        final Map<String, String> hashes = new ConcurrentHashMap<String, String>();
+        final Map<String, Set<String>> refs = new ConcurrentHashMap<String, Set<String>>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, nThreads));
+        for (final SootClass sc : appClasses) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    byte[] bytes = locator.read(sc.getName());
+                    if (bytes != null) {
+                        hashes.put(sc.getName(), sha1(bytes));
+                        Set<String> names = referencedClasses(bytes);
+                        if (names != null) {
+                            refs.put(sc.getName(), names);
+                        }
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        locator.close();
+
+        newHashes = new HashMap<String, String>(hashes);
+        references = refs;
+        Map<String, SootClass> byName = new HashMap<String, SootClass>();
+        for (SootClass sc : appClasses) {
+            byName.put(sc.getName(), sc);
+        }
+        unchanged = new HashSet<String>();
+        for (SootClass sc : appClasses) {
+            if (isUnchanged(sc, byName) && new File(new File(dir, CLASSES_DIR), classFileName(sc.getName())).exists()) {
+                unchanged.add(sc.getName());
+            }
+        }
+        System.out.println("Instrumentation cache: " + unchanged.size() + " of " + appClasses.size()
+                + " classes unchanged");
+    }
+
+    private boolean isUnchanged(SootClass sc, Map<String, SootClass> appClasses) {
+        Set<String> names = references.get(sc.getName());
+        if (names == null || !hierarchyUnchanged(sc)) {
+            return false;
+        }
+        for (String name : names) {
+            SootClass ref = appClasses.get(name);
+            if (ref != null && !hierarchyUnchanged(ref)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hierarchyUnchanged(SootClass sc) {
+        while (sc != null && sc.isApplicationClass()) {
+            String hash = newHashes.get(sc.getName());
+            if (hash == null || !hash.equals(classHashes.get(sc.getName()))) {
+                return false;
+            }
+            sc = sc.hasSuperclass() ? sc.getSuperclass() : null;
+        }
+        return true;
+    }
+
+    public boolean isUnchanged(String className) {
+        return unchanged != null && unchanged.contains(className);
+    }
+
+    /**
+     * Puts the previous output of the unchanged classes back into outputDir,
+     * keeps a copy of the new output of the other classes and saves the
+     * allocations of this run.
+     */
+    public void save(String outputDir) throws IOException {
+        File classes = new File(dir, CLASSES_DIR);
+        if (newHashes != null) {
+            for (String className : newHashes.keySet()) {
+                File cached = new File(classes, classFileName(className));
+                File output = new File(outputDir, classFileName(className));
+                if (unchanged.contains(className)) {
+                    copy(cached, output);
+                } else if (output.exists()) {
+                    copy(output, cached);
+                }
+            }
+            classHashes = newHashes;
+        }
+        iidCount = Visitor.getIidCount();
+        iidToLineMap = Visitor.getIidToLineMap();
+        classIids = Visitor.getClassIids();
+        symbols = Visitor.getSymbolTables().getTable();
+
+        dir.mkdirs();
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dir, STATE_FILE))));
+        out.writeObject(this);
+        out.close();
+    }
+
+    private static String classFileName(String className) {
+        return className.replace('.', File.separatorChar) + ".class";
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        to.getParentFile().mkdirs();
+        InputStream in = new BufferedInputStream(new FileInputStream(from));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(to));
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        in.close();
+        out.close();
+    }
+
+    /**
+     * The names of the classes in the constant pool of a classfile, or null if
+     * it cannot be parsed.
+     */
+    private static Set<String> referencedClasses(byte[] bytes) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.skipBytes(8); // magic and version
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            List<Integer> classes = new ArrayList<Integer>();
+            for (int i = 1; i < count; i++) {
+                switch (in.readUnsignedByte()) {
+                    case 1: // Utf8
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classes.add(in.readUnsignedShort());
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.skipBytes(2);
+                        break;
+                    case 15: // MethodHandle
+                        in.skipBytes(3);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.skipBytes(4);
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.skipBytes(8);
+                        i++;
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            Set<String> names = new HashSet<String>();
+            for (int index : classes) {
+                String name = utf8[index];
+                if (name == null) {
+                    return null;
+                }
+                // array classes are named by their descriptor
+                int dims = 0;
+                while (name.charAt(dims) == '[') {
+                    dims++;
+                }
+                if (dims > 0) {
+                    if (name.charAt(dims) != 'L') {
+                        continue;
+                    }
+                    name = name.substring(dims + 1, name.length() - 1);
+                }
+                names.add(name.replace('/', '.'));
+            }
+            return names;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds classfiles on a class path of directories and archives.
+     */
+    private static class ClassFileLocator {
+        private final List<File> dirs = new ArrayList<File>();
+        private final List<ZipFile> archives = new ArrayList<ZipFile>();
+
+        ClassFileLocator(String classPath) {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                File f = new File(entry);
+                if (f.isDirectory()) {
+                    dirs.add(f);
+                } else if (f.isFile()) {
+                    try {
+                        archives.add(new ZipFile(f));
+                    } catch (IOException e) {
+                        // not an archive
+                    }
+                }
+            }
+        }
+
+        byte[] read(String className) {
+            String name = className.replace('.', '/') + ".class";
+            try {
+                for (File d : dirs) {
+                    File f = new File(d, name);
+                    if (f.isFile()) {
+                        return readFully(new FileInputStream(f));
+                    }
+                }
+                for (ZipFile z : archives) {
+                    ZipEntry e;
+                    synchronized (z) {
+                        e = z.getEntry(name);
+                    }
+                    if (e != null) {
+                        return readFully(z.getInputStream(e));
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+
+        void close() {
+            for (ZipFile z : archives) {
+                try {
+                    z.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+
+        private static byte[] readFully(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            in.close();
+            return out.toByteArray();
+        }
+    }
+}
@@ -48,4 +48,12 @@ public class SymbolTables {
     public int getSize(){
     	return table.size()+1;
     }
+
+    public HashMap<String,Integer> getTable() {
+        return table;
+    }
+
+    public void setTable(HashMap<String,Integer> table) {
+        this.table = table;
+    }
 }
@@ -1,9 +1,12 @@
 package javato.instrumentor;
 
+import javato.activetesting.common.Parameters;
 import org.objectweb.asm.ClassReader;
 import soot.PackManager;
 import soot.Scene;
+import soot.SootClass;
 import soot.Transform;
+import soot.options.Options;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -149,12 +152,77 @@ public class TransformClass {
      * @param visitor
      */
     public void processAllAtOnce(String[] args, Visitor visitor) {
+        InstrumentationCache cache = null;
+        if (Parameters.incrementalInstrumentation) {
+            cache = InstrumentationCache.load(Parameters.instrumentationCacheDir, configuration(args, visitor));
+            cache.restoreAllocations();
+        }
         Scene.v().setSootClassPath(System.getProperty("sun.boot.class.path")
                 + File.pathSeparator + System.getProperty("java.class.path"));
         Scene.v().loadClassAndSupport(Visitor.observerClass);
         TransformerForInstrumentation.v().setVisitor(visitor);
         PackManager.v().getPack("jtp").add(new Transform("jtp.instrumenter", TransformerForInstrumentation.v()));
-        soot.Main.main(args);
+        if (cache == null) {
+            soot.Main.main(args);
+        } else {
+            runSkippingUnchanged(args, cache);
+        }
         soot.G.reset();
+        if (cache != null) {
+            try {
+                cache.save(outputDir(args));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Runs the steps of soot.Main, except that the classes the cache reports
+     * unchanged are made library classes as soon as they are loaded, so that
+     * Soot neither transforms nor writes them.
+     */
+    private static void runSkippingUnchanged(String[] args, InstrumentationCache cache) {
+        if (!Options.v().parse(args)) {
+            throw new RuntimeException("Cannot parse Soot options");
+        }
+        Scene.v().loadNecessaryClasses();
+        cache.computeUnchanged(Scene.v().getApplicationClasses(), System.getProperty("java.class.path"),
+                Parameters.instrumentationThreads);
+        for (SootClass sc : new ArrayList<SootClass>(Scene.v().getApplicationClasses())) {
+            if (cache.isUnchanged(sc.getName())) {
+                sc.setLibraryClass();
+            }
+        }
+        PackManager.v().runPacks();
+        PackManager.v().writeOutput();
+    }
+
+    /**
+     * Everything besides the classfiles that changes the instrumentation.
+     */
+    private static String configuration(String[] args, Visitor visitor) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(visitor.getClass().getName()).append(' ').append(Visitor.observerClass);
+        sb.append(" ignoreArrays=").append(Parameters.ignoreArrays)
+                .append(" ignoreMethods=").append(Parameters.ignoreMethods)
+                .append(" ignoreAlloc=").append(Parameters.ignoreAlloc)
+                .append(" ignoreFields=").append(Parameters.ignoreFields)
+                .append(" ignoreConcurrency=").append(Parameters.ignoreConcurrency)
+                .append(" trackLocals=").append(Parameters.trackLocals)
+                .append(" trackDeterministicLocals=").append(Parameters.trackDeterministicLocals);
+        for (String arg : args) {
+            sb.append(' ').append(arg);
+        }
+        return sb.toString();
+    }
+
+    private static String outputDir(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("-d") || args[i].equals("-output-dir")) {
+                return args[i + 1];
+            }
+        }
+        return "sootOutput";
     }
 }
@@ -9,7 +9,9 @@ import soot.util.Chain;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 /**
  * Copyright (c) 2007-2008,
@@ -53,6 +55,10 @@ public class Visitor {
     static public Stmt thisStmt;
     static private ArrayList<String> iidToLineMap = new ArrayList<String>(10000);
     static public SootClass thisClass;
+    // iids of each class, tracked only when continuing a previous run
+    static private HashMap<String, ArrayList<Integer>> classIids;
+    static private HashMap<String, ArrayList<Integer>> previousClassIids;
+    static private HashMap<String, LinkedList<Integer>> reusableIids;
 
     public int getCounter() {
         return counter;
@@ -81,14 +87,84 @@ public class Visitor {
     }
 
     public static int getAndIncCounter() {
-        iidToLineMap.add(getFileName(thisClass) + ".html#" + getLineNum(thisStmt));
-        return counter++;
+        String line = getFileName(thisClass) + ".html#" + getLineNum(thisStmt);
+        if (classIids == null) {
+            iidToLineMap.add(line);
+            return counter++;
+        }
+        String cName = thisClass.getName();
+        ArrayList<Integer> iids = classIids.get(cName);
+        if (iids == null) {
+            // first iid of the class in this run: reuse those of its previous run
+            iids = new ArrayList<Integer>();
+            classIids.put(cName, iids);
+            ArrayList<Integer> previous = previousClassIids.remove(cName);
+            if (previous != null) {
+                reusableIids.put(cName, new LinkedList<Integer>(previous));
+            }
+        }
+        LinkedList<Integer> reusable = reusableIids.get(cName);
+        int iid;
+        if (reusable != null && !reusable.isEmpty()) {
+            iid = reusable.removeFirst();
+            iidToLineMap.set(iid, line);
+        } else {
+            iid = counter++;
+            iidToLineMap.add(line);
+        }
+        iids.add(iid);
+        return iid;
     }
 
     public static void setObserverClass(String s) {
         observerClass = s;
     }
 
+    public static int getIidCount() {
+        return counter;
+    }
+
+    public static ArrayList<String> getIidToLineMap() {
+        return iidToLineMap;
+    }
+
+    public static SymbolTables getSymbolTables() {
+        return st;
+    }
+
+    /**
+     * Continues the iid allocation of a previous run, so that the iids of
+     * classes that are not instrumented again stay valid.  A class that is
+     * instrumented again reuses the iids of its previous run before new ones
+     * are allocated, so the counter only grows when a class needs more iids.
+     */
+    public static void restoreIids(int count, ArrayList<String> iidToLine,
+                                   HashMap<String, ArrayList<Integer>> previous) {
+        counter = count;
+        iidToLineMap = iidToLine;
+        classIids = new HashMap<String, ArrayList<Integer>>();
+        previousClassIids = new HashMap<String, ArrayList<Integer>>(previous);
+        reusableIids = new HashMap<String, LinkedList<Integer>>();
+    }
+
+    /**
+     * Returns the iids reserved for each class: those allocated in this run
+     * together with the unused iids of their previous run, and those of the
+     * classes that were not instrumented again.
+     */
+    public static HashMap<String, ArrayList<Integer>> getClassIids() {
+        HashMap<String, ArrayList<Integer>> all = new HashMap<String, ArrayList<Integer>>(previousClassIids);
+        for (Map.Entry<String, ArrayList<Integer>> e : classIids.entrySet()) {
+            ArrayList<Integer> iids = new ArrayList<Integer>(e.getValue());
+            LinkedList<Integer> unused = reusableIids.get(e.getKey());
+            if (unused != null) {
+                iids.addAll(unused);
+            }
+            all.put(e.getKey(), iids);
+        }
+        return all;
+    }
+
     public static void dumpIidToLine() {
         ObjectOutputStream out = null;
         PrintStream out2 = null;
@@ -22,45 +22,80 @@ import jcolibri.exception.InitializingException;
  * learn() and forget() are not synchronized with the persistence until close() is invoked.
  * <p>
  * This class presents better performance that LinelCaseBase as only access to the persistence once. This case base is used for evaluation.
+ * <p>
+ * Learnt and forgotten cases are recorded by their IDs in a ChangeJournal, so close() only sends the changes
+ * to the connector. checkpoint() sends them before closing, and setCheckpointInterval() makes the case base
+ * do it every given number of changes.
  * 
  * @author Juan A. Recio-Garca
  * @see jcolibri.casebase.LinealCaseBase
+ * @see jcolibri.casebase.ChangeJournal
  */
 public class CachedLinealCaseBase implements CBRCaseBase {
 
 	private jcolibri.cbrcore.Connector connector;
-	private java.util.Collection originalCases;
-	private java.util.Collection workingCases;
+	private java.util.ArrayList workingCases;
+	private ChangeJournal journal;
+	private int checkpointInterval = 0;
 	
 	/**
 	 * Closes the case base saving or deleting the cases of the persistence media
 	 */
 	public void close() {
-		java.util.ArrayList casestoRemove = new java.util.ArrayList(originalCases);
-		casestoRemove.removeAll(workingCases);
-		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Deleting "+casestoRemove.size()+" cases from storage media");
-		connector.deleteCases(casestoRemove);
-		
-		java.util.ArrayList casestoStore = new java.util.ArrayList(workingCases);
-		casestoStore.removeAll(originalCases);
-		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Storing "+casestoStore.size()+" cases into storage media");
-		
-		connector.storeCases(casestoStore);
+		journal.flush(connector);
 		
 		connector.close();
 
 	}
 
+	/**
+	 * Saves or deletes the cases learnt or forgotten since the last checkpoint in the persistence media.
+	 */
+	public void checkpoint() {
+		journal.flush(connector);
+	}
+
+	/**
+	 * Makes learnCases() and forgetCases() call checkpoint() when there are at least the given number of
+	 * pending changes. 0, the default, only persists the changes when closing.
+	 */
+	public void setCheckpointInterval(int changes) {
+		this.checkpointInterval = changes;
+	}
+
+	/**
+	 * Returns the changes that are not in the persistence media yet.
+	 */
+	public ChangeJournal getJournal() {
+		return journal;
+	}
+
+	private void checkpointIfNeeded() {
+		if(checkpointInterval > 0 && journal.size() >= checkpointInterval)
+			checkpoint();
+	}
+
 	/**
 	 * Forgets cases. It only removes the cases from the storage media when closing.
 	 */
 	public void forgetCases(Collection cases) {
-		workingCases.removeAll(cases);
+		java.util.HashSet forgotten = new java.util.HashSet(cases);
+		int to = 0;
+		for(int from=0; from<workingCases.size(); from++)
+		{
+			Object o = workingCases.get(from);
+			if(forgotten.contains(o))
+				journal.forget((CBRCase)o);
+			else
+				workingCases.set(to++, o);
+		}
+		workingCases.subList(to, workingCases.size()).clear();
+		checkpointIfNeeded();
 
 	}
 
 	/**
-	 * Returns working cases.
+	 * Returns working cases. Changes must be done with learnCases() and forgetCases() to be persisted.
 	 */
 	public Collection getCases() {
 		return workingCases;
@@ -79,8 +114,9 @@ public class CachedLinealCaseBase implements CBRCaseBase {
 	 */
 	public void init(Connector connector) throws InitializingException {
 		this.connector = connector;
-		originalCases = this.connector.retrieveAllCases();	
+		java.util.Collection originalCases = this.connector.retrieveAllCases();	
 		workingCases = new java.util.ArrayList(originalCases);
+		journal = new ChangeJournal(originalCases);
 	}
 
 	/**
@@ -88,6 +124,9 @@ public class CachedLinealCaseBase implements CBRCaseBase {
 	 */
 	public void learnCases(Collection cases) {
 		workingCases.addAll(cases);
+		for(Object o: cases)
+			journal.learn((CBRCase)o);
+		checkpointIfNeeded();
 
 	}
 
@@ -0,0 +1,188 @@
+/**
+ * CaseBaseView.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.casebase;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CBRCaseBase;
+import jcolibri.cbrcore.CaseBaseFilter;
+import jcolibri.cbrcore.Connector;
+
+/**
+ * Copy-on-write view of a collection of cases.
+ * <p>
+ * The view shares the collection of cases without copying it, and records its own learnt and
+ * forgotten cases (compared by identity), so creating and changing a view costs nothing
+ * for the other views of the same cases. The shared collection must not change while it is used.
+ * The view does not use any persistence media: init() and close() do nothing.
+ * <p>
+ * It is used by the evaluators to give each thread its own case base.
+ * @version 1.0
+ * @see jcolibri.evaluation.ParallelEvaluation
+ */
+public class CaseBaseView implements CBRCaseBase {
+
+	/** Shared cases. */
+	private Collection<CBRCase> cases;
+
+	/** Shared cases forgotten by this view. */
+	private IdentityHashMap<CBRCase, Boolean> forgotten = new IdentityHashMap<CBRCase, Boolean>();
+
+	/** Cases learnt by this view. */
+	private ArrayList<CBRCase> learnt = new ArrayList<CBRCase>();
+
+	/**
+	 * Creates a view of the given cases.
+	 */
+	public CaseBaseView(Collection cases)
+	{
+		reset(cases);
+	}
+
+	/**
+	 * Shares the given cases, discarding the changes of the view.
+	 */
+	public void reset(Collection cases)
+	{
+		this.cases = cases;
+		forgotten.clear();
+		learnt.clear();
+	}
+
+	/**
+	 * Does nothing. The view uses the cases given in the constructor.
+	 */
+	public void init(Connector connector)
+	{
+	}
+
+	/**
+	 * Does nothing. The changes of the view are never stored.
+	 */
+	public void close()
+	{
+	}
+
+	/**
+	 * Returns the shared cases that are not forgotten and the learnt ones.
+	 * The returned collection reflects the later changes of the view.
+	 */
+	public Collection getCases()
+	{
+		return new AbstractCollection<CBRCase>()
+		{
+			public Iterator<CBRCase> iterator()
+			{
+				return new ViewIterator();
+			}
+
+			public int size()
+			{
+				if(forgotten.isEmpty())
+					return cases.size() + learnt.size();
+				int size = learnt.size();
+				for(CBRCase _case: cases)
+					if(!forgotten.containsKey(_case))
+						size++;
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Returns getCases(): CaseBaseFilter does not define any condition yet,
+	 * so a filter selects every case, as in the connectors.
+	 */
+	public Collection getCases(CaseBaseFilter filter)
+	{
+		return getCases();
+	}
+
+	/**
+	 * Adds the cases to the view.
+	 */
+	public void learnCases(Collection cases)
+	{
+		for(Object o: cases)
+		{
+			CBRCase _case = (CBRCase)o;
+			if(forgotten.remove(_case) == null)
+				learnt.add(_case);
+		}
+	}
+
+	/**
+	 * Removes the cases from the view.
+	 */
+	public void forgetCases(Collection cases)
+	{
+		for(Object o: cases)
+		{
+			CBRCase _case = (CBRCase)o;
+			if(!removeLearnt(_case))
+				forgotten.put(_case, Boolean.TRUE);
+		}
+	}
+
+	private boolean removeLearnt(CBRCase _case)
+	{
+		for(int i=learnt.size()-1; i>=0; i--)
+			if(learnt.get(i) == _case)
+			{
+				learnt.remove(i);
+				return true;
+			}
+		return false;
+	}
+
+	/**
+	 * Iterates over the shared cases that are not forgotten and then over the learnt ones.
+	 */
+	private class ViewIterator implements Iterator<CBRCase>
+	{
+		private Iterator<CBRCase> shared = cases.iterator();
+		private Iterator<CBRCase> own = learnt.iterator();
+		private CBRCase next = advance();
+
+		private CBRCase advance()
+		{
+			while(shared.hasNext())
+			{
+				CBRCase _case = shared.next();
+				if(!forgotten.containsKey(_case))
+					return _case;
+			}
+			return own.hasNext() ? own.next() : null;
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public CBRCase next()
+		{
+			if(next == null)
+				throw new NoSuchElementException();
+			CBRCase res = next;
+			next = advance();
+			return res;
+		}
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * ChangeJournal.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.casebase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.Connector;
+
+/**
+ * Changes of a cached case base that are not yet in the persistence media.
+ * <p>
+ * Cases are identified by their ID. The journal keeps the cases learnt and the stored cases
+ * forgotten since the last flush, so learning and forgetting cost constant time and a flush
+ * only sends the changes to the connector. A case learnt and forgotten before a flush is
+ * never stored, and a stored case forgotten and learnt again is neither removed nor stored.
+ * A learnt case replaces the pending learnt case with the same ID.
+ * @version 1.0
+ * @see jcolibri.casebase.CachedLinealCaseBase
+ */
+public class ChangeJournal {
+
+	/** Number of cases sent to the connector in each call. */
+	public static final int BATCH_SIZE = 1000;
+
+	/** Cases in the persistence media by ID. */
+	private HashMap<Object, CBRCase> stored;
+
+	/** Cases to store by ID, in the order they were learnt. */
+	private LinkedHashMap<Object, CBRCase> learnt;
+
+	/** Stored cases to remove by ID, in the order they were forgotten. */
+	private LinkedHashMap<Object, CBRCase> forgotten;
+
+	/**
+	 * Creates an empty journal for the cases read from the persistence media.
+	 */
+	public ChangeJournal(Collection storedCases)
+	{
+		stored = new HashMap<Object, CBRCase>(Math.max(16, storedCases.size() * 4 / 3 + 1));
+		for(Object o: storedCases)
+		{
+			CBRCase _case = (CBRCase)o;
+			stored.put(_case.getID(), _case);
+		}
+		learnt = new LinkedHashMap<Object, CBRCase>();
+		forgotten = new LinkedHashMap<Object, CBRCase>();
+	}
+
+	/**
+	 * Records a learnt case.
+	 */
+	public void learn(CBRCase _case)
+	{
+		Object id = _case.getID();
+		if(forgotten.get(id) == _case)
+			forgotten.remove(id);
+		else if(stored.get(id) != _case || forgotten.containsKey(id))
+			learnt.put(id, _case);
+	}
+
+	/**
+	 * Records a forgotten case.
+	 */
+	public void forget(CBRCase _case)
+	{
+		Object id = _case.getID();
+		if(learnt.get(id) == _case)
+			learnt.remove(id);
+		else if(stored.get(id) == _case)
+			forgotten.put(id, _case);
+	}
+
+	/**
+	 * Returns the number of pending changes.
+	 */
+	public int size()
+	{
+		return learnt.size() + forgotten.size();
+	}
+
+	/**
+	 * Returns the learnt cases that are not stored yet.
+	 */
+	public Collection<CBRCase> getLearntCases()
+	{
+		return java.util.Collections.unmodifiableCollection(learnt.values());
+	}
+
+	/**
+	 * Returns the forgotten cases that are not removed yet.
+	 */
+	public Collection<CBRCase> getForgottenCases()
+	{
+		return java.util.Collections.unmodifiableCollection(forgotten.values());
+	}
+
+	/**
+	 * Removes the forgotten cases and stores the learnt ones using the connector,
+	 * in batches of BATCH_SIZE cases, and empties the journal.
+	 */
+	public void flush(Connector connector)
+	{
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Deleting "+forgotten.size()+" cases from storage media");
+		for(List<CBRCase> batch: batches(forgotten.values()))
+		{
+			connector.deleteCases(batch);
+			for(CBRCase _case: batch)
+				stored.remove(_case.getID());
+		}
+		forgotten.clear();
+
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Storing "+learnt.size()+" cases into storage media");
+		for(List<CBRCase> batch: batches(learnt.values()))
+		{
+			connector.storeCases(batch);
+			for(CBRCase _case: batch)
+				stored.put(_case.getID(), _case);
+		}
+		learnt.clear();
+	}
+
+	private static List<List<CBRCase>> batches(Collection<CBRCase> cases)
+	{
+		List<List<CBRCase>> res = new ArrayList<List<CBRCase>>();
+		Iterator<CBRCase> iter = cases.iterator();
+		while(iter.hasNext())
+		{
+			List<CBRCase> batch = new ArrayList<CBRCase>(Math.min(BATCH_SIZE, cases.size()));
+			while(iter.hasNext() && batch.size() < BATCH_SIZE)
+				batch.add(iter.next());
+			res.add(batch);
+		}
+		return res;
+	}
+}
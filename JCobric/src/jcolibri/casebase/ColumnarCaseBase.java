@@ -0,0 +1,489 @@
+/**
+ * ColumnarCaseBase.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.casebase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import jcolibri.cbrcore.Attribute;
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CBRCaseBase;
+import jcolibri.cbrcore.CBRQuery;
+import jcolibri.cbrcore.CaseBaseFilter;
+import jcolibri.cbrcore.CaseComponent;
+import jcolibri.cbrcore.Connector;
+import jcolibri.exception.AttributeAccessException;
+import jcolibri.exception.InitializingException;
+import jcolibri.method.retrieve.RetrievalResult;
+import jcolibri.method.retrieve.NNretrieval.NNConfig;
+import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
+import jcolibri.method.retrieve.NNretrieval.TopKResults;
+import jcolibri.method.retrieve.NNretrieval.similarity.InContextLocalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.LocalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.global.Average;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Equal;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Interval;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Threshold;
+import jcolibri.util.AttributeUtils;
+
+/**
+ * Case base that keeps the cases in memory like CachedLinealCaseBase, and also copies the simple attributes
+ * of their descriptions into columns:
+ * <ul>
+ * <li>Numeric attributes (double, float, int, short, byte and their wrappers) into a double[].
+ * <li>Enums, Strings, Booleans, Characters and Longs into an int[] of codes of a dictionary of their different values.
+ * </ul>
+ * evaluateSimilarity() uses the columns to score every case when the description similarity function is Average:
+ * Interval, Threshold and Equal are computed with a loop over the numeric columns, and any local similarity function
+ * on a dictionary column is computed once for each different value. Other attributes are read from the cases.
+ * The results are the same as the ones of NNScoringMethod.evaluateSimilarity(getCases(), query, simConfig).
+ * Configurations that cannot use the columns (global similarity functions for compound attributes,
+ * InContextLocalSimilarityFunctions, functions that fail for some value...) are scored by NNScoringMethod.
+ * <p>
+ * The columns are updated by learnCases() and forgetCases(), so the returned collection of cases cannot be modified.
+ * Like CachedLinealCaseBase, learnt and forgotten cases are recorded in a ChangeJournal and only stored/removed
+ * in the persistence media when closing or in a checkpoint().
+ *
+ * @version 1.0
+ * @see jcolibri.casebase.CachedLinealCaseBase
+ * @see jcolibri.method.retrieve.NNretrieval.NNScoringMethod
+ */
+public class ColumnarCaseBase implements CBRCaseBase {
+
+	private jcolibri.cbrcore.Connector connector;
+	private ArrayList<CBRCase> workingCases;
+	private ChangeJournal journal;
+
+	/** Class of the descriptions of every case, or null if the cases cannot be stored in columns. */
+	private Class descriptionClass;
+	/** Attributes of the description class. */
+	private Attribute[] attributes;
+	/** Column of each attribute, or null if the attribute is not stored in a column. */
+	private Column[] columns;
+	private int capacity;
+
+	/**
+	 * Values of an attribute for every case, in the same order as the cases.
+	 */
+	private static abstract class Column
+	{
+		/** Stores the value of a case. */
+		abstract void set(int row, Object value);
+
+		/** Copies the value of a case into another row. */
+		abstract void move(int from, int to);
+
+		/** Makes room for the given number of cases. */
+		abstract void grow(int capacity);
+
+		/**
+		 * Adds weight * lsf.compute(value, queryValue) to acc for the first rows cases.
+		 * Returns false, leaving acc unchanged, if the function cannot be computed with this column.
+		 */
+		abstract boolean accumulate(LocalSimilarityFunction lsf, Object queryValue, double weight, double[] acc, int rows);
+	}
+
+	/**
+	 * Column of numbers. Missing values are marked apart, so that every double can be stored.
+	 */
+	private static class NumericColumn extends Column
+	{
+		/** Wrapper class of the values. */
+		Class type;
+		double[] values = new double[0];
+		boolean[] missing = new boolean[0];
+
+		NumericColumn(Class type)
+		{
+			this.type = type;
+		}
+
+		void set(int row, Object value)
+		{
+			missing[row] = (value == null);
+			values[row] = (value == null) ? 0 : ((Number)value).doubleValue();
+		}
+
+		void move(int from, int to)
+		{
+			values[to] = values[from];
+			missing[to] = missing[from];
+		}
+
+		void grow(int capacity)
+		{
+			double[] v = new double[capacity];
+			System.arraycopy(values, 0, v, 0, values.length);
+			values = v;
+			boolean[] m = new boolean[capacity];
+			System.arraycopy(missing, 0, m, 0, missing.length);
+			missing = m;
+		}
+
+		boolean accumulate(LocalSimilarityFunction lsf, Object queryValue, double weight, double[] acc, int rows)
+		{
+			Class c = lsf.getClass();
+			if(queryValue == null && (c == Interval.class || c == Threshold.class || c == Equal.class))
+				return true; // every similarity is 0
+			if(c == Interval.class && queryValue instanceof Number)
+			{
+				double q = ((Number)queryValue).doubleValue();
+				double interval = ((Interval)lsf).getInterval();
+				for(int i=0; i<rows; i++)
+					if(!missing[i])
+						acc[i] += (1 - (Math.abs(values[i] - q) / interval)) * weight;
+				return true;
+			}
+			if(c == Threshold.class && type == Integer.class && queryValue instanceof Integer)
+			{
+				Threshold threshold = (Threshold)lsf;
+				int q = ((Integer)queryValue).intValue();
+				for(int i=0; i<rows; i++)
+					if(!missing[i])
+						acc[i] += threshold.compare((int)values[i], q) * weight;
+				return true;
+			}
+			if(c == Equal.class)
+			{
+				// Number.equals() is only true for the same wrapper class and the same bits
+				if(queryValue.getClass() != type)
+					return true;
+				long q = Double.doubleToLongBits(((Number)queryValue).doubleValue());
+				for(int i=0; i<rows; i++)
+					if(!missing[i] && Double.doubleToLongBits(values[i]) == q)
+						acc[i] += 1 * weight;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Column of codes of a dictionary of values. Code 0 is the missing value.
+	 */
+	private static class DictionaryColumn extends Column
+	{
+		int[] codes = new int[0];
+		ArrayList<Object> dictionary = new ArrayList<Object>();
+		HashMap<Object, Integer> codeOf = new HashMap<Object, Integer>();
+
+		DictionaryColumn()
+		{
+			dictionary.add(null);
+		}
+
+		void set(int row, Object value)
+		{
+			if(value == null)
+			{
+				codes[row] = 0;
+				return;
+			}
+			Integer code = codeOf.get(value);
+			if(code == null)
+			{
+				code = dictionary.size();
+				dictionary.add(value);
+				codeOf.put(value, code);
+			}
+			codes[row] = code;
+		}
+
+		void move(int from, int to)
+		{
+			codes[to] = codes[from];
+		}
+
+		void grow(int capacity)
+		{
+			int[] c = new int[capacity];
+			System.arraycopy(codes, 0, c, 0, codes.length);
+			codes = c;
+		}
+
+		boolean accumulate(LocalSimilarityFunction lsf, Object queryValue, double weight, double[] acc, int rows)
+		{
+			double[] sim = new double[dictionary.size()];
+			try
+			{
+				for(int c=0; c<sim.length; c++)
+					sim[c] = lsf.compute(dictionary.get(c), queryValue);
+			} catch (Exception e)
+			{
+				return false;
+			}
+			for(int i=0; i<rows; i++)
+				acc[i] += sim[codes[i]] * weight;
+			return true;
+		}
+	}
+
+	/**
+	 * Closes the case base saving or deleting the cases of the persistence media
+	 */
+	public void close() {
+		journal.flush(connector);
+		connector.close();
+	}
+
+	/**
+	 * Saves or deletes the cases learnt or forgotten since the last checkpoint in the persistence media.
+	 */
+	public void checkpoint() {
+		journal.flush(connector);
+	}
+
+	/**
+	 * Forgets cases and removes them from the columns. It only removes the cases from the storage media when closing.
+	 */
+	public void forgetCases(Collection cases) {
+		HashSet forgotten = new HashSet(cases);
+		int to = 0;
+		for(int from=0; from<workingCases.size(); from++)
+		{
+			CBRCase _case = workingCases.get(from);
+			if(forgotten.contains(_case))
+			{
+				journal.forget(_case);
+				continue;
+			}
+			workingCases.set(to, _case);
+			if(descriptionClass != null)
+				for(Column column: columns)
+					if(column != null)
+						column.move(from, to);
+			to++;
+		}
+		workingCases.subList(to, workingCases.size()).clear();
+	}
+
+	/**
+	 * Returns working cases. The collection cannot be modified: use learnCases() and forgetCases().
+	 */
+	public Collection getCases() {
+		return Collections.unmodifiableList(workingCases);
+	}
+
+	/**
+	 * Returns the working cases: CaseBaseFilter does not define any condition yet,
+	 * so a filter selects every case, as in the connectors.
+	 */
+	public Collection getCases(CaseBaseFilter filter) {
+		return getCases();
+	}
+
+	/**
+	 * Initializes the Case Base with the cases read from the given connector and builds the columns.
+	 */
+	public void init(Connector connector) throws InitializingException {
+		this.connector = connector;
+		java.util.Collection originalCases = this.connector.retrieveAllCases();
+		journal = new ChangeJournal(originalCases);
+		workingCases = new ArrayList<CBRCase>();
+		descriptionClass = null;
+		columns = null;
+		capacity = 0;
+		learn(originalCases);
+	}
+
+	/**
+	 * Learns cases and adds them to the columns. They are only saved when closing the Case Base.
+	 */
+	public void learnCases(Collection cases) {
+		for(Object o: cases)
+			journal.learn((CBRCase)o);
+		learn(cases);
+	}
+
+	private void learn(Collection cases)
+	{
+		int first = workingCases.size();
+		for(Object o: cases)
+			workingCases.add((CBRCase)o);
+		if(first == 0)
+			createColumns();
+		else if(descriptionClass != null)
+			addToColumns(first);
+	}
+
+	/**
+	 * Creates the columns for the description class of the cases, if every case has a description of the same class.
+	 */
+	private void createColumns()
+	{
+		descriptionClass = null;
+		columns = null;
+		capacity = 0;
+		if(workingCases.isEmpty() || workingCases.get(0).getDescription() == null)
+			return;
+		descriptionClass = workingCases.get(0).getDescription().getClass();
+		attributes = AttributeUtils.getAttributes(descriptionClass);
+		columns = new Column[attributes.length];
+		for(int a=0; a<attributes.length; a++)
+			columns[a] = createColumn(attributes[a].getType());
+		addToColumns(0);
+	}
+
+	private static Column createColumn(Class type)
+	{
+		if(type.isPrimitive())
+		{
+			if(type == double.class) return new NumericColumn(Double.class);
+			if(type == float.class) return new NumericColumn(Float.class);
+			if(type == int.class) return new NumericColumn(Integer.class);
+			if(type == short.class) return new NumericColumn(Short.class);
+			if(type == byte.class) return new NumericColumn(Byte.class);
+			return new DictionaryColumn();
+		}
+		if(type == Double.class || type == Float.class || type == Integer.class || type == Short.class || type == Byte.class)
+			return new NumericColumn(type);
+		if(type.isEnum() || type == String.class || type == Boolean.class || type == Character.class || type == Long.class)
+			return new DictionaryColumn();
+		return null;
+	}
+
+	/**
+	 * Copies the attributes of the cases from the given position into the columns.
+	 * The columns are dropped if some description cannot be stored.
+	 */
+	private void addToColumns(int first)
+	{
+		int rows = workingCases.size();
+		if(rows > capacity)
+		{
+			capacity = Math.max(rows, capacity * 2);
+			for(Column column: columns)
+				if(column != null)
+					column.grow(capacity);
+		}
+		for(int row=first; row<rows; row++)
+		{
+			CaseComponent description = workingCases.get(row).getDescription();
+			if(description == null || description.getClass() != descriptionClass)
+			{
+				org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Cases with different descriptions: columns disabled");
+				descriptionClass = null;
+				columns = null;
+				return;
+			}
+			for(int a=0; a<attributes.length; a++)
+			{
+				if(columns[a] == null)
+					continue;
+				try
+				{
+					columns[a].set(row, attributes[a].getValue(description));
+				} catch (AttributeAccessException e)
+				{
+					org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+					columns[a] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Performs the NN scoring of every case of the case base, most similar first.
+	 * The result is the same as NNScoringMethod.evaluateSimilarity(getCases(), query, simConfig).
+	 */
+	public Collection<RetrievalResult> evaluateSimilarity(CBRQuery query, NNConfig simConfig)
+	{
+		double[] evals = score(query, simConfig);
+		if(evals == null)
+			return NNScoringMethod.evaluateSimilarity(workingCases, query, simConfig);
+		List<RetrievalResult> res = new ArrayList<RetrievalResult>(evals.length);
+		for(int i=0; i<evals.length; i++)
+			res.add(new RetrievalResult(workingCases.get(i), evals[i]));
+		java.util.Collections.sort(res);
+		return res;
+	}
+
+	/**
+	 * Performs the NN scoring and returns only the k most similar cases of the case base, most similar first.
+	 * The result is the same as NNScoringMethod.evaluateSimilarity(getCases(), query, simConfig, k).
+	 */
+	public Collection<RetrievalResult> evaluateSimilarity(CBRQuery query, NNConfig simConfig, int k)
+	{
+		if(k >= workingCases.size())
+			return evaluateSimilarity(query, simConfig);
+		double[] evals = score(query, simConfig);
+		if(evals == null)
+			return NNScoringMethod.evaluateSimilarity(workingCases, query, simConfig, k);
+		if(k <= 0)
+			return new ArrayList<RetrievalResult>();
+		TopKResults top = new TopKResults(k);
+		for(int i=0; i<evals.length; i++)
+			top.offer(workingCases.get(i), evals[i], i);
+		return top.toList();
+	}
+
+	/**
+	 * Computes the Average similarity of every case with the columns, or returns null if they cannot be used.
+	 */
+	private double[] score(CBRQuery query, NNConfig simConfig)
+	{
+		CaseComponent queryDescription = query.getDescription();
+		if(descriptionClass == null || queryDescription == null || simConfig.getDescriptionSimFunction() == null
+				|| simConfig.getDescriptionSimFunction().getClass() != Average.class)
+			return null;
+		int rows = workingCases.size();
+		double[] acc = new double[rows];
+		double weights = 0;
+		for(int a=0; a<attributes.length; a++)
+		{
+			Attribute at = attributes[a];
+			if(simConfig.getGlobalSimilFunction(at) != null)
+				return null;
+			LocalSimilarityFunction lsf = simConfig.getLocalSimilFunction(at);
+			if(lsf == null)
+				continue;
+			if(lsf instanceof InContextLocalSimilarityFunction)
+				return null;
+			double weight = simConfig.getWeight(at);
+			Object queryValue;
+			try
+			{
+				queryValue = new Attribute(at.getName(), queryDescription.getClass()).getValue(queryDescription);
+			} catch (Exception e)
+			{
+				return null;
+			}
+			boolean done = (columns[a] != null) && columns[a].accumulate(lsf, queryValue, weight, acc, rows);
+			if(!done && !accumulateFromCases(at, lsf, queryValue, weight, acc))
+				return null;
+			weights += weight;
+		}
+		for(int i=0; i<rows; i++)
+			acc[i] = acc[i] / weights;
+		return acc;
+	}
+
+	/**
+	 * Adds weight * lsf.compute(value, queryValue) to acc reading the values from the cases.
+	 * Returns false if some value cannot be compared.
+	 */
+	private boolean accumulateFromCases(Attribute at, LocalSimilarityFunction lsf, Object queryValue, double weight, double[] acc)
+	{
+		double[] sim = new double[acc.length];
+		try
+		{
+			for(int i=0; i<acc.length; i++)
+				sim[i] = lsf.compute(at.getValue(workingCases.get(i).getDescription()), queryValue);
+		} catch (Exception e)
+		{
+			return false;
+		}
+		for(int i=0; i<acc.length; i++)
+			acc[i] += sim[i] * weight;
+		return true;
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * ConcurrentCBRApplication.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.cbraplications;
+
+
+import jcolibri.cbrcore.CBRCaseBase;
+import jcolibri.exception.ExecutionException;
+
+
+/**
+ * Standard CBR application that can run several cycles at the same time
+ * over different case bases.
+ * <p>
+ * The evaluators use it to run the cycles of an evaluation concurrently:
+ * each thread runs the cycles of a copy of the configured application
+ * over its own view of the case base returned by preCycle().
+ * The copies store their results in Evaluator.getEvaluationReport(), as usual.
+ *
+ * @see jcolibri.evaluation.ParallelEvaluation
+ */
+public interface ConcurrentCBRApplication extends StandardCBRApplication
+{
+	/**
+	 * Returns a copy of this configured application that runs its cycles over the given case base.
+	 * The cycles of the copy can run concurrently with the cycles of other copies.
+	 * The copy is discarded after running its cycles: its preCycle() and postCycle() are not called.
+	 * @throws ExecutionException
+	 */
+    public StandardCBRApplication copyFor(CBRCaseBase caseBase) throws ExecutionException;
+}
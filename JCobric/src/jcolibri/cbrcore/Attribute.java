@@ -8,20 +8,44 @@
  */
 package jcolibri.cbrcore;
 
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jcolibri.exception.AttributeAccessException;
 
 /**
  * This class identifies an attribute of a CaseComponent (Java Bean). Attributes are part of CaseComponents and CaseComponentes build a case. 
  * Note that each CaseComponent must be a Java Bean, so this class represents a field of a Java Bean (with its getXXX() and setXXX() methods).
+ * <p>
+ * The way to access each field (directly or through its get/set methods) is found only once and shared 
+ * by every Attribute of that field, as Attributes are created and read very often during retrieval.
  * 
  * @see jcolibri.cbrcore.CaseComponent
  * @author Juan A. Recio-Garca
  */
 public class Attribute {
 
+	/** Accessors of the fields already used, shared by every Attribute of the same field. */
+	private static final ConcurrentHashMap<Field, Accessor> accessors = new ConcurrentHashMap<Field, Accessor>();
+
+	/**
+	 * How the value of a field is read and written: directly if the field is accessible from here,
+	 * or through the get/set methods of the Java Bean otherwise.
+	 */
+	private static class Accessor
+	{
+		boolean directRead;
+		boolean directWrite;
+		Method readMethod;
+		Method writeMethod;
+	}
+
 	private Field field;
+	private Accessor accessor;
 	
 	/**
 	 * Creates an Attribute using the Field obtained with Reflection (getClass.getDeclaredField(name)). It is recommended to use the other constructor.
@@ -76,23 +100,43 @@ public class Attribute {
 	 */
 	public Object getValue(Object obj) throws AttributeAccessException
 	{
-		Object res = null;
-		try{
-			res = field.get(obj);
-			return res;
-		}catch(Exception e)
-		{}
-
+		Accessor a = getAccessor();
 		try{
-			java.beans.PropertyDescriptor pd = new java.beans.PropertyDescriptor(field.getName(),field.getDeclaringClass());
-			res = pd.getReadMethod().invoke(obj, (Object[])null);
-			return res;
+			if(a.directRead)
+				return field.get(obj);
+			if(a.readMethod != null)
+				return a.readMethod.invoke(obj, (Object[])null);
 		}catch(Exception e)
 		{}
 		throw new AttributeAccessException("Error getting value from object: "+obj+", attribute: "+field.getName());
 
 	}
 	
+	/**
+	 * Returns the value of a numeric attribute for a concrete object as a double. 
+	 * Fields of primitive types that can be accessed directly are read without creating a wrapper object.
+	 * @param obj Instance to obtain the attribute from
+	 * @throws AttributeAccessException if the value cannot be read or is not a Number.
+	 */
+	public double getDoubleValue(Object obj) throws AttributeAccessException
+	{
+		Accessor a = getAccessor();
+		Class type = field.getType();
+		if(a.directRead && type.isPrimitive() && (type != boolean.class))
+		{
+			try{
+				return field.getDouble(obj);
+			}catch(Exception e)
+			{
+				throw new AttributeAccessException("Error getting value from object: "+obj+", attribute: "+field.getName());
+			}
+		}
+		Object res = getValue(obj);
+		if(!(res instanceof Number))
+			throw new AttributeAccessException("Not a numeric value in object: "+obj+", attribute: "+field.getName());
+		return ((Number)res).doubleValue();
+	}
+	
 	/**
 	 * Sets the value of the attribute in a concrete object.
 	 * @param obj Object that defines the attribute to set.
@@ -101,20 +145,63 @@ public class Attribute {
 	 */
 	public void setValue(Object obj, Object value) throws AttributeAccessException
 	{
+		Accessor a = getAccessor();
 		try{
-			field.set(obj, value);
+			if(a.directWrite)
+			{
+				field.set(obj, value);
+				return;
+			}
+			if(a.writeMethod != null)
+			{
+				Object[] args = {value};
+				a.writeMethod.invoke(obj, args);
+				return;
+			}
 		}catch(Exception e)
 		{}
+		throw new AttributeAccessException("Error setting value from object: "+obj+", attribute: "+field.getName());
 
-		try{
-			java.beans.PropertyDescriptor pd = new java.beans.PropertyDescriptor(field.getName(),field.getDeclaringClass());
-			Object[] args = {value};
-			pd.getWriteMethod().invoke(obj, args);
-		}catch(Exception e)
+	}
+	
+	/**
+	 * Returns the accessor of the field, finding it the first time the field is used.
+	 */
+	private Accessor getAccessor()
+	{
+		Accessor a = accessor;
+		if(a == null)
 		{
-			throw new AttributeAccessException("Error setting value from object: "+obj+", attribute: "+field.getName());
+			a = accessors.get(field);
+			if(a == null)
+			{
+				a = findAccessor(field);
+				Accessor previous = accessors.putIfAbsent(field, a);
+				if(previous != null)
+					a = previous;
+			}
+			accessor = a;
 		}
-
+		return a;
+	}
+	
+	private static Accessor findAccessor(Field field)
+	{
+		Accessor a = new Accessor();
+		int modifiers = field.getModifiers();
+		Class c = field.getDeclaringClass();
+		a.directRead = (Modifier.isPublic(modifiers) && Modifier.isPublic(c.getModifiers()))
+			|| (!Modifier.isPrivate(modifiers) && (c.getPackage() == Attribute.class.getPackage()));
+		a.directWrite = a.directRead && !Modifier.isFinal(modifiers);
+		if(a.directRead && a.directWrite)
+			return a;
+		try{
+			PropertyDescriptor pd = new PropertyDescriptor(field.getName(), c);
+			a.readMethod = pd.getReadMethod();
+			a.writeMethod = pd.getWriteMethod();
+		}catch(IntrospectionException e)
+		{}
+		return a;
 	}
 	
 	/**
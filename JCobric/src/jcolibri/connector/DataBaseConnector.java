@@ -18,6 +18,9 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 
 import jcolibri.cbrcore.*;
+import jcolibri.connector.databaseutils.QueryFilter;
+import jcolibri.connector.plaintextutils.PlainTextTypeConverter;
+import jcolibri.exception.AttributeAccessException;
 import jcolibri.exception.InitializingException;
 import jcolibri.util.FileIO;
 
@@ -28,6 +31,22 @@ import jcolibri.util.FileIO;
  * <a href="DataBaseConnector.xsd">/doc/configfilesSchemas/DataBaseConnector.xsd</a>:
  * <p>
  * <img src="DataBaseConnectorSchema.jpg">
+ * <p>
+ * Two optional elements of the configuration file control how much data is kept in memory:
+ * <ul>
+ * <li>FetchSize (default 1000): cases are read with a forward-only cursor that fetches this number of rows
+ * in each round trip. The other components of the cases are read for each page of descriptions of this size,
+ * and the Hibernate session is cleared after each page, so only the returned cases stay in memory.
+ * The cases are still returned in a list, so all of them must fit in memory.
+ * If reading fails, the exception is rethrown instead of returning the cases read before the error.
+ * <li>BatchSize (default 100): storeCases() sends the cases in JDBC batches of this size
+ * (if hibernate.jdbc.batch_size is not set in the Hibernate configuration file) and commits them
+ * in one transaction per batch.
+ * </ul>
+ * retrieveSomeCases() runs the filter in the database: a PrimaryKeyFilter selects the descriptions by their ids
+ * and a QueryFilter adds its HQL condition to the query.
+ * <p>
+ * Test17 shows these options and filters with the embedded HSQLDB server of the examples (jcolibri.test.database.HSQLDBserver).
  * <p> 
  * There are several examples that incrementally show how to use this connector: Test1, Test2, Test3, Test4 and Test5.
  * 
@@ -39,6 +58,9 @@ import jcolibri.util.FileIO;
  * @see jcolibri.test.test3.Test3
  * @see jcolibri.test.test4.Test4
  * @see jcolibri.test.test5.Test5
+ * @see jcolibri.test.test17.Test17
+ * @see jcolibri.connector.databaseutils.QueryFilter
+ * @see jcolibri.connector.PrimaryKeyFilter
  */
 public class DataBaseConnector implements Connector {
 
@@ -48,6 +70,22 @@ public class DataBaseConnector implements Connector {
 	private String justOfSolutionClassName;
 	private String resultClassName;
 	
+	/** Names of the id attributes of the components, used to read the components of a page of cases. */
+	private String descriptionIdName;
+	private Class descriptionIdType;
+	private String solutionIdName;
+	private String justOfSolutionIdName;
+	private String resultIdName;
+	
+	/** Rows fetched in each round trip when reading cases. */
+	private int fetchSize = 1000;
+	
+	/** Cases written in each JDBC batch and transaction. */
+	private int batchSize = 100;
+	
+	/** Maximum number of values of the "in" lists of the queries. */
+	private static final int MAX_IN_LIST = 1000;
+	
 	
 	/* (non-Javadoc)
 	 * @see jcolibri.cbrcore.Connector#close()
@@ -112,6 +150,24 @@ public class DataBaseConnector implements Connector {
 	        }
 	             
 	        
+	        try{
+	        	fetchSize = Integer.parseInt(document.getElementsByTagName("FetchSize").item(0).getTextContent().trim());
+	        }catch(Exception e) {}
+	        
+	        try{
+	        	batchSize = Integer.parseInt(document.getElementsByTagName("BatchSize").item(0).getTextContent().trim());
+	        }catch(Exception e) {}
+	        
+	        if(hbconfig.getProperty("hibernate.jdbc.batch_size") == null)
+	        	hbconfig.setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+	        
+	        Attribute id = ((CaseComponent)Class.forName(descriptionClassName).newInstance()).getIdAttribute();
+	        descriptionIdName = id.getName();
+	        descriptionIdType = id.getType();
+	        solutionIdName = idName(solutionClassName);
+	        justOfSolutionIdName = idName(justOfSolutionClassName);
+	        resultIdName = idName(resultClassName);
+	        
 	        sessionFactory = hbconfig.buildSessionFactory();
 				
 		} catch (Throwable ex) {
@@ -120,166 +176,229 @@ public class DataBaseConnector implements Connector {
 
 	}
 
+	private static String idName(String className) throws Exception
+	{
+		if(className == null)
+			return null;
+		return ((CaseComponent)Class.forName(className).newInstance()).getIdAttribute().getName();
+	}
+
 	/* (non-Javadoc)
 	 * @see jcolibri.cbrcore.Connector#retrieveAllCases()
 	 */
 	public Collection retrieveAllCases(){
-		
 		java.util.ArrayList<CBRCase> res = new java.util.ArrayList<CBRCase>();
-	
-		try 
+		retrieve(null, null, res);
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(res.size()+" cases read from the database.");
+		return res;
+	}
+
+	/**
+	 * Retrieves the cases selected by the filter, running it in the database:
+	 * <ul>
+	 * <li>PrimaryKeyFilter: cases whose description id is one of the keys.
+	 * <li>QueryFilter: cases whose description satisfies the HQL condition.
+	 * <li>Any other filter, or null: every case.
+	 * </ul>
+	 */
+	public Collection<CBRCase> retrieveSomeCases(CaseBaseFilter filter) {
+		java.util.ArrayList<CBRCase> res = new java.util.ArrayList<CBRCase>();
+		if(filter instanceof PrimaryKeyFilter)
 		{
-			Session session;// = sessionFactory.openSession();				
-			Transaction transaction; //= session.beginTransaction();
-					
-			List descList = null;
-			HashMap solList = null;
-			HashMap justSolList = null;
-			HashMap resList = null;
-			
-			
-			if(solutionClassName != null)
+			List<Object> ids = new ArrayList<Object>();
+			for(String key: ((PrimaryKeyFilter)filter).getKeys())
+				ids.add(PlainTextTypeConverter.convert(key, descriptionIdType));
+			for(int first=0; first<ids.size(); first+=MAX_IN_LIST)
 			{
-				session = sessionFactory.openSession();	
-				transaction = session.beginTransaction();
-
-				solList = new HashMap();
-				List l = session.createQuery("from " + solutionClassName).list();
-				
-				transaction.commit();
-				session.close();
-				
-				for(Iterator iter = l.iterator(); iter.hasNext();)
-				{
-					CaseComponent cc = (CaseComponent)iter.next();
-					solList.put(cc.getIdAttribute().getValue(cc), cc);
-				}
+				Map<String, Object> parameters = new HashMap<String, Object>();
+				parameters.put("ids", ids.subList(first, Math.min(first + MAX_IN_LIST, ids.size())));
+				retrieve(QueryFilter.DESCRIPTION + "." + descriptionIdName + " in (:ids)", parameters, res);
 			}
-			if(justOfSolutionClassName != null)
-			{
-				session = sessionFactory.openSession();	
-				transaction = session.beginTransaction();
-
-				justSolList = new HashMap();
-				List l = session.createQuery("from " + justOfSolutionClassName).list();
-				transaction.commit();
-				session.close();
+		}
+		else if(filter instanceof QueryFilter)
+			retrieve(((QueryFilter)filter).getCondition(), ((QueryFilter)filter).getParameters(), res);
+		else
+			retrieve(null, null, res);
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(res.size()+" cases read from the database.");
+		return res;
+	}
 
-				for(Iterator iter = l.iterator(); iter.hasNext();)
+	/**
+	 * Reads the cases whose descriptions satisfy an HQL condition with a forward-only cursor.
+	 * The other components are read for each page of fetchSize descriptions.
+	 * @param condition over the description, named "d", or null to read every case.
+	 * @param parameters named parameters of the condition.
+	 * @param res list where the cases are added.
+	 * @throws RuntimeException if the cases cannot be read, so that a failed read
+	 * does not look like a smaller case base. Hibernate exceptions are rethrown as they are.
+	 */
+	private void retrieve(String condition, Map<String, Object> parameters, List<CBRCase> res)
+	{
+		Session session = sessionFactory.openSession();
+		session.setCacheMode(CacheMode.IGNORE);
+		Transaction transaction = null;
+		ScrollableResults descriptions = null;
+		try 
+		{
+			transaction = session.beginTransaction();
+			String hql = "from " + descriptionClassName + " " + QueryFilter.DESCRIPTION;
+			if(condition != null)
+				hql += " where " + condition;
+			Query query = session.createQuery(hql);
+			if(parameters != null)
+				for(Map.Entry<String, Object> p: parameters.entrySet())
 				{
-					CaseComponent cc = (CaseComponent)iter.next();
-					justSolList.put(cc.getIdAttribute().getValue(cc), cc);
+					if(p.getValue() instanceof Collection)
+						query.setParameterList(p.getKey(), (Collection)p.getValue());
+					else
+						query.setParameter(p.getKey(), p.getValue());
 				}
-			}
-			if(resultClassName != null)
+			query.setFetchSize(fetchSize);
+			descriptions = query.scroll(ScrollMode.FORWARD_ONLY);
+			
+			List<CaseComponent> page = new ArrayList<CaseComponent>(fetchSize);
+			while(descriptions.next())
 			{
-				session = sessionFactory.openSession();	
-				transaction = session.beginTransaction();
-
-				resList = new HashMap();
-				List l = session.createQuery("from " + resultClassName).list();
-				transaction.commit();
-				session.close();
-
-				for(Iterator iter = l.iterator(); iter.hasNext();)
+				page.add((CaseComponent)descriptions.get(0));
+				if(page.size() == fetchSize)
 				{
-					CaseComponent cc = (CaseComponent)iter.next();
-					resList.put(cc.getIdAttribute().getValue(cc), cc);
+					addCases(session, page, res);
+					page.clear();
 				}
 			}
-
-			session = sessionFactory.openSession();	
-			transaction = session.beginTransaction();
-			descList = session.createQuery("from "+ descriptionClassName).list();			
+			addCases(session, page, res);
 			transaction.commit();
+			
+		} catch (Exception e) {
+			if(transaction != null && transaction.isActive())
+				transaction.rollback();
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+			if(e instanceof RuntimeException)
+				throw (RuntimeException)e;
+			throw new RuntimeException(e);
+		} finally {
+			if(descriptions != null)
+				descriptions.close();
 			session.close();
+		}
+	}
+
+	/**
+	 * Creates the cases of a page of descriptions reading their other components,
+	 * and clears the session.
+	 */
+	private void addCases(Session session, List<CaseComponent> page, List<CBRCase> res) throws AttributeAccessException
+	{
+		if(page.isEmpty())
+			return;
+		List<Object> ids = new ArrayList<Object>(page.size());
+		for(CaseComponent desc: page)
+			ids.add(desc.getIdAttribute().getValue(desc));
+		
+		Map solList = findComponents(session, solutionClassName, solutionIdName, ids);
+		Map justSolList = findComponents(session, justOfSolutionClassName, justOfSolutionIdName, ids);
+		Map resList = findComponents(session, resultClassName, resultIdName, ids);
 
-			for(Iterator iter = descList.iterator(); iter.hasNext();)
+		for(int i=0; i<page.size(); i++)
+		{
+			CBRCase _case = new CBRCase();
+			_case.setDescription(page.get(i));
+			
+			if(solList != null)
 			{
-				CBRCase _case = new CBRCase();
-				CaseComponent desc = (CaseComponent)iter.next();
-				_case.setDescription(desc);
-				
-				if(solutionClassName != null)
-				{
-					CaseComponent cc = (CaseComponent)solList.get(desc.getIdAttribute().getValue(desc));
-					if(cc != null)
-						_case.setSolution(cc);
-				}
-				if(justOfSolutionClassName != null)
-				{
-					CaseComponent cc = (CaseComponent)justSolList.get(desc.getIdAttribute().getValue(desc));
-					if(cc != null)
-						_case.setJustificationOfSolution(cc);
-				}						
-				if(resultClassName != null)
-				{
-					CaseComponent cc = (CaseComponent)resList.get(desc.getIdAttribute().getValue(desc));
-					if(cc != null)
-						_case.setResult(cc);
-				}
-						
-				res.add(_case);
-				
+				CaseComponent cc = (CaseComponent)solList.get(ids.get(i));
+				if(cc != null)
+					_case.setSolution(cc);
 			}
-			
-			//transaction.commit();
-			//session.close();
-			
-		} catch (Exception e) {
-			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+			if(justSolList != null)
+			{
+				CaseComponent cc = (CaseComponent)justSolList.get(ids.get(i));
+				if(cc != null)
+					_case.setJustificationOfSolution(cc);
+			}						
+			if(resList != null)
+			{
+				CaseComponent cc = (CaseComponent)resList.get(ids.get(i));
+				if(cc != null)
+					_case.setResult(cc);
+			}
+					
+			res.add(_case);
 		}
-		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(res.size()+" cases read from the database.");
-		return res;
+		session.clear();
 	}
 
-	/* (non-Javadoc)
-	 * @see jcolibri.cbrcore.Connector#retrieveSomeCases(jcolibri.cbrcore.CaseBaseFilter)
+	/**
+	 * Returns the components of a class with the given ids, by id. Returns null if the class is null.
 	 */
-	public Collection<CBRCase> retrieveSomeCases(CaseBaseFilter filter) {
-		// TODO Auto-generated method stub
-		return null;
+	private Map findComponents(Session session, String className, String idName, List<Object> ids) throws AttributeAccessException
+	{
+		if(className == null)
+			return null;
+		HashMap res = new HashMap();
+		for(int first=0; first<ids.size(); first+=MAX_IN_LIST)
+		{
+			List l = session.createQuery("from " + className + " c where c." + idName + " in (:ids)")
+				.setParameterList("ids", ids.subList(first, Math.min(first + MAX_IN_LIST, ids.size())))
+				.list();
+			for(Iterator iter = l.iterator(); iter.hasNext();)
+			{
+				CaseComponent cc = (CaseComponent)iter.next();
+				res.put(cc.getIdAttribute().getValue(cc), cc);
+			}
+		}
+		return res;
 	}
 
-	/* (non-Javadoc)
+	/**
+	 * Stores the cases in batches of BatchSize cases. Each batch is sent in JDBC batches
+	 * and committed in its own transaction, so the batches committed before an error are kept.
+	 * If storing a case fails, its batch is rolled back and the Hibernate exception is rethrown.
+	 * 
 	 * @see jcolibri.cbrcore.Connector#storeCases(java.util.Collection)
 	 */
 	public void storeCases(Collection cases) {
 		
-		
-		for(Object o: cases)
+		Session session = sessionFactory.openSession();
+		session.setCacheMode(CacheMode.IGNORE);
+		Transaction transaction = null;
+		int stored = 0;
+		int pending = 0;
+		try
 		{
-			CBRCase c =(CBRCase)o; 
-			Session session = sessionFactory.openSession();	
-			Transaction transaction = session.beginTransaction();
-				session.save(c.getDescription());
-			transaction.commit();
-			session.close();
-
-			session = sessionFactory.openSession();	
-			transaction = session.beginTransaction();
-			if(c.getSolution()!= null)
-				session.saveOrUpdate(c.getSolution());
-			transaction.commit();
-			session.close();
-
-			session = sessionFactory.openSession();	
 			transaction = session.beginTransaction();
-			if(c.getJustificationOfSolution() != null)
-				session.saveOrUpdate(c.getJustificationOfSolution());
-			transaction.commit();
-			session.close();
-
-			session = sessionFactory.openSession();	
-			transaction = session.beginTransaction();
-			if(c.getResult() != null)
-				session.saveOrUpdate(c.getResult());
+			for(Object o: cases)
+			{
+				CBRCase c =(CBRCase)o; 
+				session.save(c.getDescription());
+				if(c.getSolution()!= null)
+					session.saveOrUpdate(c.getSolution());
+				if(c.getJustificationOfSolution() != null)
+					session.saveOrUpdate(c.getJustificationOfSolution());
+				if(c.getResult() != null)
+					session.saveOrUpdate(c.getResult());
+				
+				if(++pending == batchSize)
+				{
+					transaction.commit();
+					session.clear();
+					stored += pending;
+					pending = 0;
+					transaction = session.beginTransaction();
+				}
+			}
 			transaction.commit();
+			stored += pending;
+		} catch (RuntimeException e) {
+			if(transaction != null && transaction.isActive())
+				transaction.rollback();
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(stored+" cases stored into the database before the error.", e);
+			throw e;
+		} finally {
 			session.close();
 		}
-		
 
-		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(cases.size()+" cases stored into the database.");
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(stored+" cases stored into the database.");
 
 	}
 }
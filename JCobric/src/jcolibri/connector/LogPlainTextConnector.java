@@ -0,0 +1,823 @@
+/**
+ * LogPlainTextConnector.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.connector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CaseBaseFilter;
+import jcolibri.exception.InitializingException;
+import jcolibri.util.FileIO;
+
+/**
+ * <p>
+ * PlainText connector that keeps the case file as an append-only log.
+ * </p>
+ * It is configured with the same xml file as PlainTextConnector and reads the same text files,
+ * but the file is never rewritten when cases are stored or deleted:
+ * <ul>
+ * <li>Stored cases are appended at the end of the file. A case whose primary key is already
+ * in the file replaces the previous row.
+ * <li>Deleted cases are appended as tombstone lines: "#DELETED", the separator and the primary key.
+ * <li>The position of the row of every case is kept in an index file next to the case file
+ * (with the ".idx" suffix). Each change appends a line to it. When the index is missing, or does not
+ * match the case file, it is built again by reading the case file once.
+ * <li>When replaced rows and tombstones take more than half of a file bigger than 1 MB, the file
+ * is compacted by a background thread that rewrites it with only the live rows and the comments.
+ * Stores, deletes and retrievals can continue meanwhile.
+ * </ul>
+ * So storing and deleting cases costs time proportional to the number of changed cases, not to
+ * the size of the file.
+ * <p>
+ * retrieveSomeCases() returns a collection that reads the cases lazily, a few rows at a time,
+ * each time it is iterated. The selected primary keys are fixed when the method is called, but cases
+ * deleted afterwards are skipped. A PrimaryKeyFilter only reads the rows of the given keys.
+ * <p>
+ * Tombstones are comments for PlainTextConnector, so call compact() before reading the file with it.
+ * The case file must be in the file system and only be written by one connector at a time.
+ *
+ * @version 1.0
+ * @see jcolibri.connector.PlainTextConnector
+ * @see jcolibri.connector.PrimaryKeyFilter
+ */
+public class LogPlainTextConnector extends PlainTextConnector {
+
+	/** Prefix of the lines that delete a case. */
+	public static final String TOMBSTONE = "#DELETED";
+
+	/** Suffix of the index file. */
+	public static final String INDEX_SUFFIX = ".idx";
+
+	/** Suffix of the files written while compacting. */
+	private static final String COMPACT_SUFFIX = ".compact";
+
+	/** Fraction of the case file that dead rows must take to compact it. */
+	private static final double COMPACTION_RATIO = 0.5;
+
+	/** Minimum size of the case file to compact it. */
+	private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+	/** Number of rows read each time a lazy collection opens the case file. */
+	private static final int BATCH = 256;
+
+	private static final byte[] NEWLINE = System.getProperty("line.separator").getBytes();
+
+	/** Position of a row in the case file: from offset (included) to end (excluded, with the line terminator). */
+	private static class Row
+	{
+		long offset;
+		long end;
+
+		Row(long offset, long end)
+		{
+			this.offset = offset;
+			this.end = end;
+		}
+	}
+
+	private File log;
+	private File index;
+
+	/** Rows of the live cases by primary key, in the order of the case file. */
+	private LinkedHashMap<String, Row> rows;
+
+	private long logLength;
+
+	/** Bytes of the case file taken by replaced rows and tombstones. */
+	private long deadBytes;
+
+	/** False when the last line of the case file has no line terminator. */
+	private boolean terminated;
+
+	private ExecutorService compactor;
+	private Future<?> compaction;
+
+	/** Held by the thread that compacts the case file. */
+	private final Object compactLock = new Object();
+
+	public void initFromXMLfile(URL file) throws InitializingException {
+		super.initFromXMLfile(file);
+		try {
+			URL url = FileIO.findFile(this.PROP_FILEPATH);
+			if(url == null)
+				log = new File(this.PROP_FILEPATH);
+			else if("file".equals(url.getProtocol()))
+				log = new File(url.toURI());
+			else
+				throw new InitializingException("The case file must be in the file system: " + this.PROP_FILEPATH);
+			index = new File(log.getPath() + INDEX_SUFFIX);
+
+			// a compaction that stopped after removing the old case file
+			File compacted = new File(log.getPath() + COMPACT_SUFFIX);
+			if(!log.exists() && compacted.exists())
+				compacted.renameTo(log);
+			if(!log.exists())
+				log.createNewFile();
+			open();
+		} catch(InitializingException e) {
+			throw e;
+		} catch(Exception e) {
+			throw new InitializingException(e);
+		}
+	}
+
+	/**
+	 * Loads the index, or builds it when it is missing or does not match the case file,
+	 * and reads the rows appended to the case file after the last indexed one.
+	 */
+	private synchronized void open() throws IOException
+	{
+		rows = new LinkedHashMap<String, Row>();
+		deadBytes = 0;
+		logLength = log.length();
+		terminated = logLength == 0 || lastByte() == '\n';
+		long covered = readIndex();
+		if(covered < 0)
+		{
+			rows.clear();
+			deadBytes = 0;
+			scan(0, null);
+			writeIndex(rows, index);
+		}
+		else if(covered < logLength)
+		{
+			StringBuffer lines = new StringBuffer();
+			scan(covered, lines);
+			appendIndex(lines);
+		}
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(rows.size() + " cases indexed in " + log);
+	}
+
+	private int lastByte() throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(log, "r");
+		try {
+			raf.seek(logLength - 1);
+			return raf.read();
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads the index file into the rows. Returns the position of the case file covered by the index,
+	 * or -1 if the index is missing or does not match the case file.
+	 */
+	private long readIndex() throws IOException
+	{
+		if(!index.exists())
+			return -1;
+		long covered = 0;
+		String firstKey = null, lastKey = null;
+		long firstOffset = 0, lastOffset = 0;
+		LineReader reader = new LineReader(new FileInputStream(index), 0);
+		try {
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				if(line.length() == 0)
+					continue;
+				StringTokenizer st = new StringTokenizer(line, "\t");
+				if(st.countTokens() != 4)
+					return -1;
+				boolean delete = st.nextToken().equals("-");
+				long offset = Long.parseLong(st.nextToken());
+				long end = Long.parseLong(st.nextToken());
+				String key = st.nextToken();
+				deadBytes += apply(rows, key, delete, offset, end);
+				covered = Math.max(covered, end);
+				if(firstKey == null)
+				{
+					firstKey = delete ? TOMBSTONE + this.PROP_DELIM.charAt(0) + key : key;
+					firstOffset = offset;
+				}
+				lastKey = delete ? TOMBSTONE + this.PROP_DELIM.charAt(0) + key : key;
+				lastOffset = offset;
+			}
+		} catch(NumberFormatException e) {
+			return -1;
+		} finally {
+			reader.close();
+		}
+		if(covered > logLength)
+			return -1;
+		if(firstKey != null && !(startsWith(firstOffset, firstKey) && startsWith(lastOffset, lastKey)))
+			return -1;
+		return covered;
+	}
+
+	/**
+	 * Returns true if the line of the case file at the given offset starts with the given key.
+	 */
+	private boolean startsWith(long offset, String key) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(log, "r");
+		try {
+			byte[] expected = key.getBytes();
+			if(offset + expected.length > logLength)
+				return false;
+			byte[] found = new byte[expected.length];
+			raf.seek(offset);
+			raf.readFully(found);
+			if(!java.util.Arrays.equals(expected, found))
+				return false;
+			if(offset + expected.length == logLength)
+				return true;
+			int next = raf.read();
+			return next == '\r' || next == '\n' || this.PROP_DELIM.indexOf(next) >= 0;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads the case file from the given position and applies its rows and tombstones.
+	 * @param indexLines if not null, receives the index lines of the rows read.
+	 */
+	private void scan(long from, StringBuffer indexLines) throws IOException
+	{
+		LineReader reader = new LineReader(new FileInputStream(log), from);
+		try {
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				boolean delete = line.startsWith(TOMBSTONE);
+				if(!delete && (line.startsWith("#") || line.length() == 0))
+					continue;
+				String key = keyOf(line, delete);
+				deadBytes += apply(rows, key, delete, reader.lineOffset, reader.position);
+				if(indexLines != null)
+					indexLine(indexLines, delete, reader.lineOffset, reader.position, key);
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private String keyOf(String line, boolean tombstone)
+	{
+		if(tombstone)
+			return line.substring(TOMBSTONE.length() + 1);
+		return new StringTokenizer(line, this.PROP_DELIM).nextToken();
+	}
+
+	/**
+	 * Applies a row or a tombstone to the rows. Returns the bytes of the case file that become dead.
+	 */
+	private static long apply(Map<String, Row> rows, String key, boolean delete, long offset, long end)
+	{
+		long dead = 0;
+		Row old = rows.remove(key);
+		if(old != null)
+			dead += old.end - old.offset;
+		if(delete)
+			dead += end - offset;
+		else
+			rows.put(key, new Row(offset, end));
+		return dead;
+	}
+
+	private static void indexLine(StringBuffer lines, boolean delete, long offset, long end, String key)
+	{
+		lines.append(delete ? '-' : '+').append('\t').append(offset).append('\t').append(end).append('\t').append(key).append('\n');
+	}
+
+	private void appendIndex(StringBuffer lines) throws IOException
+	{
+		if(lines.length() == 0)
+			return;
+		FileWriter fw = new FileWriter(index, true);
+		try {
+			fw.write(lines.toString());
+		} finally {
+			fw.close();
+		}
+	}
+
+	private static void writeIndex(Map<String, Row> rows, File file) throws IOException
+	{
+		StringBuffer lines = new StringBuffer();
+		for(Map.Entry<String, Row> e: rows.entrySet())
+			indexLine(lines, false, e.getValue().offset, e.getValue().end, e.getKey());
+		FileWriter fw = new FileWriter(file, false);
+		try {
+			fw.write(lines.toString());
+		} finally {
+			fw.close();
+		}
+	}
+
+	/**
+	 * Appends the given lines to the case file and applies them.
+	 * @param deletes tells for each line if it is a tombstone.
+	 */
+	private void append(List<String> lines, List<String> keys, List<Boolean> deletes) throws IOException
+	{
+		if(lines.isEmpty())
+			return;
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		if(!terminated)
+			data.write(NEWLINE);
+		long[] offsets = new long[lines.size() + 1];
+		for(int i=0; i<lines.size(); i++)
+		{
+			offsets[i] = logLength + data.size();
+			data.write(lines.get(i).getBytes());
+			data.write(NEWLINE);
+		}
+		offsets[lines.size()] = logLength + data.size();
+
+		FileOutputStream out = new FileOutputStream(log, true);
+		try {
+			data.writeTo(out);
+		} finally {
+			out.close();
+		}
+		logLength += data.size();
+		terminated = true;
+
+		StringBuffer indexLines = new StringBuffer();
+		for(int i=0; i<lines.size(); i++)
+		{
+			boolean delete = deletes.get(i);
+			deadBytes += apply(rows, keys.get(i), delete, offsets[i], offsets[i + 1]);
+			indexLine(indexLines, delete, offsets[i], offsets[i + 1], keys.get(i));
+		}
+		appendIndex(indexLines);
+	}
+
+	/**
+	 * Appends the cases to the case file. A case whose primary key is already stored replaces it.
+	 *
+	 * @param cases
+	 *            Cases to store.
+	 */
+	public void storeCases(Collection cases)
+	{
+		synchronized(this)
+		{
+			List<String> lines = new ArrayList<String>(cases.size());
+			List<String> keys = new ArrayList<String>(cases.size());
+			List<Boolean> deletes = new ArrayList<Boolean>(cases.size());
+			for(Object o: cases)
+			{
+				String line = formatCase((CBRCase)o);
+				lines.add(line);
+				keys.add(keyOf(line, false));
+				deletes.add(Boolean.FALSE);
+			}
+			try {
+				append(lines, keys, deletes);
+			} catch(Exception e) {
+				org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+			}
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Appends a tombstone to the case file for each stored case. It only uses the case name
+	 * (primary key) to find the row.
+	 *
+	 * @param cases
+	 *            Cases to delete
+	 */
+	public void deleteCases(Collection cases)
+	{
+		synchronized(this)
+		{
+			List<String> lines = new ArrayList<String>(cases.size());
+			List<String> keys = new ArrayList<String>(cases.size());
+			List<Boolean> deletes = new ArrayList<Boolean>(cases.size());
+			Set<String> deleted = new HashSet<String>();
+			for(Object o: cases)
+			{
+				String key = ((CBRCase)o).getID().toString();
+				if(!rows.containsKey(key) || !deleted.add(key))
+					continue;
+				lines.add(TOMBSTONE + this.PROP_DELIM.charAt(0) + key);
+				keys.add(key);
+				deletes.add(Boolean.TRUE);
+			}
+			try {
+				append(lines, keys, deletes);
+			} catch(Exception e) {
+				org.apache.commons.logging.LogFactory.getLog(this.getClass()).error("Error deleting cases " + e.getMessage());
+			}
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Retrieves all the live cases of the case file.
+	 *
+	 * @return Retrieved cases.
+	 */
+	public Collection retrieveAllCases() {
+		return new LinkedList<CBRCase>(retrieveSomeCases(null));
+	}
+
+	/**
+	 * Returns a collection that reads the selected cases from the case file each time it is iterated.
+	 * A PrimaryKeyFilter selects the cases with its keys. Any other filter, or null, selects every case.
+	 */
+	public Collection<CBRCase> retrieveSomeCases(CaseBaseFilter filter) {
+		List<String> keys;
+		synchronized(this)
+		{
+			keys = new ArrayList<String>(rows.size());
+			if(filter instanceof PrimaryKeyFilter)
+			{
+				PrimaryKeyFilter pkf = (PrimaryKeyFilter)filter;
+				if(pkf.getKeys().size() < rows.size())
+				{
+					// read the rows in the order of the file
+					final Map<String, Row> current = rows;
+					for(String key: pkf.getKeys())
+						if(current.containsKey(key))
+							keys.add(key);
+					java.util.Collections.sort(keys, new java.util.Comparator<String>()
+					{
+						public int compare(String a, String b)
+						{
+							long d = current.get(a).offset - current.get(b).offset;
+							return d < 0 ? -1 : (d > 0 ? 1 : 0);
+						}
+					});
+				}
+				else
+				{
+					for(String key: rows.keySet())
+						if(pkf.accept(key))
+							keys.add(key);
+				}
+			}
+			else
+				keys.addAll(rows.keySet());
+		}
+		return new LazyCases(keys.toArray(new String[keys.size()]));
+	}
+
+	/**
+	 * Cases of the case file read on demand.
+	 */
+	private class LazyCases extends AbstractCollection<CBRCase>
+	{
+		private String[] keys;
+
+		LazyCases(String[] keys)
+		{
+			this.keys = keys;
+		}
+
+		public int size()
+		{
+			synchronized(LogPlainTextConnector.this)
+			{
+				int size = 0;
+				for(String key: keys)
+					if(rows.containsKey(key))
+						size++;
+				return size;
+			}
+		}
+
+		public Iterator<CBRCase> iterator()
+		{
+			return new Iterator<CBRCase>()
+			{
+				int next = 0;
+				LinkedList<CBRCase> batch = new LinkedList<CBRCase>();
+
+				public boolean hasNext()
+				{
+					while(batch.isEmpty() && next < keys.length)
+					{
+						int last = Math.min(next + BATCH, keys.length);
+						for(String line: readRows(keys, next, last))
+						{
+							try {
+								batch.add(parseCase(line));
+							} catch(Exception e) {
+								org.apache.commons.logging.LogFactory.getLog(LogPlainTextConnector.class).error("Error retrieving case " + e.getMessage());
+							}
+						}
+						next = last;
+					}
+					return !batch.isEmpty();
+				}
+
+				public CBRCase next()
+				{
+					if(!hasNext())
+						throw new NoSuchElementException();
+					return batch.removeFirst();
+				}
+
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Reads the current rows of the keys first..last-1 that are not deleted.
+	 */
+	private synchronized List<String> readRows(String[] keys, int first, int last)
+	{
+		List<String> lines = new ArrayList<String>(last - first);
+		try {
+			RandomAccessFile raf = new RandomAccessFile(log, "r");
+			try {
+				for(int i=first; i<last; i++)
+				{
+					Row row = rows.get(keys[i]);
+					if(row == null)
+						continue;
+					byte[] bytes = new byte[(int)(row.end - row.offset)];
+					raf.seek(row.offset);
+					raf.readFully(bytes);
+					int length = bytes.length;
+					while(length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r'))
+						length--;
+					lines.add(new String(bytes, 0, length));
+				}
+			} finally {
+				raf.close();
+			}
+		} catch(IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error("Error retrieving cases " + e.getMessage());
+		}
+		return lines;
+	}
+
+	/**
+	 * Starts a background compaction if dead rows take too much of the case file.
+	 */
+	private synchronized void compactIfNeeded()
+	{
+		if(logLength < MIN_COMPACTION_SIZE || deadBytes < logLength * COMPACTION_RATIO)
+			return;
+		if(compaction != null && !compaction.isDone())
+			return;
+		if(compactor == null)
+			compactor = Executors.newSingleThreadExecutor(new ThreadFactory()
+			{
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "LogPlainTextConnector");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		compaction = compactor.submit(new Runnable()
+		{
+			public void run()
+			{
+				try {
+					compactLog();
+				} catch(IOException e) {
+					org.apache.commons.logging.LogFactory.getLog(LogPlainTextConnector.class).error(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Rewrites the case file with only the live rows and the comments, and writes the index again.
+	 * It waits for a background compaction that is running.
+	 */
+	public void compact()
+	{
+		waitForCompaction();
+		try {
+			compactLog();
+		} catch(IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+		}
+	}
+
+	private void waitForCompaction()
+	{
+		Future<?> f;
+		synchronized(this)
+		{
+			f = compaction;
+		}
+		if(f == null)
+			return;
+		try {
+			f.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch(ExecutionException e) {
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e.getCause());
+		}
+	}
+
+	/**
+	 * Copies the live rows to a new file without holding the lock. Then, holding it,
+	 * copies the lines appended meanwhile and replaces the case file and the index.
+	 */
+	private void compactLog() throws IOException
+	{
+		synchronized(compactLock)
+		{
+			compactLog(new File(log.getPath() + COMPACT_SUFFIX), new File(index.getPath() + COMPACT_SUFFIX));
+		}
+	}
+
+	private void compactLog(File newLog, File newIndex) throws IOException
+	{
+		Map<String, Row> snapshot;
+		long end;
+		synchronized(this)
+		{
+			snapshot = new HashMap<String, Row>(rows);
+			end = logLength;
+		}
+
+		LinkedHashMap<String, Row> newRows = new LinkedHashMap<String, Row>();
+		long newDead = 0;
+		long position = 0;
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(newLog));
+		try {
+			LineReader reader = new LineReader(new FileInputStream(log), 0);
+			try {
+				String line;
+				while(reader.position < end && (line = reader.readLine()) != null)
+				{
+					if(line.startsWith(TOMBSTONE) || line.length() == 0)
+						continue;
+					if(!line.startsWith("#"))
+					{
+						String key = keyOf(line, false);
+						Row row = snapshot.get(key);
+						if(row == null || row.offset != reader.lineOffset)
+							continue;
+					}
+					long offset = position;
+					position += write(out, line);
+					if(!line.startsWith("#"))
+						newRows.put(keyOf(line, false), new Row(offset, position));
+				}
+			} finally {
+				reader.close();
+			}
+
+			synchronized(this)
+			{
+				// rows and tombstones appended while copying
+				LineReader tail = new LineReader(new FileInputStream(log), end);
+				try {
+					String line;
+					while((line = tail.readLine()) != null)
+					{
+						boolean delete = line.startsWith(TOMBSTONE);
+						if(!delete && line.length() == 0)
+							continue;
+						long offset = position;
+						position += write(out, line);
+						if(delete || !line.startsWith("#"))
+							newDead += apply(newRows, keyOf(line, delete), delete, offset, position);
+					}
+				} finally {
+					tail.close();
+				}
+				out.close();
+				out = null;
+
+				writeIndex(newRows, newIndex);
+				if(!log.delete() || !newLog.renameTo(log))
+					throw new IOException("Error replacing " + log + " with " + newLog);
+				index.delete();
+				if(!newIndex.renameTo(index))
+					throw new IOException("Error replacing " + index + " with " + newIndex);
+
+				rows = newRows;
+				logLength = position;
+				deadBytes = newDead;
+				terminated = true;
+			}
+		} finally {
+			if(out != null)
+			{
+				out.close();
+				newLog.delete();
+			}
+		}
+		org.apache.commons.logging.LogFactory.getLog(this.getClass()).info(log + " compacted to " + position + " bytes");
+	}
+
+	private static int write(OutputStream out, String line) throws IOException
+	{
+		byte[] bytes = line.getBytes();
+		out.write(bytes);
+		out.write(NEWLINE);
+		return bytes.length + NEWLINE.length;
+	}
+
+	/**
+	 * Waits for a background compaction that is running.
+	 */
+	public void close() {
+		waitForCompaction();
+		synchronized(this)
+		{
+			if(compactor != null)
+				compactor.shutdown();
+			compactor = null;
+		}
+	}
+
+	/**
+	 * Reads the lines of a file keeping the position in bytes of each one.
+	 */
+	private static class LineReader
+	{
+		private InputStream in;
+		private byte[] buffer = new byte[256];
+
+		/** Position of the last line read. */
+		long lineOffset;
+
+		/** Position of the next line. */
+		long position;
+
+		LineReader(FileInputStream in, long position) throws IOException
+		{
+			in.getChannel().position(position);
+			this.in = new BufferedInputStream(in, 1 << 16);
+			this.position = position;
+		}
+
+		/**
+		 * Returns the next line without its terminator, or null at the end of the file.
+		 */
+		String readLine() throws IOException
+		{
+			lineOffset = position;
+			int length = 0;
+			int b;
+			while((b = in.read()) != -1)
+			{
+				position++;
+				if(b == '\n')
+					break;
+				if(length == buffer.length)
+				{
+					byte[] bigger = new byte[2 * length];
+					System.arraycopy(buffer, 0, bigger, 0, length);
+					buffer = bigger;
+				}
+				buffer[length++] = (byte)b;
+			}
+			if(b == -1 && position == lineOffset)
+				return null;
+			if(length > 0 && buffer[length - 1] == '\r')
+				length--;
+			return new String(buffer, 0, length);
+		}
+
+		void close() throws IOException
+		{
+			in.close();
+		}
+	}
+}
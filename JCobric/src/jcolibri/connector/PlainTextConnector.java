@@ -50,7 +50,7 @@ import org.w3c.dom.NodeList;
  * <p>
  * This class does not implement any cache mechanims, so cases are read and
  * written directly. This can be very inefficient in some operations (mainly in
- * reading)
+ * reading). LogPlainTextConnector keeps the file as an append-only log instead.
  * <p>
  * Some methods will fail when executing the connector with a case base file inside a jar file.
  * The retrieve() methods will work properly but the methods that write in the file will fail. 
@@ -62,6 +62,7 @@ import org.w3c.dom.NodeList;
  * @version 2.0
  * @see jcolibri.connector.plaintextutils.PlainTextTypeConverter
  * @see jcolibri.connector.TypeAdaptor
+ * @see jcolibri.connector.LogPlainTextConnector
  * @see jcolibri.test.test6.Test6
  */
 public class PlainTextConnector implements Connector {
@@ -171,38 +172,9 @@ public class PlainTextConnector implements Connector {
 			if (br == null)
 				throw new Exception("Error opening file for writing: "+ this.PROP_FILEPATH);
 
-			char separator = this.PROP_DELIM.charAt(0);
-			
 			for (Object o : cases) {
-				CBRCase _case = (CBRCase)o;
 				br.newLine();
-				StringBuffer line = new StringBuffer();
-				
-				CaseComponent description = _case.getDescription();
-				writeComponent(description, this.descriptionMaps, line, separator, true);
-				
-				CaseComponent solution = _case.getSolution();
-				if(solution!=null)
-				{
-					line.append(separator);
-					writeComponent(solution, this.solutionMaps,  line, separator, false);
-				}
-				
-				CaseComponent justOfSolution = _case.getJustificationOfSolution();
-				if(justOfSolution!=null)
-				{
-					line.append(separator);
-					writeComponent(justOfSolution, this.justOfSolutionMaps,  line, separator, false);
-				}
-				
-				CaseComponent result = _case.getResult();
-				if(result!=null)
-				{
-					line.append(separator);
-					writeComponent(result, this.resultMaps, line, separator, false);
-				}
-
-				br.write(line.toString());
+				br.write(formatCase((CBRCase)o));
 			}
 			br.close();
 		} catch (Exception e) {
@@ -210,6 +182,40 @@ public class PlainTextConnector implements Connector {
 		}
 	}
 	
+	/**
+	 * Returns the line of the text file that stores a case.
+	 */
+	protected String formatCase(CBRCase _case)
+	{
+		char separator = this.PROP_DELIM.charAt(0);
+		StringBuffer line = new StringBuffer();
+		
+		CaseComponent description = _case.getDescription();
+		writeComponent(description, this.descriptionMaps, line, separator, true);
+		
+		CaseComponent solution = _case.getSolution();
+		if(solution!=null)
+		{
+			line.append(separator);
+			writeComponent(solution, this.solutionMaps,  line, separator, false);
+		}
+		
+		CaseComponent justOfSolution = _case.getJustificationOfSolution();
+		if(justOfSolution!=null)
+		{
+			line.append(separator);
+			writeComponent(justOfSolution, this.justOfSolutionMaps,  line, separator, false);
+		}
+		
+		CaseComponent result = _case.getResult();
+		if(result!=null)
+		{
+			line.append(separator);
+			writeComponent(result, this.resultMaps, line, separator, false);
+		}
+		return line.toString();
+	}
+	
 	private void writeComponent(CaseComponent comp, List<Attribute> maps, StringBuffer line, char separator, boolean includeId)
 	{
 		try {
@@ -297,34 +303,7 @@ public class PlainTextConnector implements Connector {
 
 				if (line.startsWith("#") || (line.length() == 0))
 					continue;
-				StringTokenizer st = new StringTokenizer(line, this.PROP_DELIM);
-				
-				CBRCase _case = new CBRCase();
-				
-				CaseComponent description = (CaseComponent)this.descriptionClass.newInstance();
-				fillComponent(description, st, this.descriptionMaps, true);
-				_case.setDescription(description);
-				
-				if(this.solutionClass != null)
-				{
-					CaseComponent solution = (CaseComponent)this.solutionClass.newInstance();
-					fillComponent(solution, st, this.solutionMaps, false);
-					_case.setSolution(solution);
-				}
-				if(this.justOfSolutionClass != null)
-				{
-					CaseComponent justificationOfSolution = (CaseComponent)this.justOfSolutionClass.newInstance();
-					fillComponent(justificationOfSolution, st, this.justOfSolutionMaps, false);
-					_case.setJustificationOfSolution(justificationOfSolution);
-				}
-				if(this.resultClass != null)
-				{
-					CaseComponent result = (CaseComponent)this.resultClass.newInstance();
-					fillComponent(result, st, this.resultMaps, false);
-					_case.setResult(result);
-				}
-				
-				cases.add(_case);
+				cases.add(parseCase(line));
 			}
 			br.close();
 		} catch (Exception e) {
@@ -334,6 +313,40 @@ public class PlainTextConnector implements Connector {
 		return cases;
 	}
 
+	/**
+	 * Creates the case stored in a line of the text file.
+	 */
+	protected CBRCase parseCase(String line) throws InstantiationException, IllegalAccessException
+	{
+		StringTokenizer st = new StringTokenizer(line, this.PROP_DELIM);
+		
+		CBRCase _case = new CBRCase();
+		
+		CaseComponent description = (CaseComponent)this.descriptionClass.newInstance();
+		fillComponent(description, st, this.descriptionMaps, true);
+		_case.setDescription(description);
+		
+		if(this.solutionClass != null)
+		{
+			CaseComponent solution = (CaseComponent)this.solutionClass.newInstance();
+			fillComponent(solution, st, this.solutionMaps, false);
+			_case.setSolution(solution);
+		}
+		if(this.justOfSolutionClass != null)
+		{
+			CaseComponent justificationOfSolution = (CaseComponent)this.justOfSolutionClass.newInstance();
+			fillComponent(justificationOfSolution, st, this.justOfSolutionMaps, false);
+			_case.setJustificationOfSolution(justificationOfSolution);
+		}
+		if(this.resultClass != null)
+		{
+			CaseComponent result = (CaseComponent)this.resultClass.newInstance();
+			fillComponent(result, st, this.resultMaps, false);
+			_case.setResult(result);
+		}
+		return _case;
+	}
+
 
 	private void fillComponent(CaseComponent component, StringTokenizer st, List<Attribute> maps, boolean includeId)
 	{
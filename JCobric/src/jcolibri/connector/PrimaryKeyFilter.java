@@ -0,0 +1,64 @@
+/**
+ * PrimaryKeyFilter.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.connector;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CaseBaseFilter;
+
+/**
+ * Filter that selects the cases with the given primary keys.
+ * Keys are compared by their string representation, as connectors store them.
+ * @version 1.0
+ * @see jcolibri.cbrcore.Connector#retrieveSomeCases(CaseBaseFilter)
+ */
+public class PrimaryKeyFilter extends CaseBaseFilter
+{
+	private Set<String> keys;
+
+	/**
+	 * Creates a filter that selects the cases with the given primary keys.
+	 */
+	public PrimaryKeyFilter(Collection<?> keys)
+	{
+		this.keys = new LinkedHashSet<String>();
+		for(Object key: keys)
+			this.keys.add(key.toString());
+	}
+
+	/**
+	 * Creates a filter that selects the given cases, identified by their primary keys.
+	 */
+	public static PrimaryKeyFilter forCases(Collection<CBRCase> cases)
+	{
+		PrimaryKeyFilter filter = new PrimaryKeyFilter(Collections.EMPTY_SET);
+		for(CBRCase _case: cases)
+			filter.keys.add(_case.getID().toString());
+		return filter;
+	}
+
+	/**
+	 * Returns the selected primary keys.
+	 */
+	public Set<String> getKeys()
+	{
+		return Collections.unmodifiableSet(keys);
+	}
+
+	/**
+	 * Returns true if the case with the given primary key is selected.
+	 */
+	public boolean accept(Object key)
+	{
+		return keys.contains(key.toString());
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * QueryFilter.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.connector.databaseutils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import jcolibri.cbrcore.CaseBaseFilter;
+
+/**
+ * Filter that the DataBaseConnector executes in the database.<p>
+ * It is an HQL condition over the description of the cases, that is named "d" in the query.
+ * For example: <code>new QueryFilter("d.price &lt; :max").setParameter("max", 1000)</code>
+ * @version 1.0
+ * @see jcolibri.connector.DataBaseConnector#retrieveSomeCases(CaseBaseFilter)
+ */
+public class QueryFilter extends CaseBaseFilter {
+
+	/** Name of the description in the HQL condition. */
+	public static final String DESCRIPTION = "d";
+
+	private String condition;
+	private Map<String, Object> parameters = new HashMap<String, Object>();
+
+	/**
+	 * Creates a filter with an HQL condition over the description, named "d".
+	 */
+	public QueryFilter(String condition)
+	{
+		this.condition = condition;
+	}
+
+	/**
+	 * Sets the value of a named parameter (":name") of the condition.
+	 */
+	public QueryFilter setParameter(String name, Object value)
+	{
+		parameters.put(name, value);
+		return this;
+	}
+
+	public String getCondition()
+	{
+		return condition;
+	}
+
+	public Map<String, Object> getParameters()
+	{
+		return Collections.unmodifiableMap(parameters);
+	}
+}
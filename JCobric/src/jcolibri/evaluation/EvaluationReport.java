@@ -143,6 +143,31 @@ public class EvaluationReport
         return (double)this.totalTime / (double)numberOfCycles;
     }
     
+    /**
+     * Returns an empty report of the same kind as this one, that stores the results 
+     * of some cycles run concurrently with others. 
+     * @see #addReport(EvaluationReport)
+     */
+    public EvaluationReport createPartialReport()
+    {
+        return new EvaluationReport();
+    }
+    
+    /**
+     * Adds the values of the series of the given partial report at the end of the series of this report,
+     * and copies its other data. 
+     */
+    public void addReport(EvaluationReport partial)
+    {
+        for(Object o : partial.data.keySet())
+        {
+            String label = (String)o;
+            for(Object value : (Vector)partial.data.get(label))
+                addDataToSeries(label, (Double)value);
+        }
+        other.putAll(partial.other);
+    }
+    
     /**
      * Checks if the evaluation series are correct. This is: all them must have the same length
      */
@@ -24,8 +24,36 @@ public abstract class Evaluator {
 	/** Object that stores the evaluation results */
 	protected static EvaluationReport report;
 	
-	/** Returns the evaluation report */
+	/** Partial reports of the threads that run cycles concurrently */
+	private static ThreadLocal<EvaluationReport> threadReport = new ThreadLocal<EvaluationReport>();
+	
+	/** Number of threads used by the evaluators that can run cycles concurrently */
+	protected int threads = Runtime.getRuntime().availableProcessors();
+	
+	/** Returns the evaluation report. 
+	 * Inside a cycle run concurrently with others it returns the partial report of its thread.
+	 * @see jcolibri.evaluation.ParallelEvaluation
+	 */
 	public static EvaluationReport getEvaluationReport(){
+		EvaluationReport partial = threadReport.get();
+		if(partial != null)
+			return partial;
 		return report;
 	}
+	
+	/** Sets the partial report of the current thread, or removes it if null */
+	static void setThreadReport(EvaluationReport partial){
+		if(partial == null)
+			threadReport.remove();
+		else
+			threadReport.set(partial);
+	}
+	
+	/** Sets the number of threads used to run cycles concurrently,
+	 * when the evaluator and the application support it.
+	 * @see jcolibri.cbraplications.ConcurrentCBRApplication
+	 */
+	public void setNumberOfThreads(int threads){
+		this.threads = threads;
+	}
 }
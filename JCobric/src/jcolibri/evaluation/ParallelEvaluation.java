@@ -0,0 +1,180 @@
+/**
+ * ParallelEvaluation.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.evaluation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import jcolibri.casebase.CaseBaseView;
+import jcolibri.cbraplications.ConcurrentCBRApplication;
+import jcolibri.cbraplications.StandardCBRApplication;
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.exception.ExecutionException;
+
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs the cycles of an evaluation concurrently.
+ * <p>
+ * Each thread runs its cycles with a copy of the application over its own CaseBaseView,
+ * so the case base returned by preCycle() is never changed. The queries are divided into
+ * consecutive chunks, and the partial report of each chunk is added to the evaluation report
+ * in the order of the queries, so the series are the same as in a sequential evaluation.
+ * <p>
+ * The cycles run in their own threads, not in the default executor of ParallelNNScoringMethod,
+ * because they can use it to score the cases.
+ * @version 1.0
+ * @see jcolibri.cbraplications.ConcurrentCBRApplication
+ * @see jcolibri.casebase.CaseBaseView
+ */
+public class ParallelEvaluation {
+
+	/** Number of chunks of queries for each thread, to balance the load. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private ExecutorService executor;
+	private BlockingQueue<Worker> workers;
+	private int threads;
+	private Class progress;
+
+	/**
+	 * Creates the copies of the application for the given number of threads.
+	 * @param progress is the class whose progress is notified to the ProgressController for each cycle, or null
+	 */
+	public ParallelEvaluation(ConcurrentCBRApplication app, int threads, Class progress) throws ExecutionException
+	{
+		this.threads = threads;
+		this.progress = progress;
+		workers = new ArrayBlockingQueue<Worker>(threads);
+		for(int i=0; i<threads; i++)
+		{
+			CaseBaseView view = new CaseBaseView(Collections.EMPTY_LIST);
+			workers.add(new Worker(app.copyFor(view), view));
+		}
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "jcolibri-evaluation");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Runs a cycle for each query over the given cases and adds the results to the report.
+	 * @param cases are the cases of the case base. They must not change until the method returns.
+	 * @param queries are the cases used as queries
+	 * @param leaveOut indicates if each query is removed from the case base of its cycle
+	 * @param report is the evaluation report
+	 * @param firstCycle is the number of the first cycle, used in the log
+	 * @return the number of cycles
+	 */
+	public int run(final Collection cases, List queries, final boolean leaveOut, EvaluationReport report, int firstCycle) throws ExecutionException
+	{
+		int chunk = Math.max(1, queries.size() / (threads * CHUNKS_PER_THREAD));
+		List<Future<EvaluationReport>> futures = new ArrayList<Future<EvaluationReport>>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		for(int first = 0; first < queries.size(); first += chunk)
+		{
+			final List chunkQueries = queries.subList(first, Math.min(first + chunk, queries.size()));
+			final EvaluationReport partial = report.createPartialReport();
+			final int cycle = firstCycle + first;
+			sizes.add(chunkQueries.size());
+			futures.add(executor.submit(new Callable<EvaluationReport>()
+			{
+				public EvaluationReport call() throws Exception
+				{
+					Worker worker = workers.take();
+					Evaluator.setThreadReport(partial);
+					try
+					{
+						int c = cycle;
+						for(Object o: chunkQueries)
+						{
+							CBRCase _case = (CBRCase)o;
+							worker.view.reset(cases);
+							if(leaveOut)
+								worker.view.forgetCases(Collections.singletonList(_case));
+							LogFactory.getLog(ParallelEvaluation.class).info("Running cycle() " + c++);
+							worker.app.cycle(_case);
+						}
+					} finally
+					{
+						Evaluator.setThreadReport(null);
+						worker.view.reset(Collections.EMPTY_LIST);
+						workers.add(worker);
+					}
+					return partial;
+				}
+			}));
+		}
+
+		try
+		{
+			for(int i=0; i<futures.size(); i++)
+			{
+				report.addReport(futures.get(i).get());
+				if(progress != null)
+					jcolibri.util.ProgressController.step(progress, sizes.get(i));
+			}
+		} catch(InterruptedException e)
+		{
+			for(Future<EvaluationReport> f: futures)
+				f.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ExecutionException(e);
+		} catch(java.util.concurrent.ExecutionException e)
+		{
+			for(Future<EvaluationReport> f: futures)
+				f.cancel(true);
+			Throwable cause = e.getCause();
+			if(cause instanceof ExecutionException)
+				throw (ExecutionException)cause;
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if(cause instanceof Error)
+				throw (Error)cause;
+			throw new ExecutionException(cause);
+		}
+		return queries.size();
+	}
+
+	/**
+	 * Stops the threads.
+	 */
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Copy of the application and its case base.
+	 */
+	private static class Worker
+	{
+		StandardCBRApplication app;
+		CaseBaseView view;
+
+		Worker(StandardCBRApplication app, CaseBaseView view)
+		{
+			this.app = app;
+			this.view = view;
+		}
+	}
+}
@@ -11,11 +11,13 @@ package jcolibri.evaluation.evaluators;
 import java.util.ArrayList;
 import java.util.Date;
 
+import jcolibri.cbraplications.ConcurrentCBRApplication;
 import jcolibri.cbraplications.StandardCBRApplication;
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.cbrcore.CBRCaseBase;
 import jcolibri.evaluation.EvaluationReport;
 import jcolibri.evaluation.Evaluator;
+import jcolibri.evaluation.ParallelEvaluation;
 import jcolibri.exception.ExecutionException;
 
 import org.apache.commons.logging.LogFactory;
@@ -24,6 +26,10 @@ import org.apache.commons.logging.LogFactory;
  * This methods uses all the cases as queries. 
  * It executes so cycles as cases in the case base. 
  * In each cycle one case is used as query.  
+ * <p>
+ * If the application is a ConcurrentCBRApplication the cycles run concurrently 
+ * in several threads (see setNumberOfThreads()), each one with its own view of the case base
+ * without the query, and the case base returned by preCycle() is not changed.
  * 
  * @author Juan A. Recio Garca - GAIA http://gaia.fdi.ucm.es
  * @version 2.0
@@ -69,24 +75,34 @@ public class LeaveOneOutEvaluator extends Evaluator {
 			
 			jcolibri.util.ProgressController.init(getClass(),"LeaveOneOut Evaluation", cases.size());
 			
-			//For each case in the case base
-			for(Object o : cases) {
-				CBRCase _case = (CBRCase)o;
-				//Delete the case in the case base
-				aux.clear();
-				aux.add(_case);
-				caseBase.forgetCases(aux);
-
-				//Run the cycle
-				LogFactory.getLog(this.getClass()).info(
-						"Running cycle() " + numberOfCycles);
-				app.cycle(_case);
-
-				//Recover case base
-				caseBase.learnCases(aux);
-
-				numberOfCycles++;
-				jcolibri.util.ProgressController.step(getClass());
+			if(app instanceof ConcurrentCBRApplication && threads > 1) {
+				//Run the cycles concurrently over views of the case base
+				ParallelEvaluation parallel = new ParallelEvaluation((ConcurrentCBRApplication)app, threads, getClass());
+				try {
+					numberOfCycles = parallel.run(cases, cases, true, report, 0);
+				} finally {
+					parallel.close();
+				}
+			} else {
+				//For each case in the case base
+				for(Object o : cases) {
+					CBRCase _case = (CBRCase)o;
+					//Delete the case in the case base
+					aux.clear();
+					aux.add(_case);
+					caseBase.forgetCases(aux);
+
+					//Run the cycle
+					LogFactory.getLog(this.getClass()).info(
+							"Running cycle() " + numberOfCycles);
+					app.cycle(_case);
+
+					//Recover case base
+					caseBase.learnCases(aux);
+
+					numberOfCycles++;
+					jcolibri.util.ProgressController.step(getClass());
+				}
 			}
 
 			//Run PostCycle
@@ -13,11 +13,13 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import jcolibri.cbraplications.ConcurrentCBRApplication;
 import jcolibri.cbraplications.StandardCBRApplication;
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.cbrcore.CBRCaseBase;
 import jcolibri.evaluation.EvaluationReport;
 import jcolibri.evaluation.Evaluator;
+import jcolibri.evaluation.ParallelEvaluation;
 import jcolibri.exception.ExecutionException;
 
 import org.apache.commons.logging.LogFactory;
@@ -26,6 +28,10 @@ import org.apache.commons.logging.LogFactory;
  * This evaluation method divides the case base into several random folds (indicated by the user). 
  * For each fold, their cases are used as queries and the remaining folds are used together as case base. 
  * This process is performed several times.
+ * <p>
+ * If the application is a ConcurrentCBRApplication the cycles of each fold run concurrently 
+ * in several threads (see setNumberOfThreads()), each one with its own view of the case base,
+ * and the case base returned by preCycle() is not changed.
  * 
  * @author Juan A. Recio Garca - GAIA http://gaia.fdi.ucm.es
  * @version 2.0
@@ -71,6 +77,12 @@ public class NFoldEvaluator extends Evaluator
             
             Collection cases = new ArrayList(caseBase.getCases());
             
+            ParallelEvaluation parallel = null;
+            if(app instanceof ConcurrentCBRApplication && threads > 1)
+                parallel = new ParallelEvaluation((ConcurrentCBRApplication)app, threads, null);
+            
+            try
+            {
             //For each repetition
             for(int r=0; r<repetitions; r++)
             {
@@ -85,29 +97,45 @@ public class NFoldEvaluator extends Evaluator
                     //Obtain the query and casebase sets
                     getFolds(f, querySet, caseBaseSet);
                     
-                    //Clear the caseBase
-                    caseBase.forgetCases(cases);
-                    
-                    //Set the cases that acts as casebase in this cycle
-                    caseBase.learnCases(caseBaseSet);
-                    
-                    //Run cycle for each case in querySet (current fold)
-                    for(Object o: querySet)
-                    {   
-                    	CBRCase c = (CBRCase)o;
-        					LogFactory.getLog(this.getClass()).info(
-        							"Running cycle() " + numberOfCycles);
-        					app.cycle(c);
+                    if(parallel != null)
+                    {
+                        //Run the cycles of the fold concurrently over views of caseBaseSet
+                        numberOfCycles += parallel.run(caseBaseSet, querySet, false, report, numberOfCycles);
+                    }
+                    else
+                    {
+                        //Clear the caseBase
+                        caseBase.forgetCases(cases);
                         
-                        numberOfCycles++;
-                    }          
+                        //Set the cases that acts as casebase in this cycle
+                        caseBase.learnCases(caseBaseSet);
+                        
+                        //Run cycle for each case in querySet (current fold)
+                        for(Object o: querySet)
+                        {   
+                        	CBRCase c = (CBRCase)o;
+            					LogFactory.getLog(this.getClass()).info(
+            							"Running cycle() " + numberOfCycles);
+            					app.cycle(c);
+                            
+                            numberOfCycles++;
+                        }
+                    }
                 } 
                 
+            }
+            } finally
+            {
+                if(parallel != null)
+                    parallel.close();
             }
 
-			//Revert case base to original state
-			caseBase.forgetCases(cases);
-			caseBase.learnCases(cases);
+			//Revert case base to original state. The concurrent cycles do not change it
+			if(parallel == null)
+			{
+				caseBase.forgetCases(cases);
+				caseBase.learnCases(cases);
+			}
             
             //Run the poscycle to finish the application
 			LogFactory.getLog(this.getClass()).info("Running postcycle()");
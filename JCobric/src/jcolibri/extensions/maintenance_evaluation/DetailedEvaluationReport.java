@@ -69,6 +69,32 @@ public class DetailedEvaluationReport extends EvaluationReport
     	queryData.put(label, queries);
     }
     
+    /**
+     * Returns an empty detailed report.
+     */
+    public EvaluationReport createPartialReport()
+    {	return new DetailedEvaluationReport();
+    }
+    
+    /**
+     * Adds the values and query results of the series of the given partial report 
+     * at the end of the series of this report, and copies its other data.
+     */
+    public void addReport(EvaluationReport partial)
+    {	super.addReport(partial);
+    	if(partial instanceof DetailedEvaluationReport)
+    	{	HashMap partialData = ((DetailedEvaluationReport)partial).queryData;
+    		for(Object o: partialData.keySet())
+    		{	List queries = (List)queryData.get(o);
+    			if(queries == null)
+    			{	queries = new LinkedList();
+    				queryData.put(o, queries);
+    			}
+    			queries.addAll((List)partialData.get(o));
+    		}
+    	}
+    }
+    
     /** 
      * Returns the names of the contained evaluation series.
      * @return the names of the contained evaluation series.
@@ -14,7 +14,6 @@ import java.util.Iterator;
 
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.cbrcore.CBRQuery;
-import jcolibri.extensions.recommendation.collaborative.MatrixCaseBase.RatingTuple;
 import jcolibri.extensions.recommendation.collaborative.MatrixCaseBase.SimilarTuple;
 import jcolibri.method.retrieve.RetrievalResult;
 
@@ -60,10 +59,23 @@ public class CollaborativeRetrievalMethod
 	}
 	
 	
+	// users without co-rated items are not listed: their similarity is 0, so they 
+	// do not change the rating but they are selected before the negative similarities
+	int uncorrelated = cb.getDescriptions().size() - 1 - cb.getNumberOfCorrelatedUsers(id);
 	ArrayList select = new ArrayList();
 	int i=0;
 	for(Iterator iter = simil.iterator(); (iter.hasNext() && i<kUsers);i++)
-	    select.add((SimilarTuple)iter.next());
+	{
+	    SimilarTuple st = (SimilarTuple)iter.next();
+	    if(st.getSimilarity() < 0 && uncorrelated > 0)
+	    {
+		i += Math.min(uncorrelated, kUsers - i);
+		uncorrelated = 0;
+		if(i >= kUsers)
+		    break;
+	    }
+	    select.add(st);
+	}
 	
 	
 	/////// debug
@@ -79,20 +91,28 @@ public class CollaborativeRetrievalMethod
 	}
 	/////////////
 	
+	int[] others = new int[select.size()];
+	double[] otherMeans = new double[select.size()];
+	double[] sims = new double[select.size()];
+	for(int j=0; j<others.length; j++)
+	{
+	    SimilarTuple st = (SimilarTuple)select.get(j);
+	    others[j] = st.getSimilarId();
+	    otherMeans[j] = cb.getAverage(others[j]);
+	    sims[j] = st.getSimilarity();
+	}
+	double mean = cb.getAverage(id);
+	
 	for(Object o : cb.getSolutions())
 	{
 		Integer solId = (Integer)o;
-	    double mean = cb.getAverage(id);
 	    double acum = 0;
 	    double simacum = 0;
-	    for(Object o1 : select)
+	    for(int j=0; j<others.length; j++)
 	    {
-	    	SimilarTuple st = (SimilarTuple)o1;
-		int other = st.getSimilarId();
-		double rating = findRating(cb, other, solId);
-		double otherMean = cb.getAverage(other);
-		acum += ((rating - otherMean) * st.getSimilarity());
-		simacum += st.getSimilarity();
+		double rating = cb.getRating(others[j], solId);
+		acum += ((rating - otherMeans[j]) * sims[j]);
+		simacum += sims[j];
 	    }
 	    double res = mean + (acum/simacum);
 	    
@@ -107,15 +127,4 @@ public class CollaborativeRetrievalMethod
 
 	return result;
     }
-    
-    private static double findRating(PearsonMatrixCaseBase cb, int descId, int solId)
-    {
-	for(Object o: cb.getRatingTuples(descId))
-	{
-		RatingTuple rt = (RatingTuple)o; 
-	    if(rt.getSolutionId() == solId)
-		return rt.getRating();
-	}
-	return 0;
-    }
 }
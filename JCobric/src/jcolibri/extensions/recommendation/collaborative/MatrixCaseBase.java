@@ -11,6 +11,7 @@ package jcolibri.extensions.recommendation.collaborative;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -99,6 +100,16 @@ public abstract class MatrixCaseBase implements CBRCaseBase
      */
     public abstract Collection getSimilar(Integer id);
     
+    /**
+     * Updates the similarity of neighbors after some of them made new ratings.
+     * By default it computes every similarity again. 
+     * @param changedDescriptions are the ids of the neighbors with new ratings
+     */
+    protected void updateSimilarities(Set changedDescriptions)
+    {
+	computeSimilarities();
+    }
+    
     //////////////////////////////////////////////////////////////////
     
     
@@ -188,18 +199,28 @@ public abstract class MatrixCaseBase implements CBRCaseBase
     /** Table that organizes solution components by id */
     HashMap solutions;
     
-    @SuppressWarnings("unchecked")
     /**
      * Organizes cases by the description id.
      */
     private void organizeByDescriptionId()
+    {
+	byDescriptionId = new HashMap();
+	descriptions = new HashMap();
+	solutions = new HashMap();
+	organize(cases);
+    }
+    
+    @SuppressWarnings("unchecked")
+    /**
+     * Adds the ratings of the given cases to the ones organized by description id.
+     * @return the set of description ids with new ratings
+     */
+    private Set organize(Collection cases)
     {
 	org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Organizing cases");
+	HashSet changed = new HashSet();
 	try
 	{
-	    byDescriptionId = new HashMap();
-	    descriptions = new HashMap();
-	    solutions = new HashMap();
 	    for(Object o: cases)
 	    {
 	    	CBRCase c = (CBRCase)o;
@@ -215,11 +236,12 @@ public abstract class MatrixCaseBase implements CBRCaseBase
 	        solutions.put(solId, c.getSolution());
 	        Number resId = (Number) value.getValue(c.getResult());
 	        list.add(new RatingTuple(solId, resId.doubleValue()));
+	        changed.add(descId);
 		ProgressController.step(MatrixCaseBase.class);
 
 	    }
-	    for(Object o: byDescriptionId.values()){
-	    	ArrayList list = (ArrayList)o;
+	    for(Object o: changed){
+	    	ArrayList list = (ArrayList)byDescriptionId.get(o);
 	    	java.util.Collections.sort(list);	
 	    }
 		
@@ -228,6 +250,7 @@ public abstract class MatrixCaseBase implements CBRCaseBase
 	    org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
 	    
 	}
+	return changed;
     }
     
     /**
@@ -262,14 +285,14 @@ public abstract class MatrixCaseBase implements CBRCaseBase
     }
 
     /**
-     * Adds new cases to the case base, reorganizing the cases base and re-computing neighbors similarities.
+     * Adds new cases to the case base, adding their ratings to the organized ones 
+     * and updating the similarities of the neighbors that made them.
      */
     public void learnCases(Collection cases)
     {
 	this.cases.addAll(cases);
 	connector.storeCases(cases);
-	organizeByDescriptionId();
-	computeSimilarities();
+	updateSimilarities(organize(cases));
     }
     
     
@@ -11,20 +11,34 @@ package jcolibri.extensions.recommendation.collaborative;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 import jcolibri.cbrcore.Attribute;
+import jcolibri.method.retrieve.NNretrieval.ParallelNNScoringMethod;
 
 /**
- * Extension of the MatrixCaseBase that computes similarities among neighbors 
+ * Extension of the MatrixCaseBase that computes similarities among neighbors
  * using the Pearson Correlation.
  * <br>
  * It uses a minCorrelateItems Factor to weight similar neighbors that have
  * few common correlate items.
- * 
+ * <p>
+ * Ratings are stored as a sparse matrix of primitive arrays, by user (rows) and by item (columns),
+ * so the similarities of a user are computed only with the users that rated some common item.
+ * Users without co-rated items have similarity 0 and are not listed as neighbors.
+ * The lists of neighbors of the users are computed in parallel and only the best
+ * maxNeighbours neighbors of each user are kept. Users that cannot reach the worst kept neighbor,
+ * even with perfect correlation weighted by the minCorrelateItems Factor, are skipped.
+ * When new ratings are learnt only the similarities with the users that rated them are computed again.
+ * <br>
+ * A user that rated an item several times is correlated using the first of these ratings.
+ *
  * @author Juan A. Recio-Garcia
  * @author Developed at University College Cork (Ireland) in collaboration with Derek Bridge.
  * @version 1.0
@@ -32,25 +46,47 @@ import jcolibri.cbrcore.Attribute;
  */
 public class PearsonMatrixCaseBase extends MatrixCaseBase
 {
-    /** 
-     * Factor that decreases the similarity between users 
-     * who have fewer than this number of co-rated items 
+    /** Number of users whose neighbors are computed by each parallel task */
+    private static final int CHUNK = 64;
+
+    /** Margin of the pruning bound, that protects it from rounding errors */
+    private static final double PRUNING_MARGIN = 1.000001;
+
+    /**
+     * Factor that decreases the similarity between users
+     * who have fewer than this number of co-rated items
      */
     int minCorrelateItemsFactor;
-    
+
+    /** Maximum number of neighbors kept for each user */
+    int maxNeighbours;
+
     /**
      * Constructor
      * @param value is the attribute of the result part of the case that contains the rating
-     * @param minCorrelateItemsFactor factor that decreases the similarity between users 
+     * @param minCorrelateItemsFactor factor that decreases the similarity between users
      * who have fewer than this number of co-rated items
      */
     public PearsonMatrixCaseBase(Attribute value, int minCorrelateItemsFactor)
+    {
+	this(value, minCorrelateItemsFactor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor
+     * @param value is the attribute of the result part of the case that contains the rating
+     * @param minCorrelateItemsFactor factor that decreases the similarity between users
+     * who have fewer than this number of co-rated items
+     * @param maxNeighbours is the maximum number of similar users kept for each user
+     */
+    public PearsonMatrixCaseBase(Attribute value, int minCorrelateItemsFactor, int maxNeighbours)
     {
 	super(value);
 	this.minCorrelateItemsFactor = minCorrelateItemsFactor;
+	this.maxNeighbours = maxNeighbours;
     }
-    
-    
+
+
     @Override
     /**
      * Computes the similarity between users
@@ -58,139 +94,512 @@ public class PearsonMatrixCaseBase extends MatrixCaseBase
     protected void computeSimilarities()
     {
 	this.computeAverages();
-	this.computeSimilarityByDescriptionId();
-	this.computeSimilarityLists();
-    }
-    
-    // stores the similarity lists
-    private HashMap similLists;
-    
-    @SuppressWarnings("unchecked")
-    private void computeSimilarityLists()
-    {
-	similLists = new HashMap();
-	for(Object o: similarities.keySet())
-	{
-		Integer key = (Integer)o;
-	    ArrayList list = new ArrayList();
-	    HashMap similMap = (HashMap)similarities.get(key);
-	    for(Object o1 : similMap.entrySet()){
-	    	Entry entry = (Entry)o1;
-	    	list.add(new SimilarTuple((Integer)entry.getKey(), (Double)entry.getValue()));	
+	this.buildMatrix();
+	org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Computing similarities");
+	int n = userIds.length;
+	neighbours = new int[n][];
+	neighbourSims = new double[n][];
+	correlated = new int[n];
+	int[] all = new int[n];
+	for(int u=0; u<n; u++)
+	    all[u] = u;
+	computeNeighbours(all, null);
+    }
+
+    @Override
+    /**
+     * Updates the similarities of the users with new ratings, and their
+     * similarities in the lists of the users that rated the same items.
+     */
+    protected void updateSimilarities(Set changedDescriptions)
+    {
+	if(neighbours == null)
+	{
+	    computeSimilarities();
+	    return;
+	}
+	int oldUsers = userIds.length;
+	int[] oldCorrelated = correlated;
+	int[] oldRowStart = rowStart;
+	int[] oldRowSolutions = rowSolutions;
+
+	this.computeAverages();
+	this.buildMatrix();
+	org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Updating similarities of "+changedDescriptions.size()+" users");
+	int n = userIds.length;
+	neighbours = copyOf(neighbours, n);
+	neighbourSims = copyOf(neighbourSims, n);
+	correlated = new int[n];
+	System.arraycopy(oldCorrelated, 0, correlated, 0, oldUsers);
+
+	boolean[] changed = new boolean[n];
+	int[] changedUsers = new int[changedDescriptions.size()];
+	int c = 0;
+	for(Object o: changedDescriptions)
+	{
+	    int u = userIndex.get((Integer)o);
+	    changed[u] = true;
+	    changedUsers[c++] = u;
+	}
+
+	// lists of the changed users, reporting their similarities with the other users
+	List<SimilarityPairs> pairs = computeNeighbours(changedUsers, changed);
+
+	// group the new similarities by the other user
+	int[] start = new int[n+1];
+	for(SimilarityPairs p: pairs)
+	    for(int i=0; i<p.size; i++)
+		start[p.others[i]+1]++;
+	for(int v=0; v<n; v++)
+	    start[v+1] += start[v];
+	int[] pos = new int[n];
+	System.arraycopy(start, 0, pos, 0, n);
+	int[] pairUsers = new int[start[n]];
+	double[] pairSims = new double[start[n]];
+	for(SimilarityPairs p: pairs)
+	    for(int i=0; i<p.size; i++)
+	    {
+		int j = pos[p.others[i]]++;
+		pairUsers[j] = p.users[i];
+		pairSims[j] = p.sims[i];
 	    }
-		
-	    java.util.Collections.sort(list);
-	    similLists.put(key, list);
+
+	int[] recompute = new int[n];
+	int r = 0;
+	for(int v=0; v<n; v++)
+	{
+	    if(start[v] == start[v+1])
+		continue;
+	    for(int j=start[v]; j<start[v+1]; j++)
+	    {
+		int u = pairUsers[j];
+		if(u >= oldUsers || !coRated(oldRowStart, oldRowSolutions, u, v))
+		    correlated[v]++;
+	    }
+	    if(!updateNeighbours(v, v < oldUsers ? oldCorrelated[v] : 0, changed, pairUsers, pairSims, start[v], start[v+1]))
+		recompute[r++] = v;
+	}
+
+	// lists that lost neighbors that could have been replaced by the discarded ones
+	if(r > 0)
+	{
+	    int[] users = new int[r];
+	    System.arraycopy(recompute, 0, users, 0, r);
+	    computeNeighbours(users, null);
 	}
     }
-    
+
+    /**
+     * Replaces the similarities with the changed users in the list of neighbors of a user.
+     * Returns false if the list must be computed again because some neighbors
+     * discarded when it was computed could belong to it now.
+     */
+    private boolean updateNeighbours(int v, int oldCorrelated, boolean[] changed, int[] pairUsers, double[] pairSims, int from, int to)
+    {
+	int[] oldList = neighbours[v];
+	double[] oldSims = neighbourSims[v];
+	int oldLength = oldList == null ? 0 : oldList.length;
+	NeighbourHeap heap = new NeighbourHeap(Math.min(maxNeighbours, oldLength + to - from));
+	for(int i=0; i<oldLength; i++)
+	    if(!changed[oldList[i]])
+		heap.offer(oldList[i], oldSims[i]);
+	for(int j=from; j<to; j++)
+	    heap.offer(pairUsers[j], pairSims[j]);
+
+	// the neighbors discarded from the old list were worse than its last one
+	if(oldLength < oldCorrelated)
+	{
+	    if(heap.size < maxNeighbours)
+		return false;
+	    if(heap.size > 0 && isWorse(heap.users[0], heap.sims[0], oldList[oldLength-1], oldSims[oldLength-1]))
+		return false;
+	}
+	heap.toList(v);
+	return true;
+    }
+
+    /**
+     * Computes the lists of neighbors of the given users using the default executor.
+     * If changed is not null the similarities of the users with the not changed users are also returned.
+     */
+    private List<SimilarityPairs> computeNeighbours(int[] users, final boolean[] changed)
+    {
+	final List<SimilarityPairs> res = new ArrayList<SimilarityPairs>();
+	if(users.length <= CHUNK)
+	{
+	    res.add(computeNeighbours(users, 0, users.length, changed));
+	    return res;
+	}
+
+	ExecutorService executor = ParallelNNScoringMethod.getDefaultExecutor();
+	List<Future<SimilarityPairs>> futures = new ArrayList<Future<SimilarityPairs>>();
+	for(int first = 0; first < users.length; first += CHUNK)
+	{
+	    final int[] chunk = users;
+	    final int from = first;
+	    final int to = Math.min(first + CHUNK, users.length);
+	    futures.add(executor.submit(new Callable<SimilarityPairs>()
+	    {
+		public SimilarityPairs call()
+		{
+		    return computeNeighbours(chunk, from, to, changed);
+		}
+	    }));
+	}
+	try
+	{
+	    for(Future<SimilarityPairs> f: futures)
+		res.add(f.get());
+	} catch(InterruptedException e)
+	{
+	    for(Future<SimilarityPairs> f: futures)
+		f.cancel(true);
+	    Thread.currentThread().interrupt();
+	    throw new RuntimeException(e);
+	} catch(ExecutionException e)
+	{
+	    for(Future<SimilarityPairs> f: futures)
+		f.cancel(true);
+	    Throwable cause = e.getCause();
+	    if(cause instanceof RuntimeException)
+		throw (RuntimeException)cause;
+	    if(cause instanceof Error)
+		throw (Error)cause;
+	    throw new RuntimeException(cause);
+	}
+	return res;
+    }
+
+    /**
+     * Computes the lists of neighbors of users[from..to-1].
+     */
+    private SimilarityPairs computeNeighbours(int[] users, int from, int to, boolean[] changed)
+    {
+	RowAccumulator acc = new RowAccumulator(userIds.length);
+	SimilarityPairs pairs = changed == null ? null : new SimilarityPairs();
+	for(int i=from; i<to; i++)
+	    computeRow(users[i], acc, changed, pairs);
+	return pairs;
+    }
+
+    /**
+     * Computes the Pearson Correlation between a user and the users that rated some of its items,
+     * and keeps the best ones as its neighbors.
+     * The sums of each pair are accumulated in the order of the items of the user, so the correlation
+     * is the same in both directions.
+     * This code is an adaptation of the one developed by Jerome Kelleher and Derek Bridge
+     * for the Collaborative Movie Recommender project at University College Cork (Ireland).
+     */
+    private void computeRow(int u, RowAccumulator acc, boolean[] changed, SimilarityPairs pairs)
+    {
+	int touched = 0;
+	// X corresponds to active, Y to predictor.
+	for(int p=rowStart[u]; p<rowStart[u+1]; p++)
+	{
+	    int item = rowItems[p];
+	    double x = rowRatings[p];
+	    for(int q=colStart[item]; q<colStart[item+1]; q++)
+	    {
+		int v = colUsers[q];
+		if(v == u)
+		    continue;
+		double y = colRatings[q];
+		if(acc.count[v] == 0)
+		    acc.touched[touched++] = v;
+		acc.count[v]++;
+		acc.sumX[v] += x;
+		acc.sumY[v] += y;
+		acc.sumXSquared[v] += square(x);
+		acc.sumYSquared[v] += square(y);
+		acc.sumXY[v] += (x * y);
+	    }
+	}
+	correlated[u] = touched;
+
+	NeighbourHeap heap = new NeighbourHeap(Math.min(maxNeighbours, touched));
+	for(int t=0; t<touched; t++)
+	{
+	    int v = acc.touched[t];
+	    double numDataPoints = acc.count[v];
+	    boolean report = pairs != null && !changed[v];
+	    // weighted correlation cannot be greater than numDataPoints / minCorrelateItemsFactor
+	    boolean candidate = heap.size < heap.capacity || (heap.capacity > 0 && (minCorrelateItemsFactor <= 0
+		    || !(numDataPoints * PRUNING_MARGIN / minCorrelateItemsFactor < heap.sims[0])));
+	    if(report || candidate)
+	    {
+		double correlation = correlation(numDataPoints, acc.sumX[v], acc.sumY[v],
+			acc.sumXSquared[v], acc.sumYSquared[v], acc.sumXY[v]);
+		heap.offer(v, correlation);
+		if(report)
+		    pairs.add(u, v, correlation);
+	    }
+	    acc.clear(v);
+	}
+	heap.toList(u);
+    }
+
+    /**
+     * Computes the weighted Pearson Correlation from the sums of the common ratings.
+     */
+    private double correlation(double numDataPoints, double sumX, double sumY,
+	    double sumXSquared, double sumYSquared, double sumXY)
+    {
+	double correlation = 0.0;
+	if (numDataPoints != 0 )
+	{  double numerator = sumXY - ((sumX * sumY) / numDataPoints);
+	   double sqrt =
+	      (sumXSquared - (square(sumX) / numDataPoints)) *
+	      (sumYSquared - (square(sumY) / numDataPoints));
+	   double denominator = Math.sqrt(sqrt);
+
+	   // output 0 here according to Herlocker's recommendations,
+	   // also watch for negative square roots (extremely rare)
+	   correlation = denominator == 0.0 || sqrt < 0.0 ? 0.0 :
+	      numerator / denominator;
+	   correlation = correlation * numDataPoints / minCorrelateItemsFactor;
+	}
+	return correlation;
+    }
+
+    /**
+     * Computes the Pearson Correlation between two users merging their ratings.
+     */
+    private double correlation(int u, int v)
+    {
+	double sumX = 0.0;
+	double sumXSquared = 0.0;
+	double sumY = 0.0;
+	double sumYSquared = 0.0;
+	double sumXY = 0.0;
+	double numDataPoints = 0;
+	int p = rowStart[u];
+	int q = rowStart[v];
+	while(p < rowStart[u+1] && q < rowStart[v+1])
+	{
+	    if(rowSolutions[p] < rowSolutions[q])
+		p++;
+	    else if(rowSolutions[p] > rowSolutions[q])
+		q++;
+	    else
+	    {
+		double x = rowRatings[p++];
+		double y = rowRatings[q++];
+		numDataPoints++;
+		sumX += x;
+		sumY += y;
+		sumXSquared += square(x);
+		sumYSquared += square(y);
+		sumXY += (x * y);
+	    }
+	}
+	return correlation(numDataPoints, sumX, sumY, sumXSquared, sumYSquared, sumXY);
+    }
+
+    /**
+     * Returns true if two users rated a common item in the given rows.
+     */
+    private static boolean coRated(int[] start, int[] solutions, int u, int v)
+    {
+	int p = start[u];
+	int q = start[v];
+	while(p < start[u+1] && q < start[v+1])
+	{
+	    if(solutions[p] < solutions[q])
+		p++;
+	    else if(solutions[p] > solutions[q])
+		q++;
+	    else
+		return true;
+	}
+	return false;
+    }
+
+    /**
+     * Returns true if the first neighbor is worse than the second one:
+     * it has lower similarity or, with the same similarity, greater id.
+     */
+    private boolean isWorse(int u, double simU, int v, double simV)
+    {
+	return simU < simV || (simU == simV && userIds[u] > userIds[v]);
+    }
+
     @Override
     /**
-     * Returns a list of similar users to a given one in decreasing order 
+     * Returns a list of similar users to a given one in decreasing order
      */
     public Collection getSimilar(Integer id)
     {
-	return (Collection)similLists.get(id);
+	Integer u = userIndex == null ? null : userIndex.get(id);
+	if(u == null)
+	    return null;
+	int[] list = neighbours[u];
+	double[] sims = neighbourSims[u];
+	ArrayList<SimilarTuple> res = new ArrayList<SimilarTuple>(list.length);
+	for(int i=0; i<list.length; i++)
+	    res.add(new SimilarTuple(userIds[list[i]], sims[i]));
+	return res;
     }
-    
-    
+
+
     @Override
     /**
      * Returns the similarity between two users
      */
     public double getSimil(Integer id1, Integer id2)
     {
-	return similarities.get(id1).get(id2);
+	return correlation(userIndex.get(id1), userIndex.get(id2));
     }
-    
-    
-    // table to store the similarities
-    private HashMap similarities;
- 
-    
 
-    @SuppressWarnings("unchecked")
     /**
-     * Computes the Pearson Correlation between users in a smart and efficient way.
-     * This code is an adaptation of the one developed by Jerome Kelleher and Derek Bridge 
-     * for the Collaborative Movie Recommender project at University College Cork (Ireland).
+     * Returns the number of users that rated some item rated by the given user.
+     * The rest of the users have similarity 0 with it and are not listed by getSimilar().
+     * @param id is the user
      */
-    private void computeSimilarityByDescriptionId()
+    public int getNumberOfCorrelatedUsers(int id)
     {
-	org.apache.commons.logging.LogFactory.getLog(this.getClass()).info("Computing similarities");
-	similarities = new HashMap();
-	HashSet keyCopy = new HashSet(byDescriptionId.keySet());
-	for( Object o: byDescriptionId.keySet())
+	return correlated[userIndex.get(id)];
+    }
+
+    /**
+     * Returns the rating of a user for an item
+     * @param descriptionId is the user
+     * @param solutionId is the item
+     * @return the rating, or 0 if the user did not rate the item
+     */
+    public double getRating(int descriptionId, int solutionId)
+    {
+	int u = userIndex.get(descriptionId);
+	int low = rowStart[u];
+	int high = rowStart[u+1] - 1;
+	while(low <= high)
+	{
+	    int mid = (low + high) >>> 1;
+	    if(rowSolutions[mid] < solutionId)
+		low = mid + 1;
+	    else if(rowSolutions[mid] > solutionId)
+		high = mid - 1;
+	    else
+		return rowRatings[mid];
+	}
+	return 0;
+    }
+
+
+    // users by index, and index of each user id
+    private int[] userIds;
+    private HashMap<Integer,Integer> userIndex;
+    // index of each item id
+    private HashMap<Integer,Integer> itemIndex;
+
+    // ratings by user: row u is stored in [rowStart[u], rowStart[u+1]) sorted by item id
+    private int[] rowStart;
+    private int[] rowSolutions;
+    private int[] rowItems;
+    private double[] rowRatings;
+
+    // ratings by item: column i is stored in [colStart[i], colStart[i+1])
+    private int[] colStart;
+    private int[] colUsers;
+    private double[] colRatings;
+
+    // lists of neighbors of each user by decreasing similarity
+    private int[][] neighbours;
+    private double[][] neighbourSims;
+    // number of users that rated some common item with each user
+    private int[] correlated;
+
+    /**
+     * Builds the sparse rating matrix. Users and items keep their indexes
+     * from previous calls, and new ones are added at the end.
+     */
+    private void buildMatrix()
+    {
+	if(userIndex == null)
 	{
-		Integer me= (Integer)o;
-	    keyCopy.remove(me);
-	    for( Object o1: keyCopy)
+	    userIds = new int[0];
+	    userIndex = new HashMap<Integer, Integer>();
+	    itemIndex = new HashMap<Integer, Integer>();
+	}
+	ArrayList<Integer> newUsers = new ArrayList<Integer>();
+	for(Object o: byDescriptionId.keySet())
+	    if(!userIndex.containsKey(o))
+		newUsers.add((Integer)o);
+	int[] ids = new int[userIds.length + newUsers.size()];
+	System.arraycopy(userIds, 0, ids, 0, userIds.length);
+	for(Integer id: newUsers)
+	{
+	    userIndex.put(id, userIndex.size());
+	    ids[userIndex.size()-1] = id;
+	}
+	userIds = ids;
+	int n = userIds.length;
+
+	rowStart = new int[n+1];
+	for(int u=0; u<n; u++)
+	    rowStart[u+1] = rowStart[u] + countItems((ArrayList)byDescriptionId.get(userIds[u]));
+	rowSolutions = new int[rowStart[n]];
+	rowItems = new int[rowStart[n]];
+	rowRatings = new double[rowStart[n]];
+	int p = 0;
+	for(int u=0; u<n; u++)
+	{
+	    int last = 0;
+	    for(Object o: (ArrayList)byDescriptionId.get(userIds[u]))
 	    {
-	    	Integer you = (Integer)o1;
-		      Iterator ratings = new CommonRatingsIterator(me, you, byDescriptionId.get(me), byDescriptionId.get(you));
-		      double sumX = 0.0;
-		      double sumXSquared = 0.0;
-		      double sumY = 0.0;
-		      double sumYSquared = 0.0;
-		      double sumXY = 0.0;
-		      double numDataPoints = 0;
-		      // X corresponds to active, Y to predictor.
-		      while (ratings.hasNext())
-		      {  
-			 CommonRatingTuple rt = (CommonRatingTuple) ratings.next();
-			 double x = rt.getRating1();
-			 double y = rt.getRating2();
-		         numDataPoints++;
-		         sumX += x;
-		         sumY += y;
-		         sumXSquared += square(x);
-		         sumYSquared += square(y);
-		         sumXY += (x * y);
-		      }
-		      // update AbstractMovieRecommender by the correct comparison count.
-		      // Modified to remove comparisons required for search
-		      // AbstractMovieRecommender.addToComparisonCount(numDataPoints);
-
-		      double correlation = 0.0;
-		      if (numDataPoints != 0 )
-		      {  double numerator = sumXY - ((sumX * sumY) / numDataPoints);
-		         double sqrt =
-		            (sumXSquared - (square(sumX) / numDataPoints)) *
-		            (sumYSquared - (square(sumY) / numDataPoints));
-		         double denominator = Math.sqrt(sqrt);
-
-		         // output 0 here according to Herlocker's recommendations,
-		         // also watch for negative square roots (extremely rare)
-		         correlation = denominator == 0.0 || sqrt < 0.0 ? 0.0 :
-		            numerator / denominator;
-		         correlation = correlation * numDataPoints / minCorrelateItemsFactor;
-		      }
-		
-		
-		
-		HashMap<Integer,Double> mySimilList = similarities.get(me);
-		if(mySimilList == null)
-		{
-		    mySimilList = new HashMap<Integer, Double>();
-		    similarities.put(me, mySimilList);
-		}
-		mySimilList.put(you, correlation);
-		
-		HashMap<Integer,Double> yourSimilList = similarities.get(you);
-		if(yourSimilList == null)
+		RatingTuple rt = (RatingTuple)o;
+		if(p > rowStart[u] && rt.getSolutionId() == last)
+		    continue;
+		last = rt.getSolutionId();
+		Integer item = itemIndex.get(last);
+		if(item == null)
 		{
-		    yourSimilList = new HashMap<Integer, Double>();
-		    similarities.put(you, yourSimilList);
+		    item = itemIndex.size();
+		    itemIndex.put(last, item);
 		}
-		yourSimilList.put(me, correlation);
-		
+		rowSolutions[p] = last;
+		rowItems[p] = item;
+		rowRatings[p] = rt.getRating();
+		p++;
 	    }
 	}
+
+	int m = itemIndex.size();
+	colStart = new int[m+1];
+	for(int i=0; i<rowItems.length; i++)
+	    colStart[rowItems[i]+1]++;
+	for(int i=0; i<m; i++)
+	    colStart[i+1] += colStart[i];
+	int[] pos = new int[m];
+	System.arraycopy(colStart, 0, pos, 0, m);
+	colUsers = new int[rowItems.length];
+	colRatings = new double[rowItems.length];
+	for(int u=0; u<n; u++)
+	    for(int q=rowStart[u]; q<rowStart[u+1]; q++)
+	    {
+		int j = pos[rowItems[q]]++;
+		colUsers[j] = u;
+		colRatings[j] = rowRatings[q];
+	    }
+    }
+
+    // returns the number of different items in a sorted list of ratings
+    private static int countItems(ArrayList list)
+    {
+	int count = 0;
+	int last = 0;
+	for(Object o: list)
+	{
+	    RatingTuple rt = (RatingTuple)o;
+	    if(count == 0 || rt.getSolutionId() != last)
+		count++;
+	    last = rt.getSolutionId();
+	}
+	return count;
     }
 
     // stores the averages
     private HashMap<Integer,Double> averages;
-    
+
     // computes the averages
     private void computeAverages()
     {
@@ -198,19 +607,19 @@ public class PearsonMatrixCaseBase extends MatrixCaseBase
 	averages = new HashMap<Integer, Double>();
 	for(Object o : byDescriptionId.keySet())
 	{
-		Integer i = (Integer)o;
+	    Integer i = (Integer)o;
 	    ArrayList list = (ArrayList)byDescriptionId.get(i);
 	    double acum = 0;
 	    for(Object o1 : list){
-	    	RatingTuple rt = (RatingTuple)o1;
-	    	acum += rt.getRating();	
+		RatingTuple rt = (RatingTuple)o1;
+		acum += rt.getRating();
 	    }
-		
+
 	    double size = list.size();
 	    averages.put(i, acum/size);
 	}
     }
-    
+
     /**
      * returns the ratings average for a given user
      * @param id is the user
@@ -220,9 +629,9 @@ public class PearsonMatrixCaseBase extends MatrixCaseBase
     {
 	return averages.get(id);
     }
-    
-    
-    
+
+
+
     /**
      * Return the square of the parameter number.
      *
@@ -233,4 +642,163 @@ public class PearsonMatrixCaseBase extends MatrixCaseBase
     {  return n * n;
     }
 
+    private static int[][] copyOf(int[][] array, int length)
+    {
+	int[][] res = new int[length][];
+	System.arraycopy(array, 0, res, 0, array.length);
+	return res;
+    }
+
+    private static double[][] copyOf(double[][] array, int length)
+    {
+	double[][] res = new double[length][];
+	System.arraycopy(array, 0, res, 0, array.length);
+	return res;
+    }
+
+    /**
+     * Sums of the common ratings of a user with the rest of users, indexed by user.
+     */
+    private static class RowAccumulator
+    {
+	int[] count;
+	double[] sumX;
+	double[] sumY;
+	double[] sumXSquared;
+	double[] sumYSquared;
+	double[] sumXY;
+	// users with some common rating
+	int[] touched;
+
+	RowAccumulator(int n)
+	{
+	    count = new int[n];
+	    sumX = new double[n];
+	    sumY = new double[n];
+	    sumXSquared = new double[n];
+	    sumYSquared = new double[n];
+	    sumXY = new double[n];
+	    touched = new int[n];
+	}
+
+	void clear(int v)
+	{
+	    count[v] = 0;
+	    sumX[v] = 0;
+	    sumY[v] = 0;
+	    sumXSquared[v] = 0;
+	    sumYSquared[v] = 0;
+	    sumXY[v] = 0;
+	}
+    }
+
+    /**
+     * Similarities between pairs of users.
+     */
+    private static class SimilarityPairs
+    {
+	int[] users = new int[16];
+	int[] others = new int[16];
+	double[] sims = new double[16];
+	int size;
+
+	void add(int u, int v, double sim)
+	{
+	    if(size == users.length)
+	    {
+		int[] u2 = new int[size*2];
+		int[] v2 = new int[size*2];
+		double[] s2 = new double[size*2];
+		System.arraycopy(users, 0, u2, 0, size);
+		System.arraycopy(others, 0, v2, 0, size);
+		System.arraycopy(sims, 0, s2, 0, size);
+		users = u2;
+		others = v2;
+		sims = s2;
+	    }
+	    users[size] = u;
+	    others[size] = v;
+	    sims[size] = sim;
+	    size++;
+	}
+    }
+
+    /**
+     * Bounded heap that keeps the best neighbors offered, with the worst one at the top.
+     */
+    private class NeighbourHeap
+    {
+	int capacity;
+	int[] users;
+	double[] sims;
+	int size;
+
+	NeighbourHeap(int capacity)
+	{
+	    this.capacity = capacity;
+	    users = new int[capacity];
+	    sims = new double[capacity];
+	}
+
+	void offer(int v, double sim)
+	{
+	    if(size < capacity)
+	    {
+		int i = size++;
+		while(i > 0)
+		{
+		    int parent = (i - 1) >>> 1;
+		    if(!isWorse(v, sim, users[parent], sims[parent]))
+			break;
+		    users[i] = users[parent];
+		    sims[i] = sims[parent];
+		    i = parent;
+		}
+		users[i] = v;
+		sims[i] = sim;
+	    }
+	    else if(capacity > 0 && isWorse(users[0], sims[0], v, sim))
+		siftDown(v, sim);
+	}
+
+	// replaces the top with the given neighbor
+	private void siftDown(int v, double sim)
+	{
+	    int i = 0;
+	    while(true)
+	    {
+		int child = 2*i + 1;
+		if(child >= size)
+		    break;
+		if(child + 1 < size && isWorse(users[child+1], sims[child+1], users[child], sims[child]))
+		    child++;
+		if(!isWorse(users[child], sims[child], v, sim))
+		    break;
+		users[i] = users[child];
+		sims[i] = sims[child];
+		i = child;
+	    }
+	    users[i] = v;
+	    sims[i] = sim;
+	}
+
+	/**
+	 * Stores the neighbors as the list of the given user, emptying the heap.
+	 */
+	void toList(int u)
+	{
+	    int[] list = new int[size];
+	    double[] listSims = new double[size];
+	    while(size > 0)
+	    {
+		list[size-1] = users[0];
+		listSims[size-1] = sims[0];
+		size--;
+		if(size > 0)
+		    siftDown(users[size], sims[size]);
+	    }
+	    neighbours[u] = list;
+	    neighbourSims[u] = listSims;
+	}
+    }
 }
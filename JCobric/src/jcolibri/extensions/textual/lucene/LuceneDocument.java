@@ -32,6 +32,14 @@ public class LuceneDocument {
     	setDocID(docID);
     }
     
+    /**
+     * Wraps a document read from the index.
+     */
+    LuceneDocument(Document doc)
+    {
+    	this.doc = doc;
+    }
+    
     protected Document getInternalDocument()
     {
     	return doc;
@@ -40,7 +48,8 @@ public class LuceneDocument {
     
     public void setDocID(String id)
     {
-    	doc.add(new Field(ID_FIELD, id, Field.Store.YES, Field.Index.NO));    	
+    	// indexed without tokenizing so that LuceneIndex can replace and delete documents by their ID
+    	doc.add(new Field(ID_FIELD, id, Field.Store.YES, Field.Index.UN_TOKENIZED));    	
     }
     public String getDocID()
     {
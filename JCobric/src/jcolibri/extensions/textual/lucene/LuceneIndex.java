@@ -16,9 +16,15 @@ import java.util.Collection;
 import jcolibri.util.ProgressController;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.RAMDirectory;
 
 /**
@@ -27,12 +33,22 @@ import org.apache.lucene.store.RAMDirectory;
  * <br>
  * It also mantains a hash table that allows to retrieve a document form the index given its ID.
  * <p>
- * There are two ways to store the index:
+ * There are three ways to store the index:
  * <ul>
  * <li>In the file system. It saves the index in a directory. It is slower but does not consume memory.
+ * <li>In the file system, accessed through memory-mapped files. The operating system keeps the used parts
+ * of the index in memory, so it is suitable for large corpora.
  * <li>In memory. It stores the index in memory. You will need very much RAM memory but it will work quickly. 
  * If you obtain an outOfMemoryException try the -Xms -Xmx VM params.
  * </ul>
+ * Documents can be added, replaced and deleted after creating the index with addDocuments() and deleteDocuments().
+ * These changes are applied to the existing index and the searches done afterwards see them:
+ * the shared searcher is refreshed reopening only the changed segments of the index.
+ * <p>
+ * Searches share one IndexSearcher, obtained with acquireSearcher() and given back with releaseSearcher().
+ * A searcher replaced by a refresh is closed when the last search that uses it releases it.
+ * <p>
+ * Incremental updates, memory-mapped directories and searcher refreshes require Lucene 2.4 or later.
  * @author Juan A. Recio-Garca
  * @version 2.0
  */
@@ -41,27 +57,75 @@ public class LuceneIndex{
 	private Directory directory;
 	private java.util.HashMap<String, LuceneDocument> docsMapping;
 
+	/** Searcher shared by the searches, or null if it has not been opened. */
+	private SharedSearcher searcher;
+	
+	/** Open searchers: the shared one and the replaced ones still in use. */
+	private java.util.IdentityHashMap<IndexSearcher, SharedSearcher> openSearchers = new java.util.IdentityHashMap<IndexSearcher, SharedSearcher>();
+	
+	/** True when the index has changed since the shared searcher was opened. */
+	private boolean stale;
+
+	/**
+	 * An IndexSearcher with the number of searches that use it.
+	 */
+	private static class SharedSearcher
+	{
+		IndexReader reader;
+		IndexSearcher searcher;
+		int references;
+		boolean replaced;
+		
+		SharedSearcher(IndexReader reader)
+		{
+			this.reader = reader;
+			this.searcher = new IndexSearcher(reader);
+		}
+	}
+
 	/**
 	 * Creates a LuceneIndex stored in the File System.
 	 * @param directory to store the index once generated
 	 * @param documents to index
 	 */
 	public LuceneIndex(File directory,  Collection<LuceneDocument> documents)
+	{
+		this(directory, documents, false);
+	}
+	
+	/**
+	 * Creates a LuceneIndex stored in the File System.
+	 * @param directory to store the index once generated
+	 * @param documents to index
+	 * @param memoryMapped if the index files are accessed as memory-mapped files
+	 */
+	public LuceneIndex(File directory,  Collection<LuceneDocument> documents, boolean memoryMapped)
 	{
 		this.docsMapping = new java.util.HashMap<String, LuceneDocument>();
 
 	    org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).info("Creating File System Index in: "+directory.getPath());
 		
-		try {
-			this.directory = FSDirectory.getDirectory(directory);
-		} catch (IOException e) {
-			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);
-		}
+		openDirectory(directory, memoryMapped);
 
 		createIndex(documents);
 
 	}
 	
+	/**
+	 * Opens an index stored in the File System without indexing the documents again.
+	 * The documents returned by getDocument() are read from the fields stored in the index.
+	 * @param directory containing the index
+	 * @param memoryMapped if the index files are accessed as memory-mapped files
+	 */
+	public LuceneIndex(File directory, boolean memoryMapped)
+	{
+		this.docsMapping = new java.util.HashMap<String, LuceneDocument>();
+
+	    org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).info("Opening File System Index in: "+directory.getPath());
+	    
+		openDirectory(directory, memoryMapped);
+	}
+	
 	/**
 	 * Creates an index stored into memory.
 	 * @param documents to index.
@@ -75,7 +139,19 @@ public class LuceneIndex{
 		createIndex(documents);
 	}
 
-	private void createIndex(Collection<LuceneDocument> documents)
+	private void openDirectory(File directory, boolean memoryMapped)
+	{
+		try {
+			if(memoryMapped)
+				this.directory = new MMapDirectory(directory, null);
+			else
+				this.directory = FSDirectory.getDirectory(directory);
+		} catch (IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);
+		}
+	}
+
+	private synchronized void createIndex(Collection<LuceneDocument> documents)
 	{
 		try {
 			
@@ -94,14 +170,145 @@ public class LuceneIndex{
 			
 			writer.optimize();
 		    writer.close();
+		    stale = true;
 		    ProgressController.finish(this.getClass());
 		} catch (Exception e) {
 			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);		
 		}
 	}
 
+	/**
+	 * Adds documents to the index. A document replaces the indexed document with the same ID.
+	 * The index is not optimized, so this only costs time proportional to the number of documents added.
+	 */
+	public synchronized void addDocuments(Collection<LuceneDocument> documents)
+	{
+		if(documents.isEmpty())
+			return;
+		try {
+			IndexWriter writer = new IndexWriter(directory,  new StandardAnalyzer(), false);
+			try {
+				for(LuceneDocument doc: documents)
+				{
+					writer.updateDocument(new Term(LuceneDocument.ID_FIELD, doc.getDocID()), doc.getInternalDocument());
+					docsMapping.put(doc.getDocID(), doc);
+				}
+			} finally {
+				writer.close();
+				stale = true;
+			}
+		} catch (Exception e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);		
+		}
+	}
+	
+	/**
+	 * Deletes the documents with the given IDs from the index.
+	 */
+	public synchronized void deleteDocuments(Collection<String> docIds)
+	{
+		if(docIds.isEmpty())
+			return;
+		try {
+			IndexWriter writer = new IndexWriter(directory,  new StandardAnalyzer(), false);
+			try {
+				for(String id: docIds)
+				{
+					writer.deleteDocuments(new Term(LuceneDocument.ID_FIELD, id));
+					docsMapping.remove(id);
+				}
+			} finally {
+				writer.close();
+				stale = true;
+			}
+		} catch (Exception e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);		
+		}
+	}
 	
+	/**
+	 * Merges the segments of the index to speed up the searches. It takes time proportional to the size of the index.
+	 */
+	public synchronized void optimize()
+	{
+		try {
+			IndexWriter writer = new IndexWriter(directory,  new StandardAnalyzer(), false);
+			try {
+				writer.optimize();
+			} finally {
+				writer.close();
+				stale = true;
+			}
+		} catch (Exception e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);		
+		}
+	}
 	
+	/**
+	 * Returns the searcher shared by the searches, refreshed if the index has changed.
+	 * It must be given back with releaseSearcher() once the results have been read.
+	 */
+	public synchronized IndexSearcher acquireSearcher() throws IOException
+	{
+		if(searcher == null)
+		{
+			searcher = new SharedSearcher(IndexReader.open(directory));
+			openSearchers.put(searcher.searcher, searcher);
+		}
+		else if(stale)
+		{
+			IndexReader reader = searcher.reader.reopen();
+			if(reader != searcher.reader)
+			{
+				SharedSearcher old = searcher;
+				searcher = new SharedSearcher(reader);
+				openSearchers.put(searcher.searcher, searcher);
+				old.replaced = true;
+				if(old.references == 0)
+					closeSearcher(old);
+			}
+		}
+		stale = false;
+		searcher.references++;
+		return searcher.searcher;
+	}
+	
+	/**
+	 * Gives back a searcher obtained with acquireSearcher().
+	 */
+	public synchronized void releaseSearcher(IndexSearcher indexSearcher)
+	{
+		SharedSearcher shared = openSearchers.get(indexSearcher);
+		if(shared == null)
+			return;
+		shared.references--;
+		if(shared.replaced && shared.references == 0)
+			closeSearcher(shared);
+	}
+	
+	private void closeSearcher(SharedSearcher shared)
+	{
+		openSearchers.remove(shared.searcher);
+		try {
+			shared.searcher.close();
+			shared.reader.close();
+		} catch (IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);
+		}
+	}
+	
+	/**
+	 * Closes the shared searcher. Searches that are using it can finish.
+	 */
+	public synchronized void close()
+	{
+		if(searcher == null)
+			return;
+		searcher.replaced = true;
+		if(searcher.references == 0)
+			closeSearcher(searcher);
+		searcher = null;
+	}
 	
 	/**
 	 * @return the directory
@@ -115,11 +322,52 @@ public class LuceneIndex{
 		
 	public int getNumberOfDocuments()
 	{
+		try {
+			IndexSearcher s = acquireSearcher();
+			try {
+				return s.getIndexReader().numDocs();
+			} finally {
+				releaseSearcher(s);
+			}
+		} catch (IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);
+		}
 		return docsMapping.size();
 	}
 	
+	/**
+	 * Returns the document with the given ID. Documents that were not indexed by this object are
+	 * read from the fields stored in the index.
+	 */
 	public LuceneDocument getDocument(String docId)
 	{
-		return docsMapping.get(docId);
+		LuceneDocument doc;
+		synchronized(this)
+		{
+			doc = docsMapping.get(docId);
+		}
+		if(doc != null)
+			return doc;
+		try {
+			IndexSearcher s = acquireSearcher();
+			try {
+				IndexReader reader = s.getIndexReader();
+				TermDocs termDocs = reader.termDocs(new Term(LuceneDocument.ID_FIELD, docId));
+				try {
+					if(termDocs.next())
+					{
+						Document d = reader.document(termDocs.doc());
+						return new LuceneDocument(d);
+					}
+				} finally {
+					termDocs.close();
+				}
+			} finally {
+				releaseSearcher(s);
+			}
+		} catch (IOException e) {
+			org.apache.commons.logging.LogFactory.getLog(LuceneIndex.class).error(e);
+		}
+		return null;
 	}
 }
@@ -18,10 +18,11 @@ import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.Hits;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.Searcher;
 
 /**
  * Searchs for documents given a query and an index.
+ * The searches use the searcher shared by the index, so they see the documents added or deleted
+ * since the index was created and several threads can search at the same time.
  * @author Juan A. Recio-Garca
  * @version 1.0
  */
@@ -38,14 +39,10 @@ public class LuceneSearcher {
 	{	    
 		try {
 
-		    Searcher searcher = new IndexSearcher(index.getDirectory());
 		    Analyzer analyzer = new StandardAnalyzer();
 		    QueryParser parser = new QueryParser(fieldName, analyzer);
 		    Query q = parser.parse(query);
-		    Hits hits = searcher.search(q);
-		    LuceneSearchResult lsr = new LuceneSearchResult(hits, index);
-		    searcher.close();
-		    return lsr;
+		    return search(index, q);
 			
 		} catch (Exception e) {
 			org.apache.commons.logging.LogFactory.getLog(LuceneSearcher.class).error(e);
@@ -64,18 +61,28 @@ public class LuceneSearcher {
 	{	    
 		try {
 
-		    Searcher searcher = new IndexSearcher(index.getDirectory());
 		    Analyzer analyzer = new SpanishAnalyzer();
 		    QueryParser parser = new QueryParser(fieldName, analyzer);
 		    Query q = parser.parse(query);
-		    Hits hits = searcher.search(q);
-		    LuceneSearchResult lsr = new LuceneSearchResult(hits, index);
-		    searcher.close();
-		    return lsr;
+		    return search(index, q);
 			
 		} catch (Exception e) {
 			org.apache.commons.logging.LogFactory.getLog(LuceneSearcher.class).error(e);
 		}
 	    return null;
 	}
+
+	/**
+	 * Performs a search with the shared searcher of the index, and reads the result before giving the searcher back.
+	 */
+	private static LuceneSearchResult search(LuceneIndex index, Query q) throws java.io.IOException
+	{
+	    IndexSearcher searcher = index.acquireSearcher();
+	    try {
+		    Hits hits = searcher.search(q);
+		    return new LuceneSearchResult(hits, index);
+	    } finally {
+		    index.releaseSearcher(searcher);
+	    }
+	}
 }
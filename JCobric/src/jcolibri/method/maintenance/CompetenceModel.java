@@ -1,9 +1,11 @@
 package jcolibri.method.maintenance;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.exception.InitializingException;
@@ -11,6 +13,10 @@ import jcolibri.method.reuse.classification.KNNClassificationConfig;
 
 /**
  * Computes the competence model for a given case base.
+ * <p>
+ * The model is computed from a NeighbourhoodGraph, so the similarities of the
+ * cases are only computed once. The sets are stored as arrays of positions of
+ * cases in the graph.
  * 
  * @author Lisa Cummins
  * @author Derek Bridge
@@ -18,12 +24,62 @@ import jcolibri.method.reuse.classification.KNNClassificationConfig;
  */
 public class CompetenceModel {
 
-	private Map<CBRCase, Collection<CBRCase>> coverageSets;
+	private NeighbourhoodGraph graph;
+
+	private CaseSet[] coverageSets;
 	
-	private Map<CBRCase, Collection<CBRCase>> reachabilitySets;
+	private CaseSet[] reachabilitySets;
 
-	private Map<CBRCase, Collection<CBRCase>> liabilitySets;
+	private CaseSet[] liabilitySets;
 	
+	/**
+	 * Set of cases stored as the positions of the cases in the graph.
+	 */
+	private static class CaseSet extends AbstractCollection<CBRCase>
+	{
+		private final NeighbourhoodGraph graph;
+		private int[] cases = new int[4];
+		private int size;
+
+		CaseSet(NeighbourhoodGraph graph)
+		{	this.graph = graph;
+		}
+
+		void add(int c)
+		{	if(size == cases.length)
+			{	int[] grown = new int[2 * size];
+				System.arraycopy(cases, 0, grown, 0, size);
+				cases = grown;
+			}
+			cases[size++] = c;
+		}
+
+		public int size()
+		{	return size;
+		}
+
+		public Iterator<CBRCase> iterator()
+		{	return new Iterator<CBRCase>()
+			{	int next = 0;
+
+				public boolean hasNext()
+				{	return next < size;
+				}
+
+				public CBRCase next()
+				{	if(next >= size)
+					{	throw new NoSuchElementException();
+					}
+					return graph.getCase(cases[next++]);
+				}
+
+				public void remove()
+				{	throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
 	/**
 	 * Computes the competence model for the given cases using
 	 * the given solves function.
@@ -34,42 +90,82 @@ public class CompetenceModel {
 	 * is being computed.
 	 */
 	public void computeCompetenceModel(SolvesFunction solves, KNNClassificationConfig knnConfig, Collection<CBRCase> cases)
-	{	
-		coverageSets = new HashMap<CBRCase, Collection<CBRCase>>();
-		reachabilitySets = new HashMap<CBRCase, Collection<CBRCase>>();
-		liabilitySets = new HashMap<CBRCase, Collection<CBRCase>>();
+	{	computeCompetenceModel(solves, knnConfig, new NeighbourhoodGraph(cases, knnConfig));
+	}
+
+	/**
+	 * Computes the competence model for the cases of the graph that are
+	 * not removed using the given solves function. The graph can be
+	 * reused to compute the model again after removing cases from it.
+	 * @param solves the function to use to find which cases
+	 * solve a query case.
+	 * @param knnConfig
+	 * @param graph the neighbours of the cases for which the competence
+	 * model is being computed.
+	 */
+	public void computeCompetenceModel(SolvesFunction solves, KNNClassificationConfig knnConfig, NeighbourhoodGraph graph)
+	{	this.graph = graph;
+		int n = graph.size();
+		coverageSets = new CaseSet[n];
+		reachabilitySets = new CaseSet[n];
+		liabilitySets = new CaseSet[n];
 		
-		for(CBRCase q: cases)
-		{	solves.setCasesThatSolveAndMisclassifyQ(q, cases, knnConfig);
+		for(int q = 0; q < n; q++)
+		{	if(graph.isRemoved(q))
+			{	continue;
+			}
+			solves.setCasesThatSolveAndMisclassifyQ(q, graph, knnConfig);
 			Collection<CBRCase> solveQ = solves.getCasesThatSolvedQuery();
 			Collection<CBRCase> misclassifyQ = solves.getCasesThatMisclassifiedQuery();
-			Collection<CBRCase> reachabilitySet = new LinkedList<CBRCase>();
 			if(solveQ != null)
-			{	for(CBRCase c: solveQ)
-				{	reachabilitySet.add(c);
-					Collection<CBRCase> coverageSet = coverageSets.get(c);
-					if(coverageSet == null)
-					{	coverageSet = new LinkedList<CBRCase>();
+			{	CaseSet reachabilitySet = new CaseSet(graph);
+				for(CBRCase c: solveQ)
+				{	int i = graph.indexOf(c);
+					reachabilitySet.add(i);
+					if(coverageSets[i] == null)
+					{	coverageSets[i] = new CaseSet(graph);
 					}
-					coverageSet.add(q);
-					coverageSets.put(c, coverageSet);
+					coverageSets[i].add(q);
 				}
-				reachabilitySets.put(q, reachabilitySet);
+				reachabilitySets[q] = reachabilitySet;
 			}
 			
 			if(misclassifyQ != null)
 			{	for(CBRCase c: misclassifyQ)
-				{	Collection<CBRCase> liabilitySet = liabilitySets.get(c);
-					if(liabilitySet == null)
-					{	liabilitySet = new LinkedList<CBRCase>();
+				{	int i = graph.indexOf(c);
+					if(liabilitySets[i] == null)
+					{	liabilitySets[i] = new CaseSet(graph);
 					}
-					liabilitySet.add(q);
-					liabilitySets.put(c, liabilitySet);
+					liabilitySets[i].add(q);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Returns the set of the given case, or null if it has none.
+	 */
+	private Collection<CBRCase> get(CaseSet[] sets, CBRCase c)
+	{	int i = graph.indexOf(c);
+		return (i < 0) ? null : sets[i];
+	}
+	
+	/**
+	 * Returns the sets as a map from each case to its set.
+	 */
+	private Map<CBRCase, Collection<CBRCase>> asMap(CaseSet[] sets)
+	{	if(sets == null)
+		{	return null;
+		}
+		Map<CBRCase, Collection<CBRCase>> res = new HashMap<CBRCase, Collection<CBRCase>>();
+		for(int i = 0; i < sets.length; i++)
+		{	if(sets[i] != null)
+			{	res.put(graph.getCase(i), sets[i]);
+			}
+		}
+		return res;
+	}
+	
 	/**
 	 * Returns the coverage set of the given case.
 	 * @param c the case whose coverage set is being retrieved.
@@ -80,7 +176,7 @@ public class CompetenceModel {
 	public Collection<CBRCase> getCoverageSet(CBRCase c) throws InitializingException 
 	{	if (coverageSets == null)
 			throw new InitializingException();
-		return coverageSets.get(c);
+		return get(coverageSets, c);
 	}
 	
 	/**
@@ -93,7 +189,7 @@ public class CompetenceModel {
 	public Collection<CBRCase> getReachabilitySet(CBRCase c) throws InitializingException 
 	{	if (reachabilitySets == null)
 			throw new InitializingException();
-		return reachabilitySets.get(c);
+		return get(reachabilitySets, c);
 	}
 	
 	/**
@@ -106,7 +202,7 @@ public class CompetenceModel {
 	public Collection<CBRCase> getLiabilitySet(CBRCase c) throws InitializingException 
 	{	if (liabilitySets == null)
 			throw new InitializingException();
-		return liabilitySets.get(c);
+		return get(liabilitySets, c);
 	}
 	
 	/**
@@ -114,7 +210,7 @@ public class CompetenceModel {
 	 * @return the coverage sets of the case base.
 	 */
 	public Map<CBRCase, Collection<CBRCase>> getCoverageSets()
-	{	return coverageSets;
+	{	return asMap(coverageSets);
 	}
 	
 	/**
@@ -122,7 +218,7 @@ public class CompetenceModel {
 	 * @return the reachability sets of the case base.
 	 */
 	public Map<CBRCase, Collection<CBRCase>> getReachabilitySets()
-	{	return reachabilitySets;
+	{	return asMap(reachabilitySets);
 	}
 	
 	/**
@@ -130,6 +226,6 @@ public class CompetenceModel {
 	 * @return the liability sets of the case base.
 	 */
 	public Map<CBRCase, Collection<CBRCase>> getLiabilitySets()
-	{	return liabilitySets;
+	{	return asMap(liabilitySets);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,333 @@
+package jcolibri.method.maintenance;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.method.retrieve.RetrievalResult;
+import jcolibri.method.retrieve.NNretrieval.NNConfig;
+import jcolibri.method.retrieve.NNretrieval.NNIndex;
+import jcolibri.method.retrieve.NNretrieval.ParallelNNScoringMethod;
+import jcolibri.method.retrieve.NNretrieval.TopKResults;
+import jcolibri.method.retrieve.NNretrieval.similarity.GlobalSimilarityFunction;
+import jcolibri.method.reuse.classification.KNNClassificationConfig;
+
+/**
+ * Nearest neighbours of every case of a case base, computed once and shared
+ * by the iterations of the maintenance algorithms.
+ * <p>
+ * Cases are identified by their position in the collection given to the
+ * constructor. For each case the graph keeps the most similar cases of the
+ * collection, most similar first, in the same order as
+ * NNScoringMethod.evaluateSimilarity() would return them. The lists are
+ * computed in parallel, with an NNIndex when the similarity configuration
+ * allows it.
+ * <p>
+ * Cases flagged by an algorithm are removed from the graph, which only marks
+ * them: the neighbours of the other cases are the cases of their lists that
+ * are not removed. When a list runs out of cases that are not removed it is
+ * computed again, twice as long. So the neighbours of a case are always the
+ * same as the ones retrieved from the cases that are not removed, but the
+ * similarities are only computed again for the cases whose lists ran out.
+ * <p>
+ * The graph is not thread-safe.
+ *
+ * @see jcolibri.method.maintenance.CompetenceModel
+ */
+public class NeighbourhoodGraph
+{
+	/** Number of cases whose lists are computed by each parallel task. */
+	private static final int CHUNK = 64;
+
+	private List<CBRCase> cases;
+
+	private IdentityHashMap<CBRCase, Integer> positions;
+
+	private KNNClassificationConfig simConfig;
+
+	private NNIndex index;
+
+	private BitSet removed;
+
+	private int removedCount;
+
+	/** Positions of the most similar cases of each case, most similar first. */
+	private int[][] neighbours;
+
+	/** Similarities of the cases of each list. */
+	private double[][] evals;
+
+	/**
+	 * Computes the graph with lists of k+1 neighbours, enough for a k-NN
+	 * classification of every case that leaves the case itself out.
+	 * @param cases the cases of the graph.
+	 * @param simConfig the similarity configuration.
+	 */
+	public NeighbourhoodGraph(Collection<CBRCase> cases, KNNClassificationConfig simConfig)
+	{	this(cases, simConfig, simConfig.getK() + 1);
+	}
+
+	/**
+	 * Computes the graph with lists of the given length.
+	 * @param cases the cases of the graph.
+	 * @param simConfig the similarity configuration.
+	 * @param length the number of neighbours computed for each case.
+	 */
+	public NeighbourhoodGraph(Collection<CBRCase> cases, KNNClassificationConfig simConfig, int length)
+	{	this.cases = new ArrayList<CBRCase>(cases);
+		this.simConfig = simConfig;
+		int n = this.cases.size();
+		positions = new IdentityHashMap<CBRCase, Integer>(n);
+		for(int i = 0; i < n; i++)
+		{	positions.put(this.cases.get(i), i);
+		}
+		removed = new BitSet(n);
+		neighbours = new int[n][];
+		evals = new double[n][];
+		index = new NNIndex(this.cases, simConfig);
+		computeAll(Math.max(1, Math.min(length, n)));
+	}
+
+	/**
+	 * Returns the number of cases of the graph, including the removed ones.
+	 */
+	public int size()
+	{	return cases.size();
+	}
+
+	/**
+	 * Returns the case at the given position.
+	 */
+	public CBRCase getCase(int i)
+	{	return cases.get(i);
+	}
+
+	/**
+	 * Returns the position of the given case, or -1 if it is not in the graph.
+	 */
+	public int indexOf(CBRCase c)
+	{	Integer i = positions.get(c);
+		return (i == null) ? -1 : i;
+	}
+
+	/**
+	 * Returns the similarity configuration of the graph.
+	 */
+	public KNNClassificationConfig getSimConfig()
+	{	return simConfig;
+	}
+
+	/**
+	 * Returns the cases that are not removed, in their original order.
+	 */
+	public List<CBRCase> getCases()
+	{	List<CBRCase> res = new ArrayList<CBRCase>(cases.size() - removedCount);
+		for(int i = removed.nextClearBit(0); i < cases.size(); i = removed.nextClearBit(i + 1))
+		{	res.add(cases.get(i));
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the number of cases that are not removed.
+	 */
+	public int getCaseCount()
+	{	return cases.size() - removedCount;
+	}
+
+	/**
+	 * Returns true if the case at the given position is removed.
+	 */
+	public boolean isRemoved(int i)
+	{	return removed.get(i);
+	}
+
+	/**
+	 * Removes the case at the given position from the neighbours of every case.
+	 */
+	public void remove(int i)
+	{	if(!removed.get(i))
+		{	removed.set(i);
+			removedCount++;
+		}
+	}
+
+	/**
+	 * Removes the given cases from the neighbours of every case.
+	 */
+	public void remove(Collection<CBRCase> toRemove)
+	{	for(CBRCase c: toRemove)
+		{	int i = indexOf(c);
+			if(i >= 0)
+			{	remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Puts back a removed case.
+	 */
+	public void restore(int i)
+	{	if(removed.get(i))
+		{	removed.clear(i);
+			removedCount--;
+		}
+	}
+
+	/**
+	 * Returns the cases that are not removed, most similar to the case at
+	 * position q first, along with their similarity to it.
+	 * @param q the position of the query case.
+	 * @param includeSelf if the query case is returned too (when it is not removed).
+	 */
+	public Iterator<RetrievalResult> neighbours(final int q, final boolean includeSelf)
+	{	return new Iterator<RetrievalResult>()
+		{	int next = -1;
+			RetrievalResult result;
+
+			public boolean hasNext()
+			{	if(result != null)
+				{	return true;
+				}
+				for(;;)
+				{	next++;
+					if(next == neighbours[q].length)
+					{	if(neighbours[q].length == cases.size())
+						{	return false;
+						}
+						compute(q, Math.min(2 * neighbours[q].length, cases.size()), simConfig);
+					}
+					int c = neighbours[q][next];
+					if(!removed.get(c) && (includeSelf || c != q))
+					{	result = new RetrievalResult(cases.get(c), evals[q][next]);
+						return true;
+					}
+				}
+			}
+
+			public RetrievalResult next()
+			{	if(!hasNext())
+				{	throw new NoSuchElementException();
+				}
+				RetrievalResult res = result;
+				result = null;
+				return res;
+			}
+
+			public void remove()
+			{	throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the k cases that are not removed most similar to the case at
+	 * position q, most similar first.
+	 * @param q the position of the query case.
+	 * @param k the number of cases to return.
+	 * @param includeSelf if the query case can be returned (when it is not removed).
+	 */
+	public List<RetrievalResult> getNeighbours(int q, int k, boolean includeSelf)
+	{	List<RetrievalResult> res = new ArrayList<RetrievalResult>(Math.min(k, cases.size()));
+		for(Iterator<RetrievalResult> iter = neighbours(q, includeSelf); res.size() < k && iter.hasNext(); )
+		{	res.add(iter.next());
+		}
+		return res;
+	}
+
+	/**
+	 * Computes the lists of every case, in parallel when the similarity
+	 * configuration can be copied for each thread.
+	 */
+	private void computeAll(final int length)
+	{	int n = cases.size();
+		jcolibri.util.ProgressController.init(this.getClass(), "Neighbourhood graph", n);
+		if(simConfig.copyForThread() == null || n <= CHUNK)
+		{	for(int q = 0; q < n; q++)
+			{	compute(q, length, simConfig);
+				jcolibri.util.ProgressController.step(this.getClass());
+			}
+			jcolibri.util.ProgressController.finish(this.getClass());
+			return;
+		}
+
+		ExecutorService executor = ParallelNNScoringMethod.getDefaultExecutor();
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for(int first = 0; first < n; first += CHUNK)
+		{	final int from = first;
+			final int to = Math.min(first + CHUNK, n);
+			final NNConfig config = simConfig.copyForThread();
+			futures.add(executor.submit(new Callable<Integer>()
+			{	public Integer call()
+				{	for(int q = from; q < to; q++)
+					{	compute(q, length, config);
+					}
+					return to - from;
+				}
+			}));
+		}
+		try
+		{	for(Future<Integer> f: futures)
+			{	jcolibri.util.ProgressController.step(this.getClass(), f.get());
+			}
+		} catch(InterruptedException e)
+		{	for(Future<Integer> f: futures)
+			{	f.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch(ExecutionException e)
+		{	for(Future<Integer> f: futures)
+			{	f.cancel(true);
+			}
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{	throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error)
+			{	throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		} finally
+		{	jcolibri.util.ProgressController.finish(this.getClass());
+		}
+	}
+
+	/**
+	 * Computes the list of the given length of the case at position q.
+	 */
+	private void compute(int q, int length, NNConfig config)
+	{	CBRCase query = cases.get(q);
+		Collection<RetrievalResult> res;
+		if(index.isIndexed() && length < cases.size())
+		{	res = index.retrieve(query, length);
+		}
+		else
+		{	GlobalSimilarityFunction gsf = config.getDescriptionSimFunction();
+			TopKResults top = new TopKResults(length);
+			for(int i = 0; i < cases.size(); i++)
+			{	CBRCase c = cases.get(i);
+				top.offer(c, gsf.compute(c.getDescription(), query.getDescription(), c, query, config), i);
+			}
+			res = top.toList();
+		}
+		int[] ns = new int[res.size()];
+		double[] es = new double[res.size()];
+		int j = 0;
+		for(RetrievalResult r: res)
+		{	ns[j] = positions.get(r.get_case());
+			es[j++] = r.getEval();
+		}
+		neighbours[q] = ns;
+		evals[q] = es;
+	}
+}
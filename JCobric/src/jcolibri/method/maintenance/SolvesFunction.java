@@ -29,6 +29,21 @@ public abstract class SolvesFunction
 	 */
 	public abstract void setCasesThatSolveAndMisclassifyQ(CBRCase q, Collection<CBRCase> cases, KNNClassificationConfig knnConfig);
 
+	/**
+	 * Sets the classes that both solve q or contribute to its 
+	 * misclassification, using the cases of the graph that are not
+	 * removed. By default it retrieves them again from those cases:
+	 * subclasses should override it to use the neighbours kept
+	 * by the graph.
+	 * @param q the position of the query in the graph
+	 * @param graph the neighbours of the cases from which to find 
+	 * the cases which solve and classify the query. 
+	 * @param knnConfig the similarity configuration
+	 */
+	public void setCasesThatSolveAndMisclassifyQ(int q, NeighbourhoodGraph graph, KNNClassificationConfig knnConfig)
+	{	setCasesThatSolveAndMisclassifyQ(graph.getCase(q), graph.getCases(), knnConfig);
+	}
+
 	/**
 	 * Returns the cases that solved the last query for which cases
 	 * were divided.
@@ -11,10 +11,9 @@ import jcolibri.extensions.classification.ClassificationSolution;
 import jcolibri.method.maintenance.AbstractCaseBaseEditMethod;
 import jcolibri.method.maintenance.CaseResult;
 import jcolibri.method.maintenance.CompetenceModel;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.maintenance.solvesFunctions.CBESolvesFunction;
 import jcolibri.method.retrieve.RetrievalResult;
-import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
-import jcolibri.method.retrieve.selection.SelectCases;
 import jcolibri.method.reuse.classification.KNNClassificationConfig;
 import jcolibri.method.reuse.classification.KNNClassificationMethod;
 import jcolibri.method.revise.classification.BasicClassificationOracle;
@@ -76,7 +75,8 @@ public class BBNRNoiseReduction extends AbstractCaseBaseEditMethod {
 		}
 	
 		CompetenceModel sc = new CompetenceModel();
-		sc.computeCompetenceModel(new CBESolvesFunction(), simConfig, localCases);
+		NeighbourhoodGraph graph = new NeighbourhoodGraph(localCases, simConfig);
+		sc.computeCompetenceModel(new CBESolvesFunction(), simConfig, graph);
 		
 		List<CaseResult> caseLiabilitySetSizes = new LinkedList<CaseResult>();
 		
@@ -108,7 +108,8 @@ public class BBNRNoiseReduction extends AbstractCaseBaseEditMethod {
         		}
 
 			CBRCase removed = highestLiability.getCase();
-        		localCases.remove(removed);
+			int removedIndex = graph.indexOf(removed);
+        		graph.remove(removedIndex);
         			
         		Collection<CBRCase> covSet = null;
         		try 
@@ -119,8 +120,7 @@ public class BBNRNoiseReduction extends AbstractCaseBaseEditMethod {
         		
         		boolean caseMisclassified = false;
         		for(CBRCase query: covSet)
-        		{	Collection<RetrievalResult> knn = NNScoringMethod.evaluateSimilarity(localCases, query, simConfig);
-        			knn = SelectCases.selectTopKRR(knn, simConfig.getK());
+        		{	Collection<RetrievalResult> knn = graph.getNeighbours(graph.indexOf(query), simConfig.getK(), true);
         			try
         			{	KNNClassificationMethod classifier = ((KNNClassificationConfig)simConfig).getClassificationMethod();
         				ClassificationSolution predictedSolution = classifier.getPredictedSolution(knn);
@@ -136,7 +136,7 @@ public class BBNRNoiseReduction extends AbstractCaseBaseEditMethod {
         			}
         		}
         		if(caseMisclassified)
-        		{	localCases.add(removed);
+        		{	graph.restore(removedIndex);
         		}
         		else
         		{	allCasesToBeRemoved.add(removed);
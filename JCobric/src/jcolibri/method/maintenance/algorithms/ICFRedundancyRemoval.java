@@ -8,6 +8,7 @@ import java.util.Map;
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.method.maintenance.AbstractCaseBaseEditMethod;
 import jcolibri.method.maintenance.CompetenceModel;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.maintenance.solvesFunctions.ICFSolvesFunction;
 import jcolibri.method.reuse.classification.KNNClassificationConfig;
 
@@ -64,6 +65,7 @@ public class ICFRedundancyRemoval extends AbstractCaseBaseEditMethod {
 		}
 
 		CompetenceModel sc = new CompetenceModel();
+		NeighbourhoodGraph graph = new NeighbourhoodGraph(localCases, simConfig);
 		Map<CBRCase, Collection<CBRCase>> coverageSets = null, reachabilitySets = null;
 		List<CBRCase> allCasesToBeRemoved = new LinkedList<CBRCase>();
 	
@@ -72,14 +74,15 @@ public class ICFRedundancyRemoval extends AbstractCaseBaseEditMethod {
 		{	changes = false;
 			List<CBRCase> casesToBeRemoved = new LinkedList<CBRCase>();
 			
-			sc.computeCompetenceModel(new ICFSolvesFunction(), simConfig, localCases);
+			sc.computeCompetenceModel(new ICFSolvesFunction(), simConfig, graph);
 			coverageSets = sc.getCoverageSets();
 			reachabilitySets = sc.getReachabilitySets();
 	
 			for(CBRCase c: localCases)
 			{	Collection<CBRCase> coverageSet = coverageSets.get(c);
 				Collection<CBRCase> reachabilitySet = reachabilitySets.get(c);
-				if(reachabilitySet.size() > coverageSet.size())
+				int coverage = (coverageSet == null) ? 0 : coverageSet.size();
+				if(reachabilitySet.size() > coverage)
 				{	casesToBeRemoved.add(c);
 					changes = true;
 				}
@@ -87,6 +90,7 @@ public class ICFRedundancyRemoval extends AbstractCaseBaseEditMethod {
 	
 			allCasesToBeRemoved.addAll(casesToBeRemoved);
 			localCases.removeAll(casesToBeRemoved);
+			graph.remove(casesToBeRemoved);
 			jcolibri.util.ProgressController.step(this.getClass());
 		}
 		jcolibri.util.ProgressController.finish(this.getClass());
@@ -8,6 +8,7 @@ import jcolibri.cbrcore.CBRCase;
 import jcolibri.exception.InitializingException;
 import jcolibri.method.maintenance.AbstractCaseBaseEditMethod;
 import jcolibri.method.maintenance.CompetenceModel;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.maintenance.solvesFunctions.CBESolvesFunction;
 import jcolibri.method.reuse.classification.KNNClassificationConfig;
 
@@ -60,6 +61,7 @@ public class RCRedundancyRemoval extends AbstractCaseBaseEditMethod {
 		}
 			
 		CompetenceModel sc = new CompetenceModel();
+		NeighbourhoodGraph graph = new NeighbourhoodGraph(localCases, simConfig);
 		
 		LinkedList<CBRCase> keepCases = new LinkedList<CBRCase>();
 		
@@ -67,7 +69,7 @@ public class RCRedundancyRemoval extends AbstractCaseBaseEditMethod {
 		{	double topRCScore = 0.0;
 			CBRCase topRCCase = null;
 
-			sc.computeCompetenceModel(new CBESolvesFunction(), simConfig, localCases);
+			sc.computeCompetenceModel(new CBESolvesFunction(), simConfig, graph);
 			
 			try
 			{   for(CBRCase c: localCases)
@@ -90,6 +92,7 @@ public class RCRedundancyRemoval extends AbstractCaseBaseEditMethod {
 			    {	toRemove.add(c);
 			    }
 			    localCases.removeAll(toRemove);
+			    graph.remove(toRemove);
 			} catch (InitializingException e)
 			{   LogFactory.getLog(this.getClass()).error(e);
 			}
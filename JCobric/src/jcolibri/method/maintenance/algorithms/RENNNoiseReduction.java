@@ -8,9 +8,8 @@ import java.util.ListIterator;
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.extensions.classification.ClassificationSolution;
 import jcolibri.method.maintenance.AbstractCaseBaseEditMethod;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.retrieve.RetrievalResult;
-import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
-import jcolibri.method.retrieve.selection.SelectCases;
 import jcolibri.method.reuse.classification.KNNClassificationConfig;
 import jcolibri.method.reuse.classification.KNNClassificationMethod;
 import jcolibri.method.revise.classification.BasicClassificationOracle;
@@ -59,6 +58,7 @@ public class RENNNoiseReduction extends AbstractCaseBaseEditMethod {
 		}
 		
 		List<CBRCase> allCasesToBeRemoved = new LinkedList<CBRCase>();
+		NeighbourhoodGraph graph = new NeighbourhoodGraph(localCases, simConfig);
 
 		boolean changes = true;
 		while(changes && localCases.size() > 1)
@@ -67,8 +67,9 @@ public class RENNNoiseReduction extends AbstractCaseBaseEditMethod {
 			while (iter.hasNext())
 			{	CBRCase q = iter.next();
 				iter.remove();
-				Collection<RetrievalResult> knn = NNScoringMethod.evaluateSimilarity(localCases, q, simConfig);
-				knn = SelectCases.selectTopKRR(knn, simConfig.getK());
+				int qIndex = graph.indexOf(q);
+				graph.remove(qIndex);
+				Collection<RetrievalResult> knn = graph.getNeighbours(qIndex, simConfig.getK(), false);
 				try
 				{	KNNClassificationMethod classifier = ((KNNClassificationConfig)simConfig).getClassificationMethod();
 					ClassificationSolution predictedSolution = classifier.getPredictedSolution(knn);
@@ -79,6 +80,7 @@ public class RENNNoiseReduction extends AbstractCaseBaseEditMethod {
 					}
 					else
 					{	iter.add(q);
+						graph.restore(qIndex);
 					}
 				} catch(ClassCastException cce)
 				{	org.apache.commons.logging.LogFactory.getLog(RENNNoiseReduction.class).error(cce);
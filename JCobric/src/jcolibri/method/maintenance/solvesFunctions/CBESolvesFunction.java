@@ -6,6 +6,7 @@ import java.util.LinkedList;
 
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.extensions.classification.ClassificationSolution;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.maintenance.SolvesFunction;
 import jcolibri.method.retrieve.RetrievalResult;
 import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
@@ -58,7 +59,7 @@ public class CBESolvesFunction extends SolvesFunction
 		 */
 		knnConfig.setK(knnConfig.getK()+1);
 		Collection<RetrievalResult> knnResults = NNScoringMethod.evaluateSimilarity(cases, q, knnConfig);
-		Collection<CBRCase> knn = SelectCases.selectTopK(knnResults, knnConfig.getK());
+		knnResults = SelectCases.selectTopKRR(knnResults, knnConfig.getK());
 		knnConfig.setK(knnConfig.getK()-1); 
 		RetrievalResult result = null;
 		boolean qFound = false;
@@ -66,12 +67,43 @@ public class CBESolvesFunction extends SolvesFunction
 		for(Iterator<RetrievalResult> cIter = knnResults.iterator(); cIter.hasNext() && !qFound; )
 		{	result = cIter.next();
 			if(result.get_case().equals(q))
-			{	knnResults.remove(result);			    
+			{	cIter.remove();
 				qFound = true;
 			}
 		}
-		if(!qFound)
-		{	knn.remove(result);
+		if(!qFound && knnResults.size() > knnConfig.getK())
+		{	knnResults.remove(result);
+		}
+		classify(q, knnResults, knnConfig);
+	}
+
+	/**
+	 * Sets the cases that either solve q or contribute to its 
+	 * misclassification using the k nearest neighbours of q in
+	 * the graph, leaving q out.
+	 * 
+	 * @param q the position of the query in the graph
+	 * @param graph the neighbours of the cases from which to find
+	 * the cases which solve and classify the query. 
+	 * @param knnConfig the similarity configuration
+	 */
+	public void setCasesThatSolveAndMisclassifyQ(int q, NeighbourhoodGraph graph, KNNClassificationConfig knnConfig)
+	{
+		CBRCase query = graph.getCase(q);
+		solveQ = new LinkedList<CBRCase>();
+		misclassifyQ = null;
+		solveQ.add(query);
+		classify(query, graph.getNeighbours(q, knnConfig.getK(), false), knnConfig);
+	}
+
+	/**
+	 * Classifies q with its nearest neighbours and adds them to
+	 * the cases that solve q or to the ones that misclassify it.
+	 */
+	private void classify(CBRCase q, Collection<RetrievalResult> knnResults, KNNClassificationConfig knnConfig)
+	{
+		if(knnResults.isEmpty())
+		{	return;
 		}
 		try 
 		{	KNNClassificationMethod classifier = ((KNNClassificationConfig)knnConfig).getClassificationMethod();
@@ -6,6 +6,7 @@ import java.util.LinkedList;
 
 import jcolibri.cbrcore.CBRCase;
 import jcolibri.extensions.classification.ClassificationSolution;
+import jcolibri.method.maintenance.NeighbourhoodGraph;
 import jcolibri.method.maintenance.SolvesFunction;
 import jcolibri.method.retrieve.RetrievalResult;
 import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
@@ -60,4 +61,31 @@ public class ICFSolvesFunction extends SolvesFunction
 			}
 		}
 	}
+
+	/**
+	 * Sets the cases that solve q walking its neighbours in the 
+	 * graph up to the first case of a different class.
+	 * 
+	 * @param q the position of the query in the graph
+	 * @param graph the neighbours of the cases from which to find
+	 * the cases which solve the query. 
+	 * @param knnConfig the similarity configuration
+	 */
+	public void setCasesThatSolveAndMisclassifyQ(int q, NeighbourhoodGraph graph, KNNClassificationConfig knnConfig)
+	{
+		solveQ = new LinkedList<CBRCase>();
+		misclassifyQ = null;
+		
+		CBRCase query = graph.getCase(q);
+		ClassificationOracle oracle = new BasicClassificationOracle();
+		Iterator<RetrievalResult> iter = graph.neighbours(q, true);
+		while(iter.hasNext())
+		{	CBRCase c = iter.next().get_case();
+			ClassificationSolution cSol = (ClassificationSolution)c.getSolution();
+			if(!oracle.isCorrectPrediction(cSol, query))
+			{	break;
+			}
+			solveQ.add(c);
+		}
+	}
 }
\ No newline at end of file
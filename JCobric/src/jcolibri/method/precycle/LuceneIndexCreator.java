@@ -43,16 +43,43 @@ public class LuceneIndexCreator {
 			}
 		}
 		
+		return new LuceneIndex(createDocuments(casebase.getCases(), fields));
+
+	}
+	
+	private static ArrayList<LuceneDocument> createDocuments(Collection<CBRCase> cases, Collection<Attribute> fields)
+	{
 		ArrayList<LuceneDocument> docs = new ArrayList<LuceneDocument>();
-		for(CBRCase c: casebase.getCases())
+		for(CBRCase c: cases)
 		{
 			LuceneDocument ld = new LuceneDocument((String)c.getID());
 			for(Attribute field: fields)
 				ld.addContentField(field.getName(), (Text)jcolibri.util.AttributeUtils.findValue(field, c));
 			docs.add(ld);
 		}
-		return new LuceneIndex(docs);
-
+		return docs;
+	}
+	
+	/**
+	 * Adds the documents of some cases to an index created by this class, without creating it again.
+	 * It should be called with the cases learnt by the case base. The documents of cases already indexed are replaced.
+	 * @param fields the same attributes used to create the index.
+	 */
+	public static void addCases(LuceneIndex index, Collection<CBRCase> cases, Collection<Attribute> fields)
+	{
+		index.addDocuments(createDocuments(cases, fields));
+	}
+	
+	/**
+	 * Removes the documents of some cases from an index created by this class, without creating it again.
+	 * It should be called with the cases forgotten by the case base.
+	 */
+	public static void removeCases(LuceneIndex index, Collection<CBRCase> cases)
+	{
+		ArrayList<String> ids = new ArrayList<String>();
+		for(CBRCase c: cases)
+			ids.add((String)c.getID());
+		index.deleteDocuments(ids);
 	}
 	
 
@@ -11,7 +11,21 @@ package jcolibri.method.retrieve.NNretrieval;
 
 import jcolibri.cbrcore.Attribute;
 import jcolibri.method.retrieve.NNretrieval.similarity.GlobalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.InContextLocalSimilarityFunction;
 import jcolibri.method.retrieve.NNretrieval.similarity.LocalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.StandardGlobalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.EnumCyclicDistance;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.EnumDistance;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Equal;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.EqualsStringIgnoreCase;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Interval;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.MaxString;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Table;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Threshold;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.recommenders.InrecaLessIsBetter;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.recommenders.InrecaMoreIsBetter;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.recommenders.McSherryLessIsBetter;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.recommenders.McSherryMoreIsBetter;
 
 /**
  * This class stores the configuration for the NN retrieval method.
@@ -102,4 +116,50 @@ public class NNConfig{
 		else
 			return new Double(1); 
 	}
+
+	/**
+	 * Returns a copy of this configuration that can be used by another thread at the same time as this one.
+	 * InContextLocalSimilarityFunctions are copied because they store the context of each comparison; 
+	 * the local functions of SHARED_LOCAL_FUNCTIONS are shared. Returns null if some other local function
+	 * is used (for example, the ontology functions call the shared OntoBridge), or if some global similarity 
+	 * function is not a StandardGlobalSimilarityFunction, as it is not known whether they can be shared.
+	 */
+	public NNConfig copyForThread()
+	{
+		if(!isStandard(descriptionSimFunction))
+			return null;
+		NNConfig copy = new NNConfig();
+		copy.descriptionSimFunction = descriptionSimFunction;
+		for(java.util.Map.Entry<Attribute, GlobalSimilarityFunction> e: mapglobal.entrySet())
+		{
+			if(!isStandard(e.getValue()))
+				return null;
+			copy.mapglobal.put(e.getKey(), e.getValue());
+		}
+		for(java.util.Map.Entry<Attribute, LocalSimilarityFunction> e: maplocal.entrySet())
+		{
+			LocalSimilarityFunction lsf = e.getValue();
+			if(lsf instanceof InContextLocalSimilarityFunction)
+				lsf = ((InContextLocalSimilarityFunction)lsf).copy();
+			else if(lsf != null && !SHARED_LOCAL_FUNCTIONS.contains(lsf.getClass()))
+				return null;
+			copy.maplocal.put(e.getKey(), lsf);
+		}
+		copy.mapweight.putAll(mapweight);
+		return copy;
+	}
+
+	/**
+	 * Local similarity functions that keep no state between comparisons, so copyForThread() shares them.
+	 * Subclasses are not included, as they can add state.
+	 */
+	private static final java.util.Set<Class<?>> SHARED_LOCAL_FUNCTIONS = new java.util.HashSet<Class<?>>(java.util.Arrays.asList(
+		Equal.class, EqualsStringIgnoreCase.class, Interval.class, Threshold.class, 
+		EnumDistance.class, EnumCyclicDistance.class, MaxString.class, Table.class,
+		InrecaLessIsBetter.class, InrecaMoreIsBetter.class, McSherryLessIsBetter.class, McSherryMoreIsBetter.class));
+
+	private static boolean isStandard(GlobalSimilarityFunction gsf)
+	{
+		return gsf == null || gsf instanceof StandardGlobalSimilarityFunction;
+	}
 }
@@ -0,0 +1,473 @@
+/**
+ * NNIndex.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.method.retrieve.NNretrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jcolibri.cbrcore.Attribute;
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CBRQuery;
+import jcolibri.cbrcore.CaseComponent;
+import jcolibri.exception.AttributeAccessException;
+import jcolibri.method.retrieve.RetrievalResult;
+import jcolibri.method.retrieve.NNretrieval.similarity.GlobalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.LocalSimilarityFunction;
+import jcolibri.method.retrieve.NNretrieval.similarity.global.Average;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.EnumDistance;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Equal;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Interval;
+import jcolibri.util.AttributeUtils;
+
+/**
+ * Index over a collection of cases that finds the k most similar cases to a query
+ * without computing the similarity of every case.
+ * <p>
+ * The index can be used when the description similarity function is Average and
+ * every description attribute is compared with Interval, EnumDistance or Equal.
+ * For each of those attributes the cases are kept sorted by value, so they can be
+ * visited from the most similar to the query to the least similar. The retrieval visits
+ * the attributes in turn and computes the exact similarity of each new case it finds
+ * (threshold algorithm). The average of the similarities of the next case of every
+ * attribute bounds the similarity of every case not found yet, so the retrieval stops
+ * as soon as k cases are more similar than that bound.
+ * <p>
+ * With any other configuration, for example custom LocalSimilarityFunctions or
+ * global similarity functions for compound attributes, retrieve() scores every case
+ * exactly like NNScoringMethod. In both cases the result is the same as
+ * selectTopKRR(NNScoringMethod.evaluateSimilarity(cases, query, simConfig), k).
+ * <p>
+ * The index is a snapshot of the cases and of the configuration: build a new one
+ * after changing either. Several threads can retrieve from the same index at the same time
+ * if the similarity functions of the configuration allow it.
+ * @version 1.0
+ * @see jcolibri.method.retrieve.NNretrieval.NNScoringMethod
+ */
+public class NNIndex {
+
+	/** Margin that keeps the stop test safe from rounding errors. */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * Cases sorted by the value of one attribute.
+	 */
+	private static abstract class AttributeIndex
+	{
+		Attribute attribute;
+		double weight;
+
+		/** Starts a visit of the cases for the given query value. Returns null if the query value cannot be indexed. */
+		abstract Cursor start(Object queryValue);
+	}
+
+	/**
+	 * Visit of the cases of an AttributeIndex for one query, from the most similar to the least similar.
+	 */
+	private static abstract class Cursor
+	{
+		/** Upper bound of the similarity of the cases not visited yet, or NaN when every case was visited. */
+		abstract double bound();
+
+		/** Position of the next case to visit, the most similar of the cases not visited yet. */
+		abstract int next();
+	}
+
+	/**
+	 * Index for Interval and EnumDistance: sim = 1 - |x - q| / interval.
+	 * Cases with no value have similarity 0.
+	 */
+	private static class NumericIndex extends AttributeIndex
+	{
+		double interval;
+		Class<?> enumClass;
+		double[] values;
+		int[] positions;
+		int[] nullPositions;
+
+		Cursor start(Object queryValue)
+		{
+			NumericCursor cursor = new NumericCursor();
+			cursor.index = this;
+			if(queryValue == null)
+			{
+				// every case has similarity 0: visit them in any order
+				cursor.nullQuery = true;
+				cursor.lo = values.length - 1;
+				cursor.hi = values.length;
+				return cursor;
+			}
+			if(enumClass != null)
+			{
+				if(!(queryValue instanceof Enum))
+					return null;
+				cursor.q = ((Enum<?>)queryValue).ordinal();
+			}
+			else
+			{
+				if(!(queryValue instanceof Number))
+					return null;
+				cursor.q = ((Number)queryValue).doubleValue();
+			}
+			int i = Arrays.binarySearch(values, cursor.q);
+			if(i < 0)
+				i = -i - 1;
+			cursor.hi = i;
+			cursor.lo = i - 1;
+			return cursor;
+		}
+	}
+
+	private static class NumericCursor extends Cursor
+	{
+		NumericIndex index;
+		double q;
+		boolean nullQuery;
+		int lo, hi, nulls;
+
+		private double sim(double v)
+		{
+			return 1 - (Math.abs(v - q) / index.interval);
+		}
+
+		private boolean valuesLeft()
+		{
+			return lo >= 0 || hi < index.values.length;
+		}
+
+		/** Similarity of the next value in sorted order, or -infinity if there is none. */
+		private double nextValueSim()
+		{
+			double s = Double.NEGATIVE_INFINITY;
+			if(lo >= 0)
+				s = sim(index.values[lo]);
+			if(hi < index.values.length)
+				s = Math.max(s, sim(index.values[hi]));
+			return s;
+		}
+
+		double bound()
+		{
+			boolean nullsLeft = nulls < index.nullPositions.length;
+			if(!valuesLeft() && !nullsLeft)
+				return Double.NaN;
+			if(nullQuery)
+				return 0;
+			double s = nextValueSim();
+			if(nullsLeft && s < 0)
+				s = 0;
+			return s;
+		}
+
+		int next()
+		{
+			double[] values = index.values;
+			if(nulls < index.nullPositions.length && (nullQuery || nextValueSim() < 0))
+				return index.nullPositions[nulls++];
+			if(lo >= 0 && (hi >= values.length || sim(values[lo]) >= sim(values[hi])))
+				return index.positions[lo--];
+			return index.positions[hi++];
+		}
+	}
+
+	/**
+	 * Index for Equal: sim = 1 if the values are equal, 0 otherwise.
+	 */
+	private static class EqualIndex extends AttributeIndex
+	{
+		HashMap<Object, int[]> groups;
+		Object[] values;
+
+		Cursor start(Object queryValue)
+		{
+			EqualCursor cursor = new EqualCursor();
+			cursor.index = this;
+			cursor.q = queryValue;
+			cursor.equal = (queryValue == null) ? null : groups.get(queryValue);
+			if(cursor.equal == null)
+				cursor.equal = new int[0];
+			cursor.skipEqual();
+			return cursor;
+		}
+	}
+
+	private static class EqualCursor extends Cursor
+	{
+		EqualIndex index;
+		int[] equal;
+		Object q;
+		int e, rest;
+
+		void skipEqual()
+		{
+			Object[] values = index.values;
+			while(rest < values.length && values[rest] != null && values[rest].equals(q))
+				rest++;
+		}
+
+		double bound()
+		{
+			if(e < equal.length)
+				return 1;
+			if(rest < index.values.length)
+				return 0;
+			return Double.NaN;
+		}
+
+		int next()
+		{
+			if(e < equal.length)
+				return equal[e++];
+			int p = rest++;
+			skipEqual();
+			return p;
+		}
+	}
+
+	private final CBRCase[] cases;
+	private final Collection<CBRCase> caseCollection;
+	private final NNConfig simConfig;
+	private final AttributeIndex[] indexes;
+	private final double totalWeight;
+
+	/**
+	 * Builds the index for the given cases and similarity configuration.
+	 */
+	public NNIndex(Collection<CBRCase> cases, NNConfig simConfig)
+	{
+		this.caseCollection = cases;
+		this.cases = cases.toArray(new CBRCase[cases.size()]);
+		this.simConfig = simConfig;
+		AttributeIndex[] idx = null;
+		try
+		{
+			idx = buildIndexes();
+		} catch (AttributeAccessException e)
+		{
+			org.apache.commons.logging.LogFactory.getLog(this.getClass()).error(e);
+		}
+		indexes = idx;
+		double w = 0;
+		if(indexes != null)
+			for(AttributeIndex ai: indexes)
+				w += ai.weight;
+		totalWeight = w;
+	}
+
+	/**
+	 * Returns true if the configuration can be indexed. Otherwise retrieve() scores every case.
+	 */
+	public boolean isIndexed()
+	{
+		return indexes != null;
+	}
+
+	/**
+	 * Returns the k cases most similar to the query, most similar first.
+	 * @param query to compare with the cases
+	 * @param k number of cases to return
+	 */
+	public Collection<RetrievalResult> retrieve(CBRQuery query, int k)
+	{
+		if(indexes == null || k >= cases.length || k <= 0)
+			return NNScoringMethod.evaluateSimilarity(caseCollection, query, simConfig, k);
+		CaseComponent description = query.getDescription();
+		if(description == null || !description.getClass().equals(cases[0].getDescription().getClass()))
+			return NNScoringMethod.evaluateSimilarity(caseCollection, query, simConfig, k);
+		Cursor[] cursors = new Cursor[indexes.length];
+		try
+		{
+			for(int i=0; i<indexes.length; i++)
+			{
+				cursors[i] = indexes[i].start(indexes[i].attribute.getValue(description));
+				if(cursors[i] == null)
+					return NNScoringMethod.evaluateSimilarity(caseCollection, query, simConfig, k);
+			}
+		} catch (AttributeAccessException e)
+		{
+			return NNScoringMethod.evaluateSimilarity(caseCollection, query, simConfig, k);
+		}
+
+		GlobalSimilarityFunction gsf = simConfig.getDescriptionSimFunction();
+		TopKResults top = new TopKResults(k);
+		BitSet seen = new BitSet(cases.length);
+		int found = 0;
+		while(found < cases.length)
+		{
+			double bound = 0;
+			boolean advanced = false;
+			for(int i=0; i<cursors.length; i++)
+			{
+				double b = cursors[i].bound();
+				if(Double.isNaN(b))
+					continue;
+				advanced = true;
+				int p = cursors[i].next();
+				if(!seen.get(p))
+				{
+					seen.set(p);
+					found++;
+					CBRCase _case = cases[p];
+					top.offer(_case, gsf.compute(_case.getDescription(), description, _case, query, simConfig), p);
+				}
+				b = cursors[i].bound();
+				if(!Double.isNaN(b))
+					bound += indexes[i].weight * b;
+			}
+			if(!advanced || (top.isFull() && top.worstEval() > bound / totalWeight + EPSILON))
+				break;
+		}
+		return top.toList();
+	}
+
+	/**
+	 * Builds one index for each description attribute, or returns null if some attribute cannot be indexed.
+	 */
+	private AttributeIndex[] buildIndexes() throws AttributeAccessException
+	{
+		if(cases.length == 0 || simConfig.getDescriptionSimFunction() == null
+				|| !simConfig.getDescriptionSimFunction().getClass().equals(Average.class))
+			return null;
+		Class<?> descriptionClass = cases[0].getDescription().getClass();
+		for(CBRCase c: cases)
+			if(c.getDescription() == null || !c.getDescription().getClass().equals(descriptionClass))
+				return null;
+
+		List<AttributeIndex> res = new ArrayList<AttributeIndex>();
+		for(Attribute at: AttributeUtils.getAttributes(descriptionClass))
+		{
+			if(simConfig.getGlobalSimilFunction(at) != null)
+				return null;
+			LocalSimilarityFunction lsf = simConfig.getLocalSimilFunction(at);
+			if(lsf == null)
+				continue;
+			AttributeIndex ai;
+			if(lsf.getClass().equals(Interval.class))
+				ai = buildNumericIndex(at, ((Interval)lsf).getInterval(), false);
+			else if(lsf.getClass().equals(EnumDistance.class))
+				ai = buildNumericIndex(at, 0, true);
+			else if(lsf.getClass().equals(Equal.class))
+				ai = buildEqualIndex(at);
+			else
+				return null;
+			if(ai == null)
+				return null;
+			ai.attribute = at;
+			ai.weight = simConfig.getWeight(at);
+			res.add(ai);
+		}
+		if(res.isEmpty())
+			return null;
+		return res.toArray(new AttributeIndex[res.size()]);
+	}
+
+	private NumericIndex buildNumericIndex(Attribute at, double interval, boolean isEnum) throws AttributeAccessException
+	{
+		int n = cases.length;
+		double[] keys = new double[n];
+		Integer[] order = new Integer[n];
+		int count = 0;
+		List<Integer> nulls = new ArrayList<Integer>();
+		Class<?> enumClass = null;
+		for(int p=0; p<n; p++)
+		{
+			Object v = at.getValue(cases[p].getDescription());
+			if(v == null)
+			{
+				nulls.add(p);
+				continue;
+			}
+			if(isEnum)
+			{
+				if(!(v instanceof Enum))
+					return null;
+				Class<?> c = ((Enum<?>)v).getDeclaringClass();
+				if(enumClass == null)
+					enumClass = c;
+				else if(!enumClass.equals(c))
+					return null;
+				keys[p] = ((Enum<?>)v).ordinal();
+			}
+			else
+			{
+				if(!(v instanceof Number))
+					return null;
+				keys[p] = ((Number)v).doubleValue();
+			}
+			order[count++] = p;
+		}
+		final double[] k = keys;
+		Arrays.sort(order, 0, count, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return Double.compare(k[a], k[b]);
+			}
+		});
+
+		NumericIndex ni = new NumericIndex();
+		ni.values = new double[count];
+		ni.positions = new int[count];
+		for(int i=0; i<count; i++)
+		{
+			ni.positions[i] = order[i];
+			ni.values[i] = keys[order[i]];
+		}
+		ni.nullPositions = new int[nulls.size()];
+		for(int i=0; i<ni.nullPositions.length; i++)
+			ni.nullPositions[i] = nulls.get(i);
+		if(isEnum)
+		{
+			// no enum value in the cases: nothing to compare, every case has similarity 0
+			if(enumClass == null)
+				enumClass = Object.class;
+			ni.enumClass = enumClass;
+			ni.interval = enumClass.isEnum() ? enumClass.getEnumConstants().length : 1;
+		}
+		else
+			ni.interval = interval;
+		return ni;
+	}
+
+	private EqualIndex buildEqualIndex(Attribute at) throws AttributeAccessException
+	{
+		int n = cases.length;
+		EqualIndex ei = new EqualIndex();
+		ei.values = new Object[n];
+		HashMap<Object, List<Integer>> groups = new HashMap<Object, List<Integer>>();
+		for(int p=0; p<n; p++)
+		{
+			Object v = at.getValue(cases[p].getDescription());
+			ei.values[p] = v;
+			if(v == null)
+				continue;
+			List<Integer> g = groups.get(v);
+			if(g == null)
+			{
+				g = new ArrayList<Integer>();
+				groups.put(v, g);
+			}
+			g.add(p);
+		}
+		ei.groups = new HashMap<Object, int[]>();
+		for(Map.Entry<Object, List<Integer>> entry: groups.entrySet())
+		{
+			List<Integer> g = entry.getValue();
+			int[] a = new int[g.size()];
+			for(int i=0; i<a.length; i++)
+				a[i] = g.get(i);
+			ei.groups.put(entry.getKey(), a);
+		}
+		return ei;
+	}
+}
@@ -51,4 +51,31 @@ public class NNScoringMethod {
 		
 		return res;
 	}
+
+	/**
+	 * Performs the NN scoring and returns only the k most similar cases, most similar first.
+	 * The result is the same as selectTopKRR(evaluateSimilarity(cases, query, simConfig), k),
+	 * but only k results are kept in a bounded heap instead of sorting every case.
+	 * To avoid scoring every case, see NNIndex.
+	 * @param k number of cases to return
+	 */
+	public static Collection<RetrievalResult> evaluateSimilarity(Collection<CBRCase> cases, CBRQuery query, NNConfig simConfig, int k)
+	{
+		if(k >= cases.size())
+			return evaluateSimilarity(cases, query, simConfig);
+		if(k <= 0)
+			return new ArrayList<RetrievalResult>();
+		TopKResults top = new TopKResults(k);
+		ProgressController.init(NNScoringMethod.class,"Numeric Similarity Computation", cases.size());
+		GlobalSimilarityFunction gsf = simConfig.getDescriptionSimFunction();
+		int position = 0;
+		for(CBRCase _case: cases)
+		{
+			top.offer(_case, gsf.compute(_case.getDescription(), query.getDescription(), _case, query, simConfig), position++);
+			ProgressController.step(NNScoringMethod.class);
+		}
+		ProgressController.finish(NNScoringMethod.class);
+		
+		return top.toList();
+	}
 }
@@ -0,0 +1,220 @@
+/**
+ * ParallelNNScoringMethod.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.method.retrieve.NNretrieval;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CBRQuery;
+import jcolibri.method.retrieve.RetrievalResult;
+import jcolibri.method.retrieve.NNretrieval.similarity.GlobalSimilarityFunction;
+import jcolibri.util.ProgressController;
+
+/**
+ * Performs the same Nearest Neighbor scoring as NNScoringMethod using several threads.
+ * <p>
+ * The cases are split into chunks that are scored in parallel. Each chunk uses its own copy
+ * of the NNConfig (see NNConfig.copyForThread()), so InContextLocalSimilarityFunctions do not
+ * share their context between threads. When k cases are requested each chunk keeps only its k best
+ * cases and the chunks are merged at the end.
+ * The progress is reported once per finished chunk, from the calling thread.
+ * <p>
+ * The results, including the order of cases with the same similarity, are the same as the ones of NNScoringMethod.
+ * Small case bases, and configurations that NNConfig.copyForThread() cannot copy, are scored
+ * chunk by chunk in the calling thread, reporting the progress in the same way.
+ * @version 1.0
+ * @see jcolibri.method.retrieve.NNretrieval.NNScoringMethod
+ */
+public class ParallelNNScoringMethod {
+
+	/** Minimum number of cases of a chunk. */
+	private static final int MIN_CHUNK = 256;
+
+	/** Number of chunks per thread, so that threads that finish first take more chunks. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private static ExecutorService defaultExecutor;
+
+	/**
+	 * Returns the executor shared by the methods that do not receive one.
+	 * It has one daemon thread per processor.
+	 */
+	public static synchronized ExecutorService getDefaultExecutor()
+	{
+		if(defaultExecutor == null)
+			defaultExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+			{
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "ParallelNNScoringMethod");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		return defaultExecutor;
+	}
+
+	/**
+	 * Performs the NN scoring over a collection of cases comparing them with a query, using the default executor.
+	 * Returns every case, most similar first.
+	 */
+	public static Collection<RetrievalResult> evaluateSimilarity(Collection<CBRCase> cases, CBRQuery query, NNConfig simConfig)
+	{
+		return evaluateSimilarity(cases, query, simConfig, cases.size(), getDefaultExecutor());
+	}
+
+	/**
+	 * Performs the NN scoring using the default executor and returns only the k most similar cases, most similar first.
+	 */
+	public static Collection<RetrievalResult> evaluateSimilarity(Collection<CBRCase> cases, CBRQuery query, NNConfig simConfig, int k)
+	{
+		return evaluateSimilarity(cases, query, simConfig, k, getDefaultExecutor());
+	}
+
+	/**
+	 * Performs the NN scoring with the threads of the given executor and returns only the k most similar cases, most similar first.
+	 * The result is the same as NNScoringMethod.evaluateSimilarity(cases, query, simConfig, k).
+	 * @param k number of cases to return. Every case is returned if k is the size of the collection.
+	 * @param executor that runs the chunks. This method waits for them.
+	 */
+	public static Collection<RetrievalResult> evaluateSimilarity(Collection<CBRCase> cases, final CBRQuery query, NNConfig simConfig,
+			final int k, ExecutorService executor)
+	{
+		if(k <= 0)
+			return new ArrayList<RetrievalResult>();
+		int threads = Runtime.getRuntime().availableProcessors();
+		final CBRCase[] array = cases.toArray(new CBRCase[cases.size()]);
+		final boolean all = k >= array.length;
+		int chunkSize = Math.max(MIN_CHUNK, (array.length + threads * CHUNKS_PER_THREAD - 1) / (threads * CHUNKS_PER_THREAD));
+		int chunks = (array.length + chunkSize - 1) / chunkSize;
+
+		ProgressController.init(ParallelNNScoringMethod.class, "Numeric Similarity Computation", array.length);
+		Chunk[] results = new Chunk[chunks];
+		if(array.length < 2 * MIN_CHUNK || simConfig.copyForThread() == null)
+		{
+			// Too few cases, or similarity functions that cannot be shared between threads: score the chunks serially
+			for(int c=0; c<chunks; c++)
+			{
+				int first = c * chunkSize;
+				results[c] = score(array, first, Math.min(first + chunkSize, array.length), query, simConfig, all ? 0 : k);
+				ProgressController.step(ParallelNNScoringMethod.class, results[c].size);
+			}
+		}
+		else
+		{
+			CompletionService<Chunk> completion = new ExecutorCompletionService<Chunk>(executor);
+			List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>(chunks);
+			for(int c=0; c<chunks; c++)
+			{
+				final int first = c * chunkSize;
+				final int last = Math.min(first + chunkSize, array.length);
+				final NNConfig config = simConfig.copyForThread();
+				futures.add(completion.submit(new Callable<Chunk>()
+				{
+					public Chunk call()
+					{
+						return score(array, first, last, query, config, all ? 0 : k);
+					}
+				}));
+			}
+
+			try
+			{
+				for(int c=0; c<chunks; c++)
+				{
+					Chunk chunk = completion.take().get();
+					results[chunk.first / chunkSize] = chunk;
+					ProgressController.step(ParallelNNScoringMethod.class, chunk.size);
+				}
+			} catch (InterruptedException e)
+			{
+				for(Future<Chunk> f: futures)
+					f.cancel(true);
+				Thread.currentThread().interrupt();
+				org.apache.commons.logging.LogFactory.getLog(ParallelNNScoringMethod.class).error(e);
+				ProgressController.finish(ParallelNNScoringMethod.class);
+				return new ArrayList<RetrievalResult>();
+			} catch (ExecutionException e)
+			{
+				for(Future<Chunk> f: futures)
+					f.cancel(true);
+				ProgressController.finish(ParallelNNScoringMethod.class);
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				if(cause instanceof Error)
+					throw (Error)cause;
+				throw new RuntimeException(cause);
+			}
+		}
+
+		List<RetrievalResult> res;
+		if(all)
+		{
+			// chunks are concatenated in the order of the collection, so the stable sort breaks ties as NNScoringMethod does
+			res = new ArrayList<RetrievalResult>(array.length);
+			for(Chunk chunk: results)
+				res.addAll(chunk.all);
+			java.util.Collections.sort(res);
+		}
+		else
+		{
+			TopKResults top = new TopKResults(k);
+			for(Chunk chunk: results)
+				top.offerAll(chunk.top);
+			res = top.toList();
+		}
+		ProgressController.finish(ParallelNNScoringMethod.class);
+		return res;
+	}
+
+	/**
+	 * Results of scoring the cases first..last-1.
+	 */
+	private static class Chunk
+	{
+		int first;
+		int size;
+		/** every result in case order, when all the cases are returned */
+		List<RetrievalResult> all;
+		/** the k best results otherwise */
+		TopKResults top;
+	}
+
+	private static Chunk score(CBRCase[] cases, int first, int last, CBRQuery query, NNConfig simConfig, int k)
+	{
+		Chunk chunk = new Chunk();
+		chunk.first = first;
+		chunk.size = last - first;
+		GlobalSimilarityFunction gsf = simConfig.getDescriptionSimFunction();
+		if(k == 0)
+			chunk.all = new ArrayList<RetrievalResult>(chunk.size);
+		else
+			chunk.top = new TopKResults(k);
+		for(int p=first; p<last; p++)
+		{
+			CBRCase _case = cases[p];
+			double eval = gsf.compute(_case.getDescription(), query.getDescription(), _case, query, simConfig);
+			if(k == 0)
+				chunk.all.add(new RetrievalResult(_case, eval));
+			else
+				chunk.top.offer(_case, eval, p);
+		}
+		return chunk;
+	}
+}
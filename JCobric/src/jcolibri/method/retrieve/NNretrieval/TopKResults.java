@@ -0,0 +1,127 @@
+/**
+ * TopKResults.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.method.retrieve.NNretrieval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.method.retrieve.RetrievalResult;
+
+/**
+ * Bounded heap that keeps the k most similar cases seen so far.
+ * Cases with the same similarity are ranked by their position in the case collection,
+ * so the result is the same as sorting every case and taking the first k.
+ * @version 1.0
+ */
+public class TopKResults {
+
+	private static class Entry
+	{
+		RetrievalResult result;
+		int position;
+	}
+
+	/** Orders the worst entry first: lower similarity, or the later position on ties. */
+	private static final Comparator<Entry> WORST_FIRST = new Comparator<Entry>()
+	{
+		public int compare(Entry a, Entry b)
+		{
+			int c = compareEval(a.result.getEval(), b.result.getEval());
+			if(c != 0)
+				return c;
+			return b.position - a.position;
+		}
+	};
+
+	/**
+	 * Compares two similarities as RetrievalResult.compareTo() does, in ascending order,
+	 * so -0.0 and 0.0 are equal and NaN is equal to any similarity.
+	 */
+	private static int compareEval(double a, double b)
+	{
+		if(a < b)
+			return -1;
+		else if(a > b)
+			return 1;
+		else
+			return 0;
+	}
+
+	private final int k;
+	private final PriorityQueue<Entry> heap;
+
+	public TopKResults(int k)
+	{
+		this.k = k;
+		heap = new PriorityQueue<Entry>(k + 1, WORST_FIRST);
+	}
+
+	/**
+	 * Offers a case with its similarity and its position in the case collection.
+	 */
+	public void offer(CBRCase _case, double eval, int position)
+	{
+		if(heap.size() == k)
+		{
+			if(k == 0)
+				return;
+			// same order as WORST_FIRST, without creating the entry of a rejected case
+			Entry worst = heap.peek();
+			int c = compareEval(eval, worst.result.getEval());
+			if(c < 0 || (c == 0 && position > worst.position))
+				return;
+			heap.poll();
+		}
+		Entry e = new Entry();
+		e.result = new RetrievalResult(_case, eval);
+		e.position = position;
+		heap.add(e);
+	}
+
+	/**
+	 * Offers every case kept by another TopKResults.
+	 */
+	public void offerAll(TopKResults other)
+	{
+		for(Entry e: other.heap)
+			offer(e.result.get_case(), e.result.getEval(), e.position);
+	}
+
+	/**
+	 * Returns true once k cases have been kept.
+	 */
+	public boolean isFull()
+	{
+		return heap.size() == k;
+	}
+
+	/**
+	 * Returns the similarity of the k-th best case kept.
+	 */
+	public double worstEval()
+	{
+		return heap.peek().result.getEval();
+	}
+
+	/**
+	 * Returns the kept cases, most similar first.
+	 */
+	public List<RetrievalResult> toList()
+	{
+		List<Entry> entries = new ArrayList<Entry>(heap);
+		Collections.sort(entries, Collections.reverseOrder(WORST_FIRST));
+		List<RetrievalResult> res = new ArrayList<RetrievalResult>(entries.size());
+		for(Entry e: entries)
+			res.add(e.result);
+		return res;
+	}
+}
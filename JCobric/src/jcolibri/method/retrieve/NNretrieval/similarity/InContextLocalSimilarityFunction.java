@@ -23,7 +23,7 @@ import jcolibri.cbrcore.CaseComponent;
  * @see jcolibri.method.retrieve.NNretrieval.similarity.StandardGlobalSimilarityFunction
  * @see jcolibri.method.retrieve.NNretrieval.similarity.local.textual.LuceneTextSimilarity
  */
-public abstract class InContextLocalSimilarityFunction implements LocalSimilarityFunction
+public abstract class InContextLocalSimilarityFunction implements LocalSimilarityFunction, Cloneable
 {
     /**
      * component of the case that this attribute belongs to
@@ -64,4 +64,20 @@ public abstract class InContextLocalSimilarityFunction implements LocalSimilarit
 	this.attribute = attributeName;
     }
 
+    /**
+     * Returns a copy of this function with its own context, so that several threads can compare cases at the same time
+     * (see ParallelNNScoringMethod). By default it is a shallow copy: any other data is shared between the copies.
+     * Subclasses that change other data during compute() must override it.
+     */
+    public InContextLocalSimilarityFunction copy()
+    {
+	try
+	{
+	    return (InContextLocalSimilarityFunction)super.clone();
+	} catch (CloneNotSupportedException e)
+	{
+	    throw new InternalError(e.toString());
+	}
+    }
+
 }
@@ -22,6 +22,13 @@ public class Interval implements LocalSimilarityFunction {
 		_interval = interval;
 	}
 
+	/**
+	 * Returns the interval.
+	 */
+	public double getInterval() {
+		return _interval;
+	}
+
 	/**
 	 * Applies the similarity function.
 	 * 
@@ -16,7 +16,7 @@ import javax.swing.SwingConstants;
  * @author Juan A. Recio-Garca
  * @version 1.0
  */
-public class SwingProgressBar extends JFrame implements jcolibri.util.ProgressListener {
+public class SwingProgressBar extends JFrame implements jcolibri.util.BatchProgressListener {
 	private static final long serialVersionUID = 1L;
 
 	JPanel jPanel1 = new JPanel();
@@ -85,9 +85,19 @@ public class SwingProgressBar extends JFrame implements jcolibri.util.ProgressLi
 	 * Increase the progress bar count in 1 unit.
 	 */
 	public void step() {
+		step(1);
+	}
+
+	/**
+	 * Increase the progress bar count in several units.
+	 * 
+	 * @param steps
+	 *            number of units.
+	 */
+	public void step(int steps) {
         if(!jProgressBar1.isIndeterminate())
         {
-    		progress += stepPercentage;
+    		progress += steps * stepPercentage;
     		jProgressBar1.setValue((int) progress);
         }
 		/*
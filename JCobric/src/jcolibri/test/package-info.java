@@ -24,6 +24,7 @@ Following table summarizes which features of the framework are included in each
        <th>{@link jcolibri.test.test14 #14}</th>
        <th>{@link jcolibri.test.test15 #15}</th>
        <th>{@link jcolibri.test.test16 #16}</th>
+       <th>{@link jcolibri.test.test17 #17}</th>
 </tr>
 <tr>
        <th  align="left">Data Base connector</th>
@@ -43,6 +44,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td><img src="ok.jpg"></td>
 </tr>
 <tr>
        <th  align="left">Plain Text connector</th>
@@ -62,6 +64,7 @@ Following table summarizes which features of the framework are included in each
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th align="left">Ontology connector</th>
@@ -81,6 +84,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Custom connectors</th>
@@ -100,6 +104,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">KNN</th>
@@ -119,6 +124,7 @@ Following table summarizes which features of the framework are included in each
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>	   
+       <td><img src="ok.jpg"></td>
 </tr>
 <tr>
        <th  align="left">Enumerated Attributes</th>
@@ -138,6 +144,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">User Defined Types</th>
@@ -157,6 +164,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>	   
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Compound Attributes</th>
@@ -176,6 +184,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Reuse methods</th>
@@ -195,6 +204,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Revise methods</th>
@@ -214,6 +224,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th align="left">Retain methods</th>
@@ -233,6 +244,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Cases with solution</th>
@@ -252,6 +264,7 @@ Following table summarizes which features of the framework are included in each
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Attributes mapped to an ontology</th>
@@ -271,6 +284,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th align="left">Ontological similarity functions</th>
@@ -290,6 +304,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Evaluation of CBR systems</th>
@@ -309,6 +324,7 @@ Following table summarizes which features of the framework are included in each
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Visualization of case bases</th>
@@ -328,6 +344,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Textual CBR methods</th>
@@ -347,6 +364,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Textual similarity methods</th>
@@ -366,6 +384,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Lucene similarity method</th>
@@ -385,6 +404,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Accuracy Evaluation</th>
@@ -404,6 +424,7 @@ Following table summarizes which features of the framework are included in each
        <td><img src="ok.jpg"></td>
        <td></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Maintenance Algorithms</th>
@@ -423,6 +444,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td><img src="ok.jpg"></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Maintenance Evaluation</th>
@@ -442,6 +464,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td><img src="ok.jpg"></td>
        <td></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="left">Classification</th>
@@ -461,6 +484,7 @@ Following table summarizes which features of the framework are included in each
        <td></td>
        <td><img src="ok.jpg"></td>
        <td><img src="ok.jpg"></td>
+       <td></td>
 </tr>
 <tr>
        <th  align="right">Test</th>
@@ -480,6 +504,7 @@ Following table summarizes which features of the framework are included in each
        <th>{@link jcolibri.test.test14 #14}</th>
        <th>{@link jcolibri.test.test15 #15}</th>
        <th>{@link jcolibri.test.test16 #16}</th>
+       <th>{@link jcolibri.test.test17 #17}</th>
 </tr>
 </table>
 </center>
@@ -0,0 +1,217 @@
+/**
+ * Test17.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.test.test17;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import jcolibri.casebase.LinealCaseBase;
+import jcolibri.cbraplications.StandardCBRApplication;
+import jcolibri.cbrcore.Attribute;
+import jcolibri.cbrcore.CBRCase;
+import jcolibri.cbrcore.CBRCaseBase;
+import jcolibri.cbrcore.CBRQuery;
+import jcolibri.cbrcore.Connector;
+import jcolibri.connector.DataBaseConnector;
+import jcolibri.connector.PrimaryKeyFilter;
+import jcolibri.connector.databaseutils.QueryFilter;
+import jcolibri.exception.ExecutionException;
+import jcolibri.method.retrieve.RetrievalResult;
+import jcolibri.method.retrieve.NNretrieval.NNConfig;
+import jcolibri.method.retrieve.NNretrieval.NNScoringMethod;
+import jcolibri.method.retrieve.NNretrieval.similarity.global.Average;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Equal;
+import jcolibri.method.retrieve.NNretrieval.similarity.local.Interval;
+import jcolibri.method.retrieve.selection.SelectCases;
+import jcolibri.test.test1.TravelDescription;
+
+/**
+ * Test 17 shows how to use the DataBaseConnector with large case bases. It uses the travel example and the 
+ * description bean of Test1.
+ * <p>
+ * The connector configuration file (jcolibri/test/test17/databaseconfig.xml) also sets the optional FetchSize and
+ * BatchSize elements. They are very small here, so the cases of the Travel table are read in several pages
+ * and the stored cases are committed in several transactions:
+ * <pre>
+ * &lt;DataBaseConfiguration&gt;
+ *	  &lt;HibernateConfigFile&gt;jcolibri/test/test1/hibernate.cfg.xml&lt;/HibernateConfigFile&gt;
+ *	  &lt;DescriptionMappingFile&gt;jcolibri/test/test17/TravelDescription.hbm.xml&lt;/DescriptionMappingFile&gt;
+ *	  &lt;DescriptionClassName&gt;jcolibri.test.test1.TravelDescription&lt;/DescriptionClassName&gt;
+ *	  &lt;FetchSize&gt;10&lt;/FetchSize&gt;
+ *	  &lt;BatchSize&gt;2&lt;/BatchSize&gt;
+ * &lt;/DataBaseConfiguration&gt;
+ * </pre>
+ * The mapping file is the one of Test1, but the ids are assigned by the application because this example stores
+ * new cases with its own ids.
+ * <p>
+ * The cycle does not compare the query with every case: it uses a QueryFilter to read from the data base only 
+ * the cases for the same number of persons whose price is not higher than the price of the query.
+ * After the cycle, the example stores several copies of the query and reads them again with a PrimaryKeyFilter.
+ * 
+ * @version 1.0
+ * @see jcolibri.test.test1.Test1
+ * @see jcolibri.connector.DataBaseConnector
+ * @see jcolibri.connector.databaseutils.QueryFilter
+ * @see jcolibri.connector.PrimaryKeyFilter
+ */
+public class Test17 implements StandardCBRApplication {
+
+	/** Connector object */
+	Connector _connector;
+	/** CaseBase object */
+	CBRCaseBase _caseBase;
+	
+	/* (non-Javadoc)
+	 * @see jcolibri.cbraplications.BasicCBRApplication#configure()
+	 */
+	public void configure() throws ExecutionException{
+		try{
+		// Create a data base connector
+		_connector = new DataBaseConnector();
+		// Init the ddbb connector with the config file
+		_connector.initFromXMLfile(jcolibri.util.FileIO.findFile("jcolibri/test/test17/databaseconfig.xml"));
+		// Create a Lineal case base for in-memory organization
+		_caseBase  = new LinealCaseBase();
+		} catch (Exception e){
+			throw new ExecutionException(e);
+		}
+	}
+
+	
+	/* (non-Javadoc)
+	 * @see jcolibri.cbraplications.BasicCBRApplication#preCycle()
+	 */
+	public CBRCaseBase preCycle() throws ExecutionException {
+		// Load cases from connector into the case base. They are read in pages of FetchSize cases
+		_caseBase.init(_connector);		
+		System.out.println(_caseBase.getCases().size()+" cases in the case base");
+		return _caseBase;
+	}
+	
+	/* (non-Javadoc)
+	 * @see jcolibri.cbraplications.BasicCBRApplication#cycle()
+	 */
+	public void cycle(CBRQuery query) throws ExecutionException 
+	{		
+		TravelDescription queryDesc = (TravelDescription)query.getDescription();
+		
+		// Read only the cases that can be interesting for the query. The condition is executed by the data base
+		QueryFilter filter = new QueryFilter("d.NumberOfPersons = :persons and d.Price <= :price")
+			.setParameter("persons", queryDesc.getNumberOfPersons())
+			.setParameter("price", queryDesc.getPrice());
+		Collection<CBRCase> cases = _connector.retrieveSomeCases(filter);
+		
+		// Configure the KNN as in Test1
+		NNConfig simConfig = new NNConfig();
+		simConfig.setDescriptionSimFunction(new Average());
+		simConfig.addMapping(new Attribute("Accomodation", TravelDescription.class), new Equal());
+		Attribute duration = new Attribute("Duration", TravelDescription.class);
+		simConfig.addMapping(duration, new Interval(31));
+		simConfig.setWeight(duration, 0.5);
+		simConfig.addMapping(new Attribute("HolidayType", TravelDescription.class), new Equal());
+		simConfig.addMapping(new Attribute("Price", TravelDescription.class), new Interval(4000));
+		
+		// A bit of verbose
+		System.out.println("Query Description:");
+		System.out.println(queryDesc);
+		System.out.println(cases.size()+" cases selected by the filter");
+		System.out.println();
+		
+		// Execute NN over the selected cases
+		Collection<RetrievalResult> eval = NNScoringMethod.evaluateSimilarity(cases, query, simConfig);
+		
+		// Select k cases
+		eval = SelectCases.selectTopKRR(eval, 5);
+		
+		// Print the retrieval
+		System.out.println("Retrieved cases:");
+		for(RetrievalResult nse: eval)
+			System.out.println(nse);
+	}
+
+	/**
+	 * Stores copies of the description of the query with new ids, and reads them again by their ids.
+	 * The copies are committed in transactions of BatchSize cases.
+	 */
+	public void storeCopies(CBRQuery query, int copies)
+	{
+		TravelDescription queryDesc = (TravelDescription)query.getDescription();
+		Collection<CBRCase> cases = new ArrayList<CBRCase>();
+		for(int i=0; i<copies; i++)
+		{
+			TravelDescription desc = new TravelDescription();
+			desc.setCaseId("Test17-"+i);
+			desc.setAccomodation(queryDesc.getAccomodation());
+			desc.setDuration(queryDesc.getDuration());
+			desc.setHolidayType(queryDesc.getHolidayType());
+			desc.setNumberOfPersons(queryDesc.getNumberOfPersons());
+			desc.setPrice(queryDesc.getPrice());
+			CBRCase _case = new CBRCase();
+			_case.setDescription(desc);
+			cases.add(_case);
+		}
+		_connector.storeCases(cases);
+		
+		// Read the stored cases by their primary keys
+		Collection<CBRCase> stored = _connector.retrieveSomeCases(PrimaryKeyFilter.forCases(cases));
+		System.out.println("Stored cases:");
+		for(CBRCase c: stored)
+			System.out.println(c);
+	}
+
+	/* (non-Javadoc)
+	 * @see jcolibri.cbraplications.BasicCBRApplication#postCycle()
+	 */
+	public void postCycle() throws ExecutionException {
+		this._caseBase.close();
+
+	}
+
+	/**
+	 * Main function
+	 */
+	public static void main(String[] args) {
+	    	// Launch DDBB manager
+	    	jcolibri.test.database.HSQLDBserver.init();
+		// Create the application
+		Test17 test17 = new Test17();
+		try {
+			// Configure it
+			test17.configure();
+			// Run the precycle --> load the cases
+			test17.preCycle();
+			
+			// Configure the query. Queries only have description.
+			TravelDescription queryDesc = new TravelDescription();
+			queryDesc.setAccomodation("ThreeStars");
+			queryDesc.setDuration(7);
+			queryDesc.setHolidayType("Recreation");
+			queryDesc.setNumberOfPersons(2);
+			queryDesc.setPrice(700);
+			
+			CBRQuery query = new CBRQuery();
+			query.setDescription(queryDesc);
+			
+			// Run a cycle with the query
+			test17.cycle(query);
+			
+			// Store the query as new cases
+			test17.storeCopies(query, 5);
+			
+			// Run the postcycle
+			test17.postCycle();
+
+			//Shutdown DDBB manager
+		    	jcolibri.test.database.HSQLDBserver.shutDown();
+		} catch (Exception e) {
+			System.out.println(e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -11,6 +11,7 @@ package jcolibri.test.test8;
 import java.util.Collection;
 
 import jcolibri.casebase.CachedLinealCaseBase;
+import jcolibri.cbraplications.ConcurrentCBRApplication;
 import jcolibri.cbraplications.StandardCBRApplication;
 import jcolibri.cbrcore.Attribute;
 import jcolibri.cbrcore.CBRCase;
@@ -31,7 +32,8 @@ import org.apache.commons.logging.Log;
 
 /**
  * Evaluable application. It is a normal StandardCBRApplication that stores its results in the EvaluationReport object
- * obtained from Evaluator.getEvaluationReport()
+ * obtained from Evaluator.getEvaluationReport().
+ * As its cycles can run concurrently over different case bases, it is a ConcurrentCBRApplication.
  * @author Juan A. Recio-Garci
  * @version 1.0
  * 
@@ -39,7 +41,7 @@ import org.apache.commons.logging.Log;
  * @see jcolibri.evaluation.EvaluationReport
  *
  */
-public class EvaluableApp implements StandardCBRApplication {
+public class EvaluableApp implements ConcurrentCBRApplication {
 
 	Connector _connector;
 	CBRCaseBase _caseBase;
@@ -97,6 +99,17 @@ public class EvaluableApp implements StandardCBRApplication {
 		Evaluator.getEvaluationReport().addDataToSeries("Similarity", new Double(eval.iterator().next().getEval()));
 	}
 
+	/* (non-Javadoc)
+	 * @see jcolibri.cbraplications.ConcurrentCBRApplication#copyFor(jcolibri.cbrcore.CBRCaseBase)
+	 */
+	public StandardCBRApplication copyFor(CBRCaseBase caseBase) throws ExecutionException {
+		EvaluableApp copy = new EvaluableApp();
+		copy._connector = _connector;
+		copy._caseBase = caseBase;
+		copy.log = log;
+		return copy;
+	}
+
 	/* (non-Javadoc)
 	 * @see jcolibri.cbraplications.BasicCBRApplication#postCycle()
 	 */
@@ -0,0 +1,24 @@
+/**
+ * BatchProgressListener.java
+ * jCOLIBRI2 framework.
+ * GAIA - Group for Artificial Intelligence Applications
+ * http://gaia.fdi.ucm.es
+ * 19/10/2026
+ */
+package jcolibri.util;
+
+/**
+ * Progress listener that can receive several steps at once.
+ * The ProgressController notifies the steps of ProgressController.step(Class, int) with a single call
+ * to these listeners, and one by one to the other listeners.
+ * @version 1.0
+ * @see jcolibri.util.ProgressController
+ */
+public interface BatchProgressListener extends ProgressListener {
+
+	/**
+	 * Several steps executed at once.
+	 * @param steps Number of steps.
+	 */
+	public void step(int steps);
+}
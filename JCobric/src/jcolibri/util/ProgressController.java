@@ -114,6 +114,32 @@ public class ProgressController {
 		
 	}
 	
+	/**
+	 * Notifies several steps at once in the task for a concrete class.
+	 * Useful for tasks that report their progress in batches.
+	 */
+	public static void step(Class c, int steps)
+	{
+		Collection<ProgressListener> ls = listeners.get(c);
+		if(ls!=null)
+			for(ProgressListener pl:ls)
+				step(pl, steps);
+		for(ProgressListener pl: listenersEverything)
+			step(pl, steps);
+	}
+	
+	/**
+	 * Notifies the steps at once to a BatchProgressListener, or one by one to other listeners.
+	 */
+	private static void step(ProgressListener pl, int steps)
+	{
+		if(pl instanceof BatchProgressListener)
+			((BatchProgressListener)pl).step(steps);
+		else
+			for(int i=0; i<steps; i++)
+				pl.step();
+	}
+	
 	/**
 	 * Finishes the progress of a task.
 	 */